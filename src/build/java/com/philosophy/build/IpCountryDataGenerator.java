@@ -0,0 +1,134 @@
+package com.philosophy.build;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 生成 IpCountryDatabase 使用的IP归属国家数据文件（构建工具，不打包进应用）
+ * 读取五个RIR（APNIC、RIPE NCC、ARIN、LACNIC、AFRINIC）发布的 delegated-*-extended 统计文件，
+ * 保留已分配（allocated/assigned）且带国家代码的IPv4/IPv6记录，按RIR固定顺序、文件内原有顺序输出为
+ * registry|CC|type|start|value 格式；文件头记录每个RIR文件的序列号，相同输入总是得到相同输出。
+ *
+ * 用法：java IpCountryDataGenerator.java 输出文件 [本地统计文件...]
+ * 不指定本地文件时从各RIR下载最新文件。通过 mvn -Pip-data generate-resources 运行。
+ * 无法联网时可以用 src/build/ip/delegated-offline-seed.txt 生成只含常用大段的数据，联网后应重新生成。
+ */
+public class IpCountryDataGenerator {
+
+    private static final List<String> SOURCES = List.of(
+            "https://ftp.apnic.net/stats/apnic/delegated-apnic-extended-latest",
+            "https://ftp.ripe.net/pub/stats/ripencc/delegated-ripencc-extended-latest",
+            "https://ftp.arin.net/pub/stats/arin/delegated-arin-extended-latest",
+            "https://ftp.lacnic.net/pub/stats/lacnic/delegated-lacnic-extended-latest",
+            "https://ftp.afrinic.net/pub/stats/afrinic/delegated-afrinic-extended-latest");
+
+    private static final Set<String> ASSIGNED_STATUSES = Set.of("allocated", "assigned");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("用法: java IpCountryDataGenerator.java <输出文件> [本地统计文件...]");
+            System.exit(2);
+        }
+        Path output = Paths.get(args[0]);
+        List<String> header = new ArrayList<>();
+        List<String> records = new ArrayList<>();
+
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) {
+                try (InputStream in = Files.newInputStream(Paths.get(args[i]))) {
+                    readDelegated(args[i], in, header, records);
+                }
+            }
+        } else {
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .build();
+            for (String source : SOURCES) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(source)).timeout(Duration.ofMinutes(5)).build();
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                if (response.statusCode() != 200) {
+                    throw new IOException("下载失败 (HTTP " + response.statusCode() + "): " + source);
+                }
+                try (InputStream in = response.body()) {
+                    readDelegated(source, in, header, records);
+                }
+            }
+        }
+
+        if (records.isEmpty()) {
+            throw new IllegalStateException("统计文件中没有可用的记录，未写入 " + output);
+        }
+        write(output, header, records);
+        System.out.println("已生成 " + output + "，共 " + records.size() + " 条记录");
+    }
+
+    /**
+     * 读取一个RIR统计文件
+     * 版本行（第一列为数字）记入文件头，汇总行（国家代码为*）和未分配的记录跳过
+     */
+    private static void readDelegated(String source, InputStream in, List<String> header, List<String> records)
+            throws IOException {
+        int before = records.size();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\|", -1);
+                if (parts.length >= 3 && !parts[0].isEmpty() && Character.isDigit(parts[0].charAt(0))) {
+                    // 版本行：version|registry|serial|records|startdate|enddate|UTCoffset
+                    header.add("# " + parts[1] + " serial " + parts[2] + " (" + source + ")");
+                    continue;
+                }
+                if (parts.length < 7 || parts[1].length() != 2 || !ASSIGNED_STATUSES.contains(parts[6])) {
+                    continue;
+                }
+                if (!"ipv4".equals(parts[2]) && !"ipv6".equals(parts[2])) {
+                    continue;
+                }
+                records.add(parts[0] + "|" + parts[1].toUpperCase() + "|" + parts[2] + "|" + parts[3] + "|" + parts[4]);
+            }
+        }
+        System.out.println(source + ": " + (records.size() - before) + " 条记录");
+    }
+
+    private static void write(Path output, List<String> header, List<String> records) throws IOException {
+        Path parent = output.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "ip-country", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("# IP归属国家数据（由 IpCountryDatabase 在启动时加载）\n");
+            writer.write("# 由 IpCountryDataGenerator 生成，请勿手工编辑：mvn -Pip-data generate-resources\n");
+            writer.write("# 格式：registry|CC|ipv4|起始地址|地址数 或 registry|CC|ipv6|起始地址|前缀长度\n");
+            writer.write("# 也可以通过 app.ip-database.location 指向外部文件（例如 file:/opt/philosophy/ip-country.txt）\n");
+            writer.write("# 数据来源：\n");
+            for (String line : header) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            for (String record : records) {
+                writer.write(record);
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
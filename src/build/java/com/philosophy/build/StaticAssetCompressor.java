@@ -0,0 +1,184 @@
+package com.philosophy.build;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 构建时静态资源预压缩工具（构建工具，不打包进应用）
+ * 由 exec-maven-plugin 在 process-classes 阶段以源文件方式运行，为 target/classes/static 下的文本资源生成 .gz（以及 .br）文件，
+ * 运行时由 StaticResourceConfig 中的 EncodedResourceResolver 按 Accept-Encoding 直接返回预压缩文件。
+ * - gzip 使用JDK自带实现，任何平台都会生成
+ * - brotli 需要系统中安装 brotli 命令行工具。没有时默认输出警告并只提供gzip；
+ *   发布构建可以用 -Dstatic-assets.brotli=required 要求必须生成，找不到命令或压缩失败时构建失败
+ * 压缩后体积没有明显减小的文件不保留压缩版本。
+ *
+ * 用法：java StaticAssetCompressor.java 静态资源目录 [optional|required]
+ */
+public final class StaticAssetCompressor {
+
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of("css", "js", "json", "txt", "svg", "html", "map");
+    private static final long MIN_SIZE_BYTES = 1024;
+    // 压缩后至少减小10%才保留
+    private static final double MAX_RATIO = 0.9;
+
+    private StaticAssetCompressor() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args.length > 0 ? args[0] : "target/classes/static");
+        String brotliMode = args.length > 1 ? args[1].trim().toLowerCase(Locale.ROOT) : "optional";
+        if (!"optional".equals(brotliMode) && !"required".equals(brotliMode)) {
+            System.err.println("[static-assets] 无效的brotli模式: " + args[1] + "（可选值 optional、required）");
+            System.exit(2);
+        }
+        boolean brotliRequired = "required".equals(brotliMode);
+        if (!Files.isDirectory(root)) {
+            System.out.println("[static-assets] 目录不存在，跳过预压缩: " + root.toAbsolutePath());
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(Files::isRegularFile)
+                    .filter(StaticAssetCompressor::isCompressible)
+                    .collect(Collectors.toList());
+        }
+
+        boolean brotliAvailable = isBrotliAvailable();
+        if (!brotliAvailable) {
+            if (brotliRequired) {
+                System.err.println("[static-assets] 未找到brotli命令行工具，无法生成 .br 文件（static-assets.brotli=required）");
+                System.exit(1);
+            }
+            System.err.println("[WARNING] [static-assets] 未找到brotli命令行工具，本次构建只生成 .gz 文件；"
+                    + "安装brotli后重新构建，或使用 -Dstatic-assets.brotli=required 让构建在缺少brotli时失败");
+        }
+
+        int gzipCount = 0;
+        int brotliCount = 0;
+        int brotliFailures = 0;
+        for (Path file : files) {
+            if (gzip(file)) {
+                gzipCount++;
+            }
+            if (brotliAvailable) {
+                BrotliResult result = brotli(file);
+                if (result == BrotliResult.KEPT) {
+                    brotliCount++;
+                } else if (result == BrotliResult.FAILED) {
+                    brotliFailures++;
+                    System.err.println("[WARNING] [static-assets] brotli压缩失败: " + root.relativize(file));
+                }
+            }
+        }
+        System.out.println("[static-assets] 预压缩完成: gzip " + gzipCount + " 个, brotli " + brotliCount + " 个"
+                + (brotliAvailable ? "" : "（未找到brotli命令，已跳过）"));
+        if (brotliRequired && brotliFailures > 0) {
+            System.err.println("[static-assets] " + brotliFailures + " 个文件brotli压缩失败（static-assets.brotli=required）");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 单个文件的brotli压缩结果：保留、压缩率不足而丢弃、失败
+     */
+    private enum BrotliResult {
+        KEPT, DISCARDED, FAILED
+    }
+
+    private static boolean isCompressible(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        String extension = name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        try {
+            return COMPRESSIBLE_EXTENSIONS.contains(extension) && Files.size(file) >= MIN_SIZE_BYTES;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean gzip(Path file) throws IOException {
+        Path target = file.resolveSibling(file.getFileName() + ".gz");
+        if (isUpToDate(file, target)) {
+            return true;
+        }
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target)) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            Files.copy(file, out);
+        }
+        return keepIfSmaller(file, target);
+    }
+
+    private static BrotliResult brotli(Path file) {
+        Path target = file.resolveSibling(file.getFileName() + ".br");
+        try {
+            if (isUpToDate(file, target)) {
+                return BrotliResult.KEPT;
+            }
+            Process process = new ProcessBuilder("brotli", "-f", "-q", "11", "-o", target.toString(), file.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(60, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                process.destroyForcibly();
+                Files.deleteIfExists(target);
+                return BrotliResult.FAILED;
+            }
+            return keepIfSmaller(file, target) ? BrotliResult.KEPT : BrotliResult.DISCARDED;
+        } catch (IOException e) {
+            return BrotliResult.FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return BrotliResult.FAILED;
+        }
+    }
+
+    private static boolean keepIfSmaller(Path source, Path compressed) throws IOException {
+        if (Files.size(compressed) > Files.size(source) * MAX_RATIO) {
+            Files.delete(compressed);
+            return false;
+        }
+        // 与源文件保持相同的修改时间，增量构建时据此判断是否需要重新压缩
+        FileTime sourceTime = Files.getLastModifiedTime(source);
+        Files.setLastModifiedTime(compressed, sourceTime);
+        return true;
+    }
+
+    private static boolean isUpToDate(Path source, Path compressed) throws IOException {
+        return Files.exists(compressed)
+                && Files.getLastModifiedTime(compressed).equals(Files.getLastModifiedTime(source));
+    }
+
+    private static boolean isBrotliAvailable() {
+        try {
+            Process process = new ProcessBuilder("brotli", "--version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
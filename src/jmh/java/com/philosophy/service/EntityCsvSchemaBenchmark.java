@@ -0,0 +1,87 @@
+package com.philosophy.service;
+
+import com.opencsv.CSVWriter;
+import com.philosophy.model.Comment;
+import com.philosophy.model.Content;
+import com.philosophy.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每行导出耗时：EntityCsvSchema 与原来的 Field.get + toString + CSVWriter 写法对比
+ * 行数据为一条评论（两个多对一关联、三个时间字段），输出写入空Writer，只计算取值、格式化和转义。
+ * 运行：mvn -Pjmh integration-test
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCsvSchemaBenchmark {
+
+    private Comment comment;
+    private EntityCsvSchema<Comment> schema;
+    private StringBuilder sb;
+    private Writer out;
+
+    private Field[] fields;
+    private CSVWriter csvWriter;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(42L);
+        Content content = new Content();
+        content.setId(7L);
+        comment = new Comment();
+        comment.setId(1001L);
+        comment.setContent(content);
+        comment.setUser(user);
+        comment.setBody("他说：\"未经省察的人生不值得过\"，这句话常被引用。");
+        comment.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30, 15));
+        comment.setUpdatedAt(LocalDateTime.of(2024, 3, 2, 8, 0, 0));
+        comment.setLikeCount(12);
+
+        schema = EntityCsvSchema.of(Comment.class);
+        sb = new StringBuilder(512);
+        out = Writer.nullWriter();
+
+        fields = Comment.class.getDeclaredFields();
+        for (Field field : fields) {
+            field.setAccessible(true);
+        }
+        csvWriter = new CSVWriter(Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void schemaAppendRow() throws IOException {
+        sb.setLength(0);
+        schema.appendRow(comment, sb);
+        out.append(sb);
+    }
+
+    @Benchmark
+    public void reflectiveRow() throws IllegalAccessException {
+        String[] row = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Object value = fields[i].get(comment);
+            row[i] = value != null ? value.toString() : "";
+        }
+        csvWriter.writeNext(row);
+    }
+}
@@ -1,7 +1,7 @@
 package com.philosophy.config;
 
-import com.philosophy.model.User;
-import com.philosophy.service.UserService;
+import com.philosophy.security.UserSnapshot;
+import com.philosophy.service.UserSnapshotService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.ui.Model;
@@ -18,10 +18,10 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 @ControllerAdvice
 public class GlobalControllerAdvice {
 
-    private final UserService userService;
+    private final UserSnapshotService userSnapshotService;
 
-    public GlobalControllerAdvice(UserService userService) {
-        this.userService = userService;
+    public GlobalControllerAdvice(UserSnapshotService userSnapshotService) {
+        this.userSnapshotService = userSnapshotService;
     }
 
     /**
@@ -37,8 +37,8 @@ public class GlobalControllerAdvice {
             if (authentication != null && authentication.isAuthenticated() 
                 && !"anonymousUser".equals(authentication.getPrincipal())) {
                 
-                String username = authentication.getName();
-                User currentUser = userService.findByUsername(username);
+                // 读取会话中的用户快照，不再每次渲染都查询users表
+                UserSnapshot currentUser = userSnapshotService.getCurrentSnapshot(authentication);
                 
                 if (currentUser != null && currentUser.getTheme() != null) {
                     // 添加用户保存的主题设置
@@ -0,0 +1,23 @@
+package com.philosophy.config;
+
+import com.philosophy.service.IpApiCountryResolver;
+import com.philosophy.service.IpCountryResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * IP地理位置相关Bean配置
+ * 远程解析默认使用 ip-api.com；注册了其他 IpCountryResolver（测试、离线环境或其他服务商）时不再创建默认实现。
+ */
+@Configuration
+public class IpLocationConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(IpCountryResolver.class)
+    public IpCountryResolver ipCountryResolver(
+            @Value("${app.ip-location.remote-requests-per-minute:45}") int requestsPerMinute) {
+        return new IpApiCountryResolver(requestsPerMinute);
+    }
+}
@@ -0,0 +1,218 @@
+package com.philosophy.config;
+
+import com.philosophy.event.PublicContentChangedEvent;
+import com.philosophy.util.LanguageUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 游客整页缓存
+ * 未登录用户访问首页和各列表页时，在相同语言下看到的HTML完全相同（主题固定为midnight），
+ * 因此按 路径+查询参数+语言 缓存渲染结果，命中时跳过Controller、数据库查询和Thymeleaf渲染。
+ * - 缓存内容为gzip压缩后的字节，客户端支持gzip时直接输出
+ * - 每个路由有独立的过期时间
+ * - 带ETag，客户端重新验证时返回304
+ * - 内容、哲学家、流派、评论、翻译变化或数据导入后，相应服务发布 PublicContentChangedEvent，
+ *   事务提交后清空缓存；其他写请求（点赞、登录、试运行校验、导出等）不影响缓存
+ * 该过滤器注册在Spring Security过滤器链之后，以便根据认证信息判断是否为游客。
+ * 游客页面不包含CSRF令牌（header片段只为已登录用户输出），缓存的HTML中没有任何与访客相关的内容。
+ */
+@Component
+public class PageCacheFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageCacheFilter.class);
+
+    // 可缓存的路由及其过期时间（毫秒）
+    private static final Map<String, Long> ROUTE_TTL_MILLIS = new LinkedHashMap<>();
+
+    static {
+        ROUTE_TTL_MILLIS.put("/", 60_000L);
+        ROUTE_TTL_MILLIS.put("/philosophers", 300_000L);
+        ROUTE_TTL_MILLIS.put("/schools", 300_000L);
+        ROUTE_TTL_MILLIS.put("/contents", 120_000L);
+        ROUTE_TTL_MILLIS.put("/quotes", 300_000L);
+    }
+
+    // 单个页面的最大缓存大小，超过则不缓存
+    private static final int MAX_PAGE_BYTES = 2 * 1024 * 1024;
+
+    private final LanguageUtil languageUtil;
+
+    private final Map<String, CachedPage> pages;
+
+    @Value("${app.page-cache.enabled:true}")
+    private boolean enabled;
+
+    public PageCacheFilter(LanguageUtil languageUtil,
+                           @Value("${app.page-cache.max-entries:500}") int maxEntries) {
+        this.languageUtil = languageUtil;
+        // 按访问顺序淘汰，防止带任意查询参数的请求撑满内存
+        this.pages = Collections.synchronizedMap(new LinkedHashMap<String, CachedPage>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * 清空所有缓存页面
+     */
+    public void invalidateAll() {
+        pages.clear();
+        logger.debug("游客页面缓存已清空");
+    }
+
+    /**
+     * 游客可见的数据变化后清空缓存；在事务中发布时等提交后再清空，避免提交前的并发请求把旧数据重新写入缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPublicContentChanged(PublicContentChangedEvent event) {
+        logger.debug("收到数据变化事件 {}，清空游客页面缓存", event);
+        invalidateAll();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!"GET".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Long ttl = ROUTE_TTL_MILLIS.get(path);
+        if (ttl == null || !isAnonymous()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = buildKey(request, path);
+        CachedPage cached = pages.get(key);
+        if (cached != null && !cached.isExpired(ttl)) {
+            writeCachedPage(cached, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            storeIfCacheable(key, wrapper);
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean isAnonymous() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken;
+    }
+
+    private String buildKey(HttpServletRequest request, String path) {
+        String query = request.getQueryString();
+        String language = languageUtil.getLanguage(request);
+        return language + "|" + path + (query != null ? "?" + query : "");
+    }
+
+    private void storeIfCacheable(String key, ContentCachingResponseWrapper wrapper) {
+        String contentType = wrapper.getContentType();
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || contentType == null || !contentType.startsWith("text/html")) {
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        if (body.length == 0 || body.length > MAX_PAGE_BYTES) {
+            return;
+        }
+        try {
+            CachedPage page = new CachedPage(gzip(body), contentType, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+            pages.put(key, page);
+            writeValidatorHeaders(page, wrapper);
+        } catch (IOException e) {
+            logger.warn("缓存页面压缩失败: {}", e.getMessage());
+        }
+    }
+
+    private void writeCachedPage(CachedPage cached, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        writeValidatorHeaders(cached, response);
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.contains(cached.etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(cached.contentType);
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader("Content-Encoding", "gzip");
+            response.setContentLength(cached.gzippedBody.length);
+            response.getOutputStream().write(cached.gzippedBody);
+        } else {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(cached.gzippedBody))) {
+                in.transferTo(response.getOutputStream());
+            }
+        }
+    }
+
+    private void writeValidatorHeaders(CachedPage page, HttpServletResponse response) {
+        response.setHeader("ETag", page.etag);
+        // 页面内容随语言（会话）变化，只允许浏览器私有缓存，且每次使用前需重新验证
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.setHeader("Vary", "Accept-Encoding, Cookie");
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static final class CachedPage {
+        private final byte[] gzippedBody;
+        private final String contentType;
+        private final String etag;
+        private final long createdAt = System.currentTimeMillis();
+
+        private CachedPage(byte[] gzippedBody, String contentType, String etag) {
+            this.gzippedBody = gzippedBody;
+            this.contentType = contentType;
+            this.etag = etag;
+        }
+
+        private boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - createdAt > ttlMillis;
+        }
+    }
+}
@@ -6,12 +6,16 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.core.Ordered;
 import jakarta.servlet.Filter;
 import com.philosophy.security.DeviceIdFilter;
+import com.philosophy.security.RateLimitFilter;
 import com.philosophy.security.CustomAuthenticationFailureHandler;
 import org.springframework.http.HttpMethod;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.philosophy.model.User;
 import com.philosophy.service.IpLocationService;
+import com.philosophy.service.UserSnapshotService;
 import com.philosophy.util.LanguageUtil;
 
 @Configuration
@@ -31,15 +36,18 @@ public class SecurityConfig {
     private final CustomAuthenticationFailureHandler customAuthenticationFailureHandler;
     private final IpLocationService ipLocationService;
     private final LanguageUtil languageUtil;
+    private final UserSnapshotService userSnapshotService;
     
     public SecurityConfig(com.philosophy.service.UserService userService,
                           CustomAuthenticationFailureHandler customAuthenticationFailureHandler,
                           IpLocationService ipLocationService,
-                          LanguageUtil languageUtil) {
+                          LanguageUtil languageUtil,
+                          UserSnapshotService userSnapshotService) {
         this.userService = userService;
         this.customAuthenticationFailureHandler = customAuthenticationFailureHandler;
         this.ipLocationService = ipLocationService;
         this.languageUtil = languageUtil;
+        this.userSnapshotService = userSnapshotService;
     }
 
     @Bean
@@ -48,7 +56,9 @@ public class SecurityConfig {
         
         http
             // 禁用CSRF保护以便于测试
+            // CSRF令牌保存在Cookie中，不为只浏览页面的游客创建会话
             .csrf(csrf -> csrf
+                .csrfTokenRepository(new CookieCsrfTokenRepository())
                 .ignoringRequestMatchers("/register/send-code", "/likes/toggle", "/admin/data-import/upload", "/user/profile/*/theme")
             )
             // 添加请求日志记录过滤器
@@ -84,6 +94,8 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.POST, "/comments/privacy/**").authenticated()
                 // 评论状态设置需要认证
                 .requestMatchers(HttpMethod.POST, "/comments/status/**").authenticated()
+                // 点赞排行榜为公开数据
+                .requestMatchers(HttpMethod.GET, "/likes/leaderboard").permitAll()
                 // 点赞相关端点需要认证
                 .requestMatchers("/likes/**").authenticated()
                 // 测试结果保存/可见性/删除需认证
@@ -117,6 +129,15 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * 静态资源不经过Spring Security过滤器链（包括上面的请求日志过滤器），
+     * 这些路径本来就对所有人开放，也不需要会话和安全上下文
+     */
+    @Bean
+    public WebSecurityCustomizer staticResourceSecurityCustomizer() {
+        return web -> web.ignoring().requestMatchers(StaticResourceConfig.STATIC_RESOURCE_PATTERNS);
+    }
+
     @Bean
     public FilterRegistrationBean<Filter> deviceIdFilterRegistration(DeviceIdFilter deviceIdFilter) {
         FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>();
@@ -127,6 +148,28 @@ public class SecurityConfig {
         return registration;
     }
 
+    @Bean
+    public FilterRegistrationBean<Filter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>();
+        registration.setFilter(rateLimitFilter);
+        registration.addUrlPatterns("/*");
+        registration.setName("rateLimitFilter");
+        // 在Spring Security之前执行，被限流的登录请求不会进入认证流程
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<Filter> pageCacheFilterRegistration(PageCacheFilter pageCacheFilter) {
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>();
+        registration.setFilter(pageCacheFilter);
+        registration.addUrlPatterns("/*");
+        registration.setName("pageCacheFilter");
+        // 必须在Spring Security过滤器链之后执行，才能判断当前请求是否为游客
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+
     // Remove the deprecated authenticationProvider() method as it's no longer needed
     // Spring Security will automatically configure DaoAuthenticationProvider
     // when UserDetailsService and PasswordEncoder beans are available
@@ -148,12 +191,15 @@ public class SecurityConfig {
                     
                     // 如果用户没有设置语言偏好，根据IP地址判断默认语言
                     if (userLanguage == null || userLanguage.trim().isEmpty()) {
-                        boolean isForeign = ipLocationService.isForeignIp(request);
-                        userLanguage = isForeign ? "en" : "zh";
+                        // 不等待远程解析；归属地未知时暂用中文，且不写入数据库，下次登录再判断
+                        Boolean isForeign = ipLocationService.peekForeignIp(request);
+                        userLanguage = Boolean.TRUE.equals(isForeign) ? "en" : "zh";
                         
-                        // 保存到数据库
-                        user.setLanguage(userLanguage);
-                        userService.updateUser(user);
+                        if (isForeign != null) {
+                            // 保存到数据库
+                            user.setLanguage(userLanguage);
+                            userService.updateUser(user);
+                        }
                         
                         logger.info("User {} 没有语言偏好，根据IP地址设置默认语言: {} (IP是否国外: {})", 
                                     user.getUsername(), userLanguage, isForeign);
@@ -163,10 +209,7 @@ public class SecurityConfig {
                     request.getSession().setAttribute("language", userLanguage);
                     
                     // 设置到Cookie
-                    jakarta.servlet.http.Cookie languageCookie = new jakarta.servlet.http.Cookie("philosophy_language", userLanguage);
-                    languageCookie.setPath("/");
-                    languageCookie.setMaxAge(30 * 24 * 60 * 60); // 30天
-                    response.addCookie(languageCookie);
+                    languageUtil.writeLanguageCookie(response, userLanguage);
                     
                     logger.info("User {} language preference loaded: {}", user.getUsername(), userLanguage);
                 } catch (Exception e) {
@@ -179,6 +222,9 @@ public class SecurityConfig {
                         logger.error("Failed to set default language", ex);
                     }
                 }
+
+                // 在会话中建立用户快照，后续请求不再查询users表
+                userSnapshotService.establish(request.getSession(), user);
             } catch (Exception e) {
                 logger.error("Failed to record user login info", e);
             }
@@ -0,0 +1,42 @@
+package com.philosophy.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 统计当前存活的HttpSession数量
+ * 指标：http.sessions.active（当前数量）、http.sessions.created（累计创建数）
+ * 游客访问不应创建Session，这两个指标可以反映Session占用的内存变化。
+ */
+@Component
+public class SessionMetricsListener implements HttpSessionListener {
+
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final Counter createdSessions;
+
+    public SessionMetricsListener(MeterRegistry meterRegistry) {
+        Gauge.builder("http.sessions.active", activeSessions, AtomicInteger::get)
+                .description("当前存活的HttpSession数量")
+                .register(meterRegistry);
+        this.createdSessions = Counter.builder("http.sessions.created")
+                .description("累计创建的HttpSession数量")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void sessionCreated(HttpSessionEvent event) {
+        activeSessions.incrementAndGet();
+        createdSessions.increment();
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        activeSessions.decrementAndGet();
+    }
+}
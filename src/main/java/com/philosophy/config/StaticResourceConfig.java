@@ -1,17 +1,56 @@
 package com.philosophy.config;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.lang.NonNull;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.regex.Pattern;
 
+/**
+ * 静态资源配置
+ * css/js/data/images 通过资源链提供：
+ * - 模板中 @{/js/xxx.js} 生成的地址会自动带上内容哈希（如 /js/xxx-<md5>.js），文件内容变化后地址随之变化
+ * - 构建时生成的 .br/.gz 预压缩文件按 Accept-Encoding 直接返回（见 src/build 下的 StaticAssetCompressor）
+ * - 带哈希的地址返回 Cache-Control: immutable，浏览器一年内不再请求；不带哈希的地址每次都要协商缓存
+ */
 @Configuration
 public class StaticResourceConfig implements WebMvcConfigurer {
 
+    /**
+     * 静态资源路径，这些请求不经过Spring Security过滤器链和设备ID过滤器
+     */
+    public static final String[] STATIC_RESOURCE_PATTERNS = {
+            "/css/**", "/js/**", "/images/**", "/data/**", "/uploads/**"
+    };
+
+    private static final String[] STATIC_RESOURCE_PREFIXES = {
+            "/css/", "/js/", "/images/", "/data/", "/uploads/"
+    };
+
+    // 由资源链生成内容哈希的路径（uploads是用户上传文件，不参与）
+    private static final String[] VERSIONED_RESOURCE_PATTERNS = {
+            "/css/**", "/js/**", "/images/**", "/data/**"
+    };
+
+    // ContentVersionStrategy 生成的文件名：name-<32位md5>.ext
+    private static final Pattern VERSIONED_FILE_NAME = Pattern.compile("-[0-9a-f]{32}\\.[^/]+$");
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE_CACHE_CONTROL = "no-cache";
+
     @Value("${app.upload.dir:./uploads}")
     private String uploadDir;
 
@@ -24,7 +63,52 @@ public class StaticResourceConfig implements WebMvcConfigurer {
             .addResourceHandler("/uploads/**")
             .addResourceLocations(uploadLocation)
             .setCachePeriod(3600);
+
+        // 不在处理器上设置缓存时间，Cache-Control 由 staticCacheControlInterceptor 按地址是否带哈希决定
+        registry
+            .addResourceHandler(VERSIONED_RESOURCE_PATTERNS)
+            .addResourceLocations("classpath:/static/")
+            .resourceChain(true)
+            // 预压缩解析器必须在版本解析器之前
+            .addResolver(new EncodedResourceResolver())
+            .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
     }
-}
 
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                     @NonNull Object handler) {
+                boolean versioned = VERSIONED_FILE_NAME.matcher(request.getRequestURI()).find();
+                response.setHeader("Cache-Control", versioned ? IMMUTABLE_CACHE_CONTROL : REVALIDATE_CACHE_CONTROL);
+                return true;
+            }
+        }).addPathPatterns(VERSIONED_RESOURCE_PATTERNS);
+    }
 
+    /**
+     * 重写模板中生成的静态资源地址，使其带上内容哈希
+     * Thymeleaf 的 @{...} 会经过 response.encodeURL，由该过滤器替换为带哈希的地址
+     */
+    @Bean
+    public FilterRegistrationBean<ResourceUrlEncodingFilter> resourceUrlEncodingFilter() {
+        FilterRegistrationBean<ResourceUrlEncodingFilter> registration =
+                new FilterRegistrationBean<>(new ResourceUrlEncodingFilter());
+        registration.addUrlPatterns("/*");
+        registration.setName("resourceUrlEncodingFilter");
+        return registration;
+    }
+
+    /**
+     * 判断请求路径（不含contextPath）是否为静态资源
+     */
+    public static boolean isStaticResource(String path) {
+        for (String prefix : STATIC_RESOURCE_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
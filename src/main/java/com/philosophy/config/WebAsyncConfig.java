@@ -0,0 +1,24 @@
+package com.philosophy.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 异步请求配置
+ * 数据导出使用 StreamingResponseBody 边查询边写出，耗时与数据量成正比，
+ * 容器默认的异步超时（通常30秒）不足以完成大数据量导出。
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    @Value("${app.async.request-timeout-ms:1800000}")
+    private long requestTimeoutMillis;
+
+    @Override
+    public void configureAsyncSupport(@NonNull AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(requestTimeoutMillis);
+    }
+}
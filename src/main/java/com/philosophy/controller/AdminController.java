@@ -5,12 +5,14 @@ import com.philosophy.model.Philosopher;
 import com.philosophy.model.School;
 import com.philosophy.model.User;
 import com.philosophy.service.ContentService;
+import com.philosophy.service.LikeCountReconciliationService;
 import com.philosophy.service.PhilosopherService;
 import com.philosophy.service.SchoolService;
 import com.philosophy.service.UserService;
 import com.philosophy.service.TranslationService;
 import com.philosophy.util.InputValidator;
 import com.philosophy.util.DateUtils;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -19,7 +21,9 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
@@ -36,12 +40,14 @@ public class AdminController {
     private final ContentService contentService;
     private final UserService userService;
     private final TranslationService translationService;
-    public AdminController(PhilosopherService philosopherService, SchoolService schoolService, ContentService contentService, UserService userService, TranslationService translationService) {
+    private final LikeCountReconciliationService likeCountReconciliationService;
+    public AdminController(PhilosopherService philosopherService, SchoolService schoolService, ContentService contentService, UserService userService, TranslationService translationService, LikeCountReconciliationService likeCountReconciliationService) {
         this.philosopherService = philosopherService;
         this.schoolService = schoolService;
         this.contentService = contentService;
         this.userService = userService;
         this.translationService = translationService;
+        this.likeCountReconciliationService = likeCountReconciliationService;
     }
 
     @GetMapping
@@ -55,9 +61,47 @@ public class AdminController {
         model.addAttribute("schoolsCount", schoolService.countSchools());
         model.addAttribute("contentsCount", contentService.countContents());
         model.addAttribute("usersCount", userService.countUsers());
+        model.addAttribute("likeReconcileRunning", likeCountReconciliationService.isRunning());
+        model.addAttribute("likeReconcileReport", likeCountReconciliationService.getLastReport());
         return "admin/dashboard";
     }
 
+    /**
+     * 在后台启动点赞计数校准
+     */
+    @PostMapping("/likes/reconcile")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> startLikeReconciliation() {
+        Map<String, Object> response = new HashMap<>();
+        boolean started = likeCountReconciliationService.startAsync();
+        response.put("success", started);
+        response.put("message", started ? "点赞计数校准已在后台启动" : "点赞计数校准正在运行中");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 查询点赞计数校准状态及最近一次结果
+     */
+    @GetMapping("/likes/reconcile/status")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> likeReconciliationStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("running", likeCountReconciliationService.isRunning());
+        LikeCountReconciliationService.ReconciliationReport report = likeCountReconciliationService.getLastReport();
+        if (report != null) {
+            Map<String, Object> last = new HashMap<>();
+            last.put("startedAt", report.getStartedAt() != null ? report.getStartedAt().toString() : null);
+            last.put("rowsScanned", report.getRowsScanned());
+            last.put("rowsFixed", report.getRowsFixed());
+            last.put("totalDrift", report.getTotalDrift());
+            last.put("elapsedMillis", report.getElapsedMillis());
+            last.put("rowsPerSecond", report.getRowsPerSecond());
+            last.put("perType", report.getPerType());
+            response.put("lastReport", last);
+        }
+        return ResponseEntity.ok(response);
+    }
+
     // 用户管理
     @GetMapping("/users")
     public String listUsers(Model model, HttpServletRequest request) {
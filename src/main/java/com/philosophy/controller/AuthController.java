@@ -1,6 +1,7 @@
 package com.philosophy.controller;
 
 import com.philosophy.model.User;
+import com.philosophy.security.ClientIpResolver;
 import com.philosophy.service.UserService;
 import com.philosophy.service.TranslationService;
 import com.philosophy.service.EmailService;
@@ -8,6 +9,7 @@ import com.philosophy.service.VerificationCodeService;
 import com.philosophy.service.RateLimitingService;
 import com.philosophy.util.LanguageUtil;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -35,14 +37,16 @@ public class AuthController {
     private final VerificationCodeService verificationCodeService;
     private final RateLimitingService rateLimitingService;
     private final LanguageUtil languageUtil;
+    private final ClientIpResolver clientIpResolver;
     
-    public AuthController(UserService userService, TranslationService translationService, EmailService emailService, VerificationCodeService verificationCodeService, RateLimitingService rateLimitingService, LanguageUtil languageUtil) {
+    public AuthController(UserService userService, TranslationService translationService, EmailService emailService, VerificationCodeService verificationCodeService, RateLimitingService rateLimitingService, LanguageUtil languageUtil, ClientIpResolver clientIpResolver) {
         this.userService = userService;
         this.translationService = translationService;
         this.emailService = emailService;
         this.verificationCodeService = verificationCodeService;
         this.rateLimitingService = rateLimitingService;
         this.languageUtil = languageUtil;
+        this.clientIpResolver = clientIpResolver;
     }
 
     @GetMapping("/login")
@@ -51,11 +55,13 @@ public class AuthController {
         String language = languageUtil.getLanguage(request);
         
         // 检查是否有登录错误信息
-        String loginError = (String) request.getSession().getAttribute("loginError");
+        // 只读取已存在的session，单纯打开登录页不创建session
+        HttpSession session = request.getSession(false);
+        String loginError = session != null ? (String) session.getAttribute("loginError") : null;
         if (loginError != null) {
             model.addAttribute("loginError", loginError);
             // 清除 session 中的错误信息，避免重复显示
-            request.getSession().removeAttribute("loginError");
+            session.removeAttribute("loginError");
         }
         
         model.addAttribute("activePage", "login");
@@ -79,7 +85,7 @@ public class AuthController {
     @PostMapping("/register/send-code")
     public ResponseEntity<Map<String, Object>> sendRegistrationCode(@RequestParam String email, HttpServletRequest request) {
         // 获取客户端IP地址（仅用于速率限制，不做持久化收集）
-        String clientIp = getClientIpAddress(request);
+        String clientIp = clientIpResolver.resolve(request);
         
         // 检查速率限制（防止DDoS攻击）
         RateLimitingService.RateLimitResult rateLimitResult = rateLimitingService.checkRateLimit(clientIp);
@@ -173,33 +179,5 @@ public class AuthController {
         model.addAttribute("successMessage", "注册成功，请登录");
         return "login";
     }
-
-    private String getClientIpAddress(HttpServletRequest request) {
-        if (request == null) return "unknown";
-
-        String ipAddress = request.getHeader("X-Forwarded-For");
-        if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
-            ipAddress = request.getHeader("Proxy-Client-IP");
-        }
-        if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
-            ipAddress = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
-            ipAddress = request.getHeader("X-Real-IP");
-        }
-        if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
-            ipAddress = request.getRemoteAddr();
-        }
-        if (ipAddress != null && ipAddress.contains(",")) {
-            String[] ipAddresses = ipAddress.split(",");
-            for (String ip : ipAddresses) {
-                if (!"unknown".equalsIgnoreCase(ip.trim())) {
-                    ipAddress = ip.trim();
-                    break;
-                }
-            }
-        }
-        return ipAddress != null ? ipAddress : "unknown";
-    }
 }
     
\ No newline at end of file
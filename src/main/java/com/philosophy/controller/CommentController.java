@@ -6,6 +6,8 @@ import com.philosophy.model.User;
 import com.philosophy.service.CommentService;
 import com.philosophy.service.ContentService;
 import com.philosophy.service.UserService;
+import com.philosophy.service.UserSnapshotService;
+import com.philosophy.security.UserSnapshot;
 import com.philosophy.service.SchoolService;
 import com.philosophy.service.TranslationService;
 import org.slf4j.Logger;
@@ -25,6 +27,9 @@ import java.util.Collections;
 public class CommentController {
 
     private static final Logger logger = LoggerFactory.getLogger(CommentController.class);
+
+    // 每页显示的顶级评论数量
+    private static final int COMMENT_THREAD_PAGE_SIZE = 50;
     
     private final CommentService commentService;
     private final UserService userService;
@@ -32,25 +37,31 @@ public class CommentController {
     private final TranslationService translationService;
     private final SchoolService schoolService;
     private final LanguageUtil languageUtil;
+    private final UserSnapshotService userSnapshotService;
 
-    public CommentController(CommentService commentService, UserService userService, ContentService contentService, TranslationService translationService, SchoolService schoolService, LanguageUtil languageUtil) {
+    public CommentController(CommentService commentService, UserService userService, ContentService contentService, TranslationService translationService, SchoolService schoolService, LanguageUtil languageUtil, UserSnapshotService userSnapshotService) {
         this.commentService = commentService;
         this.userService = userService;
         this.contentService = contentService;
         this.translationService = translationService;
         this.schoolService = schoolService;
         this.languageUtil = languageUtil;
+        this.userSnapshotService = userSnapshotService;
     }
 
     // 查看指定内容的评论
     @GetMapping("/content/{contentId}")
-    public String viewComments(@PathVariable Long contentId, Model model, Authentication authentication, HttpServletRequest request) {
-        return viewCommentsByPath(contentId, model, authentication, request);
+    public String viewComments(@PathVariable Long contentId,
+                               @RequestParam(required = false) Long before,
+                               Model model, Authentication authentication, HttpServletRequest request) {
+        return viewCommentsByPath(contentId, before, model, authentication, request);
     }
     
     // 兼容旧路径的查看评论
     @GetMapping("/view/{contentId}")
-    public String viewCommentsByPath(@PathVariable Long contentId, Model model, Authentication authentication, HttpServletRequest request) {
+    public String viewCommentsByPath(@PathVariable Long contentId,
+                                     @RequestParam(required = false) Long before,
+                                     Model model, Authentication authentication, HttpServletRequest request) {
         try {
             // 获取当前语言设置（根据IP自动判断默认语言）
             String language = languageUtil.getLanguage(request);
@@ -69,16 +80,15 @@ public class CommentController {
             // 获取顶级评论（无父评论的评论），支持隐私过滤
             logger.debug("Getting comments for contentId: {}, currentUser: {}", contentId, 
                 (currentUser != null ? currentUser.getUsername() : "anonymous"));
-            List<Comment> topLevelComments = commentService.findByContentIdWithPrivacyFilter(contentId, currentUser);
+            // 顶级评论按游标分页，回复按层级批量加载，屏蔽关系只查询一次
+            CommentService.CommentThreadPage page = commentService.loadCommentTreePage(contentId, currentUser, before, COMMENT_THREAD_PAGE_SIZE);
+            List<CommentService.CommentNode> topLevelComments = page.getComments();
             logger.debug("Found {} top-level comments", topLevelComments.size());
             
-            // 为每个顶级评论加载回复，支持隐私过滤
-            for (Comment comment : topLevelComments) {
-                List<Comment> replies = commentService.findRepliesByParentIdWithPrivacyFilter(comment.getId(), currentUser);
-                comment.setReplies(replies);
-            }
-            
             model.addAttribute("comments", topLevelComments);
+            model.addAttribute("hasMoreComments", page.isHasMore());
+            model.addAttribute("nextCommentCursor", page.getNextCursor());
+            model.addAttribute("isFirstCommentPage", before == null);
             
             // 获取内容对象并添加到模型中
             Content content = contentService.getContentById(contentId);
@@ -148,7 +158,12 @@ public class CommentController {
             return "redirect:/comments/content/" + contentId + "?error=toolong";
         }
         
-        User currentUser = userService.findByUsername(authentication.getName());
+        // 评论只需要关联作者，使用会话快照中的ID取引用，不查询users表
+        UserSnapshot snapshot = userSnapshotService.getCurrentSnapshot(authentication);
+        if (snapshot == null) {
+            return "redirect:/login?redirect=/comments/content/" + contentId;
+        }
+        User currentUser = userService.getUserReference(snapshot.getId());
         
         if (parentId != null) {
             // 回复评论
@@ -198,7 +213,10 @@ public class CommentController {
         Long redirectContentId = null;
         if (comment != null) {
             redirectContentId = comment.getContent() != null ? comment.getContent().getId() : null;
-            User currentUser = userService.findByUsername(authentication.getName());
+            UserSnapshot currentUser = userSnapshotService.getCurrentSnapshot(authentication);
+            if (currentUser == null) {
+                return "redirect:/login";
+            }
             
             // 检查用户是否有权限删除评论（评论所有者或管理员）
             boolean isOwner = comment.getUser().getId().equals(currentUser.getId());
@@ -2,29 +2,41 @@ package com.philosophy.controller;
 
 import com.philosophy.service.DataExportService;
 import com.philosophy.service.EmailService;
+import com.philosophy.service.ExportJobService;
+import com.philosophy.service.SnapshotService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 @Controller
 @RequestMapping("/admin")
@@ -32,77 +44,168 @@ import java.nio.file.Paths;
 public class DataExportController {
 
     private static final Logger logger = LoggerFactory.getLogger(DataExportController.class);
-    private final DataExportService dataExportService;
     private final EmailService emailService;
+    private final SnapshotService snapshotService;
+    private final ExportJobService exportJobService;
 
-    public DataExportController(DataExportService dataExportService, EmailService emailService) {
-        this.dataExportService = dataExportService;
+    public DataExportController(EmailService emailService, SnapshotService snapshotService,
+                                ExportJobService exportJobService) {
         this.emailService = emailService;
+        this.snapshotService = snapshotService;
+        this.exportJobService = exportJobService;
     }
 
     @GetMapping("/export/download")
-    public ResponseEntity<byte[]> downloadCsvFile() {
-        ExportData exportData = generateExportData();
-        
+    public ResponseEntity<StreamingResponseBody> downloadCsvFile() {
+        String filename = "philosophy_data_export_" + newTimestamp() + ".csv";
+
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
-        headers.setContentDispositionFormData("attachment", exportData.filename);
+        headers.setContentDispositionFormData("attachment", filename);
         headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
 
+        // CSV边查询边写入响应，不在内存中保留整份导出数据
+        StreamingResponseBody body = outputStream -> writeCsv(outputStream);
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(exportData.csvBytes);
+                .body(body);
     }
 
     @GetMapping("/export/download-zip")
-    public ResponseEntity<byte[]> downloadZipFile() {
-        try {
-            ExportData exportData = generateExportData();
-            List<String> imageFiles = dataExportService.collectImageFiles();
-            
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-                // 添加CSV文件到ZIP
-                ZipEntry csvEntry = new ZipEntry(exportData.filename);
-                zos.putNextEntry(csvEntry);
-                zos.write(exportData.csvBytes);
-                zos.closeEntry();
-                
-                // 添加图片文件到ZIP
-                for (String imagePath : imageFiles) {
-                    Path path = Paths.get(imagePath);
-                    if (Files.exists(path) && Files.isRegularFile(path)) {
-                        // 使用文件名作为ZIP中的路径
-                        String fileName = path.getFileName().toString();
-                        ZipEntry imageEntry = new ZipEntry("images/" + fileName);
-                        zos.putNextEntry(imageEntry);
-                        
-                        try (FileInputStream fis = new FileInputStream(path.toFile())) {
-                            byte[] buffer = new byte[1024];
-                            int len;
-                            while ((len = fis.read(buffer)) > 0) {
-                                zos.write(buffer, 0, len);
-                            }
-                        }
-                        zos.closeEntry();
-                    }
-                }
+    public ResponseEntity<StreamingResponseBody> downloadZipFile() {
+        String timestamp = newTimestamp();
+        String csvFilename = "philosophy_data_export_" + timestamp + ".csv";
+        String zipFilename = "philosophy_data_export_" + timestamp + ".zip";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", zipFilename);
+        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+
+        // 响应开始写出后无法再改为返回CSV，出错时记录日志并中断下载
+        StreamingResponseBody body = outputStream -> {
+            try {
+                exportJobService.writeZip(outputStream, csvFilename, DataExportService.ProgressListener.NONE);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to stream ZIP export", e);
+                throw e;
             }
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/zip"));
-            String zipFilename = exportData.filename.replace(".csv", ".zip");
-            headers.setContentDispositionFormData("attachment", zipFilename);
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(baos.toByteArray());
-        } catch (Exception e) {
-            logger.error("Failed to create ZIP file", e);
-            // 如果ZIP创建失败，返回CSV文件
-            return downloadCsvFile();
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    /**
+     * 下载二进制快照，用于备份和快速恢复（在数据导入页面恢复）
+     */
+    @GetMapping("/export/snapshot")
+    public ResponseEntity<StreamingResponseBody> downloadSnapshot() {
+        String filename = "philosophy_snapshot_" + newTimestamp() + ".phsnap";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", filename);
+        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+
+        StreamingResponseBody body = outputStream -> {
+            BufferedOutputStream buffered = new BufferedOutputStream(outputStream, 64 * 1024);
+            try {
+                snapshotService.exportSnapshot(buffered);
+                buffered.flush();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to stream snapshot export", e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    /**
+     * 提交后台导出任务，立即返回任务ID；之后轮询 /export/jobs/{id} 查看进度
+     * @param format csv 或 zip（含图片）
+     */
+    @PostMapping("/export/jobs")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> startExportJob(@RequestParam(defaultValue = "zip") String format) {
+        ExportJobService.Format jobFormat;
+        try {
+            jobFormat = ExportJobService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "不支持的导出格式: " + format);
+            return ResponseEntity.badRequest().body(response);
         }
+        Map<String, Object> response = toResponse(exportJobService.submit(jobFormat));
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/export/jobs")
+    @ResponseBody
+    public List<Map<String, Object>> listExportJobs() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ExportJobService.ExportJob job : exportJobService.listJobs()) {
+            result.add(toResponse(job));
+        }
+        return result;
+    }
+
+    @GetMapping("/export/jobs/{id}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> exportJobStatus(@PathVariable String id) {
+        ExportJobService.ExportJob job = exportJobService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toResponse(job));
+    }
+
+    /**
+     * 下载已完成的后台导出文件
+     * 返回文件资源，Spring MVC 会处理 Range 请求头（返回206部分内容），下载中断后可以从断点继续；
+     * 任务文件生成后不再改变，以任务ID作为ETag。
+     */
+    @GetMapping("/export/jobs/{id}/download")
+    public ResponseEntity<Resource> downloadExportJob(@PathVariable String id) {
+        ExportJobService.ExportJob job = exportJobService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != ExportJobService.Status.COMPLETED || !Files.isRegularFile(job.getFile())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(job.getFormat().getContentType()));
+        headers.setContentDispositionFormData("attachment", job.getFilename());
+        headers.setETag("\"" + job.getId() + "\"");
+        headers.setLastModified(job.getFinishedAt());
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    private Map<String, Object> toResponse(ExportJobService.ExportJob job) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", job.getId());
+        response.put("format", job.getFormat().name());
+        response.put("status", job.getStatus().name());
+        response.put("filename", job.getFilename());
+        response.put("createdAt", job.getCreatedAt().toString());
+        response.put("startedAt", job.getStartedAt() != null ? job.getStartedAt().toString() : null);
+        response.put("finishedAt", job.getFinishedAt() != null ? job.getFinishedAt().toString() : null);
+        response.put("currentTable", job.getCurrentTable());
+        response.put("progress", job.getProgress());
+        response.put("sizeBytes", job.getSizeBytes());
+        response.put("error", job.getError());
+        if (job.getStatus() == ExportJobService.Status.COMPLETED) {
+            response.put("downloadUrl", "/admin/export/jobs/" + job.getId() + "/download");
+        }
+        return response;
     }
 
     @GetMapping("/export/email")
@@ -126,20 +229,23 @@ public class DataExportController {
         return "redirect:/admin/dashboard";
     }
 
-    private ExportData generateExportData() {
-        String csvData = dataExportService.exportAllDataToCsv();
-        
-        // 添加UTF-8 BOM以便Windows Excel正确识别编码
-        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
-        byte[] csvBytes = csvData.getBytes(StandardCharsets.UTF_8);
-        byte[] csvBytesWithBom = new byte[bom.length + csvBytes.length];
-        System.arraycopy(bom, 0, csvBytesWithBom, 0, bom.length);
-        System.arraycopy(csvBytes, 0, csvBytesWithBom, bom.length, csvBytes.length);
-        
-        String timestamp = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+    private ExportData generateExportData() throws IOException {
+        // 邮件附件需要完整的字节数组，直接写入同一个缓冲区，不再额外复制
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeCsv(baos);
+
+        String timestamp = newTimestamp();
         String filename = "philosophy_data_export_" + timestamp + ".csv";
-        
-        return new ExportData(csvBytesWithBom, filename, timestamp);
+
+        return new ExportData(baos.toByteArray(), filename, timestamp);
+    }
+
+    private void writeCsv(OutputStream outputStream) throws IOException {
+        exportJobService.writeCsv(outputStream, DataExportService.ProgressListener.NONE);
+    }
+
+    private String newTimestamp() {
+        return new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
     }
 
     private static class ExportData {
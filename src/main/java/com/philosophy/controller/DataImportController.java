@@ -1,6 +1,7 @@
 package com.philosophy.controller;
 
 import com.philosophy.service.DataImportService;
+import com.philosophy.service.SnapshotService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +13,10 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.BufferedInputStream;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Controller
@@ -25,6 +29,9 @@ public class DataImportController {
     @Autowired
     private DataImportService dataImportService;
 
+    @Autowired
+    private SnapshotService snapshotService;
+
     /**
      * 显示数据导入页面
      */
@@ -60,6 +67,49 @@ public class DataImportController {
         return "redirect:/admin/data-import";
     }
 
+    /**
+     * 试运行：按导入规则校验CSV文件，不写入数据库
+     */
+    @PostMapping("/validate")
+    public String validateCsvFile(@RequestParam("file") MultipartFile file,
+                                  @RequestParam(value = "assumeEmptyDatabase", defaultValue = "false") boolean assumeEmptyDatabase,
+                                  RedirectAttributes redirectAttributes) {
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "请选择要校验的CSV文件");
+            return "redirect:/admin/data-import";
+        }
+
+        logger.info("开始校验CSV文件: {}, 假定数据库为空: {}", file.getOriginalFilename(), assumeEmptyDatabase);
+        DataImportService.ImportResult result = dataImportService.validateCsvData(file, assumeEmptyDatabase);
+        redirectAttributes.addFlashAttribute(result.isSuccess() ? "success" : "error", result.getMessage());
+        redirectAttributes.addFlashAttribute("dryRun", true);
+        addImportDetails(redirectAttributes, result);
+        return "redirect:/admin/data-import";
+    }
+
+    /**
+     * API接口：试运行校验CSV文件，不写入数据库
+     */
+    @PostMapping("/api/validate")
+    @ResponseBody
+    public ResponseEntity<?> validateCsvFileApi(@RequestParam("file") MultipartFile file,
+                                                @RequestParam(value = "assumeEmptyDatabase", defaultValue = "false") boolean assumeEmptyDatabase) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "请选择要校验的CSV文件"));
+        }
+
+        DataImportService.ImportResult result = dataImportService.validateCsvData(file, assumeEmptyDatabase);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", result.isSuccess());
+        response.put("message", result.getMessage());
+        response.put("results", result.getResults());
+        response.put("totalImported", result.getTotalImported());
+        response.put("totalFailed", result.getTotalFailed());
+        response.put("failureDetails", result.getFailureDetails());
+        response.put("sectionTimings", result.getSectionTimings());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * API接口：上传并导入CSV数据
      */
@@ -79,12 +129,71 @@ public class DataImportController {
         response.put("totalImported", result.getTotalImported());
         response.put("totalFailed", result.getTotalFailed());
         response.put("failureDetails", result.getFailureDetails());
+        response.put("sectionTimings", result.getSectionTimings());
 
         return result.isSuccess() 
             ? ResponseEntity.ok(response) 
             : ResponseEntity.badRequest().body(response);
     }
     
+    /**
+     * API接口：应用增量导出文件（更新变更行并按删除记录删除）
+     */
+    @PostMapping("/api/apply-delta")
+    @ResponseBody
+    public ResponseEntity<?> applyDeltaApi(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "请选择要上传的增量CSV文件"));
+        }
+        try {
+            logger.info("开始应用增量文件: {}", file.getOriginalFilename());
+            DataImportService.ImportResult result = dataImportService.applyDeltaCsv(file);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", result.isSuccess());
+            response.put("message", result.getMessage());
+            response.put("results", result.getResults());
+            response.put("totalImported", result.getTotalImported());
+            response.put("totalFailed", result.getTotalFailed());
+            response.put("failureDetails", result.getFailureDetails());
+            return result.isSuccess() ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            logger.error("应用增量文件失败", e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                "success", false,
+                "message", "应用增量文件失败: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * API接口：用二进制快照替换全部数据，失败时整体回滚
+     */
+    @PostMapping("/api/restore-snapshot")
+    @ResponseBody
+    public ResponseEntity<?> restoreSnapshotApi(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "请选择要恢复的快照文件"));
+        }
+        long start = System.currentTimeMillis();
+        try (InputStream input = new BufferedInputStream(file.getInputStream(), 64 * 1024)) {
+            logger.info("开始恢复快照: {}", file.getOriginalFilename());
+            List<SnapshotService.TableResult> tables = snapshotService.restoreSnapshot(input);
+            long totalRows = tables.stream().mapToLong(SnapshotService.TableResult::getRows).sum();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "快照恢复完成！共恢复 " + totalRows + " 条记录，耗时 "
+                    + (System.currentTimeMillis() - start) + " ms");
+            response.put("tables", tables);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("快照恢复失败", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", "快照恢复失败，数据未做任何修改: " + e.getMessage()
+            ));
+        }
+    }
+
     /**
      * 处理CSV文件的通用逻辑
      */
@@ -119,6 +228,7 @@ public class DataImportController {
         importDetails.put("totalImported", result.getTotalImported());
         importDetails.put("totalFailed", result.getTotalFailed());
         importDetails.put("failureDetails", result.getFailureDetails());
+        importDetails.put("sectionTimings", result.getSectionTimings());
         redirectAttributes.addFlashAttribute("importDetails", importDetails);
         logger.info("设置导入详情: {}", importDetails);
     }
@@ -10,7 +10,6 @@ import com.philosophy.service.SchoolService;
 import com.philosophy.service.CommentService;
 import com.philosophy.service.TranslationService;
 import com.philosophy.service.ContentService;
-import com.philosophy.service.LikeService;
 import com.philosophy.service.UserService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
@@ -44,19 +43,17 @@ public class HomeController {
     private final CommentService commentService;
     private final TranslationService translationService;
     private final ContentService contentService;
-    private final LikeService likeService;
     private final UserService userService;
     private final LanguageUtil languageUtil;
     private static final int PHILOSOPHER_NAME_BATCH_SIZE = 30;
     
     // 构造函数注入
-    public HomeController(PhilosopherService philosopherService, SchoolService schoolService, CommentService commentService, TranslationService translationService, ContentService contentService, LikeService likeService, UserService userService, LanguageUtil languageUtil) {
+    public HomeController(PhilosopherService philosopherService, SchoolService schoolService, CommentService commentService, TranslationService translationService, ContentService contentService, UserService userService, LanguageUtil languageUtil) {
         this.philosopherService = philosopherService;
         this.schoolService = schoolService;
         this.commentService = commentService;
         this.translationService = translationService;
         this.contentService = contentService;
-        this.likeService = likeService;
         this.userService = userService;
         this.languageUtil = languageUtil;
     }
@@ -97,26 +94,6 @@ public class HomeController {
                          authentication.getAuthorities().stream()
                          .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
         
-        // 如果用户已登录，获取用户点赞过的内容
-        if (isAuthenticated) {
-            com.philosophy.model.User user = (com.philosophy.model.User) authentication.getPrincipal();
-            List<Content> likedContents = likeService.getUserLikedContents(user.getId());
-            List<Philosopher> likedPhilosophers = likeService.getUserLikedPhilosophers(user.getId());
-            List<School> likedSchools = likeService.getUserLikedSchools(user.getId());
-            
-            model.addAttribute("likedContents", likedContents);
-            model.addAttribute("likedPhilosophers", likedPhilosophers);
-            model.addAttribute("likedSchools", likedSchools);
-        }
-        
-        // 获取最受欢迎的内容
-        List<Content> popularContents = likeService.getMostLikedContents(5);
-        List<Philosopher> popularPhilosophers = likeService.getMostLikedPhilosophers(5);
-        List<School> popularSchools = likeService.getMostLikedSchools(5);
-        
-        model.addAttribute("popularContents", popularContents);
-        model.addAttribute("popularPhilosophers", popularPhilosophers);
-        model.addAttribute("popularSchools", popularSchools);
         model.addAttribute("language", language);
         model.addAttribute("translationService", translationService);
         model.addAttribute("isAuthenticated", isAuthenticated);
@@ -1099,7 +1076,7 @@ public class HomeController {
                     // 使用 TranslationService 获取显示文本
                     contentData.put("content", translationService.getContentDisplayText(content, language));
                     contentData.put("likeCount", content.getLikeCount() != null ? content.getLikeCount() : 0);
-                    contentData.put("commentCount", commentService.countByContentId(content.getId()));
+                    contentData.put("commentCount", content.getCommentCount());
                     
                     // 流派信息
                     try {
@@ -1222,7 +1199,7 @@ public class HomeController {
                     // 使用 TranslationService 获取显示文本
                     contentData.put("content", translationService.getContentDisplayText(content, language));
                     contentData.put("likeCount", content.getLikeCount() != null ? content.getLikeCount() : 0);
-                    contentData.put("commentCount", commentService.countByContentId(content.getId()));
+                    contentData.put("commentCount", content.getCommentCount());
                     
                     // 流派信息
                     try {
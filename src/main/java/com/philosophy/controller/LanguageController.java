@@ -14,7 +14,6 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -104,15 +103,8 @@ public class LanguageController {
             lang = "zh"; // 默认中文
         }
         
-        // 将语言设置保存到Session
-        HttpSession session = request.getSession();
-        session.setAttribute("language", lang);
-        
-        // 设置Cookie以便客户端JavaScript可以读取
-        jakarta.servlet.http.Cookie languageCookie = new jakarta.servlet.http.Cookie("philosophy_language", lang);
-        languageCookie.setPath("/");
-        languageCookie.setMaxAge(30 * 24 * 60 * 60); // 30天
-        response.addCookie(languageCookie);
+        // 保存到Cookie（客户端JavaScript也会读取），已登录用户同时更新Session
+        languageUtil.setLanguage(request, response, lang);
         
         // 如果用户已登录，保存到数据库
         if (authentication != null && authentication.isAuthenticated() 
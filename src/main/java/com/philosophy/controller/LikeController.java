@@ -1,8 +1,12 @@
 package com.philosophy.controller;
 
 import com.philosophy.model.*;
+import com.philosophy.service.DisplayCardService;
 import com.philosophy.service.LikeService;
-import com.philosophy.service.UserService;
+import com.philosophy.service.UserSnapshotService;
+import com.philosophy.security.UserSnapshot;
+import com.philosophy.util.LanguageUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -12,9 +16,13 @@ import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Controller
 @RequestMapping("/likes")
@@ -22,11 +30,23 @@ public class LikeController {
 
     private static final Logger logger = LoggerFactory.getLogger(LikeController.class);
 
+    // 批量查询点赞状态时单次请求允许的最大条目数
+    private static final int MAX_LIKE_STATE_ITEMS = 200;
+
+    // 排行榜接口单次返回的最大条目数
+    private static final int MAX_LEADERBOARD_SIZE = 50;
+
     @Autowired
     private LikeService likeService;
     
     @Autowired
-    private UserService userService;
+    private UserSnapshotService userSnapshotService;
+
+    @Autowired
+    private DisplayCardService displayCardService;
+
+    @Autowired
+    private LanguageUtil languageUtil;
 
     /**
      * 点赞或取消点赞
@@ -55,7 +75,7 @@ public class LikeController {
 
             String username = authentication.getName();
             logger.info("Like toggle attempt by user: {}", username);
-            User user = userService.findByUsername(username);
+            UserSnapshot user = userSnapshotService.getCurrentSnapshot(authentication);
             if (user == null) {
                 logger.error("用户查找失败：用户 '{}' 不存在", username);
                 response.put("success", false);
@@ -126,7 +146,7 @@ public class LikeController {
 
             String username = authentication.getName();
             logger.debug("用户名: {}", username);
-            User user = userService.findByUsername(username);
+            UserSnapshot user = userSnapshotService.getCurrentSnapshot(authentication);
             if (user == null) {
                 logger.warn("用户查找失败：用户 '{}' 不存在", username);
                 response.put("isLiked", false);
@@ -162,6 +182,121 @@ public class LikeController {
     }
 
 
+    /**
+     * 批量获取点赞状态
+     * 请求体为 [{"entityType": "CONTENT", "entityId": 1}, ...]，
+     * 用于一次性初始化页面上的所有点赞按钮，替代逐个调用 /likes/check
+     */
+    @PostMapping("/state")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getLikeStates(
+            @RequestBody List<Map<String, Object>> items,
+            Authentication authentication) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            if (items == null || items.isEmpty()) {
+                response.put("success", true);
+                response.put("states", new ArrayList<>());
+                return ResponseEntity.ok(response);
+            }
+            if (items.size() > MAX_LIKE_STATE_ITEMS) {
+                response.put("success", false);
+                response.put("message", "一次最多查询 " + MAX_LIKE_STATE_ITEMS + " 个点赞状态");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            Map<Like.EntityType, Set<Long>> entityIdsByType = new EnumMap<>(Like.EntityType.class);
+            for (Map<String, Object> item : items) {
+                Object rawType = item.get("entityType");
+                Object rawId = item.get("entityId");
+                if (rawType == null || rawId == null) {
+                    continue;
+                }
+                Like.EntityType type;
+                Long entityId;
+                try {
+                    type = Like.EntityType.valueOf(rawType.toString().trim().toUpperCase());
+                    entityId = Long.valueOf(rawId.toString().trim());
+                } catch (IllegalArgumentException e) {
+                    logger.debug("忽略无效的点赞状态查询项: {}", item);
+                    continue;
+                }
+                entityIdsByType.computeIfAbsent(type, k -> new LinkedHashSet<>()).add(entityId);
+            }
+
+            Long userId = null;
+            if (authentication != null && authentication.isAuthenticated()) {
+                UserSnapshot user = userSnapshotService.getCurrentSnapshot(authentication);
+                if (user != null) {
+                    userId = user.getId();
+                }
+            }
+
+            Map<Like.EntityType, Map<Long, LikeService.LikeState>> statesByType = likeService.getLikeStates(userId, entityIdsByType);
+
+            List<Map<String, Object>> states = new ArrayList<>();
+            for (Map.Entry<Like.EntityType, Map<Long, LikeService.LikeState>> typeEntry : statesByType.entrySet()) {
+                for (Map.Entry<Long, LikeService.LikeState> stateEntry : typeEntry.getValue().entrySet()) {
+                    Map<String, Object> state = new HashMap<>();
+                    state.put("entityType", typeEntry.getKey().name());
+                    state.put("entityId", stateEntry.getKey());
+                    state.put("isLiked", stateEntry.getValue().isLiked());
+                    state.put("likeCount", stateEntry.getValue().getLikeCount());
+                    states.add(state);
+                }
+            }
+
+            response.put("success", true);
+            response.put("states", states);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("批量获取点赞状态失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "获取点赞状态失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * 获取当前用户点赞过的内容、哲学家和流派
+     */
+    @GetMapping("/mine")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getMyLikes(HttpServletRequest request, Authentication authentication) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            if (authentication == null || !authentication.isAuthenticated()) {
+                response.put("success", false);
+                response.put("message", "请先登录");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            UserSnapshot user = userSnapshotService.getCurrentSnapshot(authentication);
+            if (user == null) {
+                response.put("success", false);
+                response.put("message", "用户不存在");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            String language = languageUtil.getLanguage(request);
+            response.put("success", true);
+            response.put("likedContents", displayCardService.toContentCards(likeService.getUserLikedContents(user.getId()), language));
+            response.put("likedPhilosophers", displayCardService.toPhilosopherCards(likeService.getUserLikedPhilosophers(user.getId()), language));
+            response.put("likedSchools", displayCardService.toSchoolCards(likeService.getUserLikedSchools(user.getId()), language));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("获取用户点赞列表失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "获取点赞列表失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * 获取最受欢迎的内容页面
      */
@@ -178,6 +313,37 @@ public class LikeController {
         return "popular";
     }
 
+    /**
+     * 获取点赞排行榜：总榜与最近一周的热度榜
+     * 数据来自内存排行榜，按当前语言返回卡片数据，未登录访客也可访问
+     */
+    @GetMapping("/leaderboard")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getLeaderboard(
+            @RequestParam(defaultValue = "10") int limit,
+            HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            int size = Math.max(1, Math.min(limit, MAX_LEADERBOARD_SIZE));
+            String language = languageUtil.getLanguage(request);
+            response.put("success", true);
+            response.put("popularContents", displayCardService.toContentCards(likeService.getMostLikedContents(size), language));
+            response.put("popularPhilosophers", displayCardService.toPhilosopherCards(likeService.getMostLikedPhilosophers(size), language));
+            response.put("popularSchools", displayCardService.toSchoolCards(likeService.getMostLikedSchools(size), language));
+            response.put("trendingContents", displayCardService.toContentCards(likeService.getTrendingContents(size), language));
+            response.put("trendingPhilosophers", displayCardService.toPhilosopherCards(likeService.getTrendingPhilosophers(size), language));
+            response.put("trendingSchools", displayCardService.toSchoolCards(likeService.getTrendingSchools(size), language));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("获取点赞排行榜失败: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("message", "获取排行榜失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * 获取实体的点赞数量
      */
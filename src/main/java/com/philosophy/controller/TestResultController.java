@@ -3,7 +3,9 @@ package com.philosophy.controller;
 import com.philosophy.model.TestResult;
 import com.philosophy.model.User;
 import com.philosophy.service.TestResultService;
+import com.philosophy.security.UserSnapshot;
 import com.philosophy.service.UserService;
+import com.philosophy.service.UserSnapshotService;
 import com.philosophy.util.LanguageUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -24,12 +26,14 @@ public class TestResultController {
 
     private final TestResultService testResultService;
     private final UserService userService;
+    private final UserSnapshotService userSnapshotService;
     private final LanguageUtil languageUtil;
     private final ObjectMapper objectMapper;
 
-    public TestResultController(TestResultService testResultService, UserService userService, LanguageUtil languageUtil, ObjectMapper objectMapper) {
+    public TestResultController(TestResultService testResultService, UserService userService, UserSnapshotService userSnapshotService, LanguageUtil languageUtil, ObjectMapper objectMapper) {
         this.testResultService = testResultService;
         this.userService = userService;
+        this.userSnapshotService = userSnapshotService;
         this.languageUtil = languageUtil;
         this.objectMapper = objectMapper;
     }
@@ -49,7 +53,7 @@ public class TestResultController {
             body.put("message", "请先登录后再保存");
             return ResponseEntity.ok(body);
         }
-        User user = userService.findByUsername(authentication.getName());
+        UserSnapshot user = userSnapshotService.getCurrentSnapshot(authentication);
         if (user == null) {
             body.put("success", false);
             body.put("message", "用户不存在");
@@ -66,7 +70,7 @@ public class TestResultController {
             body.put("message", "不支持的测试类型");
             return ResponseEntity.ok(body);
         }
-        TestResult saved = testResultService.save(user, type, resultSummary.trim(), resultJson, isPublic);
+        TestResult saved = testResultService.save(userService.getUserReference(user.getId()), type, resultSummary.trim(), resultJson, isPublic);
         body.put("success", true);
         body.put("message", "已保存到我的主页");
         body.put("id", saved.getId());
@@ -86,7 +90,7 @@ public class TestResultController {
             body.put("message", "请先登录");
             return ResponseEntity.ok(body);
         }
-        User user = userService.findByUsername(authentication.getName());
+        UserSnapshot user = userSnapshotService.getCurrentSnapshot(authentication);
         if (user == null) {
             body.put("success", false);
             body.put("message", "用户不存在");
@@ -109,7 +113,7 @@ public class TestResultController {
             body.put("message", "请先登录");
             return ResponseEntity.ok(body);
         }
-        User user = userService.findByUsername(authentication.getName());
+        UserSnapshot user = userSnapshotService.getCurrentSnapshot(authentication);
         if (user == null) {
             body.put("success", false);
             body.put("message", "用户不存在");
@@ -14,6 +14,8 @@ import com.philosophy.service.UserContentEditService;
 import com.philosophy.service.SchoolService;
 import com.philosophy.service.UserBlockService;
 import com.philosophy.service.TestResultService;
+import com.philosophy.service.UserSnapshotService;
+import com.philosophy.security.UserSnapshot;
 import com.philosophy.model.School;
 import com.philosophy.model.TestResult;
 import com.philosophy.util.LanguageUtil;
@@ -48,6 +50,7 @@ public class UserProfileController {
     private final UserBlockService userBlockService;
     private final TestResultService testResultService;
     private final LanguageUtil languageUtil;
+    private final UserSnapshotService userSnapshotService;
 
     private static final Logger logger = LoggerFactory.getLogger(UserProfileController.class);
     private static final int MAX_PROFILE_TEST_RESULTS = 30;
@@ -57,7 +60,7 @@ public class UserProfileController {
                                 LikeService likeService, ContentService contentService,
                                 UserContentEditService userContentEditService, SchoolService schoolService,
                                 UserBlockService userBlockService, TestResultService testResultService,
-                                LanguageUtil languageUtil) {
+                                LanguageUtil languageUtil, UserSnapshotService userSnapshotService) {
         this.userService = userService;
         this.commentService = commentService;
         this.translationService = translationService;
@@ -68,6 +71,7 @@ public class UserProfileController {
         this.userBlockService = userBlockService;
         this.testResultService = testResultService;
         this.languageUtil = languageUtil;
+        this.userSnapshotService = userSnapshotService;
     }
 
     // 管理员界面查看用户详情
@@ -410,7 +414,8 @@ public class UserProfileController {
     @ResponseBody
     public Map<String, Object> updateUserTheme(@PathVariable Long id, 
                                                 @RequestParam String theme,
-                                                Authentication authentication) {
+                                                Authentication authentication,
+                                                HttpServletRequest request) {
         Map<String, Object> response = new HashMap<>();
         
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -419,7 +424,7 @@ public class UserProfileController {
             return response;
         }
 
-        User currentUser = userService.findByUsername(authentication.getName());
+        UserSnapshot currentUser = userSnapshotService.getCurrentSnapshot(authentication);
         if (currentUser == null) {
             response.put("success", false);
             response.put("message", "用户不存在");
@@ -457,7 +462,9 @@ public class UserProfileController {
             User user = userService.getUserById(id);
             if (user != null) {
                 user.setTheme(theme);
-                userService.updateUser(user);
+                User updated = userService.updateUser(user);
+                // 立即刷新当前会话的快照，下一次页面渲染即使用新主题
+                userSnapshotService.establish(request.getSession(false), updated);
 
                 logger.info("User {} updated theme to: {}", user.getUsername(), theme);
                 
@@ -0,0 +1,56 @@
+package com.philosophy.event;
+
+import com.philosophy.model.Like;
+
+import java.time.LocalDateTime;
+
+/**
+ * 点赞状态变化事件
+ * 由LikeService在点赞/取消点赞后发布，供排行榜等内存结构增量更新
+ */
+public class LikeChangedEvent {
+
+    private final Like.EntityType entityType;
+    private final Long entityId;
+    private final boolean liked;
+    private final LocalDateTime likedAt;
+
+    /**
+     * @param entityType 实体类型
+     * @param entityId 实体ID
+     * @param liked true表示新增点赞，false表示取消点赞
+     * @param likedAt 该点赞记录的创建时间（取消点赞时为原记录的创建时间）
+     */
+    public LikeChangedEvent(Like.EntityType entityType, Long entityId, boolean liked, LocalDateTime likedAt) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.liked = liked;
+        this.likedAt = likedAt;
+    }
+
+    public Like.EntityType getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public boolean isLiked() {
+        return liked;
+    }
+
+    public LocalDateTime getLikedAt() {
+        return likedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "LikeChangedEvent{" +
+                "entityType=" + entityType +
+                ", entityId=" + entityId +
+                ", liked=" + liked +
+                ", likedAt=" + likedAt +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package com.philosophy.event;
+
+/**
+ * 游客可见数据变化事件
+ * 内容、哲学家、流派、评论、翻译被修改或数据导入完成后由对应的服务发布，
+ * 供游客整页缓存等在事务提交后失效
+ */
+public class PublicContentChangedEvent {
+
+    public enum Source {
+        CONTENT, PHILOSOPHER, SCHOOL, COMMENT, TRANSLATION, USER, IMPORT
+    }
+
+    private final Source source;
+    private final Long entityId;
+
+    /**
+     * @param source 发生变化的数据类型
+     * @param entityId 变化的实体ID，批量变化（如导入）时为null
+     */
+    public PublicContentChangedEvent(Source source, Long entityId) {
+        this.source = source;
+        this.entityId = entityId;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    @Override
+    public String toString() {
+        return "PublicContentChangedEvent{" +
+                "source=" + source +
+                ", entityId=" + entityId +
+                '}';
+    }
+}
@@ -6,10 +6,12 @@ import java.util.List;
 import java.util.ArrayList;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import com.philosophy.store.DeletionTombstoneListener;
 
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(DeletionTombstoneListener.class)
 @Table(name = "comments")
 public class Comment {
 
@@ -7,9 +7,11 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.annotations.DynamicInsert;
 import org.hibernate.annotations.DynamicUpdate;
+import com.philosophy.store.DeletionTombstoneListener;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(DeletionTombstoneListener.class)
 @Table(name = "contents")
 @DynamicInsert
 @DynamicUpdate
@@ -72,6 +74,10 @@ public class Content {
     @Column(name = "like_count")
     private Integer likeCount = 0;
 
+    // 评论数量冗余计数，仅由CommentService通过批量UPDATE维护，实体保存时不写入该列
+    @Column(name = "comment_count", columnDefinition = "INT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+    private Integer commentCount = 0;
+
     @Column(name = "is_private", nullable = false)
     private boolean isPrivate = false;
 
@@ -187,6 +193,14 @@ public class Content {
         this.likeCount = likeCount;
     }
 
+    public Integer getCommentCount() {
+        return (commentCount == null) ? 0 : commentCount;
+    }
+
+    public void setCommentCount(Integer commentCount) {
+        this.commentCount = commentCount;
+    }
+
     public User getUser() {
         return user;
     }
@@ -1,5 +1,6 @@
 package com.philosophy.model;
 
+import com.philosophy.store.DeletionTombstoneListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -7,6 +8,7 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(DeletionTombstoneListener.class)
 @Table(name = "likes", 
        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "entity_type", "entity_id"}))
 public class Like {
@@ -8,12 +8,14 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import com.philosophy.util.DateUtils;
+import com.philosophy.store.DeletionTombstoneListener;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(DeletionTombstoneListener.class)
 @Table(name = "philosophers")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Philosopher {
@@ -6,11 +6,13 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import com.philosophy.store.DeletionTombstoneListener;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(DeletionTombstoneListener.class)
 @Table(name = "schools")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class School {
@@ -1,11 +1,13 @@
 package com.philosophy.model;
 
+import com.philosophy.store.DeletionTombstoneListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(DeletionTombstoneListener.class)
 @Table(name = "schools_translation")
 public class SchoolTranslation {
 
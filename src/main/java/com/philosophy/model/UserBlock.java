@@ -1,5 +1,6 @@
 package com.philosophy.model;
 
+import com.philosophy.store.DeletionTombstoneListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -11,6 +12,7 @@ import java.time.LocalDateTime;
  * 用于存储用户之间的屏蔽关系
  */
 @Entity
+@EntityListeners(DeletionTombstoneListener.class)
 @Table(name = "user_blocks", 
        uniqueConstraints = @UniqueConstraint(columnNames = {"blocker_id", "blocked_id"}))
 public class UserBlock {
@@ -1,11 +1,13 @@
 package com.philosophy.model;
 
+import com.philosophy.store.DeletionTombstoneListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(DeletionTombstoneListener.class)
 @Table(name = "user_follows", 
        uniqueConstraints = @UniqueConstraint(columnNames = {"follower_id", "following_id"}))
 public class UserFollow {
@@ -1,6 +1,7 @@
 package com.philosophy.repository;
 
 import com.philosophy.model.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,6 +10,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,6 +21,10 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     
     // 获取指定内容的评论数量
     long countByContentId(Long contentId);
+
+    // 批量统计多个内容的评论数量，返回 [contentId, 评论数]，没有评论的内容不出现在结果中
+    @Query("SELECT c.content.id, COUNT(c) FROM Comment c WHERE c.content.id IN :contentIds GROUP BY c.content.id")
+    List<Object[]> countByContentIds(@Param("contentIds") Collection<Long> contentIds);
     
     // 根据内容ID查找评论并预加载关联的用户对象，避免LazyInitializationException
     @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.content.id = :contentId AND c.parent IS NULL ORDER BY c.createdAt DESC")
@@ -32,6 +38,21 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.parent.id = :parentId ORDER BY c.createdAt ASC")
     List<Comment> findRepliesByParentId(Long parentId);
     
+    // 分页获取内容的顶级评论（第一页），按时间降序
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.content.id = :contentId AND c.parent IS NULL ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findTopLevelByContentIdWithUser(@Param("contentId") Long contentId, Pageable pageable);
+
+    // 分页获取内容的顶级评论（游标之后的页），游标为上一页最后一条顶级评论的ID
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.content.id = :contentId AND c.parent IS NULL AND " +
+           "(c.createdAt < (SELECT x.createdAt FROM Comment x WHERE x.id = :cursorId) OR " +
+           "(c.createdAt = (SELECT x.createdAt FROM Comment x WHERE x.id = :cursorId) AND c.id < :cursorId)) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findTopLevelByContentIdWithUserBefore(@Param("contentId") Long contentId, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    // 批量获取多条评论的直接回复，预加载用户，按时间升序
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user WHERE c.parent.id IN :parentIds ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findRepliesByParentIdsWithUser(@Param("parentIds") Collection<Long> parentIds);
+    
     // 获取内容的顶级评论（无父评论的评论）
     List<Comment> findByContentIdAndParentIsNullOrderByCreatedAtDesc(Long contentId);
     
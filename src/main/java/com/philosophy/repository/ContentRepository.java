@@ -134,6 +134,16 @@ public interface ContentRepository extends JpaRepository<Content, Long> {
     @Query("UPDATE Content c SET c.likeCount = c.likeCount + :delta WHERE c.id = :id")
     void updateLikeCount(Long id, int delta);
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE Content c SET c.commentCount = c.commentCount + :delta WHERE c.id = :id")
+    void updateCommentCount(Long id, int delta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Content c SET c.commentCount = :commentCount WHERE c.id = :id")
+    void setCommentCount(Long id, int commentCount);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM Content c WHERE c.id = :id")
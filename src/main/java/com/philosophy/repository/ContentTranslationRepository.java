@@ -42,14 +42,6 @@ public interface ContentTranslationRepository extends JpaRepository<ContentTrans
     @Query("DELETE FROM ContentTranslation ct WHERE ct.content.id = :contentId")
     void deleteByContentId(@Param("contentId") Long contentId);
 
-    /**
-     * 根据内容ID和语言代码删除翻译
-     */
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM ContentTranslation ct WHERE ct.content.id = :contentId AND ct.languageCode = :languageCode")
-    void deleteByContentIdAndLanguageCode(@Param("contentId") Long contentId, @Param("languageCode") String languageCode);
-
     /**
      * 查找所有内容的英文翻译（包括没有翻译的内容）
      */
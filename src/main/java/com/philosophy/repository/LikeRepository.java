@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -71,7 +73,29 @@ public interface LikeRepository extends JpaRepository<Like, Long> {
      */
     @Query(value = "SELECT l.entity_id, COUNT(*) as likeCount FROM likes l WHERE l.entity_type = :entityType GROUP BY l.entity_id ORDER BY likeCount DESC LIMIT :limit", nativeQuery = true)
     List<Object[]> findMostLikedEntitiesByType(@Param("entityType") String entityType, @Param("limit") int limit);
-    
+
+    /**
+     * 批量获取一组实体的点赞数量及指定用户是否已点赞
+     * 返回 [entityId, 点赞数, 该用户的点赞数(0或1)]，没有任何点赞的实体不出现在结果中
+     */
+    @Query("SELECT l.entityId, COUNT(l), SUM(CASE WHEN l.user.id = :userId THEN 1 ELSE 0 END) FROM Like l " +
+           "WHERE l.entityType = :entityType AND l.entityId IN :entityIds GROUP BY l.entityId")
+    List<Object[]> findLikeStatesByEntityIds(@Param("userId") Long userId,
+                                             @Param("entityType") Like.EntityType entityType,
+                                             @Param("entityIds") Collection<Long> entityIds);
+
+    /**
+     * 按实体分组统计特定类型的点赞数量（用于初始化内存排行榜）
+     */
+    @Query("SELECT l.entityId, COUNT(l) FROM Like l WHERE l.entityType = :entityType GROUP BY l.entityId")
+    List<Object[]> countLikesGroupedByEntityId(@Param("entityType") Like.EntityType entityType);
+
+    /**
+     * 获取指定时间之后的点赞记录（实体类型、实体ID、创建时间），用于初始化热门榜
+     */
+    @Query("SELECT l.entityType, l.entityId, l.createdAt FROM Like l WHERE l.createdAt >= :since")
+    List<Object[]> findLikeTimelineSince(@Param("since") LocalDateTime since);
+
     /**
      * 根据用户ID查找所有点赞记录
      */
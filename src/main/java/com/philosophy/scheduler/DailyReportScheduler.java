@@ -1,7 +1,10 @@
 package com.philosophy.scheduler;
 
 import com.philosophy.service.CsvExportService;
+import com.philosophy.service.DataExportService;
 import com.philosophy.service.EmailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -9,26 +12,44 @@ import org.springframework.stereotype.Component;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 @Component
 public class DailyReportScheduler {
 
+    private static final Logger logger = LoggerFactory.getLogger(DailyReportScheduler.class);
+
     private final CsvExportService csvExportService;
+    private final DataExportService dataExportService;
     private final EmailService emailService;
 
     @Value("${app.csv-email.enabled:true}")
     private boolean csvEmailEnabled;
 
+    /**
+     * full：每天导出全部表；delta：只导出上次发送以来的变更和删除（可用数据导入页面的“应用增量”恢复）
+     * 增量邮件不是独立的备份，只能按顺序应用在一份全量导出之上；使用delta时仍需保留全量导出。
+     */
+    @Value("${app.csv-email.mode:full}")
+    private String mode;
+
     @Value("${app.daily-report.email.recipient}")
     private String recipientEmail;
 
-    public DailyReportScheduler(CsvExportService csvExportService, EmailService emailService) {
+    public DailyReportScheduler(CsvExportService csvExportService, DataExportService dataExportService,
+                                EmailService emailService) {
         this.csvExportService = csvExportService;
+        this.dataExportService = dataExportService;
         this.emailService = emailService;
     }
 
@@ -37,13 +58,17 @@ public class DailyReportScheduler {
         if (!csvEmailEnabled) {
             return;
         }
+        if ("delta".equalsIgnoreCase(mode)) {
+            sendDeltaCsvEmail();
+            return;
+        }
 
         String tempDir = "temp_csv_export_" + System.currentTimeMillis();
         Path tempPath = new File(tempDir).toPath();
 
         try {
             Files.createDirectories(tempPath);
-            csvExportService.exportAllDataToCsv(tempDir);
+            List<CsvExportService.TableExportResult> results = csvExportService.exportAllDataToCsv(tempDir);
 
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             try (ZipOutputStream zos = new ZipOutputStream(baos)) {
@@ -52,9 +77,16 @@ public class DailyReportScheduler {
 
             String filename = "export-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".zip";
             String subject = "哲学网站每日数据导出 - " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-            String content = "<html><body><h3>每日数据导出</h3><p>请查收附件中的数据压缩包。</p></body></html>";
+            StringBuilder content = new StringBuilder("<html><body><h3>每日数据导出</h3><p>请查收附件中的数据压缩包。</p>");
+            content.append("<table border=\"1\" cellpadding=\"4\"><tr><th>文件</th><th>行数</th><th>耗时(ms)</th></tr>");
+            for (CsvExportService.TableExportResult result : results) {
+                content.append("<tr><td>").append(result.getFileName())
+                        .append("</td><td>").append(result.getRows())
+                        .append("</td><td>").append(result.getMillis()).append("</td></tr>");
+            }
+            content.append("</table></body></html>");
 
-            emailService.sendReportWithAttachment(recipientEmail, subject, content, baos.toByteArray(), filename);
+            emailService.sendReportWithAttachment(recipientEmail, subject, content.toString(), baos.toByteArray(), filename);
         } catch (IOException e) {
             // Handle exception, maybe log it
         } finally {
@@ -65,4 +97,40 @@ public class DailyReportScheduler {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 发送增量导出；邮件发送成功后才推进水位线，失败时下次重新导出同一区间
+     */
+    private void sendDeltaCsvEmail() {
+        try {
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataExportService.DeltaExportResult result;
+            try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+                zos.putNextEntry(new ZipEntry("delta-" + timestamp + ".csv"));
+                // 不关闭writer，避免关闭ZIP流
+                Writer writer = new OutputStreamWriter(zos, StandardCharsets.UTF_8);
+                result = dataExportService.exportDeltaToCsv(writer);
+                writer.flush();
+                zos.closeEntry();
+            }
+
+            String subject = "哲学网站每日增量数据导出 - " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+            StringBuilder content = new StringBuilder("<html><body><h3>每日增量数据导出</h3>");
+            content.append("<p>附件包含上次导出以来新增、修改和删除的数据，可在数据导入页面应用。</p>");
+            content.append("<table border=\"1\" cellpadding=\"4\"><tr><th>表</th><th>变更行数</th></tr>");
+            for (Map.Entry<String, Long> entry : result.getRowCounts().entrySet()) {
+                content.append("<tr><td>").append(entry.getKey())
+                        .append("</td><td>").append(entry.getValue()).append("</td></tr>");
+            }
+            content.append("<tr><td>删除记录</td><td>").append(result.getTombstoneCount()).append("</td></tr>");
+            content.append("</table></body></html>");
+
+            emailService.sendReportWithAttachment(recipientEmail, subject, content.toString(), baos.toByteArray(),
+                    "delta-" + timestamp + ".zip");
+            dataExportService.commitDelta(result);
+        } catch (Exception e) {
+            logger.error("每日增量导出失败，水位线未推进", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.philosophy.scheduler;
+
+import com.philosophy.store.StateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时清理过期的验证码和空闲的限流令牌桶
+ * 使用数据库存储时每个节点都会执行，删除语句带过期条件，重复执行没有副作用。
+ */
+@Component
+public class StateStoreSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(StateStoreSweeper.class);
+
+    private final StateStore stateStore;
+
+    public StateStoreSweeper(StateStore stateStore) {
+        this.stateStore = stateStore;
+    }
+
+    @Scheduled(fixedDelayString = "${app.state-store.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            int removed = stateStore.sweepExpired(System.currentTimeMillis());
+            if (removed > 0) {
+                logger.debug("清理过期状态记录 {} 条", removed);
+            }
+        } catch (Exception e) {
+            logger.warn("清理过期状态记录失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.philosophy.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 确定用于限流的客户端IP
+ * 默认只使用连接的对端地址（request.getRemoteAddr()），客户端自己发送的 X-Forwarded-For 等请求头一律忽略，
+ * 否则每个请求换一个伪造的头就能绕过按IP的限流。
+ * 部署在反向代理之后时，通过 app.rate-limit.trusted-proxies 配置代理地址（IP或CIDR，逗号分隔）：
+ * 只有对端是可信代理时才读取 X-Forwarded-For，从右向左跳过可信代理，取第一个不可信的地址。
+ */
+@Component
+public class ClientIpResolver {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public ClientIpResolver(@Value("${app.rate-limit.trusted-proxies:}") String trustedProxies) {
+        List<IpAddressMatcher> matchers = new ArrayList<>();
+        for (String proxy : trustedProxies.split(",")) {
+            String trimmed = proxy.trim();
+            if (!trimmed.isEmpty()) {
+                matchers.add(new IpAddressMatcher(trimmed));
+            }
+        }
+        this.trustedProxies = List.copyOf(matchers);
+    }
+
+    /**
+     * @return 客户端IP，无法确定时返回 "unknown"
+     */
+    public String resolve(HttpServletRequest request) {
+        if (request == null) {
+            return UNKNOWN;
+        }
+        String remoteAddr = request.getRemoteAddr();
+        if (remoteAddr == null || remoteAddr.isEmpty()) {
+            return UNKNOWN;
+        }
+        if (!isTrustedProxy(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isEmpty()) {
+            // 最右边的地址由离我们最近的代理追加，越往左越不可信
+            String[] hops = forwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (!isIpLiteral(hop)) {
+                    // 无法识别的条目之前的内容都可能是伪造的，以已确认的最后一跳为准
+                    break;
+                }
+                if (!isTrustedProxy(hop)) {
+                    return hop;
+                }
+                remoteAddr = hop;
+            }
+            return remoteAddr;
+        }
+
+        String realIp = request.getHeader("X-Real-IP");
+        if (realIp != null && isIpLiteral(realIp.trim())) {
+            return realIp.trim();
+        }
+        return remoteAddr;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        if (trustedProxies.isEmpty() || !isIpLiteral(address)) {
+            return false;
+        }
+        for (IpAddressMatcher matcher : trustedProxies) {
+            if (matcher.matches(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 只接受IP字面量，避免 IpAddressMatcher 把任意字符串当作主机名去做DNS查询
+     */
+    private static boolean isIpLiteral(String address) {
+        if (address.isEmpty() || address.length() > 45) {
+            return false;
+        }
+        // IPv6（可能带IPv4后缀）含冒号，可以有十六进制字母；IPv4只能是数字和点
+        boolean ipv6 = address.indexOf(':') >= 0;
+        if (!ipv6 && address.indexOf('.') < 0) {
+            return false;
+        }
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            boolean valid = (c >= '0' && c <= '9') || c == '.'
+                    || (ipv6 && (c == ':' || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')));
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package com.philosophy.security;
 
+import com.philosophy.config.StaticResourceConfig;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -9,23 +10,55 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.time.Duration;
 import java.util.Base64;
 
+/**
+ * 为浏览器分配带签名的设备ID Cookie
+ * 只处理页面导航（GET且接受HTML），静态资源、AJAX和表单提交直接跳过。
+ * 签名使用HMAC-SHA256，每个线程缓存一个已初始化的Mac实例，校验时使用常量时间比较。
+ */
 @Component
 public class DeviceIdFilter extends OncePerRequestFilter {
 
     private static final String COOKIE_NAME = "did";
     private static final String COOKIE_SIG_NAME = "did_sig";
     private static final int COOKIE_MAX_AGE = (int) Duration.ofDays(365).getSeconds();
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    // SecureRandom 是线程安全的，共享一个实例即可
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
     @Value("${security.device.secret:change-this-secret}")
     private String deviceSecret;
 
+    private final ThreadLocal<Mac> macHolder = ThreadLocal.withInitial(this::createMac);
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (StaticResourceConfig.isStaticResource(path)) {
+            return true;
+        }
+        // 浏览器页面导航会带 Sec-Fetch-Mode: navigate；旧浏览器没有该请求头时按Accept判断
+        String fetchMode = request.getHeader("Sec-Fetch-Mode");
+        if (fetchMode != null) {
+            return !"navigate".equals(fetchMode);
+        }
+        String accept = request.getHeader("Accept");
+        return accept == null || !accept.contains("text/html");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -41,10 +74,16 @@ public class DeviceIdFilter extends OncePerRequestFilter {
 
         boolean valid = deviceId != null && deviceSig != null && verifySignature(deviceId, deviceSig);
         if (!valid) {
-            deviceId = generateDeviceId();
-            deviceSig = sign(deviceId);
-            addHttpOnlyCookie(response, COOKIE_NAME, deviceId);
-            addHttpOnlyCookie(response, COOKIE_SIG_NAME, deviceSig);
+            if (deviceId != null && deviceSig != null && verifyLegacySignature(deviceId, deviceSig)) {
+                // 旧版签名（SHA-256拼接密钥）仍然有效：保留设备ID，只换发新签名
+                deviceSig = sign(deviceId);
+                addHttpOnlyCookie(response, COOKIE_SIG_NAME, deviceSig);
+            } else {
+                deviceId = generateDeviceId();
+                deviceSig = sign(deviceId);
+                addHttpOnlyCookie(response, COOKIE_NAME, deviceId);
+                addHttpOnlyCookie(response, COOKIE_SIG_NAME, deviceSig);
+            }
         }
 
         request.setAttribute("__device_id__", deviceId);
@@ -62,24 +101,54 @@ public class DeviceIdFilter extends OncePerRequestFilter {
 
     private String generateDeviceId() {
         byte[] random = new byte[16];
-        new SecureRandom().nextBytes(random);
+        SECURE_RANDOM.nextBytes(random);
         return Base64.getUrlEncoder().withoutPadding().encodeToString(random);
     }
 
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(deviceSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("无法初始化设备ID签名算法", e);
+        }
+    }
+
+    private byte[] hmac(String deviceId) {
+        // doFinal 会重置Mac状态，同一线程可以直接复用
+        return macHolder.get().doFinal(deviceId.getBytes(StandardCharsets.UTF_8));
+    }
+
     private String sign(String deviceId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(deviceId));
+    }
+
+    private boolean verifySignature(String deviceId, String signature) {
+        byte[] provided = decode(signature);
+        return provided != null && MessageDigest.isEqual(hmac(deviceId), provided);
+    }
+
+    private boolean verifyLegacySignature(String deviceId, String signature) {
+        byte[] provided = decode(signature);
+        if (provided == null) {
+            return false;
+        }
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             digest.update(deviceSecret.getBytes(StandardCharsets.UTF_8));
-            byte[] hash = digest.digest(deviceId.getBytes(StandardCharsets.UTF_8));
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            byte[] expected = digest.digest(deviceId.getBytes(StandardCharsets.UTF_8));
+            return MessageDigest.isEqual(expected, provided);
+        } catch (GeneralSecurityException e) {
+            return false;
         }
     }
 
-    private boolean verifySignature(String deviceId, String signature) {
-        return sign(deviceId).equals(signature);
+    private byte[] decode(String signature) {
+        try {
+            return Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 }
-
-
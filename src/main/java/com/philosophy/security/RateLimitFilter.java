@@ -0,0 +1,132 @@
+package com.philosophy.security;
+
+import com.philosophy.config.StaticResourceConfig;
+import com.philosophy.service.RateLimitingService;
+import com.philosophy.service.RateLimitingService.RateLimit;
+import com.philosophy.service.RateLimitingService.RateLimitResult;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 按接口限流的过滤器
+ * 在Spring Security之前执行，表单登录（POST /login）也能被覆盖。
+ * 每条规则按客户端IP计数，超出后返回429和Retry-After，不再进入后续过滤器。
+ * 客户端IP由 ClientIpResolver 确定，只有来自可信代理的请求才采用 X-Forwarded-For。
+ * 发送注册验证码（/register/send-code）仍由 AuthController 调用 RateLimitingService 检查，
+ * 那里有IP和全局两级限制以及专门的提示信息。
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimitingService rateLimitingService;
+    private final ClientIpResolver clientIpResolver;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Rule> rules;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    public RateLimitFilter(RateLimitingService rateLimitingService, ClientIpResolver clientIpResolver,
+                           @Value("${app.rate-limit.login-per-minute:10}") int loginPerMinute,
+                           @Value("${app.rate-limit.like-per-minute:60}") int likePerMinute,
+                           @Value("${app.rate-limit.comment-per-minute:10}") int commentPerMinute,
+                           @Value("${app.rate-limit.search-per-minute:60}") int searchPerMinute) {
+        this.rateLimitingService = rateLimitingService;
+        this.clientIpResolver = clientIpResolver;
+        Duration minute = Duration.ofMinutes(1);
+        RateLimit search = rateLimitingService.newLimit("search", searchPerMinute, minute);
+        this.rules = List.of(
+                new Rule("POST", "/login", rateLimitingService.newLimit("login", loginPerMinute, minute)),
+                new Rule("POST", "/likes/toggle", rateLimitingService.newLimit("like-toggle", likePerMinute, minute)),
+                new Rule("POST", "/comments/content/*", rateLimitingService.newLimit("comment", commentPerMinute, minute)),
+                // 搜索页面和搜索接口共用一个额度
+                new Rule("GET", "/search/results", search),
+                new Rule("GET", "/api/search/**", search)
+        );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || StaticResourceConfig.isStaticResource(
+                request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Rule rule = findRule(request);
+        if (rule != null) {
+            String clientIp = clientIpResolver.resolve(request);
+            RateLimitResult result = rateLimitingService.tryAcquire(rule.limit, clientIp);
+            if (!result.isAllowed()) {
+                logger.warn("IP {} 触发接口限流: {} {}, 需要等待 {} 秒",
+                        clientIp, request.getMethod(), request.getRequestURI(), result.getWaitSeconds());
+                reject(request, response, result);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Rule findRule(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Rule rule : rules) {
+            if (rule.method.equals(method) && pathMatcher.match(rule.pattern, path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, RateLimitResult result)
+            throws IOException {
+        response.setHeader("Retry-After", String.valueOf(result.getWaitSeconds()));
+        if (!isAjaxRequest(request)) {
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), result.getMessage());
+            return;
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"success\":false,\"message\":\"" + result.getMessage()
+                + "\",\"waitSeconds\":" + result.getWaitSeconds() + "}");
+    }
+
+    private boolean isAjaxRequest(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return "XMLHttpRequest".equals(request.getHeader("X-Requested-With"))
+                || (accept != null && accept.contains(MediaType.APPLICATION_JSON_VALUE))
+                || request.getRequestURI().startsWith(request.getContextPath() + "/api/")
+                || request.getRequestURI().startsWith(request.getContextPath() + "/likes/");
+    }
+
+    private static final class Rule {
+        private final String method;
+        private final String pattern;
+        private final RateLimit limit;
+
+        private Rule(String method, String pattern, RateLimit limit) {
+            this.method = method;
+            this.pattern = pattern;
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.philosophy.security;
+
+import com.philosophy.model.User;
+
+import java.io.Serializable;
+
+/**
+ * 登录用户的只读快照
+ * 保存在会话中，页面渲染和接口鉴权只需要这些字段，不必每次请求都查询users表。
+ * 用户资料、主题、语言或角色变化后由 UserSnapshotService 重新生成。
+ */
+public final class UserSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String username;
+    private final String role;
+    private final String theme;
+    private final String language;
+    private final Long assignedSchoolId;
+    // 生成快照时的版本号，用于判断快照是否已失效
+    private final long version;
+
+    public UserSnapshot(Long id, String username, String role, String theme, String language,
+                        Long assignedSchoolId, long version) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.theme = theme;
+        this.language = language;
+        this.assignedSchoolId = assignedSchoolId;
+        this.version = version;
+    }
+
+    public static UserSnapshot from(User user, long version) {
+        return new UserSnapshot(user.getId(), user.getUsername(), user.getRole(), user.getTheme(),
+                user.getLanguage(), user.getAssignedSchoolId(), version);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getTheme() {
+        return theme;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public Long getAssignedSchoolId() {
+        return assignedSchoolId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+
+    public boolean isModerator() {
+        return "MODERATOR".equals(role);
+    }
+
+    @Override
+    public String toString() {
+        return "UserSnapshot{" +
+                "id=" + id +
+                ", username='" + username + '\'' +
+                ", role='" + role + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
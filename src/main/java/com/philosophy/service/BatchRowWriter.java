@@ -0,0 +1,122 @@
+package com.philosophy.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 按批写入一张表
+ * 每批拼成一条多行语句 "REPLACE INTO t (..) VALUES (..), (..), ..." 执行，
+ * 效果与MySQL驱动的 rewriteBatchedStatements 相同，但不依赖数据源URL上的参数。
+ * 整批失败时逐行重试，只有真正出错的行计为失败。
+ * 不开启事务，由调用方的事务决定提交时机；调用方负责在结束时调用 flush。
+ */
+class BatchRowWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRowWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final String statementPrefix;
+    private final String rowPlaceholders;
+    private final int columnCount;
+    private final int batchSize;
+    private final BiConsumer<Object[], Exception> rowFailureHandler;
+    private final List<Object[]> pending;
+
+    // 满批语句的SQL，只拼一次
+    private String fullBatchSql;
+    private long written;
+    private long failed;
+
+    /**
+     * @param verb 如 "INSERT INTO" 或 "REPLACE INTO"
+     * @param rowFailureHandler 逐行重试仍失败时调用，参数为该行的值和异常
+     */
+    BatchRowWriter(JdbcTemplate jdbcTemplate, String verb, String table, List<String> columns, int batchSize,
+                   BiConsumer<Object[], Exception> rowFailureHandler) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+        this.statementPrefix = verb + " " + table + " (" + String.join(", ", columns) + ") VALUES ";
+        this.rowPlaceholders = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        this.columnCount = columns.size();
+        this.batchSize = batchSize;
+        this.rowFailureHandler = rowFailureHandler;
+        this.pending = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * @param row 按构造时的列顺序排列的值
+     */
+    void add(Object[] row) {
+        if (row.length != columnCount) {
+            throw new IllegalArgumentException("列数不符: 期望 " + columnCount + "，实际 " + row.length);
+        }
+        pending.add(row);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Object[] params = new Object[pending.size() * columnCount];
+        int offset = 0;
+        for (Object[] row : pending) {
+            System.arraycopy(row, 0, params, offset, columnCount);
+            offset += columnCount;
+        }
+        try {
+            jdbcTemplate.update(sqlFor(pending.size()), params);
+            written += pending.size();
+        } catch (DataAccessException batchError) {
+            logger.warn("批量写入 {} 失败（{} 行），改为逐行写入: {}", table, pending.size(), batchError.getMessage());
+            String singleRowSql = statementPrefix + rowPlaceholders;
+            for (Object[] row : pending) {
+                try {
+                    jdbcTemplate.update(singleRowSql, row);
+                    written++;
+                } catch (DataAccessException rowError) {
+                    failed++;
+                    rowFailureHandler.accept(row, rowError);
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    private String sqlFor(int rows) {
+        if (rows == batchSize && fullBatchSql != null) {
+            return fullBatchSql;
+        }
+        StringBuilder sql = new StringBuilder(statementPrefix.length() + rows * (rowPlaceholders.length() + 2));
+        sql.append(statementPrefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(rowPlaceholders);
+        }
+        String result = sql.toString();
+        if (rows == batchSize) {
+            fullBatchSql = result;
+        }
+        return result;
+    }
+
+    long getWritten() {
+        return written;
+    }
+
+    long getFailed() {
+        return failed;
+    }
+}
@@ -1,16 +1,26 @@
 package com.philosophy.service;
 
+import com.philosophy.event.PublicContentChangedEvent;
 import com.philosophy.model.Comment;
 import com.philosophy.model.Content;
 import com.philosophy.model.User;
 import com.philosophy.repository.CommentRepository;
+import com.philosophy.repository.ContentRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class CommentService {
@@ -18,14 +28,24 @@ public class CommentService {
     private static final Logger logger = LoggerFactory.getLogger(CommentService.class);
 
     private final CommentRepository commentRepository;
+    private final ContentRepository contentRepository;
     private final ContentService contentService;
     private final UserBlockService userBlockService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CommentService(CommentRepository commentRepository, ContentService contentService, 
-                         UserBlockService userBlockService) {
+    public CommentService(CommentRepository commentRepository, ContentRepository contentRepository,
+                         ContentService contentService, UserBlockService userBlockService,
+                         ApplicationEventPublisher eventPublisher) {
         this.commentRepository = commentRepository;
+        this.contentRepository = contentRepository;
         this.contentService = contentService;
         this.userBlockService = userBlockService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // 评论数变化后通知游客页面缓存（列表页显示评论数）在事务提交后失效
+    private void publishChanged(Long commentId) {
+        eventPublisher.publishEvent(new PublicContentChangedEvent(PublicContentChangedEvent.Source.COMMENT, commentId));
     }
 
     @Transactional(readOnly = true)
@@ -67,12 +87,36 @@ public class CommentService {
         if (comment.getCreatedAt() == null) {
             comment.setCreatedAt(java.time.LocalDateTime.now());
         }
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        contentRepository.updateCommentCount(contentId, 1);
+        publishChanged(saved.getId());
+        return saved;
     }
 
     @Transactional
     public void deleteComment(Long id) {
-        commentRepository.deleteById(id);
+        Comment comment = commentRepository.findById(id).orElse(null);
+        if (comment == null) {
+            return;
+        }
+        // 回复通过级联一并删除，需要从计数中一起扣除
+        int removed = countWithReplies(comment);
+        Long contentId = comment.getContent() != null ? comment.getContent().getId() : null;
+        commentRepository.delete(comment);
+        if (contentId != null) {
+            contentRepository.updateCommentCount(contentId, -removed);
+        }
+        publishChanged(id);
+    }
+
+    private int countWithReplies(Comment comment) {
+        int count = 1;
+        if (comment.getReplies() != null) {
+            for (Comment reply : comment.getReplies()) {
+                count += countWithReplies(reply);
+            }
+        }
+        return count;
     }
 
     @Transactional
@@ -109,7 +153,12 @@ public class CommentService {
         if (reply.getCreatedAt() == null) {
             reply.setCreatedAt(java.time.LocalDateTime.now());
         }
-        return commentRepository.save(reply);
+        Comment saved = commentRepository.save(reply);
+        if (parent.getContent() != null) {
+            contentRepository.updateCommentCount(parent.getContent().getId(), 1);
+        }
+        publishChanged(saved.getId());
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -172,6 +221,59 @@ public class CommentService {
     }
 
 
+    /**
+     * 按游标分页加载顶级评论及其回复
+     * 每页先取一页顶级评论，再按层级批量加载回复（每层一次IN查询），适用于评论很多的讨论。
+     * 评论树组装在CommentNode中，不修改实体的replies集合（该集合带级联和孤儿删除）。
+     * 不可见评论的回复随之隐藏。可见性使用一次性预加载的屏蔽用户集合判断。
+     * @param contentId 内容ID
+     * @param currentUser 当前用户（用于权限检查）
+     * @param cursorId 上一页最后一条顶级评论的ID，为null时加载第一页
+     * @param pageSize 每页顶级评论数量
+     * @return 当前页的评论树及下一页游标
+     */
+    @Transactional(readOnly = true)
+    public CommentThreadPage loadCommentTreePage(Long contentId, User currentUser, Long cursorId, int pageSize) {
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Comment> candidates = cursorId == null
+                ? commentRepository.findTopLevelByContentIdWithUser(contentId, limit)
+                : commentRepository.findTopLevelByContentIdWithUserBefore(contentId, cursorId, limit);
+
+        boolean hasMore = candidates.size() > pageSize;
+        List<Comment> pageRoots = hasMore ? candidates.subList(0, pageSize) : candidates;
+        Long nextCursor = hasMore ? pageRoots.get(pageRoots.size() - 1).getId() : null;
+
+        Set<Long> blockedUserIds = loadBlockedUserIds(currentUser);
+        List<CommentNode> roots = new ArrayList<>();
+        Map<Long, CommentNode> nodeById = new HashMap<>();
+        for (Comment root : pageRoots) {
+            if (canView(root, currentUser, blockedUserIds)) {
+                CommentNode node = new CommentNode(root);
+                roots.add(node);
+                nodeById.put(root.getId(), node);
+            }
+        }
+
+        // 逐层加载回复，直到没有更深的回复；每层查询按时间升序，同一父评论下的回复顺序即为时间顺序
+        Set<Long> parentIds = new HashSet<>(nodeById.keySet());
+        while (!parentIds.isEmpty()) {
+            Set<Long> nextParentIds = new HashSet<>();
+            for (Comment reply : commentRepository.findRepliesByParentIdsWithUser(parentIds)) {
+                CommentNode parent = nodeById.get(reply.getParent().getId());
+                if (parent == null || !canView(reply, currentUser, blockedUserIds)) {
+                    continue;
+                }
+                CommentNode node = new CommentNode(reply);
+                parent.replies.add(node);
+                nodeById.put(reply.getId(), node);
+                nextParentIds.add(reply.getId());
+            }
+            parentIds = nextParentIds;
+        }
+        return new CommentThreadPage(roots, nextCursor, hasMore);
+    }
+
+
     /**
      * 根据隐私设置和屏蔽关系过滤评论
      * @param comments 评论列表
@@ -183,76 +285,15 @@ public class CommentService {
             return comments;
         }
 
-        List<Comment> filteredComments = new ArrayList<>();
-        boolean isAdmin = currentUser != null && "ADMIN".equals(currentUser.getRole());
-
         // 添加调试日志
         logger.debug("Filtering {} comments for user: {}", comments.size(), 
             (currentUser != null ? currentUser.getUsername() : "anonymous"));
 
+        // 屏蔽关系一次性加载，避免逐条评论查询
+        Set<Long> blockedUserIds = loadBlockedUserIds(currentUser);
+        List<Comment> filteredComments = new ArrayList<>();
         for (Comment comment : comments) {
-            boolean canView = false;
-            
-            // 管理员可以看到所有评论，不受任何屏蔽关系限制
-            if (isAdmin) {
-                canView = true;
-                logger.debug("Comment {} visible to admin", comment.getId());
-                filteredComments.add(comment);
-                continue;
-            }
-            
-            // 首先检查普通用户屏蔽关系：如果当前用户屏蔽了评论作者，则跳过该评论
-            if (currentUser != null) {
-                boolean isBlocked = userBlockService.isBlocked(currentUser.getId(), comment.getUser().getId());
-                if (isBlocked) {
-                    logger.debug("Comment {} is from blocked user, skipping", comment.getId());
-                    continue; // 跳过被屏蔽用户的评论
-                }
-            }
-            
-            // 检查评论是否被屏蔽
-            if (comment.isBlocked()) {
-                // 被屏蔽的评论，只有评论作者本人和管理员可见
-                if (currentUser != null && 
-                    (comment.getUser().getId().equals(currentUser.getId()) || isAdmin)) {
-                    canView = true;
-                }
-                logger.debug("Comment {} is blocked, canView: {}", comment.getId(), canView);
-                if (canView) {
-                    filteredComments.add(comment);
-                }
-                continue; // 跳过后续检查
-            }
-            
-            // 添加调试日志
-            logger.debug("Comment {} - isPrivate: {}, status: {}", comment.getId(), 
-                comment.isPrivate(), comment.getStatus());
-            
-            // 检查管理员设置的状态字段
-            if (comment.getStatus() == 1) {
-                // 状态为1（管理员设置隐藏），只有管理员和评论作者可见
-                if (currentUser != null && 
-                    (comment.getUser().getId().equals(currentUser.getId()) || isAdmin)) {
-                    canView = true;
-                }
-                logger.debug("Comment {} is admin hidden, canView: {}", comment.getId(), canView);
-            } else {
-                // 状态为0（正常），继续检查用户隐私设置
-                if (comment.isPrivate()) {
-                    // 评论被设置为私密，只有评论作者和管理员可见
-                    if (currentUser != null && 
-                        (comment.getUser().getId().equals(currentUser.getId()) || isAdmin)) {
-                        canView = true;
-                    }
-                    logger.debug("Comment {} is private, canView: {}", comment.getId(), canView);
-                } else {
-                    // 评论为公开，所有人都可以看到（包括未登录用户）
-                    canView = true;
-                    logger.debug("Comment {} is public, canView: {}", comment.getId(), canView);
-                }
-            }
-            
-            if (canView) {
+            if (canView(comment, currentUser, blockedUserIds)) {
                 filteredComments.add(comment);
             }
         }
@@ -261,6 +302,50 @@ public class CommentService {
         return filteredComments;
     }
 
+    /**
+     * 加载当前用户屏蔽的用户ID集合（管理员不受屏蔽关系限制，返回空集合）
+     */
+    private Set<Long> loadBlockedUserIds(User currentUser) {
+        if (currentUser == null || "ADMIN".equals(currentUser.getRole())) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(userBlockService.getBlockedUserIds(currentUser.getId()));
+    }
+
+    /**
+     * 判断当前用户是否可以查看某条评论
+     * @param comment 评论
+     * @param currentUser 当前用户（未登录为null）
+     * @param blockedUserIds 当前用户屏蔽的用户ID集合
+     */
+    private boolean canView(Comment comment, User currentUser, Set<Long> blockedUserIds) {
+        // 管理员可以看到所有评论，不受任何屏蔽关系限制
+        if (currentUser != null && "ADMIN".equals(currentUser.getRole())) {
+            return true;
+        }
+
+        // 如果当前用户屏蔽了评论作者，则不显示该评论
+        if (blockedUserIds.contains(comment.getUser().getId())) {
+            logger.debug("Comment {} is from blocked user, skipping", comment.getId());
+            return false;
+        }
+
+        boolean isAuthor = currentUser != null && comment.getUser().getId().equals(currentUser.getId());
+
+        // 被屏蔽的评论，只有评论作者本人可见
+        if (comment.isBlocked()) {
+            return isAuthor;
+        }
+
+        // 状态为1（管理员设置隐藏）或评论被设置为私密，只有评论作者可见
+        if (comment.getStatus() == 1 || comment.isPrivate()) {
+            return isAuthor;
+        }
+
+        // 评论为公开，所有人都可以看到（包括未登录用户）
+        return true;
+    }
+
     /**
      * 根据用户ID查找所有评论（包括软删除的），用于管理员查看
      * @param userId 用户ID
@@ -369,4 +454,72 @@ public class CommentService {
         }
         return commentRepository.findBySchoolIdsOrderByCreatedAtDesc(schoolIds);
     }
-}
\ No newline at end of file
+
+    /**
+     * 分页评论树结果
+     */
+    public static class CommentThreadPage {
+        private final List<CommentNode> comments;
+        private final Long nextCursor;
+        private final boolean hasMore;
+
+        public CommentThreadPage(List<CommentNode> comments, Long nextCursor, boolean hasMore) {
+            this.comments = comments;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+
+        public List<CommentNode> getComments() {
+            return comments;
+        }
+
+        public Long getNextCursor() {
+            return nextCursor;
+        }
+
+        public boolean isHasMore() {
+            return hasMore;
+        }
+    }
+
+    /**
+     * 评论树中的一个节点，用于页面展示
+     * replies为该评论的直接回复，更深的回复挂在各自的父节点下
+     */
+    public static class CommentNode {
+        private final Comment comment;
+        private final List<CommentNode> replies = new ArrayList<>();
+
+        public CommentNode(Comment comment) {
+            this.comment = comment;
+        }
+
+        public Comment getComment() {
+            return comment;
+        }
+
+        public Long getId() {
+            return comment.getId();
+        }
+
+        public User getUser() {
+            return comment.getUser();
+        }
+
+        public Content getContent() {
+            return comment.getContent();
+        }
+
+        public String getBody() {
+            return comment.getBody();
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return comment.getCreatedAt();
+        }
+
+        public List<CommentNode> getReplies() {
+            return replies;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.philosophy.service;
 
+import com.philosophy.event.PublicContentChangedEvent;
 import com.philosophy.model.Content;
 import com.philosophy.model.School;
 import com.philosophy.model.User;
@@ -7,9 +8,11 @@ import com.philosophy.model.UserContentEdit;
 import com.philosophy.repository.ContentRepository;
 import com.philosophy.repository.ContentTranslationRepository;
 import com.philosophy.repository.UserContentEditRepository;
+import com.philosophy.store.ExportWatermarkStore;
 import com.philosophy.util.SearchNormalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +30,8 @@ public class ContentService {
     private final ContentTranslationRepository contentTranslationRepository;
     private final UserBlockService userBlockService;
     private final SchoolService schoolService;
+    private final ExportWatermarkStore exportWatermarkStore;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final Logger logger = LoggerFactory.getLogger(ContentService.class);
 
@@ -34,13 +39,22 @@ public class ContentService {
                          UserContentEditRepository userContentEditRepository, 
                          ContentTranslationRepository contentTranslationRepository,
                          UserBlockService userBlockService,
-                         SchoolService schoolService) {
+                         SchoolService schoolService,
+                         ExportWatermarkStore exportWatermarkStore,
+                         ApplicationEventPublisher eventPublisher) {
         this.contentRepository = contentRepository;
         this.philosopherService = philosopherService;
         this.userContentEditRepository = userContentEditRepository;
         this.contentTranslationRepository = contentTranslationRepository;
         this.userBlockService = userBlockService;
         this.schoolService = schoolService;
+        this.exportWatermarkStore = exportWatermarkStore;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // 内容变化后通知游客页面缓存等在事务提交后失效
+    private void publishChanged(Long contentId) {
+        eventPublisher.publishEvent(new PublicContentChangedEvent(PublicContentChangedEvent.Source.CONTENT, contentId));
     }
 
     @Transactional(readOnly = true)
@@ -85,6 +99,7 @@ public class ContentService {
             philosopherService.recalculatePhilosopherSchools(originalPhilosopherId);
         }
 
+        publishChanged(savedContent.getId());
         return savedContent;
     }
 
@@ -150,6 +165,9 @@ public class ContentService {
 
         // 使用不依赖版本字段的删除方法
         contentRepository.deleteByIdWithoutVersion(id);
+        // 批量删除不触发实体回调，需要单独记录删除供增量导出
+        exportWatermarkStore.recordTombstone("contents", id);
+        publishChanged(id);
 
         // 删除内容后重新计算相关哲学家的流派
         if (philosopherId != null) {
@@ -247,6 +265,8 @@ public class ContentService {
             
             // 使用不依赖版本字段的删除方法
             contentRepository.deleteByIdWithoutVersion(id);
+            exportWatermarkStore.recordTombstone("contents", id);
+            publishChanged(id);
 
             // 如果内容有关联的哲学家，则重新计算其流派
             if (philosopherId != null) {
@@ -1004,6 +1024,9 @@ public class ContentService {
                 updatedCount++;
             }
         }
+        if (updatedCount > 0) {
+            publishChanged(null);
+        }
 
         return updatedCount;
     }
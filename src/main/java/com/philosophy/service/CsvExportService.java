@@ -2,139 +2,207 @@ package com.philosophy.service;
 
 import com.opencsv.CSVWriter;
 import com.philosophy.model.*;
-import com.philosophy.repository.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.io.File;
-import java.io.FileInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+/**
+ * 每日数据导出：每张表导出为一个CSV文件，再打包为ZIP
+ * 各表由有界线程池并行导出，每个任务使用自己的只读事务和数据库连接，
+ * 并按主键分页读取（见 KeysetPageReader）。导出完成后记录每张表的行数和耗时。
+ */
 @Service
 public class CsvExportService {
 
-    private final CommentRepository commentRepository;
-    private final ContentRepository contentRepository;
-    private final ContentTranslationRepository contentTranslationRepository;
-    private final LikeRepository likeRepository;
-    private final PhilosopherRepository philosopherRepository;
-    private final PhilosopherTranslationRepository philosopherTranslationRepository;
-    private final SchoolRepository schoolRepository;
-    private final SchoolTranslationRepository schoolTranslationRepository;
-    private final UserRepository userRepository;
-    private final UserBlockRepository userBlockRepository;
-    private final UserContentEditRepository userContentEditRepository;
-    private final UserFollowRepository userFollowRepository;
-    private final UserLoginInfoRepository userLoginInfoRepository;
-
-    public CsvExportService(CommentRepository commentRepository,
-                              ContentRepository contentRepository,
-                              ContentTranslationRepository contentTranslationRepository,
-                              LikeRepository likeRepository,
-                              PhilosopherRepository philosopherRepository,
-                              PhilosopherTranslationRepository philosopherTranslationRepository,
-                              SchoolRepository schoolRepository,
-                              SchoolTranslationRepository schoolTranslationRepository,
-                              UserRepository userRepository,
-                              UserBlockRepository userBlockRepository,
-                              UserContentEditRepository userContentEditRepository,
-                              UserFollowRepository userFollowRepository,
-                              UserLoginInfoRepository userLoginInfoRepository) {
-        this.commentRepository = commentRepository;
-        this.contentRepository = contentRepository;
-        this.contentTranslationRepository = contentTranslationRepository;
-        this.likeRepository = likeRepository;
-        this.philosopherRepository = philosopherRepository;
-        this.philosopherTranslationRepository = philosopherTranslationRepository;
-        this.schoolRepository = schoolRepository;
-        this.schoolTranslationRepository = schoolTranslationRepository;
-        this.userRepository = userRepository;
-        this.userBlockRepository = userBlockRepository;
-        this.userContentEditRepository = userContentEditRepository;
-        this.userFollowRepository = userFollowRepository;
-        this.userLoginInfoRepository = userLoginInfoRepository;
+    private static final Logger logger = LoggerFactory.getLogger(CsvExportService.class);
+
+    // 打包ZIP时的读缓冲区
+    private static final int ZIP_BUFFER_SIZE = 256 * 1024;
+    private static final int ROW_BUFFER_SIZE = 1024;
+
+    // 逐表导出的实体，导出结构在启动时一次性构建
+    private static final List<Class<?>> EXPORTED_ENTITIES = List.of(
+            Comment.class, Content.class, ContentTranslation.class, Like.class, Philosopher.class,
+            PhilosopherTranslation.class, School.class, SchoolTranslation.class, User.class, UserBlock.class,
+            UserContentEdit.class, UserFollow.class, UserLoginInfo.class);
+
+    private final KeysetPageReader keysetPageReader;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ExecutorService exportExecutor;
+    private final Map<Class<?>, EntityCsvSchema<?>> schemas;
+
+    public CsvExportService(KeysetPageReader keysetPageReader,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.csv-export.parallelism:0}") int parallelism) {
+        this.keysetPageReader = keysetPageReader;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        Map<Class<?>, EntityCsvSchema<?>> builtSchemas = new HashMap<>();
+        for (Class<?> entity : EXPORTED_ENTITIES) {
+            builtSchemas.put(entity, EntityCsvSchema.of(entity));
+        }
+        this.schemas = Map.copyOf(builtSchemas);
+        // 默认按CPU核数并行，但不超过4，避免占满数据库连接池
+        int threads = parallelism > 0 ? parallelism : Math.min(4, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.exportExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "csv-export-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    public void exportAllDataToCsv(String directoryPath) throws IOException {
-        exportToCsv(directoryPath + "/comments.csv", Comment.class, commentRepository.findAll());
-        exportToCsv(directoryPath + "/contents.csv", Content.class, contentRepository.findAll());
-        exportToCsv(directoryPath + "/content_translations.csv", ContentTranslation.class, contentTranslationRepository.findAll());
-        exportToCsv(directoryPath + "/likes.csv", Like.class, likeRepository.findAll());
-        exportToCsv(directoryPath + "/philosophers.csv", Philosopher.class, philosopherRepository.findAll());
-        exportToCsv(directoryPath + "/philosopher_translations.csv", PhilosopherTranslation.class, philosopherTranslationRepository.findAll());
-        exportToCsv(directoryPath + "/schools.csv", School.class, schoolRepository.findAll());
-        exportToCsv(directoryPath + "/school_translations.csv", SchoolTranslation.class, schoolTranslationRepository.findAll());
-        exportToCsv(directoryPath + "/users.csv", User.class, userRepository.findAll());
-        exportToCsv(directoryPath + "/user_blocks.csv", UserBlock.class, userBlockRepository.findAll());
-        exportToCsv(directoryPath + "/user_content_edits.csv", UserContentEdit.class, userContentEditRepository.findAll());
-        exportToCsv(directoryPath + "/user_follows.csv", UserFollow.class, userFollowRepository.findAll());
-        exportToCsv(directoryPath + "/user_login_info.csv", UserLoginInfo.class, userLoginInfoRepository.findAll());
-        
+    public List<TableExportResult> exportAllDataToCsv(String directoryPath) throws IOException {
+        Path directory = Paths.get(directoryPath);
+        long start = System.nanoTime();
+
+        List<Future<TableExportResult>> futures = new ArrayList<>();
+        futures.add(submit(directory, "comments.csv", Comment.class, Comment::getId));
+        futures.add(submit(directory, "contents.csv", Content.class, Content::getId));
+        futures.add(submit(directory, "content_translations.csv", ContentTranslation.class, ContentTranslation::getId));
+        futures.add(submit(directory, "likes.csv", Like.class, Like::getId));
+        futures.add(submit(directory, "philosophers.csv", Philosopher.class, Philosopher::getId));
+        futures.add(submit(directory, "philosopher_translations.csv", PhilosopherTranslation.class, PhilosopherTranslation::getId));
+        futures.add(submit(directory, "schools.csv", School.class, School::getId));
+        futures.add(submit(directory, "school_translations.csv", SchoolTranslation.class, SchoolTranslation::getId));
+        futures.add(submit(directory, "users.csv", User.class, User::getId));
+        futures.add(submit(directory, "user_blocks.csv", UserBlock.class, UserBlock::getId));
+        futures.add(submit(directory, "user_content_edits.csv", UserContentEdit.class, UserContentEdit::getId));
+        futures.add(submit(directory, "user_follows.csv", UserFollow.class, UserFollow::getId));
+        futures.add(submit(directory, "user_login_info.csv", UserLoginInfo.class, UserLoginInfo::getId));
         // 导出哲学家-学派关联表
-        exportPhilosopherSchoolAssociations(directoryPath + "/philosopher_school.csv");
-    }
+        futures.add(exportExecutor.submit(() -> timed("philosopher_school.csv",
+                () -> exportPhilosopherSchoolAssociations(directory.resolve("philosopher_school.csv")))));
 
-    private <T> void exportToCsv(String fileName, Class<T> clazz, List<T> data) throws IOException {
-        try (CSVWriter writer = new CSVWriter(new FileWriter(fileName))) {
-            // Write header
-            Field[] fields = clazz.getDeclaredFields();
-            List<String> header = new ArrayList<>();
-            for (Field field : fields) {
-                header.add(field.getName());
+        List<TableExportResult> results = new ArrayList<>();
+        try {
+            for (Future<TableExportResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IOException("导出被中断", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
             }
-            writer.writeNext(header.toArray(new String[0]));
+            throw new IOException("导出数据表失败: " + cause.getMessage(), cause);
+        }
 
-            // Write data
-            for (T item : data) {
-                List<String> row = new ArrayList<>();
-                for (Field field : fields) {
-                    field.setAccessible(true);
-                    try {
-                        Object value = field.get(item);
-                        row.add(value != null ? value.toString() : "");
-                    } catch (IllegalAccessException e) {
-                        row.add("");
-                    }
+        long totalMillis = (System.nanoTime() - start) / 1_000_000;
+        long sumMillis = results.stream().mapToLong(TableExportResult::getMillis).sum();
+        logger.info("CSV导出完成: {} 张表, 总耗时 {} ms（各表耗时合计 {} ms）", results.size(), totalMillis, sumMillis);
+        return results;
+    }
+
+    private <T> Future<TableExportResult> submit(Path directory, String fileName, Class<T> clazz, Function<T, Long> idGetter) {
+        return exportExecutor.submit(() -> timed(fileName, () -> exportToCsv(directory.resolve(fileName), clazz, idGetter)));
+    }
+
+    private TableExportResult timed(String fileName, TableExport export) throws IOException {
+        long start = System.nanoTime();
+        Long rows;
+        try {
+            rows = readOnlyTransactionTemplate.execute(status -> {
+                try {
+                    return export.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-                writer.writeNext(row.toArray(new String[0]));
-            }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("导出 {} 完成: {} 行, {} ms", fileName, rows, millis);
+        return new TableExportResult(fileName, rows != null ? rows : 0, millis);
+    }
+
+    private <T> long exportToCsv(Path file, Class<T> clazz, Function<T, Long> idGetter) throws IOException {
+        EntityCsvSchema<T> schema = schemaFor(clazz);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            // 每行先写入同一个StringBuilder，再整体写出
+            StringBuilder row = new StringBuilder(ROW_BUFFER_SIZE);
+            schema.appendHeader(row);
+            writer.append(row);
+
+            return keysetPageReader.forEach(clazz, idGetter, item -> {
+                row.setLength(0);
+                schema.appendRow(item, row);
+                try {
+                    writer.append(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, null);
         }
     }
 
-    private void exportPhilosopherSchoolAssociations(String fileName) throws IOException {
-        try (CSVWriter writer = new CSVWriter(new FileWriter(fileName))) {
+    @SuppressWarnings("unchecked")
+    private <T> EntityCsvSchema<T> schemaFor(Class<T> clazz) {
+        EntityCsvSchema<?> schema = schemas.get(clazz);
+        if (schema == null) {
+            throw new IllegalArgumentException("未注册导出结构的实体: " + clazz.getName());
+        }
+        return (EntityCsvSchema<T>) schema;
+    }
+
+    private long exportPhilosopherSchoolAssociations(Path file) throws IOException {
+        try (CSVWriter writer = new CSVWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
             // Write header
             writer.writeNext(new String[]{"philosopher_id", "school_id"});
-            
+
             // Write data
-            List<Philosopher> philosophers = philosopherRepository.findAll();
-            for (Philosopher philosopher : philosophers) {
-                for (School school : philosopher.getSchools()) {
-                    writer.writeNext(new String[]{
-                        philosopher.getId().toString(),
-                        school.getId().toString()
-                    });
-                }
-            }
+            return keysetPageReader.forEachPhilosopherSchoolLink(link -> writer.writeNext(new String[]{
+                    link[0].toString(),
+                    link[1].toString()
+            }), null);
         }
     }
 
     public void zipCsvFiles(String sourceDirPath, ZipOutputStream zos) throws IOException {
-        File sourceDir = new File(sourceDirPath);
-        for (File file : sourceDir.listFiles()) {
-            zos.putNextEntry(new ZipEntry(file.getName()));
-            try (FileInputStream fis = new FileInputStream(file)) {
-                byte[] buffer = new byte[1024];
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(Paths.get(sourceDirPath))) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        byte[] buffer = new byte[ZIP_BUFFER_SIZE];
+        for (Path file : files) {
+            zos.putNextEntry(new ZipEntry(file.getFileName().toString()));
+            try (InputStream in = Files.newInputStream(file)) {
                 int len;
-                while ((len = fis.read(buffer)) > 0) {
+                while ((len = in.read(buffer)) > 0) {
                     zos.write(buffer, 0, len);
                 }
             }
@@ -148,4 +216,41 @@ public class CsvExportService {
                 .map(Path::toFile)
                 .forEach(File::delete);
     }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface TableExport {
+        long run() throws IOException;
+    }
+
+    /**
+     * 单张表的导出结果
+     */
+    public static class TableExportResult {
+        private final String fileName;
+        private final long rows;
+        private final long millis;
+
+        public TableExportResult(String fileName, long rows, long millis) {
+            this.fileName = fileName;
+            this.rows = rows;
+            this.millis = millis;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
 }
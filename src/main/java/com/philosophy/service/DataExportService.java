@@ -1,15 +1,24 @@
 package com.philosophy.service;
 
 import com.philosophy.model.*;
-import com.philosophy.repository.*;
+import com.philosophy.store.ExportWatermarkStore;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.StringWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -20,327 +29,512 @@ public class DataExportService {
 
     private static final Logger logger = LoggerFactory.getLogger(DataExportService.class);
 
-    private final UserRepository userRepository;
-    private final SchoolRepository schoolRepository;
-    private final PhilosopherRepository philosopherRepository;
-    private final ContentRepository contentRepository;
-    private final CommentRepository commentRepository;
-    private final LikeRepository likeRepository;
-    private final UserContentEditRepository userContentEditRepository;
-    private final UserBlockRepository userBlockRepository;
-    private final UserLoginInfoRepository userLoginInfoRepository;
-    private final UserFollowRepository userFollowRepository;
-    private final SchoolTranslationRepository schoolTranslationRepository;
-    private final ContentTranslationRepository contentTranslationRepository;
-    private final PhilosopherTranslationRepository philosopherTranslationRepository;
-
-    public DataExportService(UserRepository userRepository,
-                             SchoolRepository schoolRepository,
-                             PhilosopherRepository philosopherRepository,
-                             ContentRepository contentRepository,
-                             CommentRepository commentRepository,
-                             LikeRepository likeRepository,
-                             UserContentEditRepository userContentEditRepository,
-                             UserBlockRepository userBlockRepository,
-                             UserLoginInfoRepository userLoginInfoRepository,
-                             UserFollowRepository userFollowRepository,
-                             SchoolTranslationRepository schoolTranslationRepository,
-                             ContentTranslationRepository contentTranslationRepository,
-                             PhilosopherTranslationRepository philosopherTranslationRepository) {
-        this.userRepository = userRepository;
-        this.schoolRepository = schoolRepository;
-        this.philosopherRepository = philosopherRepository;
-        this.contentRepository = contentRepository;
-        this.commentRepository = commentRepository;
-        this.likeRepository = likeRepository;
-        this.userContentEditRepository = userContentEditRepository;
-        this.userBlockRepository = userBlockRepository;
-        this.userLoginInfoRepository = userLoginInfoRepository;
-        this.userFollowRepository = userFollowRepository;
-        this.schoolTranslationRepository = schoolTranslationRepository;
-        this.contentTranslationRepository = contentTranslationRepository;
-        this.philosopherTranslationRepository = philosopherTranslationRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    /**
+     * 增量导出的表，名称与 ExportWatermarkStore 中的水位线和删除记录一致
+     * 点赞、关注、屏蔽、登录信息、内容编辑和三张翻译表按创建（或修改）时间导出，删除同样记录为删除记录。
+     * 哲学家-学派关联随变更的哲学家整体导出；测试结果等未包含在全量导出中的表也不在增量中。
+     */
+    public static final List<String> DELTA_TABLES = List.of("users", "schools", "philosophers", "contents", "comments",
+            "likes", "user_content_edits", "user_blocks", "user_login_info", "user_follows",
+            "schools_translation", "contents_translation", "philosophers_translation");
+
+    /**
+     * 增量导出的段标题（删除记录）
+     */
+    public static final String TOMBSTONE_SECTION = "删除记录数据";
+
+    // 新水位线比导出开始时间提前一段：导出时尚未提交的事务可能带着更早的更新时间提交，
+    // 回退后这些行会在下一次增量中重复导出，应用增量时按主键覆盖，重复无害
+    private static final Duration WATERMARK_OVERLAP = Duration.ofMinutes(5);
+
+    private final KeysetPageReader keysetPageReader;
+    private final ExportWatermarkStore exportWatermarkStore;
+
+    public DataExportService(KeysetPageReader keysetPageReader, ExportWatermarkStore exportWatermarkStore) {
+        this.keysetPageReader = keysetPageReader;
+        this.exportWatermarkStore = exportWatermarkStore;
     }
 
-    public String exportAllDataToCsv() {
-        StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw);
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    /**
+     * 将全部数据以CSV格式流式写入writer
+     * 每张表按主键分页读取（keyset分页），边读边写，不会把整表加载到内存；
+     * 在同一个只读事务中执行，各表数据来自一致的快照。
+     * 任何一张表失败都会抛出异常，不会产生缺少部分表的文件；写入失败（如客户端断开）抛出 UncheckedIOException。
+     * 调用方负责writer的缓冲和关闭。
+     */
+    @Transactional(readOnly = true)
+    public void exportAllDataToCsv(Writer writer) {
+        exportAllDataToCsv(writer, ProgressListener.NONE);
+    }
+
+    /**
+     * 同上，每写完一页调用一次progress，汇报当前表已导出的行数（后台导出任务用来显示进度）
+     */
+    @Transactional(readOnly = true)
+    public void exportAllDataToCsv(Writer writer, ProgressListener progress) {
+        PrintWriter pw = new PrintWriter(writer);
 
         try {
             // 导出用户数据
-            pw.println("用户数据");
-            pw.println("ID,用户名,邮箱,密码,名字,姓氏,角色,启用状态,个人资料隐私,评论隐私,内容隐私,管理员登录尝试,点赞数,分配学派ID,设备类型,用户代理,头像URL,语言设置,主题设置,创建时间,更新时间");
-            List<User> users = userRepository.findAll();
-            logger.info("导出用户数据：查询到 {} 个用户", users.size());
-            for (User user : users) {
-                logger.debug("导出用户: ID={}, 用户名={}, 角色={}", user.getId(), user.getUsername(), user.getRole());
-                String[] cols = new String[] {
-                    String.valueOf(user.getId()),
-                    escapeCsv(user.getUsername()),
-                    escapeCsv(user.getEmail()),
-                    escapeCsv(user.getPassword()),
-                    escapeCsv(user.getFirstName()),
-                    escapeCsv(user.getLastName()),
-                    escapeCsv(user.getRole()),
-                    user.isEnabled() ? "1" : "0",
-                    user.isProfilePrivate() ? "1" : "0",
-                    user.isCommentsPrivate() ? "1" : "0",
-                    user.isContentsPrivate() ? "1" : "0",
-                    String.valueOf(user.getAdminLoginAttempts()),
-                    String.valueOf(user.getLikeCount()),
-                    user.getAssignedSchoolId() != null ? user.getAssignedSchoolId().toString() : "",
-                    escapeCsv(user.getDeviceType()),
-                    escapeCsv(user.getUserAgent()),
-                    escapeCsv(user.getAvatarUrl()),
-                    escapeCsv(user.getLanguage() != null ? user.getLanguage() : ""),
-                    escapeCsv(user.getTheme() != null ? user.getTheme() : ""),
-                    user.getCreatedAt() != null ? user.getCreatedAt().format(formatter) : "未知时间",
-                    user.getUpdatedAt() != null ? user.getUpdatedAt().format(formatter) : "未知时间"
-                };
-                pw.println(String.join(",", cols));
-            }
-            pw.println();
+            writeUsers(pw, null, progress);
 
             // 导出学派数据
-            pw.println("学派数据");
-            pw.println("ID,名称,英文名称,描述,英文描述,父学派ID,创建者ID,点赞数,创建时间,更新时间");
-            List<School> schools = schoolRepository.findAll();
-            for (School school : schools) {
-                pw.printf("%d,%s,%s,%s,%s,%s,%s,%d,%s,%s%n",
-                    school.getId(),
-                    escapeCsv(school.getName()),
-                    escapeCsv(school.getNameEn()),
-                    escapeCsv(school.getDescription()),
-                    escapeCsv(school.getDescriptionEn()),
-                    school.getParent() != null ? school.getParent().getId().toString() : "",
-                    school.getUser() != null ? school.getUser().getId().toString() : "",
-                    school.getLikeCount(),
-                    school.getCreatedAt() != null ? school.getCreatedAt().format(formatter) : "未知时间",
-                    school.getUpdatedAt() != null ? school.getUpdatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeSchools(pw, null, progress);
 
             // 导出哲学家数据
-            pw.println("哲学家数据");
-            pw.println("ID,姓名,英文姓名,生年,卒年,时代,国籍,传记,英文传记,图片URL,创建者ID,点赞数,创建时间,更新时间");
-            List<Philosopher> philosophers = philosopherRepository.findAll();
-            for (Philosopher philosopher : philosophers) {
-                // 处理图片URL，如果为空则显示提示信息
-                String imageUrl = philosopher.getImageUrl();
-                if (imageUrl == null || imageUrl.trim().isEmpty()) {
-                    imageUrl = "[无图片]";
-                }
-                pw.printf("%d,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%d,%s,%s%n",
-                    philosopher.getId(),
-                    escapeCsv(philosopher.getName()),
-                    escapeCsv(philosopher.getNameEn()),
-                    philosopher.getBirthYear() != null ? philosopher.getBirthYear().toString() : "",
-                    philosopher.getDeathYear() != null ? philosopher.getDeathYear().toString() : "",
-                    escapeCsv(philosopher.getEra()),
-                    escapeCsv(philosopher.getNationality()),
-                    escapeCsv(philosopher.getBio()),
-                    escapeCsv(philosopher.getBioEn()),
-                    escapeCsv(imageUrl),
-                    philosopher.getUser() != null ? philosopher.getUser().getId().toString() : "",
-                    philosopher.getLikeCount(),
-                    philosopher.getCreatedAt() != null ? philosopher.getCreatedAt().format(formatter) : "未知时间",
-                    philosopher.getUpdatedAt() != null ? philosopher.getUpdatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writePhilosophers(pw, null, progress);
 
             // 导出哲学家-学派关联数据
-            pw.println("哲学家学派关联数据");
-            pw.println("哲学家ID,学派ID");
-            for (Philosopher philosopher : philosophers) {
-                for (School school : philosopher.getSchools()) {
-                    pw.printf("%d,%d%n", philosopher.getId(), school.getId());
-                }
-            }
-            pw.println();
+            writePhilosopherSchoolLinks(pw, null, progress);
 
             // 导出内容数据
-            pw.println("内容数据");
-            pw.println("ID,内容,内容英文,哲学家ID,学派ID,作者ID,标题,排序索引,锁定用户ID,锁定时间,锁定至,历史置顶,点赞数,是否私有,隐私设置者ID,隐私设置时间,状态,是否屏蔽,屏蔽者ID,屏蔽时间,版本,创建时间,更新时间");
-            List<Content> contents = contentRepository.findAll();
-            for (Content content : contents) {
-                pw.printf("%d,%s,%s,%s,%s,%s,%s,%d,%s,%s,%s,%s,%d,%s,%s,%s,%d,%s,%s,%s,%s,%s,%s%n",
-                    content.getId(),
-                    escapeCsv(content.getContent()),
-                    escapeCsv(content.getContentEn()),
-                    content.getPhilosopher() != null ? content.getPhilosopher().getId().toString() : "",
-                    content.getSchool() != null ? content.getSchool().getId().toString() : "",
-                    content.getUser() != null ? content.getUser().getId().toString() : "",
-                    escapeCsv(content.getTitle()),
-                    content.getOrderIndex() != null ? content.getOrderIndex() : 0,
-                    content.getLockedByUser() != null ? content.getLockedByUser().getId().toString() : "",
-                    content.getLockedAt() != null ? content.getLockedAt().format(formatter) : "",
-                    content.getLockedUntil() != null ? content.getLockedUntil().format(formatter) : "",
-                    content.isHistoryPinned() ? "1" : "0",
-                    content.getLikeCount(),
-                    content.isPrivate() ? "1" : "0",
-                    content.getPrivacySetBy() != null ? content.getPrivacySetBy().getId().toString() : "",
-                    content.getPrivacySetAt() != null ? content.getPrivacySetAt().format(formatter) : "",
-                    content.getStatus(),
-                    content.isBlocked() ? "1" : "0",
-                    content.getBlockedBy() != null ? content.getBlockedBy().getId().toString() : "",
-                    content.getBlockedAt() != null ? content.getBlockedAt().format(formatter) : "",
-                    content.getVersion() != null ? content.getVersion().toString() : "0",
-                    content.getCreatedAt() != null ? content.getCreatedAt().format(formatter) : "未知时间",
-                    content.getUpdatedAt() != null ? content.getUpdatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeContents(pw, null, progress);
 
             // 导出评论数据
-            pw.println("评论数据");
-            pw.println("ID,内容,用户名,内容ID,父评论ID,创建时间");
-            List<Comment> comments = commentRepository.findAll();
-            for (Comment comment : comments) {
-                pw.printf("%d,%s,%s,%s,%s,%s%n",
-                    comment.getId(),
-                    escapeCsv(comment.getBody()),
-                    comment.getUser() != null ? escapeCsv(comment.getUser().getUsername()) : "",
-                    comment.getContent() != null ? comment.getContent().getId().toString() : "",
-                    comment.getParent() != null ? comment.getParent().getId().toString() : "",
-                    comment.getCreatedAt() != null ? comment.getCreatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeComments(pw, null, progress);
 
             // 导出点赞数据
-            pw.println("点赞数据");
-            pw.println("ID,用户ID,实体类型,实体ID,创建时间");
-            List<Like> likes = likeRepository.findAll();
-            for (Like like : likes) {
-                pw.printf("%d,%d,%s,%d,%s%n",
-                    like.getId(),
-                    like.getUser().getId(),
-                    like.getEntityType().toString(),
-                    like.getEntityId(),
-                    like.getCreatedAt() != null ? like.getCreatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeLikes(pw, null, progress);
 
             // 导出用户内容编辑数据
-            pw.println("用户内容编辑数据");
-            pw.println("ID,用户ID,内容,标题,哲学家ID,学派ID,状态,创建时间");
-            List<UserContentEdit> edits = userContentEditRepository.findAll();
-            for (UserContentEdit edit : edits) {
-                pw.printf("%d,%d,%s,%s,%d,%d,%s,%s%n",
-                    edit.getId(),
-                    edit.getUser().getId(),
-                    escapeCsv(edit.getContent()),
-                    escapeCsv(edit.getTitle()),
-                    edit.getPhilosopher().getId(),
-                    edit.getSchool().getId(),
-                    edit.getStatus().toString(),
-                    edit.getCreatedAt() != null ? edit.getCreatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeUserContentEdits(pw, null, progress);
 
             // 导出用户屏蔽数据
-            pw.println("用户屏蔽数据");
-            pw.println("ID,屏蔽者ID,被屏蔽者ID,创建时间");
-            List<UserBlock> userBlocks = userBlockRepository.findAll();
-            for (UserBlock block : userBlocks) {
-                pw.printf("%d,%d,%d,%s%n",
-                    block.getId(),
-                    block.getBlocker().getId(),
-                    block.getBlocked().getId(),
-                    block.getCreatedAt() != null ? block.getCreatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeUserBlocks(pw, null, progress);
 
             // 导出用户登录信息数据
-            pw.println("用户登录信息数据");
-            pw.println("ID,用户ID,浏览器,操作系统,设备类型,登录时间");
-            List<UserLoginInfo> loginInfos = userLoginInfoRepository.findAll();
-            for (UserLoginInfo info : loginInfos) {
-                pw.printf("%d,%d,%s,%s,%s,%s%n",
-                    info.getId(),
-                    info.getUser().getId(),
-                    escapeCsv(info.getBrowser()),
-                    escapeCsv(info.getOperatingSystem()),
-                    escapeCsv(info.getDeviceType()),
-                    info.getLoginTime() != null ? info.getLoginTime().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeUserLoginInfo(pw, null, progress);
 
             // 导出用户关注数据
-            pw.println("用户关注数据");
-            pw.println("ID,关注者ID,被关注者ID,创建时间");
-            List<UserFollow> follows = userFollowRepository.findAll();
-            for (UserFollow follow : follows) {
-                pw.printf("%d,%d,%d,%s%n",
-                    follow.getId(),
-                    follow.getFollower().getId(),
-                    follow.getFollowing().getId(),
-                    follow.getCreatedAt() != null ? follow.getCreatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeUserFollows(pw, null, progress);
 
             // 导出学派翻译数据
-            pw.println("学派翻译数据");
-            pw.println("ID,学派ID,语言代码,英文名称,英文描述,创建时间");
-            List<SchoolTranslation> schoolTranslations = schoolTranslationRepository.findAll();
-            for (SchoolTranslation translation : schoolTranslations) {
-                pw.printf("%d,%d,%s,%s,%s,%s%n",
-                    translation.getId(),
-                    translation.getSchool().getId(),
-                    escapeCsv(translation.getLanguageCode()),
-                    escapeCsv(translation.getNameEn()),
-                    escapeCsv(translation.getDescriptionEn()),
-                    translation.getCreatedAt() != null ? translation.getCreatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeSchoolTranslations(pw, null, progress);
 
             // 导出内容翻译数据
-            pw.println("内容翻译数据");
-            pw.println("ID,内容ID,语言代码,英文内容,创建时间");
-            List<ContentTranslation> contentTranslations = contentTranslationRepository.findAll();
-            for (ContentTranslation translation : contentTranslations) {
-                pw.printf("%d,%d,%s,%s,%s%n",
-                    translation.getId(),
-                    translation.getContent().getId(),
-                    escapeCsv(translation.getLanguageCode()),
-                    escapeCsv(translation.getContentEn()),
-                    translation.getCreatedAt() != null ? translation.getCreatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writeContentTranslations(pw, null, progress);
 
             // 导出哲学家翻译数据
-            pw.println("哲学家翻译数据");
-            pw.println("ID,哲学家ID,语言代码,英文名称,英文传记,创建时间");
-            List<PhilosopherTranslation> philosopherTranslations = philosopherTranslationRepository.findAll();
-            for (PhilosopherTranslation translation : philosopherTranslations) {
-                pw.printf("%d,%d,%s,%s,%s,%s%n",
-                    translation.getId(),
-                    translation.getPhilosopher().getId(),
-                    escapeCsv(translation.getLanguageCode()),
-                    escapeCsv(translation.getNameEn()),
-                    escapeCsv(translation.getBiographyEn()),
-                    translation.getCreatedAt() != null ? translation.getCreatedAt().format(formatter) : "未知时间"
-                );
-            }
-            pw.println();
+            writePhilosopherTranslations(pw, null, progress);
+
+        } catch (UncheckedIOException e) {
+            // 客户端已断开，不再继续查询
+            throw e;
+        } catch (RuntimeException e) {
+            // 不把错误写进CSV（截断的文件看起来和成功的导出一样）：抛出后后台任务标记为失败，流式下载中断
+            logger.error("导出过程中发生错误", e);
+            throw e;
+        }
+
+        pw.flush();
+        if (pw.checkError()) {
+            throw new UncheckedIOException(new IOException("写入导出数据失败"));
+        }
+    }
+
+    /**
+     * 增量导出：只导出上次水位线之后新增或修改的行（DELTA_TABLES 中的各表），以及这期间的删除记录
+     * 格式与全量导出相同（按段组织），可以直接用 DataImportService.applyDeltaCsv 应用到另一个库。
+     * 变更时间取 updatedAt，没有时取 createdAt（关注取创建时间，登录信息取登录时间）；还没有水位线的表导出全部行。
+     * 增量文件不是独立的备份：它只能按顺序应用在一份全量导出（或上一次增量应用后的库）之上，
+     * 任何一份增量丢失都需要重新做全量导出。
+     * 本方法不推进水位线，调用方在增量文件成功保存或发送后调用 commitDelta，
+     * 中途失败时下次会重新导出同一区间。
+     */
+    @Transactional(readOnly = true)
+    public DeltaExportResult exportDeltaToCsv(Writer writer) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        PrintWriter pw = new PrintWriter(writer);
+
+        Map<String, LocalDateTime> watermarks = new LinkedHashMap<>();
+        for (String table : DELTA_TABLES) {
+            watermarks.put(table, exportWatermarkStore.getWatermark(table));
+        }
+
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+        rowCounts.put("users", writeUsers(pw, watermarks.get("users"), ProgressListener.NONE));
+        rowCounts.put("schools", writeSchools(pw, watermarks.get("schools"), ProgressListener.NONE));
+        rowCounts.put("philosophers", writePhilosophers(pw, watermarks.get("philosophers"), ProgressListener.NONE));
+        // 变更过的哲学家导出完整的学派关联，应用时整体替换
+        writePhilosopherSchoolLinks(pw, watermarks.get("philosophers"), ProgressListener.NONE);
+        rowCounts.put("contents", writeContents(pw, watermarks.get("contents"), ProgressListener.NONE));
+        rowCounts.put("comments", writeComments(pw, watermarks.get("comments"), ProgressListener.NONE));
+        rowCounts.put("likes", writeLikes(pw, watermarks.get("likes"), ProgressListener.NONE));
+        rowCounts.put("user_content_edits", writeUserContentEdits(pw, watermarks.get("user_content_edits"), ProgressListener.NONE));
+        rowCounts.put("user_blocks", writeUserBlocks(pw, watermarks.get("user_blocks"), ProgressListener.NONE));
+        rowCounts.put("user_login_info", writeUserLoginInfo(pw, watermarks.get("user_login_info"), ProgressListener.NONE));
+        rowCounts.put("user_follows", writeUserFollows(pw, watermarks.get("user_follows"), ProgressListener.NONE));
+        rowCounts.put("schools_translation", writeSchoolTranslations(pw, watermarks.get("schools_translation"), ProgressListener.NONE));
+        rowCounts.put("contents_translation", writeContentTranslations(pw, watermarks.get("contents_translation"), ProgressListener.NONE));
+        rowCounts.put("philosophers_translation", writePhilosopherTranslations(pw, watermarks.get("philosophers_translation"), ProgressListener.NONE));
+
+        pw.println(TOMBSTONE_SECTION);
+        pw.println("表名,ID");
+        long[] tombstones = {0};
+        for (String table : DELTA_TABLES) {
+            exportWatermarkStore.forEachTombstone(table, watermarks.get(table), (tableName, id) -> {
+                pw.printf("%s,%d%n", tableName, id);
+                tombstones[0]++;
+            });
+        }
+        pw.println();
+
+        pw.flush();
+        if (pw.checkError()) {
+            throw new UncheckedIOException(new IOException("写入增量导出数据失败"));
+        }
+
+        LocalDateTime nextWatermark = startedAt.minus(WATERMARK_OVERLAP);
+        Map<String, LocalDateTime> nextWatermarks = new LinkedHashMap<>();
+        for (String table : DELTA_TABLES) {
+            nextWatermarks.put(table, nextWatermark);
+        }
+        logger.info("增量导出完成: 变更行 {}, 删除记录 {}, 起始水位线 {}", rowCounts, tombstones[0], watermarks);
+        return new DeltaExportResult(rowCounts, tombstones[0], nextWatermarks);
+    }
+
+    /**
+     * 增量文件已成功保存或发送，推进水位线
+     */
+    public void commitDelta(DeltaExportResult result) {
+        exportWatermarkStore.advance(result.getNextWatermarks());
+    }
+
+    /**
+     * 条件：变更时间晚于水位线；水位线为空时不加条件
+     */
+    private String changedSince(String alias, LocalDateTime since) {
+        if (since == null) {
+            return "";
+        }
+        return " AND COALESCE(" + alias + ".updatedAt, " + alias + ".createdAt) > :since";
+    }
 
-        } catch (Exception e) {
-            String errorMsg = "导出过程中发生错误: " + e.getMessage();
-            pw.println(errorMsg);
-            logger.error(errorMsg, e);
+    /**
+     * 条件：创建时间晚于水位线，用于没有更新时间、写入后不再修改的表
+     */
+    private String createdSince(String property, LocalDateTime since) {
+        if (since == null) {
+            return "";
         }
+        return " AND " + property + " > :since";
+    }
+
+    private Map<String, Object> sinceParameter(LocalDateTime since) {
+        return since != null ? Map.of("since", since) : Map.of();
+    }
+
+    private long writeUsers(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("用户数据");
+        pw.println("ID,用户名,邮箱,密码,名字,姓氏,角色,启用状态,个人资料隐私,评论隐私,内容隐私,管理员登录尝试,点赞数,分配学派ID,设备类型,用户代理,头像URL,语言设置,主题设置,创建时间,更新时间");
+        long count = keysetPageReader.forEach("SELECT u FROM User u WHERE u.id > :lastId" + changedSince("u", since) + " ORDER BY u.id",
+                sinceParameter(since), User.class, User::getId, user -> {
+            logger.debug("导出用户: ID={}, 用户名={}, 角色={}", user.getId(), user.getUsername(), user.getRole());
+            String[] cols = new String[] {
+                String.valueOf(user.getId()),
+                escapeCsv(user.getUsername()),
+                escapeCsv(user.getEmail()),
+                escapeCsv(user.getPassword()),
+                escapeCsv(user.getFirstName()),
+                escapeCsv(user.getLastName()),
+                escapeCsv(user.getRole()),
+                user.isEnabled() ? "1" : "0",
+                user.isProfilePrivate() ? "1" : "0",
+                user.isCommentsPrivate() ? "1" : "0",
+                user.isContentsPrivate() ? "1" : "0",
+                String.valueOf(user.getAdminLoginAttempts()),
+                String.valueOf(user.getLikeCount()),
+                user.getAssignedSchoolId() != null ? user.getAssignedSchoolId().toString() : "",
+                escapeCsv(user.getDeviceType()),
+                escapeCsv(user.getUserAgent()),
+                escapeCsv(user.getAvatarUrl()),
+                escapeCsv(user.getLanguage() != null ? user.getLanguage() : ""),
+                escapeCsv(user.getTheme() != null ? user.getTheme() : ""),
+                user.getCreatedAt() != null ? user.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间",
+                user.getUpdatedAt() != null ? user.getUpdatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            };
+            pw.println(String.join(",", cols));
+        }, rows -> pageWritten(pw, progress, "users", rows));
+        logger.info("导出用户数据：共 {} 个用户", count);
+        pw.println();
+        return count;
+    }
+
+    private long writeSchools(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("学派数据");
+        pw.println("ID,名称,英文名称,描述,英文描述,父学派ID,创建者ID,点赞数,创建时间,更新时间");
+        long count = keysetPageReader.forEach("SELECT s FROM School s WHERE s.id > :lastId" + changedSince("s", since) + " ORDER BY s.id",
+                sinceParameter(since), School.class, School::getId, school -> {
+            pw.printf("%d,%s,%s,%s,%s,%s,%s,%d,%s,%s%n",
+                school.getId(),
+                escapeCsv(school.getName()),
+                escapeCsv(school.getNameEn()),
+                escapeCsv(school.getDescription()),
+                escapeCsv(school.getDescriptionEn()),
+                school.getParent() != null ? school.getParent().getId().toString() : "",
+                school.getUser() != null ? school.getUser().getId().toString() : "",
+                school.getLikeCount(),
+                school.getCreatedAt() != null ? school.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间",
+                school.getUpdatedAt() != null ? school.getUpdatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "schools", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writePhilosophers(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("哲学家数据");
+        pw.println("ID,姓名,英文姓名,生年,卒年,时代,国籍,传记,英文传记,图片URL,创建者ID,点赞数,创建时间,更新时间");
+        long count = keysetPageReader.forEach("SELECT p FROM Philosopher p WHERE p.id > :lastId" + changedSince("p", since) + " ORDER BY p.id",
+                sinceParameter(since), Philosopher.class, Philosopher::getId, philosopher -> {
+            // 处理图片URL，如果为空则显示提示信息
+            String imageUrl = philosopher.getImageUrl();
+            if (imageUrl == null || imageUrl.trim().isEmpty()) {
+                imageUrl = "[无图片]";
+            }
+            pw.printf("%d,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%d,%s,%s%n",
+                philosopher.getId(),
+                escapeCsv(philosopher.getName()),
+                escapeCsv(philosopher.getNameEn()),
+                philosopher.getBirthYear() != null ? philosopher.getBirthYear().toString() : "",
+                philosopher.getDeathYear() != null ? philosopher.getDeathYear().toString() : "",
+                escapeCsv(philosopher.getEra()),
+                escapeCsv(philosopher.getNationality()),
+                escapeCsv(philosopher.getBio()),
+                escapeCsv(philosopher.getBioEn()),
+                escapeCsv(imageUrl),
+                philosopher.getUser() != null ? philosopher.getUser().getId().toString() : "",
+                philosopher.getLikeCount(),
+                philosopher.getCreatedAt() != null ? philosopher.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间",
+                philosopher.getUpdatedAt() != null ? philosopher.getUpdatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "philosophers", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writePhilosopherSchoolLinks(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("哲学家学派关联数据");
+        pw.println("哲学家ID,学派ID");
+        long count = keysetPageReader.forEachPhilosopherSchoolLink(changedSince("p", since), sinceParameter(since),
+                link -> pw.printf("%d,%d%n", link[0], link[1]),
+                rows -> pageWritten(pw, progress, "philosopher_school", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writeContents(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("内容数据");
+        pw.println("ID,内容,内容英文,哲学家ID,学派ID,作者ID,标题,排序索引,锁定用户ID,锁定时间,锁定至,历史置顶,点赞数,是否私有,隐私设置者ID,隐私设置时间,状态,是否屏蔽,屏蔽者ID,屏蔽时间,版本,创建时间,更新时间");
+        long count = keysetPageReader.forEach("SELECT c FROM Content c WHERE c.id > :lastId" + changedSince("c", since) + " ORDER BY c.id",
+                sinceParameter(since), Content.class, Content::getId, content -> {
+            pw.printf("%d,%s,%s,%s,%s,%s,%s,%d,%s,%s,%s,%s,%d,%s,%s,%s,%d,%s,%s,%s,%s,%s,%s%n",
+                content.getId(),
+                escapeCsv(content.getContent()),
+                escapeCsv(content.getContentEn()),
+                content.getPhilosopher() != null ? content.getPhilosopher().getId().toString() : "",
+                content.getSchool() != null ? content.getSchool().getId().toString() : "",
+                content.getUser() != null ? content.getUser().getId().toString() : "",
+                escapeCsv(content.getTitle()),
+                content.getOrderIndex() != null ? content.getOrderIndex() : 0,
+                content.getLockedByUser() != null ? content.getLockedByUser().getId().toString() : "",
+                content.getLockedAt() != null ? content.getLockedAt().format(DATE_TIME_FORMATTER) : "",
+                content.getLockedUntil() != null ? content.getLockedUntil().format(DATE_TIME_FORMATTER) : "",
+                content.isHistoryPinned() ? "1" : "0",
+                content.getLikeCount(),
+                content.isPrivate() ? "1" : "0",
+                content.getPrivacySetBy() != null ? content.getPrivacySetBy().getId().toString() : "",
+                content.getPrivacySetAt() != null ? content.getPrivacySetAt().format(DATE_TIME_FORMATTER) : "",
+                content.getStatus(),
+                content.isBlocked() ? "1" : "0",
+                content.getBlockedBy() != null ? content.getBlockedBy().getId().toString() : "",
+                content.getBlockedAt() != null ? content.getBlockedAt().format(DATE_TIME_FORMATTER) : "",
+                content.getVersion() != null ? content.getVersion().toString() : "0",
+                content.getCreatedAt() != null ? content.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间",
+                content.getUpdatedAt() != null ? content.getUpdatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "contents", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writeComments(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("评论数据");
+        pw.println("ID,内容,用户名,内容ID,父评论ID,创建时间");
+        // 评论需要输出用户名，一并抓取用户，避免逐行查询
+        long count = keysetPageReader.forEach("SELECT c FROM Comment c LEFT JOIN FETCH c.user WHERE c.id > :lastId" + changedSince("c", since) + " ORDER BY c.id",
+                sinceParameter(since), Comment.class, Comment::getId, comment -> {
+            pw.printf("%d,%s,%s,%s,%s,%s%n",
+                comment.getId(),
+                escapeCsv(comment.getBody()),
+                comment.getUser() != null ? escapeCsv(comment.getUser().getUsername()) : "",
+                comment.getContent() != null ? comment.getContent().getId().toString() : "",
+                comment.getParent() != null ? comment.getParent().getId().toString() : "",
+                comment.getCreatedAt() != null ? comment.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "comments", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writeLikes(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("点赞数据");
+        pw.println("ID,用户ID,实体类型,实体ID,创建时间");
+        long count = keysetPageReader.forEach("SELECT l FROM Like l WHERE l.id > :lastId" + changedSince("l", since) + " ORDER BY l.id",
+                sinceParameter(since), Like.class, Like::getId, like -> {
+            pw.printf("%d,%d,%s,%d,%s%n",
+                like.getId(),
+                like.getUser().getId(),
+                like.getEntityType().toString(),
+                like.getEntityId(),
+                like.getCreatedAt() != null ? like.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "likes", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writeUserContentEdits(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("用户内容编辑数据");
+        pw.println("ID,用户ID,内容,标题,哲学家ID,学派ID,状态,创建时间");
+        long count = keysetPageReader.forEach("SELECT e FROM UserContentEdit e WHERE e.id > :lastId" + changedSince("e", since) + " ORDER BY e.id",
+                sinceParameter(since), UserContentEdit.class, UserContentEdit::getId, edit -> {
+            pw.printf("%d,%d,%s,%s,%d,%d,%s,%s%n",
+                edit.getId(),
+                edit.getUser().getId(),
+                escapeCsv(edit.getContent()),
+                escapeCsv(edit.getTitle()),
+                edit.getPhilosopher().getId(),
+                edit.getSchool().getId(),
+                edit.getStatus().toString(),
+                edit.getCreatedAt() != null ? edit.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "user_content_edits", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writeUserBlocks(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("用户屏蔽数据");
+        pw.println("ID,屏蔽者ID,被屏蔽者ID,创建时间");
+        long count = keysetPageReader.forEach("SELECT b FROM UserBlock b WHERE b.id > :lastId" + changedSince("b", since) + " ORDER BY b.id",
+                sinceParameter(since), UserBlock.class, UserBlock::getId, block -> {
+            pw.printf("%d,%d,%d,%s%n",
+                block.getId(),
+                block.getBlocker().getId(),
+                block.getBlocked().getId(),
+                block.getCreatedAt() != null ? block.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "user_blocks", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writeUserLoginInfo(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("用户登录信息数据");
+        pw.println("ID,用户ID,浏览器,操作系统,设备类型,登录时间");
+        long count = keysetPageReader.forEach("SELECT i FROM UserLoginInfo i WHERE i.id > :lastId" + createdSince("i.loginTime", since) + " ORDER BY i.id",
+                sinceParameter(since), UserLoginInfo.class, UserLoginInfo::getId, info -> {
+            pw.printf("%d,%d,%s,%s,%s,%s%n",
+                info.getId(),
+                info.getUser().getId(),
+                escapeCsv(info.getBrowser()),
+                escapeCsv(info.getOperatingSystem()),
+                escapeCsv(info.getDeviceType()),
+                info.getLoginTime() != null ? info.getLoginTime().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "user_login_info", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writeUserFollows(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("用户关注数据");
+        pw.println("ID,关注者ID,被关注者ID,创建时间");
+        long count = keysetPageReader.forEach("SELECT f FROM UserFollow f WHERE f.id > :lastId" + createdSince("f.createdAt", since) + " ORDER BY f.id",
+                sinceParameter(since), UserFollow.class, UserFollow::getId, follow -> {
+            pw.printf("%d,%d,%d,%s%n",
+                follow.getId(),
+                follow.getFollower().getId(),
+                follow.getFollowing().getId(),
+                follow.getCreatedAt() != null ? follow.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "user_follows", rows));
+        pw.println();
+        return count;
+    }
 
-        return sw.toString();
+    private long writeSchoolTranslations(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("学派翻译数据");
+        pw.println("ID,学派ID,语言代码,英文名称,英文描述,创建时间");
+        long count = keysetPageReader.forEach("SELECT t FROM SchoolTranslation t WHERE t.id > :lastId" + changedSince("t", since) + " ORDER BY t.id",
+                sinceParameter(since), SchoolTranslation.class, SchoolTranslation::getId, translation -> {
+            pw.printf("%d,%d,%s,%s,%s,%s%n",
+                translation.getId(),
+                translation.getSchool().getId(),
+                escapeCsv(translation.getLanguageCode()),
+                escapeCsv(translation.getNameEn()),
+                escapeCsv(translation.getDescriptionEn()),
+                translation.getCreatedAt() != null ? translation.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "schools_translation", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writeContentTranslations(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("内容翻译数据");
+        pw.println("ID,内容ID,语言代码,英文内容,创建时间");
+        long count = keysetPageReader.forEach("SELECT t FROM ContentTranslation t WHERE t.id > :lastId" + changedSince("t", since) + " ORDER BY t.id",
+                sinceParameter(since), ContentTranslation.class, ContentTranslation::getId, translation -> {
+            pw.printf("%d,%d,%s,%s,%s%n",
+                translation.getId(),
+                translation.getContent().getId(),
+                escapeCsv(translation.getLanguageCode()),
+                escapeCsv(translation.getContentEn()),
+                translation.getCreatedAt() != null ? translation.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "contents_translation", rows));
+        pw.println();
+        return count;
+    }
+
+    private long writePhilosopherTranslations(PrintWriter pw, LocalDateTime since, ProgressListener progress) {
+        pw.println("哲学家翻译数据");
+        pw.println("ID,哲学家ID,语言代码,英文名称,英文传记,创建时间");
+        long count = keysetPageReader.forEach("SELECT t FROM PhilosopherTranslation t WHERE t.id > :lastId" + changedSince("t", since) + " ORDER BY t.id",
+                sinceParameter(since), PhilosopherTranslation.class, PhilosopherTranslation::getId, translation -> {
+            pw.printf("%d,%d,%s,%s,%s,%s%n",
+                translation.getId(),
+                translation.getPhilosopher().getId(),
+                escapeCsv(translation.getLanguageCode()),
+                escapeCsv(translation.getNameEn()),
+                escapeCsv(translation.getBiographyEn()),
+                translation.getCreatedAt() != null ? translation.getCreatedAt().format(DATE_TIME_FORMATTER) : "未知时间"
+            );
+        }, rows -> pageWritten(pw, progress, "philosophers_translation", rows));
+        pw.println();
+        return count;
+    }
+
+    private void pageWritten(PrintWriter pw, ProgressListener progress, String table, long rows) {
+        flushOrFail(pw);
+        progress.onProgress(table, rows);
+    }
+
+    /**
+     * 把已生成的数据推送到下游；下游写入失败（如下载被取消）时中止导出
+     */
+    private void flushOrFail(PrintWriter pw) {
+        pw.flush();
+        if (pw.checkError()) {
+            throw new UncheckedIOException(new IOException("写入导出数据失败，可能是下载已被取消"));
+        }
     }
 
     private String escapeCsv(String value) {
@@ -360,10 +554,12 @@ public class DataExportService {
      */
     public List<String> collectImageFiles() {
         List<String> imageFiles = new ArrayList<>();
-        List<Philosopher> philosophers = philosopherRepository.findAll();
+        // 只查询图片地址一列，不加载哲学家实体
+        List<String> imageUrls = entityManager.createQuery(
+                "SELECT p.imageUrl FROM Philosopher p WHERE p.imageUrl IS NOT NULL", String.class)
+                .getResultList();
         
-        for (Philosopher philosopher : philosophers) {
-            String imageUrl = philosopher.getImageUrl();
+        for (String imageUrl : imageUrls) {
             if (imageUrl != null && !imageUrl.trim().isEmpty() && !imageUrl.equals("[无图片]")) {
                 // 从URL中提取文件路径
                 // URL格式应该是 /uploads/filename 或类似的格式
@@ -385,4 +581,50 @@ public class DataExportService {
         logger.info("收集到 {} 个图片文件", imageFiles.size());
         return imageFiles;
     }
-}
\ No newline at end of file
+
+    /**
+     * 导出进度回调
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        ProgressListener NONE = (table, rows) -> { };
+
+        /**
+         * @param table 表名（与数据库表名一致，如 users、philosopher_school）
+         * @param rows 该表到目前为止已导出的行数
+         */
+        void onProgress(String table, long rows);
+    }
+
+    /**
+     * 增量导出结果
+     */
+    public static class DeltaExportResult {
+        private final Map<String, Long> rowCounts;
+        private final long tombstoneCount;
+        private final Map<String, LocalDateTime> nextWatermarks;
+
+        public DeltaExportResult(Map<String, Long> rowCounts, long tombstoneCount,
+                                 Map<String, LocalDateTime> nextWatermarks) {
+            this.rowCounts = rowCounts;
+            this.tombstoneCount = tombstoneCount;
+            this.nextWatermarks = nextWatermarks;
+        }
+
+        /**
+         * 每张表导出的变更行数
+         */
+        public Map<String, Long> getRowCounts() {
+            return rowCounts;
+        }
+
+        public long getTombstoneCount() {
+            return tombstoneCount;
+        }
+
+        public Map<String, LocalDateTime> getNextWatermarks() {
+            return nextWatermarks;
+        }
+    }
+}
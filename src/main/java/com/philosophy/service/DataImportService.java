@@ -1,10 +1,14 @@
 package com.philosophy.service;
 
+import com.philosophy.event.PublicContentChangedEvent;
 import com.philosophy.model.*;
 import com.philosophy.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,8 +28,18 @@ import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,25 +57,9 @@ public class DataImportService {
     @Autowired
     private SchoolRepository schoolRepository;
 
-    @Autowired
-    private ContentRepository contentRepository;
-
-
-    @Autowired
-    private CommentRepository commentRepository;
-
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    @Autowired
-    private LikeRepository likeRepository;
-
-    @Autowired
-    private UserContentEditRepository userContentEditRepository;
-
-    @Autowired
-    private UserBlockRepository userBlockRepository;
-
     @Autowired
     private SchoolTranslationRepository schoolTranslationRepository;
 
@@ -71,18 +69,22 @@ public class DataImportService {
     @Autowired
     private PhilosopherTranslationRepository philosopherTranslationRepository;
 
-    @Autowired
-    private UserLoginInfoRepository userLoginInfoRepository;
-
-    @Autowired
-    private UserFollowRepository userFollowRepository;
-
     @PersistenceContext
     private EntityManager entityManager;
 
     @Autowired
     private TransactionTemplate transactionTemplate;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // 并发导入数据段时的最大线程数
+    @Value("${app.import.parallelism:4}")
+    private int importParallelism;
+
     private final ConcurrentMap<String, Boolean> columnExistenceCache = new ConcurrentHashMap<>();
     private final Set<String> missingColumnWarnings = ConcurrentHashMap.newKeySet();
     private final ConcurrentMap<Long, Long> pendingUserSchoolAssignments = new ConcurrentHashMap<>();
@@ -126,10 +128,12 @@ public class DataImportService {
                 }
             }
             
-            Map<String, List<String[]>> dataSections = parseCsvFile(file);
+            // 点赞等大数据段不读入内存，在其他数据导入后流式导入
+            Map<String, Integer> bulkSectionRows = new LinkedHashMap<>();
+            Map<String, List<String[]>> dataSections = parseCsvFile(file, section -> !isBulkSection(section), bulkSectionRows);
             
             // 检查是否解析到任何数据段
-            if (dataSections.isEmpty()) {
+            if (dataSections.isEmpty() && bulkSectionRows.isEmpty()) {
                 result.setSuccess(false);
                 result.setMessage("导入失败: CSV文件中没有找到任何数据段。请确保文件格式正确，包含以'数据'结尾的段标题（如'用户数据'、'学派数据'等）");
                 logger.warn("CSV文件解析结果为空，可能的原因：1. 文件格式不正确 2. 缺少数据段标题 3. 文件编码问题");
@@ -139,7 +143,7 @@ public class DataImportService {
             logger.info("成功解析到 {} 个数据段: {}", dataSections.size(), dataSections.keySet());
             
             // 检查是否有任何数据段包含实际数据
-            boolean hasData = false;
+            boolean hasData = bulkSectionRows.values().stream().anyMatch(rows -> rows > 0);
             for (Map.Entry<String, List<String[]>> entry : dataSections.entrySet()) {
                 if (entry.getValue() != null && !entry.getValue().isEmpty()) {
                     hasData = true;
@@ -160,98 +164,50 @@ public class DataImportService {
                 return result;
             }
 
-            // 按依赖顺序导入数据，将基础数据和关联更新放在同一个事务中
-            importUsersInTransaction(result, dataSections.get("用户数据"));
-
-            // 学派数据段：兼容“流派数据”等变体
-            List<String[]> schoolData = dataSections.get("学派数据");
-            if (schoolData == null) {
-                schoolData = findSectionByKeywords(dataSections, "学派", "数据");
-            }
-            if (schoolData == null) {
-                schoolData = dataSections.get("流派数据");
-            }
-            if (schoolData == null) {
-                schoolData = findSectionByKeywords(dataSections, "流派", "数据");
-            }
-            importSchoolsInTransaction(result, schoolData);
-            applyPendingUserSchoolAssignments();
-            importPhilosophersInTransaction(result, dataSections.get("哲学家数据"));
-            
-            // 导入哲学家-学派关联（在哲学家和学派导入后）——兼容多种标题/同义词
-            List<String[]> assocData = dataSections.get("哲学家学派关联数据");
-            if (assocData == null) {
-                assocData = dataSections.get("哲学家-学派关联数据");
-            }
-            if (assocData == null) {
-                assocData = findSectionByKeywords(dataSections, "哲学家", "学派", "关联");
-            }
-            if (assocData == null) {
-                assocData = dataSections.get("哲学家流派关联数据");
-            }
-            if (assocData == null) {
-                assocData = findSectionByKeywords(dataSections, "哲学家", "流派", "关联");
-            }
-            importPhilosopherSchoolAssociationsInTransaction(result, assocData);
-            
-            // 尝试查找内容数据段，支持可能的变体
-            List<String[]> contentData = dataSections.get("内容数据");
-            if (contentData == null) {
-                // 尝试查找可能的变体
-                contentData = dataSections.get("内容数据？");
-                if (contentData == null) {
-                    // 查找所有包含"内容"的段标题
-                    for (String key : dataSections.keySet()) {
-                        if (key.contains("内容") && key.contains("数据")) {
-                            logger.warn("找到可能的 content 数据段变体: {}", key);
-                            contentData = dataSections.get(key);
-                            break;
-                        }
-                    }
-                }
-            }
+            SectionTitles titles = resolveSectionTitles(dataSections.keySet());
+            List<String[]> schoolData = sectionData(dataSections, titles.schools);
+            List<String[]> assocData = sectionData(dataSections, titles.philosopherSchools);
+            List<String[]> contentData = sectionData(dataSections, titles.contents);
             if (contentData == null) {
                 logger.warn("未找到'内容数据'段，跳过了内容导入。可用的数据段: {}", dataSections.keySet());
-                result.addResult("内容", 0, 0);
-            } else {
-                importContentsInTransaction(result, contentData);
-                
-                // 在内容导入完成后，单独处理内容关联
-                updateContentAssociationsInTransaction(result, contentData);
             }
-            
-            // 导入其他数据
-            importCommentsInTransaction(result, dataSections.get("评论数据"));
-            importLikesInTransaction(result, dataSections.get("点赞数据"));
-            importUserContentEditsInTransaction(result, dataSections.get("用户内容编辑数据"));
-            importUserBlocksInTransaction(result, dataSections.get("用户屏蔽数据"));
-            importUserLoginInfoInTransaction(result, dataSections.get("用户登录信息数据"));
-            importUserFollowsInTransaction(result, dataSections.get("用户关注数据"));
-            
-            // 导入翻译数据 - 支持多种段标题格式（含“流派”同义词）
-            List<String[]> schoolTranslationData = findSectionByKeywords(dataSections, "学派", "翻译");
-            if (schoolTranslationData == null) {
-                schoolTranslationData = dataSections.get("学派翻译数据");
-            }
-            if (schoolTranslationData == null) {
-                schoolTranslationData = findSectionByKeywords(dataSections, "流派", "翻译");
-            }
-            if (schoolTranslationData == null) {
-                schoolTranslationData = dataSections.get("流派翻译数据");
-            }
-            importSchoolTranslationsInTransaction(result, schoolTranslationData);
-            
-            List<String[]> contentTranslationData = findSectionByKeywords(dataSections, "内容", "翻译");
-            if (contentTranslationData == null) {
-                contentTranslationData = dataSections.get("内容翻译数据");
-            }
-            importContentTranslationsInTransaction(result, contentTranslationData);
-            
-            List<String[]> philosopherTranslationData = findSectionByKeywords(dataSections, "哲学家", "翻译");
-            if (philosopherTranslationData == null) {
-                philosopherTranslationData = dataSections.get("哲学家翻译数据");
+            List<String[]> schoolTranslationData = sectionData(dataSections, titles.schoolTranslations);
+            List<String[]> contentTranslationData = sectionData(dataSections, titles.contentTranslations);
+            List<String[]> philosopherTranslationData = sectionData(dataSections, titles.philosopherTranslations);
+            AtomicReference<ImportReferenceIndex> refs = new AtomicReference<>();
+
+            // 按依赖关系导入：用户 → 学派 → 哲学家 → 内容 → 其余数据段。
+            // 互不依赖的阶段并发执行，各自使用独立的事务和数据库连接
+            ImportStagePlan plan = new ImportStagePlan()
+                    .add("用户", () -> importUsersInTransaction(result, dataSections.get("用户数据")))
+                    .add("学派", () -> {
+                        importSchoolsInTransaction(result, schoolData);
+                        applyPendingUserSchoolAssignments();
+                    }, "用户")
+                    .add("哲学家", () -> importPhilosophersInTransaction(result, dataSections.get("哲学家数据")), "学派")
+                    .add("哲学家学派关联", () -> importPhilosopherSchoolAssociationsInTransaction(result, assocData), "哲学家")
+                    .add("内容", () -> {
+                        if (contentData == null) {
+                            result.addResult("内容", 0, 0);
+                        } else {
+                            importContentsInTransaction(result, contentData);
+                            // 在内容导入完成后，单独处理内容关联
+                            updateContentAssociationsInTransaction(result, contentData);
+                        }
+                    }, "哲学家")
+                    // 基础数据已全部写入，之后各段的外键校验只查内存中的ID索引
+                    .add("ID索引", () -> refs.set(loadReferenceIndex()), "哲学家学派关联", "内容")
+                    .add("评论", () -> importCommentsInTransaction(result, dataSections.get("评论数据"), refs.get()), "ID索引")
+                    .add("用户内容编辑", () -> importUserContentEditsInTransaction(result,
+                            dataSections.get("用户内容编辑数据"), refs.get()), "ID索引")
+                    .add("学派翻译", () -> importSchoolTranslationsInTransaction(result, schoolTranslationData, refs.get()), "ID索引")
+                    .add("内容翻译", () -> importContentTranslationsInTransaction(result, contentTranslationData, refs.get()), "ID索引")
+                    .add("哲学家翻译", () -> importPhilosopherTranslationsInTransaction(result,
+                            philosopherTranslationData, refs.get()), "ID索引");
+            if (!bulkSectionRows.isEmpty()) {
+                plan.add("点赞/关注/屏蔽/登录信息", () -> streamBulkSections(result, file, refs.get()), "ID索引");
             }
-            importPhilosopherTranslationsInTransaction(result, philosopherTranslationData);
+            runImportPlan(plan, result);
 
             // 即使有部分失败，只要不是全部失败，就认为导入成功
             if (result.getTotalImported() > 0) {
@@ -302,9 +258,606 @@ public class DataImportService {
             // 不重新抛出异常，让事务正常提交
         }
 
+        // 失败时已完成的数据段也已提交，同样需要通知
+        publishImported();
+        return result;
+    }
+
+    // 导入或清空数据后通知游客页面缓存等失效（各数据段分别提交，此时已不在事务中）
+    private void publishImported() {
+        eventPublisher.publishEvent(new PublicContentChangedEvent(PublicContentChangedEvent.Source.IMPORT, null));
+    }
+
+    // 删除记录的处理顺序：先删引用方，再删被引用方
+    private static final List<String> TOMBSTONE_APPLY_ORDER = List.of(
+            "likes", "user_follows", "user_blocks", "user_login_info", "user_content_edits",
+            "schools_translation", "contents_translation", "philosophers_translation",
+            "comments", "contents", "philosophers", "schools", "users");
+
+    // 删除某表的一行之前需要先执行的清理语句（与业务删除逻辑一致），参数都是被删除行的ID。
+    // 从属行通常也有各自的删除记录，这里再清理一遍，保证增量缺少某些删除记录时外键不会阻止删除
+    private static final Map<String, List<String>> TOMBSTONE_DEPENDENT_DELETES = Map.of(
+            "comments", List.of(
+                    "DELETE FROM likes WHERE entity_type = 'COMMENT' AND entity_id = ?",
+                    // 回复有自己的删除记录，先断开父子关系，删除顺序就无关紧要
+                    "UPDATE comments SET parent_id = NULL WHERE parent_id = ?"),
+            "contents", List.of(
+                    "DELETE FROM user_content_edits WHERE original_content_id = ?",
+                    "DELETE FROM contents_translation WHERE content_id = ?",
+                    "DELETE FROM likes WHERE entity_type = 'CONTENT' AND entity_id = ?",
+                    "DELETE FROM likes WHERE entity_type = 'COMMENT' AND entity_id IN (SELECT id FROM comments WHERE content_id = ?)",
+                    "UPDATE comments SET parent_id = NULL WHERE content_id = ?",
+                    "DELETE FROM comments WHERE content_id = ?"),
+            "philosophers", List.of(
+                    "DELETE FROM philosopher_school WHERE philosopher_id = ?",
+                    "DELETE FROM philosophers_translation WHERE philosopher_id = ?",
+                    "DELETE FROM user_content_edits WHERE philosopher_id = ?",
+                    "DELETE FROM likes WHERE entity_type = 'PHILOSOPHER' AND entity_id = ?"),
+            "schools", List.of(
+                    "DELETE FROM philosopher_school WHERE school_id = ?",
+                    "DELETE FROM schools_translation WHERE school_id = ?",
+                    "DELETE FROM user_content_edits WHERE school_id = ?",
+                    "DELETE FROM likes WHERE entity_type = 'SCHOOL' AND entity_id = ?"),
+            "users", List.of(
+                    "DELETE FROM likes WHERE user_id = ?",
+                    "DELETE FROM likes WHERE entity_type = 'USER' AND entity_id = ?",
+                    "DELETE FROM user_login_info WHERE user_id = ?",
+                    "DELETE FROM user_follows WHERE follower_id = ?",
+                    "DELETE FROM user_follows WHERE following_id = ?",
+                    "DELETE FROM user_blocks WHERE blocker_id = ?",
+                    "DELETE FROM user_blocks WHERE blocked_id = ?",
+                    "DELETE FROM test_results WHERE user_id = ?",
+                    "DELETE FROM user_content_edits WHERE user_id = ?",
+                    "UPDATE comments SET privacy_set_by = NULL WHERE privacy_set_by = ?",
+                    "UPDATE comments SET blocked_by = NULL WHERE blocked_by = ?",
+                    "UPDATE contents SET locked_by_user_id = NULL WHERE locked_by_user_id = ?",
+                    "UPDATE contents SET privacy_set_by = NULL WHERE privacy_set_by = ?",
+                    "UPDATE contents SET blocked_by = NULL WHERE blocked_by = ?",
+                    "UPDATE philosophers SET user_id = NULL WHERE user_id = ?",
+                    "UPDATE schools SET user_id = NULL WHERE user_id = ?")
+    );
+
+    /**
+     * 应用增量导出文件（由 DataExportService.exportDeltaToCsv 生成）
+     * 增量只能按顺序应用在全量导入（或上一次增量）之后的库上，本身不是完整的备份。
+     * - 变更行沿用各段的导入方法，按主键覆盖；点赞、关注、屏蔽、登录信息与全量导入一样流式写入
+     * - 文件中出现的哲学家，先清空其学派关联，再按文件重建
+     * - 最后按删除记录删除对应行，每行一个事务，单行失败不影响其他行
+     */
+    public ImportResult applyDeltaCsv(MultipartFile file) {
+        ImportResult result = new ImportResult();
+        pendingUserSchoolAssignments.clear();
+
+        try {
+            Map<String, Integer> bulkSectionRows = new LinkedHashMap<>();
+            Map<String, List<String[]>> dataSections = parseCsvFile(file, section -> !isBulkSection(section), bulkSectionRows);
+            if (dataSections.isEmpty() && bulkSectionRows.isEmpty()) {
+                result.setSuccess(false);
+                result.setMessage("应用增量失败: 文件中没有找到任何数据段");
+                return result;
+            }
+
+            importUsersInTransaction(result, dataSections.get("用户数据"));
+            importSchoolsInTransaction(result, dataSections.get("学派数据"));
+            applyPendingUserSchoolAssignments();
+
+            List<String[]> philosopherData = dataSections.get("哲学家数据");
+            importPhilosophersInTransaction(result, philosopherData);
+            clearPhilosopherSchoolAssociationsInTransaction(philosopherData);
+            importPhilosopherSchoolAssociationsInTransaction(result, dataSections.get("哲学家学派关联数据"));
+
+            List<String[]> contentData = dataSections.get("内容数据");
+            importContentsInTransaction(result, contentData);
+            if (contentData != null) {
+                updateContentAssociationsInTransaction(result, contentData);
+            }
+            ImportReferenceIndex refs = loadReferenceIndex();
+            importCommentsInTransaction(result, dataSections.get("评论数据"), refs);
+            importUserContentEditsInTransaction(result, dataSections.get("用户内容编辑数据"), refs);
+            importSchoolTranslationsInTransaction(result, dataSections.get("学派翻译数据"), refs);
+            importContentTranslationsInTransaction(result, dataSections.get("内容翻译数据"), refs);
+            importPhilosopherTranslationsInTransaction(result, dataSections.get("哲学家翻译数据"), refs);
+            if (!bulkSectionRows.isEmpty()) {
+                streamBulkSections(result, file, refs);
+            }
+
+            int deleted = applyTombstones(result, dataSections.get(DataExportService.TOMBSTONE_SECTION));
+
+            result.setSuccess(result.getTotalFailed() == 0);
+            result.setMessage("增量应用完成！更新: " + (result.getTotalImported() - deleted)
+                    + " 条，删除: " + deleted + " 条，失败: " + result.getTotalFailed() + " 条");
+        } catch (Exception e) {
+            logger.error("应用增量过程中发生异常", e);
+            result.setSuccess(false);
+            result.setMessage("应用增量失败: " + e.getMessage());
+        }
+        publishImported();
+        return result;
+    }
+
+    /**
+     * 试运行：按导入的规则完整校验CSV文件，不写入数据库
+     * 文件流式读取两遍，数据段不读入内存：第一遍收集文件中用户、学派、哲学家、内容的ID（以及用户名、邮箱），
+     * 第二遍逐行做与导入相同的解析和类型转换，并用内存中的ID索引检查引用。
+     * 结果与导入的格式相同，各数据段的成功数为可以导入的行数，失败的行带失败详情。
+     * 按名称引用的哲学家/学派关联无法离线校验，计为可导入；导入时因引用不存在而被跳过的行，这里计为失败。
+     * @param assumeEmptyDatabase 为true时按“先清空现有数据再导入”校验，引用只能指向文件中的数据；
+     *                            否则也可以指向数据库中已有的数据
+     */
+    public ImportResult validateCsvData(MultipartFile file, boolean assumeEmptyDatabase) {
+        ImportResult result = new ImportResult();
+        long start = System.nanoTime();
+        try {
+            ImportReferenceIndex refs;
+            if (assumeEmptyDatabase) {
+                refs = ImportReferenceIndex.empty();
+            } else {
+                long loadStart = System.nanoTime();
+                refs = loadReferenceIndex();
+                result.addSectionTiming("读取现有ID", (System.nanoTime() - loadStart) / 1_000_000);
+            }
+
+            long collectStart = System.nanoTime();
+            Set<String> titles = collectFileReferences(file, refs);
+            result.addSectionTiming("收集文件中的ID", (System.nanoTime() - collectStart) / 1_000_000);
+            if (titles.isEmpty()) {
+                result.setSuccess(false);
+                result.setMessage("校验失败: CSV文件中没有找到任何数据段。请确保文件格式正确，包含以'数据'结尾的段标题（如'用户数据'、'学派数据'等）");
+                return result;
+            }
+
+            long validateStart = System.nanoTime();
+            DryRunValidator validator = new DryRunValidator(result, refs, resolveSectionTitles(titles));
+            streamCsvFile(file, validator);
+            validator.finish();
+            result.addSectionTiming("逐行校验", (System.nanoTime() - validateStart) / 1_000_000);
+
+            result.setSuccess(result.getTotalFailed() == 0);
+            if (result.isSuccess()) {
+                result.setMessage("校验通过（未写入数据库）：共 " + result.getTotalImported() + " 条记录可以导入");
+            } else {
+                result.setMessage("校验发现问题（未写入数据库）：可以导入 " + result.getTotalImported()
+                        + " 条，失败 " + result.getTotalFailed() + " 条，请查看失败详情");
+            }
+        } catch (Exception e) {
+            logger.error("CSV校验过程中发生异常", e);
+            result.setSuccess(false);
+            result.setMessage("校验失败: " + e.getMessage());
+        }
+        logger.info("CSV校验完成，耗时 {} ms，可导入: {}, 失败: {}",
+                (System.nanoTime() - start) / 1_000_000, result.getTotalImported(), result.getTotalFailed());
         return result;
     }
 
+    /**
+     * 校验的第一遍：把文件中用户、学派、哲学家、内容数据段的ID登记到refs
+     * @return 文件中的全部段标题
+     */
+    private Set<String> collectFileReferences(MultipartFile file, ImportReferenceIndex refs) throws IOException {
+        // 与 parseCsvFile 一样用哈希集合保存标题，模糊匹配段标题时的遍历顺序与导入一致
+        Set<String> titles = new HashSet<>();
+        Map<String, ImportReferenceIndex.LongIdSet> idsByTitle = new HashMap<>();
+        streamCsvFile(file, new CsvRowHandler() {
+            private ImportReferenceIndex.LongIdSet currentIds;
+            private boolean users;
+            private boolean contentIds;
+
+            @Override
+            public void onSection(String section) {
+                titles.add(section);
+                users = "用户数据".equals(section);
+                contentIds = section.contains("内容");
+                // 段的用途要等全部标题读完才能确定，先按标题分别记录
+                currentIds = users || isBulkSection(section)
+                        ? null : idsByTitle.computeIfAbsent(section, key -> new ImportReferenceIndex.LongIdSet());
+            }
+
+            @Override
+            public void onRow(String section, String[] fields) {
+                if (fields.length == 0) {
+                    return;
+                }
+                if (users) {
+                    Long id = parseIdFromValue(fields[0]);
+                    if (id != null) {
+                        refs.addUser(id, fields.length > 1 ? fields[1] : null, fields.length > 2 ? fields[2] : null);
+                    }
+                } else if (currentIds != null) {
+                    Long id = contentIds ? parseContentIdentifier(fields[0]) : parseIdFromValue(fields[0]);
+                    if (id != null) {
+                        currentIds.add(id);
+                    }
+                }
+            }
+        });
+
+        SectionTitles resolved = resolveSectionTitles(titles);
+        addFileIds(idsByTitle, resolved.schools, refs::addSchool);
+        addFileIds(idsByTitle, "哲学家数据", refs::addPhilosopher);
+        addFileIds(idsByTitle, resolved.contents, refs::addContent);
+        return titles;
+    }
+
+    private static void addFileIds(Map<String, ImportReferenceIndex.LongIdSet> idsByTitle, String title,
+                                   LongConsumer target) {
+        ImportReferenceIndex.LongIdSet ids = title != null ? idsByTitle.get(title) : null;
+        if (ids != null) {
+            ids.forEach(target);
+        }
+    }
+
+    /**
+     * 试运行校验的数据段；流式导入的数据段见 BulkSection
+     */
+    private enum ValidatedSection {
+        USERS("用户"),
+        SCHOOLS("学派"),
+        PHILOSOPHERS("哲学家"),
+        PHILOSOPHER_SCHOOLS("哲学家学派关联"),
+        CONTENTS("内容"),
+        COMMENTS("评论"),
+        USER_CONTENT_EDITS("用户内容编辑"),
+        SCHOOL_TRANSLATIONS("学派翻译"),
+        CONTENT_TRANSLATIONS("内容翻译"),
+        PHILOSOPHER_TRANSLATIONS("哲学家翻译");
+
+        private final String resultName;
+
+        ValidatedSection(String resultName) {
+            this.resultName = resultName;
+        }
+    }
+
+    /**
+     * 校验的第二遍：逐行按导入规则检查，统计可导入和失败的行数
+     */
+    private final class DryRunValidator implements CsvRowHandler {
+        private final ImportResult result;
+        private final ImportReferenceIndex refs;
+        private final Map<String, ValidatedSection> sectionsByTitle = new HashMap<>();
+        private final Map<BulkSection, Integer> bulkColumnCounts = new EnumMap<>(BulkSection.class);
+        // 结果名称 → {可导入, 失败}
+        private final Map<String, int[]> counts = new LinkedHashMap<>();
+        private final LocalDateTime now = LocalDateTime.now();
+
+        private ValidatedSection currentSection;
+        private BulkSection currentBulkSection;
+        private int[] currentCounts;
+        private int rowIndex;
+        private Map<String, Integer> commentHeaderIndex;
+
+        private DryRunValidator(ImportResult result, ImportReferenceIndex refs, SectionTitles titles) {
+            this.result = result;
+            this.refs = refs;
+            // 与 importCsvData 取数据段的方式一致
+            putTitle("用户数据", ValidatedSection.USERS);
+            putTitle(titles.schools, ValidatedSection.SCHOOLS);
+            putTitle("哲学家数据", ValidatedSection.PHILOSOPHERS);
+            putTitle(titles.philosopherSchools, ValidatedSection.PHILOSOPHER_SCHOOLS);
+            putTitle(titles.contents, ValidatedSection.CONTENTS);
+            putTitle("评论数据", ValidatedSection.COMMENTS);
+            putTitle("用户内容编辑数据", ValidatedSection.USER_CONTENT_EDITS);
+            putTitle(titles.schoolTranslations, ValidatedSection.SCHOOL_TRANSLATIONS);
+            putTitle(titles.contentTranslations, ValidatedSection.CONTENT_TRANSLATIONS);
+            putTitle(titles.philosopherTranslations, ValidatedSection.PHILOSOPHER_TRANSLATIONS);
+        }
+
+        private void putTitle(String title, ValidatedSection section) {
+            if (title != null) {
+                sectionsByTitle.putIfAbsent(title, section);
+            }
+        }
+
+        @Override
+        public void onSection(String section) {
+            currentBulkSection = BulkSection.fromTitle(section);
+            currentSection = currentBulkSection == null ? sectionsByTitle.get(section) : null;
+            String resultName = currentBulkSection != null ? currentBulkSection.resultName
+                    : currentSection != null ? currentSection.resultName : null;
+            currentCounts = resultName != null ? counts.computeIfAbsent(resultName, key -> new int[2]) : null;
+            rowIndex = 0;
+            commentHeaderIndex = null;
+        }
+
+        @Override
+        public void onRow(String section, String[] fields) {
+            int index = rowIndex++;
+            if (currentCounts == null) {
+                return;
+            }
+            try {
+                boolean importable;
+                if (currentBulkSection != null) {
+                    int columnCount = bulkColumnCounts.computeIfAbsent(currentBulkSection,
+                            key -> bulkColumns(key).size());
+                    importable = toBulkRow(currentBulkSection, columnCount, fields, refs, now) != null;
+                } else if (currentSection == ValidatedSection.COMMENTS) {
+                    importable = validateCommentRow(fields);
+                } else {
+                    importable = validateRow(currentSection, fields, refs);
+                }
+                if (importable) {
+                    currentCounts[0]++;
+                }
+            } catch (RuntimeException e) {
+                currentCounts[1]++;
+                String resultName = currentBulkSection != null ? currentBulkSection.resultName : currentSection.resultName;
+                recordFailureDetail(result, resultName, index, fields, describeValidationError(e), null);
+            }
+        }
+
+        private boolean validateCommentRow(String[] fields) {
+            // 与 importComments 一样，数据段第一行可能是表头
+            if (commentHeaderIndex == null) {
+                commentHeaderIndex = Collections.emptyMap();
+                if (isHeaderRow(fields)) {
+                    commentHeaderIndex = buildHeaderIndex(fields);
+                    return false;
+                }
+            }
+            if (isRowEmpty(fields)) {
+                return false;
+            }
+            buildCommentRow(fields, commentHeaderIndex, refs);
+            return true;
+        }
+
+        private void finish() {
+            for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+                result.addResult(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+            }
+        }
+    }
+
+    private static String describeValidationError(RuntimeException e) {
+        if (e instanceof NumberFormatException) {
+            return "数字格式错误: " + e.getMessage();
+        }
+        if (e instanceof DateTimeParseException) {
+            return "时间格式错误: '" + ((DateTimeParseException) e).getParsedString() + "'";
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * 按对应导入方法的规则检查一行（评论和流式导入的数据段除外）
+     * @return true表示可以导入，false表示导入时会被当作空行/表头跳过
+     * @throws RuntimeException 导入时该行会失败，异常信息为失败原因
+     */
+    private boolean validateRow(ValidatedSection section, String[] fields, ImportReferenceIndex refs) {
+        if (fields.length == 0 || isRowEmpty(fields)) {
+            return false;
+        }
+        return switch (section) {
+            case USERS -> validateUserRow(fields);
+            case SCHOOLS -> validateIdRow(fields, SCHOOL_SECTION_MIN_COLUMNS, "学派");
+            case PHILOSOPHERS -> validateIdRow(fields, PHILOSOPHER_SECTION_MIN_COLUMNS, "哲学家");
+            case PHILOSOPHER_SCHOOLS -> validatePhilosopherSchoolRow(fields, refs);
+            case CONTENTS -> validateContentRow(fields);
+            case USER_CONTENT_EDITS -> validateUserContentEditRow(fields, refs);
+            case SCHOOL_TRANSLATIONS -> validateTranslationRow(fields, 6, 5, "学派", refs::hasSchool);
+            case CONTENT_TRANSLATIONS -> validateTranslationRow(fields, 5, 4, "内容", refs::hasContent);
+            case PHILOSOPHER_TRANSLATIONS -> validateTranslationRow(fields, 6, 5, "哲学家", refs::hasPhilosopher);
+            case COMMENTS -> throw new IllegalStateException("评论数据由 DryRunValidator 校验");
+        };
+    }
+
+    private boolean validateUserRow(String[] fields) {
+        if (isUserHeaderRow(fields)) {
+            return false;
+        }
+        fields = ensureMinimumColumns(fields, USER_SECTION_MIN_COLUMNS);
+        if (parseIdFromValue(fields[0]) == null) {
+            if (shouldSilentlySkipNonUserRow(fields)) {
+                return false;
+            }
+            throw new IllegalArgumentException("无法解析用户ID: '" + fields[0] + "'");
+        }
+        if (fields[1] == null || fields[1].isBlank()) {
+            throw new IllegalArgumentException("用户名为空");
+        }
+        return true;
+    }
+
+    private boolean validateIdRow(String[] fields, int minColumns, String label) {
+        if (isHeaderRow(fields)) {
+            return false;
+        }
+        fields = ensureMinimumColumns(fields, minColumns);
+        if (parseIdFromValue(fields[0]) == null) {
+            throw new IllegalArgumentException("无法解析" + label + "ID: '" + fields[0] + "'");
+        }
+        return true;
+    }
+
+    private boolean validatePhilosopherSchoolRow(String[] fields, ImportReferenceIndex refs) {
+        if (fields.length < 2) {
+            return false;
+        }
+        String rawPhilosopher = fields[0] != null ? fields[0].trim() : "";
+        String rawSchool = fields[1] != null ? fields[1].trim() : "";
+        if (rawPhilosopher.isEmpty() || rawSchool.isEmpty() ||
+            "哲学家ID".equals(rawPhilosopher) || "学派ID".equals(rawSchool) || "流派ID".equals(rawSchool)) {
+            return false;
+        }
+        // 非数字的值在导入时按名称查找，这里不校验
+        if (PURE_NUMBER_PATTERN.matcher(rawPhilosopher).matches() && !refs.hasPhilosopher(Long.parseLong(rawPhilosopher))) {
+            throw new IllegalArgumentException("哲学家ID '" + rawPhilosopher + "' 不存在");
+        }
+        if (PURE_NUMBER_PATTERN.matcher(rawSchool).matches() && !refs.hasSchool(Long.parseLong(rawSchool))) {
+            throw new IllegalArgumentException("学派ID '" + rawSchool + "' 不存在");
+        }
+        return true;
+    }
+
+    private boolean validateContentRow(String[] fields) {
+        if ("ID".equals(fields[0].trim()) || "id".equals(fields[0].trim().toLowerCase())) {
+            return false;
+        }
+        fields = ensureMinimumColumns(fields, 5);
+        if (parseContentIdentifier(fields[0]) == null) {
+            throw new IllegalArgumentException("无法解析内容ID: '" + fields[0] + "'");
+        }
+        return true;
+    }
+
+    private boolean validateUserContentEditRow(String[] fields, ImportReferenceIndex refs) {
+        if (fields.length < 8) {
+            return false;
+        }
+        Long.parseLong(fields[0]);
+        if (fields[1].isEmpty()) {
+            throw new IllegalArgumentException("缺少用户ID");
+        }
+        if (!refs.hasUser(Long.parseLong(fields[1]))) {
+            throw new IllegalArgumentException("用户ID '" + fields[1] + "' 不存在");
+        }
+        requireReference(fields[4], "哲学家", refs::hasPhilosopher);
+        requireReference(fields[5], "学派", refs::hasSchool);
+        parseExportedDateTime(fields[7]);
+        return true;
+    }
+
+    private boolean validateTranslationRow(String[] fields, int minFields, int createdAtIndex, String label,
+                                           LongPredicate exists) {
+        if (fields.length < minFields) {
+            throw new IllegalArgumentException(label + "翻译字段数量不足（需要至少" + minFields + "个字段，实际"
+                    + fields.length + "个）");
+        }
+        Long.parseLong(fields[0]);
+        requireReference(fields[1], label, exists);
+        parseExportedDateTime(fields[createdAtIndex]);
+        return true;
+    }
+
+    /**
+     * 必填的引用列：为空或 "null" 时导入会失败，引用不存在时导入会跳过该行，两种情况都计为失败
+     */
+    private static void requireReference(String raw, String label, LongPredicate exists) {
+        if (raw.isEmpty() || raw.equals("null")) {
+            throw new IllegalArgumentException("缺少" + label + "ID");
+        }
+        if (!exists.test(Long.parseLong(raw))) {
+            throw new IllegalArgumentException(label + "ID '" + raw + "' 不存在");
+        }
+    }
+
+    /**
+     * 按导入时的规则解析导出的时间列，"未知时间"和空值不解析
+     */
+    private static void parseExportedDateTime(String raw) {
+        if (!raw.equals("未知时间") && !raw.isEmpty() && !raw.equals("null")) {
+            LocalDateTime.parse(raw, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+    }
+
+    /**
+     * 在独立的线程池中执行导入阶段，并把各阶段耗时记入导入结果
+     * 线程数不超过 app.import.parallelism，同时占用的数据库连接数也不会超过该值（流式导入的解析线程不占连接）。
+     */
+    private void runImportPlan(ImportStagePlan plan, ImportResult result) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, importParallelism), runnable -> {
+            Thread thread = new Thread(runnable, "csv-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        try {
+            plan.run(executor, result::addSectionTiming);
+        } finally {
+            executor.shutdown();
+            logger.info("全部导入阶段结束，总耗时 {} ms，各阶段耗时 {}",
+                    (System.nanoTime() - start) / 1_000_000, result.getSectionTimings());
+        }
+    }
+
+    /**
+     * 读取现有ID，供评论、点赞等引用其他表的数据段校验外键
+     * 须在被引用的数据段（用户、学派、哲学家、内容）导入之后调用。
+     */
+    private ImportReferenceIndex loadReferenceIndex() {
+        long start = System.nanoTime();
+        ImportReferenceIndex refs = ImportReferenceIndex.load(jdbcTemplate);
+        logger.info("已加载导入用的ID索引 {}，耗时 {} ms", refs, (System.nanoTime() - start) / 1_000_000);
+        return refs;
+    }
+
+    private void clearPhilosopherSchoolAssociationsInTransaction(List<String[]> philosopherData) {
+        if (philosopherData == null || philosopherData.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                for (String[] fields : philosopherData) {
+                    Long philosopherId = fields != null && fields.length > 0 ? parseIdFromValue(fields[0]) : null;
+                    if (philosopherId != null) {
+                        entityManager.createNativeQuery("DELETE FROM philosopher_school WHERE philosopher_id = ?")
+                                .setParameter(1, philosopherId)
+                                .executeUpdate();
+                    }
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.error("清空变更哲学家的学派关联失败", e);
+        }
+    }
+
+    /**
+     * 按删除记录删除数据
+     * @return 成功删除的行数
+     */
+    private int applyTombstones(ImportResult result, List<String[]> data) {
+        final String sectionName = "删除记录";
+        if (data == null || data.isEmpty()) {
+            result.addResult(sectionName, 0, 0);
+            return 0;
+        }
+
+        Map<String, Set<Long>> idsByTable = new HashMap<>();
+        int failed = 0;
+        for (int i = 0; i < data.size(); i++) {
+            String[] fields = data.get(i);
+            if (fields == null || isRowEmpty(fields) || "表名".equals(fields[0].trim())) {
+                continue;
+            }
+            String table = fields[0].trim();
+            Long id = fields.length > 1 ? parseIdFromValue(fields[1]) : null;
+            if (!TOMBSTONE_APPLY_ORDER.contains(table) || id == null) {
+                failed++;
+                recordFailureDetail(result, sectionName, i, fields, "无法识别的删除记录", null);
+                continue;
+            }
+            idsByTable.computeIfAbsent(table, key -> new LinkedHashSet<>()).add(id);
+        }
+
+        int deleted = 0;
+        for (String table : TOMBSTONE_APPLY_ORDER) {
+            for (Long id : idsByTable.getOrDefault(table, Collections.emptySet())) {
+                try {
+                    transactionTemplate.execute(status -> {
+                        for (String sql : TOMBSTONE_DEPENDENT_DELETES.getOrDefault(table, Collections.emptyList())) {
+                            entityManager.createNativeQuery(sql).setParameter(1, id).executeUpdate();
+                        }
+                        entityManager.createNativeQuery("DELETE FROM " + table + " WHERE id = ?")
+                                .setParameter(1, id)
+                                .executeUpdate();
+                        return null;
+                    });
+                    deleted++;
+                } catch (Exception e) {
+                    failed++;
+                    logger.warn("删除 {} 中ID为 {} 的记录失败: {}", table, id, e.getMessage());
+                    result.addFailureDetail(sectionName, table + " ID=" + id + " 删除失败: " + e.getMessage());
+                }
+            }
+        }
+        logger.info("删除记录应用完成: 删除 {} 条, 失败 {} 条", deleted, failed);
+        result.addResult(sectionName, deleted, failed);
+        return deleted;
+    }
+
     /**
      * 安全清空所有数据表，使用TransactionTemplate确保事务正确执行
      */
@@ -338,6 +891,7 @@ public class DataImportService {
                 throw new RuntimeException("清空数据失败: " + e.getMessage(), e);
             }
         });
+        publishImported();
     }
 
     /**
@@ -599,149 +1153,188 @@ public class DataImportService {
     }
 
     private Map<String, List<String[]>> parseCsvFile(MultipartFile file) {
+        return parseCsvFile(file, section -> true, new HashMap<>());
+    }
+
+    /**
+     * 解析CSV文件，把各数据段的行读入内存
+     * @param bufferSection 返回false的数据段不保留行（之后由 streamBulkSections 再次流式读取）
+     * @param skippedRowCounts 输出：未保留的数据段及其行数
+     */
+    private Map<String, List<String[]>> parseCsvFile(MultipartFile file, Predicate<String> bufferSection,
+                                                     Map<String, Integer> skippedRowCounts) {
         Map<String, List<String[]>> sections = new HashMap<>();
 
         try {
-            // 读取文件开头以检测并跳过UTF-8 BOM
-            java.io.InputStream inputStream = file.getInputStream();
-            byte[] bom = new byte[3];
-            int bytesRead = inputStream.read(bom);
-            
-            // 检查是否是UTF-8 BOM (EF BB BF)
-            boolean hasBom = (bytesRead == 3 && bom[0] == (byte) 0xEF && bom[1] == (byte) 0xBB && bom[2] == (byte) 0xBF);
-            
-            // 如果没有BOM，需要将读取的字节放回去
-            if (!hasBom && bytesRead > 0) {
-                // 使用PushbackInputStream来放回已读取的字节
-                java.io.PushbackInputStream pushbackStream = new java.io.PushbackInputStream(inputStream, 3);
-                pushbackStream.unread(bom, 0, bytesRead);
-                inputStream = pushbackStream;
-            }
-            
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-
-                String rawLine;
-                String currentSection = null;
-                List<String[]> currentData = null;
-                int physicalLineNumber = 0;
-                int logicalLineNumber = 0;
-                StringBuilder recordBuilder = new StringBuilder();
-                boolean insideQuotes = false;
-
-                logger.info("开始解析CSV文件: {}, 大小: {} bytes, 检测到UTF-8 BOM: {}", 
-                           file.getOriginalFilename(), file.getSize(), hasBom);
-
-                while ((rawLine = reader.readLine()) != null) {
-                    physicalLineNumber++;
-                    logger.debug("读取物理第{}行: [{}]", physicalLineNumber, rawLine);
-
-                    if (recordBuilder.length() > 0) {
-                        recordBuilder.append("\n");
+            streamCsvFile(file, new CsvRowHandler() {
+                private List<String[]> currentData;
+
+                @Override
+                public void onSection(String section) {
+                    if (bufferSection.test(section)) {
+                        currentData = new ArrayList<>();
+                        sections.put(section, currentData);
+                    } else {
+                        currentData = null;
+                        skippedRowCounts.putIfAbsent(section, 0);
                     }
-                    recordBuilder.append(rawLine);
+                }
 
-                    insideQuotes = updateQuoteState(insideQuotes, rawLine);
-                    if (insideQuotes) {
-                        logger.debug("检测到跨行字段，继续累积: 当前缓冲长度 {}", recordBuilder.length());
-                        continue;
+                @Override
+                public void onRow(String section, String[] fields) {
+                    if (currentData != null) {
+                        currentData.add(fields);
+                    } else {
+                        skippedRowCounts.merge(section, 1, Integer::sum);
                     }
+                }
+            });
+        } catch (IOException e) {
+            logger.error("解析CSV文件失败", e);
+            throw new RuntimeException("解析CSV文件失败: " + e.getMessage());
+        }
 
-                    String logicalLine = recordBuilder.toString();
-                    recordBuilder.setLength(0);
-                    logicalLineNumber++;
+        logger.info("CSV解析完成，共解析到{}个数据段: {}", sections.size(), sections.keySet());
 
-                    String trimmedLine = logicalLine.trim();
-                    logger.debug("解析逻辑第{}行: [{}]", logicalLineNumber, trimmedLine);
+        // 详细记录每个数据段的内容
+        for (Map.Entry<String, List<String[]>> entry : sections.entrySet()) {
+            logger.info("数据段 '{}' 包含 {} 行数据", entry.getKey(), entry.getValue().size());
+            if (entry.getValue().size() > 0) {
+                logger.debug("数据段 '{}' 第一行示例: {}", entry.getKey(), Arrays.toString(entry.getValue().get(0)));
+            }
+        }
+        if (!skippedRowCounts.isEmpty()) {
+            logger.info("以下数据段将流式导入，未读入内存: {}", skippedRowCounts);
+        }
 
-                    // 检测新的数据段 - 更宽松的匹配条件，支持问号结尾
-                    if ((trimmedLine.endsWith("数据") || trimmedLine.endsWith("数据？")) && !trimmedLine.contains(",")) {
-                        if (currentSection != null && currentData != null) {
-                            sections.put(currentSection, currentData);
-                            logger.info("完成数据段: {}, 数据行数: {}", currentSection, currentData.size());
-                        }
-                        currentSection = trimmedLine;
-                        currentData = new ArrayList<>();
-                        logger.info("开始解析数据段: [{}]", currentSection);
-                        continue;
-                    }
+        return sections;
+    }
 
-                    // 如果还没有找到数据段，跳过所有行
-                    if (currentData == null) {
-                        if (!trimmedLine.isEmpty()) {
-                            logger.debug("跳过行（未找到数据段）: [{}]", trimmedLine);
-                        }
-                        continue;
-                    }
+    /**
+     * CSV逐行解析回调
+     */
+    private interface CsvRowHandler {
+        void onSection(String section);
 
-                    // 跳过标题行 - 更精确的匹配：标题行应该以"ID,"开头
-                    if (trimmedLine.startsWith("ID,")) {
-                        logger.debug("跳过标题行: [{}]", trimmedLine);
-                        continue;
-                    }
+        void onRow(String section, String[] fields);
+    }
 
-                    if (trimmedLine.isEmpty()) {
-                        logger.debug("跳过空行（逻辑行）");
-                        continue;
-                    }
+    /**
+     * 逐行流式解析CSV：遇到段标题时调用 onSection，每个数据行调用 onRow，不保留已解析的行
+     * 段标题以"数据"结尾且不含逗号；段内以"ID"开头的标题行和空行会被跳过。可以对同一个上传文件多次调用。
+     */
+    private void streamCsvFile(MultipartFile file, CsvRowHandler handler) throws IOException {
+        // 读取文件开头以检测并跳过UTF-8 BOM
+        java.io.InputStream inputStream = file.getInputStream();
+        byte[] bom = new byte[3];
+        int bytesRead = inputStream.read(bom);
+
+        // 检查是否是UTF-8 BOM (EF BB BF)
+        boolean hasBom = (bytesRead == 3 && bom[0] == (byte) 0xEF && bom[1] == (byte) 0xBB && bom[2] == (byte) 0xBF);
+
+        // 如果没有BOM，需要将读取的字节放回去
+        if (!hasBom && bytesRead > 0) {
+            // 使用PushbackInputStream来放回已读取的字节
+            java.io.PushbackInputStream pushbackStream = new java.io.PushbackInputStream(inputStream, 3);
+            pushbackStream.unread(bom, 0, bytesRead);
+            inputStream = pushbackStream;
+        }
 
-                    String[] fields = parseCsvLine(logicalLine);
-                    if (fields.length > 0) {
-                        if ("ID".equals(fields[0].trim())) {
-                            logger.debug("跳过标题行（第一个字段是ID）: [{}]", trimmedLine);
-                            continue;
-                        }
-                        currentData.add(fields);
-                        logger.debug("添加数据行到段{}: [{}] -> {} 个字段", currentSection, trimmedLine, fields.length);
-                    } else {
-                        logger.warn("解析数据行失败，字段为空: [{}]", trimmedLine);
-                    }
-                }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+
+            String rawLine;
+            String currentSection = null;
+            int physicalLineNumber = 0;
+            int logicalLineNumber = 0;
+            StringBuilder recordBuilder = new StringBuilder();
+            boolean insideQuotes = false;
+
+            logger.info("开始解析CSV文件: {}, 大小: {} bytes, 检测到UTF-8 BOM: {}",
+                       file.getOriginalFilename(), file.getSize(), hasBom);
+
+            while ((rawLine = reader.readLine()) != null) {
+                physicalLineNumber++;
+                logger.debug("读取物理第{}行: [{}]", physicalLineNumber, rawLine);
 
                 if (recordBuilder.length() > 0) {
-                    String dangling = recordBuilder.toString().trim();
-                    if (!dangling.isEmpty()) {
-                        logger.warn("检测到未闭合的CSV记录，剩余内容: [{}]", dangling);
+                    recordBuilder.append("\n");
+                }
+                recordBuilder.append(rawLine);
+
+                insideQuotes = updateQuoteState(insideQuotes, rawLine);
+                if (insideQuotes) {
+                    logger.debug("检测到跨行字段，继续累积: 当前缓冲长度 {}", recordBuilder.length());
+                    continue;
+                }
+
+                String logicalLine = recordBuilder.toString();
+                recordBuilder.setLength(0);
+                logicalLineNumber++;
+
+                String trimmedLine = logicalLine.trim();
+                logger.debug("解析逻辑第{}行: [{}]", logicalLineNumber, trimmedLine);
+
+                // 检测新的数据段 - 更宽松的匹配条件，支持问号结尾
+                if ((trimmedLine.endsWith("数据") || trimmedLine.endsWith("数据？")) && !trimmedLine.contains(",")) {
+                    currentSection = trimmedLine;
+                    logger.info("开始解析数据段: [{}]", currentSection);
+                    handler.onSection(currentSection);
+                    continue;
+                }
+
+                // 如果还没有找到数据段，跳过所有行
+                if (currentSection == null) {
+                    if (!trimmedLine.isEmpty()) {
+                        logger.debug("跳过行（未找到数据段）: [{}]", trimmedLine);
                     }
+                    continue;
                 }
 
-                // 保存最后一个数据段
-                if (currentSection != null && currentData != null) {
-                    sections.put(currentSection, currentData);
-                    logger.info("完成数据段: {}, 数据行数: {}", currentSection, currentData.size());
+                // 跳过标题行 - 更精确的匹配：标题行应该以"ID,"开头
+                if (trimmedLine.startsWith("ID,")) {
+                    logger.debug("跳过标题行: [{}]", trimmedLine);
+                    continue;
                 }
 
-                logger.info("CSV解析完成，共解析到{}个数据段: {}", sections.size(), sections.keySet());
-                
-                // 详细记录每个数据段的内容
-                for (Map.Entry<String, List<String[]>> entry : sections.entrySet()) {
-                    logger.info("数据段 '{}' 包含 {} 行数据", entry.getKey(), entry.getValue().size());
-                    if (entry.getValue().size() > 0) {
-                        logger.debug("数据段 '{}' 第一行示例: {}", entry.getKey(), Arrays.toString(entry.getValue().get(0)));
+                if (trimmedLine.isEmpty()) {
+                    logger.debug("跳过空行（逻辑行）");
+                    continue;
+                }
+
+                String[] fields = parseCsvLine(logicalLine);
+                if (fields.length > 0) {
+                    if ("ID".equals(fields[0].trim())) {
+                        logger.debug("跳过标题行（第一个字段是ID）: [{}]", trimmedLine);
+                        continue;
                     }
+                    handler.onRow(currentSection, fields);
+                } else {
+                    logger.warn("解析数据行失败，字段为空: [{}]", trimmedLine);
                 }
             }
 
-        } catch (IOException e) {
-            logger.error("解析CSV文件失败", e);
-            throw new RuntimeException("解析CSV文件失败: " + e.getMessage());
+            if (recordBuilder.length() > 0) {
+                String dangling = recordBuilder.toString().trim();
+                if (!dangling.isEmpty()) {
+                    logger.warn("检测到未闭合的CSV记录，剩余内容: [{}]", dangling);
+                }
+            }
         }
-
-        return sections;
     }
 
     /**
-     * 根据关键词查找数据段（支持模糊匹配）
-     * @param dataSections 所有数据段的映射
+     * 根据关键词查找数据段标题（支持模糊匹配）
+     * @param titles 所有数据段的标题
      * @param keywords 关键词数组
-     * @return 找到的数据段，如果未找到则返回null
+     * @return 第一个包含全部关键词的标题，如果未找到则返回null
      */
-    private List<String[]> findSectionByKeywords(Map<String, List<String[]>> dataSections, String... keywords) {
-        if (dataSections == null || keywords == null || keywords.length == 0) {
+    private String findSectionTitleByKeywords(Collection<String> titles, String... keywords) {
+        if (titles == null || keywords == null || keywords.length == 0) {
             return null;
         }
         
-        for (String sectionName : dataSections.keySet()) {
+        for (String sectionName : titles) {
             boolean allKeywordsFound = true;
             for (String keyword : keywords) {
                 if (!sectionName.contains(keyword)) {
@@ -751,7 +1344,7 @@ public class DataImportService {
             }
             if (allKeywordsFound) {
                 logger.info("找到匹配的数据段: {} (关键词: {})", sectionName, Arrays.toString(keywords));
-                return dataSections.get(sectionName);
+                return sectionName;
             }
         }
         
@@ -759,6 +1352,86 @@ public class DataImportService {
         return null;
     }
 
+    private static List<String[]> sectionData(Map<String, List<String[]>> dataSections, String title) {
+        return title != null ? dataSections.get(title) : null;
+    }
+
+    private static String titleIfPresent(Collection<String> titles, String title) {
+        return titles.contains(title) ? title : null;
+    }
+
+    /**
+     * 确定各数据段在文件中使用的标题，导入和试运行共用同一套兼容规则
+     */
+    private SectionTitles resolveSectionTitles(Collection<String> titles) {
+        SectionTitles resolved = new SectionTitles();
+
+        // 学派数据段：兼容“流派数据”等变体
+        resolved.schools = titleIfPresent(titles, "学派数据");
+        if (resolved.schools == null) {
+            resolved.schools = findSectionTitleByKeywords(titles, "学派", "数据");
+        }
+        if (resolved.schools == null) {
+            resolved.schools = titleIfPresent(titles, "流派数据");
+        }
+        if (resolved.schools == null) {
+            resolved.schools = findSectionTitleByKeywords(titles, "流派", "数据");
+        }
+
+        // 哲学家-学派关联——兼容多种标题/同义词
+        resolved.philosopherSchools = titleIfPresent(titles, "哲学家学派关联数据");
+        if (resolved.philosopherSchools == null) {
+            resolved.philosopherSchools = titleIfPresent(titles, "哲学家-学派关联数据");
+        }
+        if (resolved.philosopherSchools == null) {
+            resolved.philosopherSchools = findSectionTitleByKeywords(titles, "哲学家", "学派", "关联");
+        }
+        if (resolved.philosopherSchools == null) {
+            resolved.philosopherSchools = titleIfPresent(titles, "哲学家流派关联数据");
+        }
+        if (resolved.philosopherSchools == null) {
+            resolved.philosopherSchools = findSectionTitleByKeywords(titles, "哲学家", "流派", "关联");
+        }
+
+        // 内容数据段，支持可能的变体
+        resolved.contents = titleIfPresent(titles, "内容数据");
+        if (resolved.contents == null) {
+            resolved.contents = titleIfPresent(titles, "内容数据？");
+        }
+        if (resolved.contents == null) {
+            // 查找所有包含"内容"的段标题
+            for (String title : titles) {
+                if (title.contains("内容") && title.contains("数据")) {
+                    logger.warn("找到可能的 content 数据段变体: {}", title);
+                    resolved.contents = title;
+                    break;
+                }
+            }
+        }
+
+        // 翻译数据 - 支持多种段标题格式（含“流派”同义词）
+        resolved.schoolTranslations = findSectionTitleByKeywords(titles, "学派", "翻译");
+        if (resolved.schoolTranslations == null) {
+            resolved.schoolTranslations = findSectionTitleByKeywords(titles, "流派", "翻译");
+        }
+        resolved.contentTranslations = findSectionTitleByKeywords(titles, "内容", "翻译");
+        resolved.philosopherTranslations = findSectionTitleByKeywords(titles, "哲学家", "翻译");
+        return resolved;
+    }
+
+    /**
+     * 各数据段在文件中使用的标题，文件中没有的数据段为null
+     * 用户、哲学家、评论、用户内容编辑数据段只认固定标题，不在这里解析。
+     */
+    private static final class SectionTitles {
+        String schools;
+        String philosopherSchools;
+        String contents;
+        String schoolTranslations;
+        String contentTranslations;
+        String philosopherTranslations;
+    }
+
     private boolean updateQuoteState(boolean inQuotes, String line) {
         if (line == null || line.isEmpty()) {
             return inQuotes;
@@ -2550,14 +3223,17 @@ public class DataImportService {
             result.setSuccess(false);
             result.setMessage("作者批量修复失败: " + e.getMessage());
         }
+        if (success > 0) {
+            publishImported();
+        }
         return result;
     }
 
 
-    public void importCommentsInTransaction(ImportResult result, List<String[]> data) {
+    public void importCommentsInTransaction(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
         try {
             transactionTemplate.execute(status -> {
-                importComments(result, data);
+                importComments(result, data, refs);
                 return null;
             });
         } catch (Exception e) {
@@ -2566,7 +3242,7 @@ public class DataImportService {
         }
     }
 
-    private void importComments(ImportResult result, List<String[]> data) {
+    private void importComments(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
         final String sectionName = "评论";
         if (data == null || data.isEmpty()) {
             logger.info("评论数据段为空，跳过导入");
@@ -2591,10 +3267,6 @@ public class DataImportService {
             return;
         }
 
-        Map<Long, Boolean> contentExistsCache = new HashMap<>();
-        Map<Long, Boolean> commentExistsCache = new HashMap<>();
-        Map<Long, Boolean> userIdExistsCache = new HashMap<>();
-        Map<String, Optional<Long>> userLookupCache = new HashMap<>();
         Set<Long> importedCommentIds = new HashSet<>();
         List<long[]> deferredParentUpdates = new ArrayList<>();
 
@@ -2609,11 +3281,10 @@ public class DataImportService {
             }
 
             try {
-                ParsedCommentRow row = buildCommentRow(fields, headerIndex, contentExistsCache,
-                        userLookupCache, userIdExistsCache);
+                ParsedCommentRow row = buildCommentRow(fields, headerIndex, refs);
 
                 Long parentIdForInsert = row.parentId;
-                if (parentIdForInsert != null && !commentExists(parentIdForInsert, commentExistsCache)) {
+                if (parentIdForInsert != null && !refs.hasComment(parentIdForInsert)) {
                     deferredParentUpdates.add(new long[]{row.id, parentIdForInsert});
                     parentIdForInsert = null;
                     logger.debug("父评论 {} 暂未存在，延迟关联评论 {}", row.parentId, row.id);
@@ -2676,7 +3347,7 @@ public class DataImportService {
 
                 success++;
                 importedCommentIds.add(row.id);
-                commentExistsCache.put(row.id, true);
+                refs.addComment(row.id);
             } catch (IllegalArgumentException parseException) {
                 failed++;
                 logger.warn("解析评论数据失败: {}", parseException.getMessage());
@@ -2696,7 +3367,7 @@ public class DataImportService {
                 if (!importedCommentIds.contains(commentId)) {
                     continue;
                 }
-                if (!commentExists(parentId, commentExistsCache)) {
+                if (!refs.hasComment(parentId)) {
                     logger.warn("评论 {} 的父评论 {} 仍不存在，跳过延迟关联", commentId, parentId);
                     continue;
                 }
@@ -2721,9 +3392,7 @@ public class DataImportService {
 
     private ParsedCommentRow buildCommentRow(String[] fields,
                                              Map<String, Integer> headerIndex,
-                                             Map<Long, Boolean> contentExistsCache,
-                                             Map<String, Optional<Long>> userLookupCache,
-                                             Map<Long, Boolean> userIdExistsCache) {
+                                             ImportReferenceIndex refs) {
         ParsedCommentRow row = new ParsedCommentRow();
 
         String idRaw = extractField(fields, headerIndex, 0, "id", "comment_id", "评论id", "评论编号");
@@ -2744,13 +3413,13 @@ public class DataImportService {
         if (contentId == null) {
             throw new IllegalArgumentException("评论ID " + commentId + " 缺少内容ID");
         }
-        if (!contentExists(contentId, contentExistsCache)) {
+        if (!refs.hasContent(contentId)) {
             throw new IllegalArgumentException("评论ID " + commentId + " 指向的内容ID " + contentId + " 不存在");
         }
         row.contentId = contentId;
 
         String userRaw = extractField(fields, headerIndex, 2, "user_id", "user", "username", "作者", "用户");
-        Long userId = resolveUserIdentifier(userRaw, true, "用户", userLookupCache, userIdExistsCache);
+        Long userId = resolveUserIdentifier(userRaw, true, "用户", refs);
         if (userId == null) {
             throw new IllegalArgumentException("评论ID " + commentId + " 的用户 '" + userRaw + "' 不存在");
         }
@@ -2781,13 +3450,13 @@ public class DataImportService {
         row.blockedAt = parseDateTimeFlexible(blockedAtRaw);
 
         String blockedByRaw = extractField(fields, headerIndex, -1, "blocked_by", "屏蔽者", "屏蔽用户");
-        row.blockedById = resolveUserIdentifier(blockedByRaw, false, "屏蔽操作用户", userLookupCache, userIdExistsCache);
+        row.blockedById = resolveUserIdentifier(blockedByRaw, false, "屏蔽操作用户", refs);
 
         String privacyAtRaw = extractField(fields, headerIndex, -1, "privacy_set_at", "私密设置时间");
         row.privacySetAt = parseDateTimeFlexible(privacyAtRaw);
 
         String privacyByRaw = extractField(fields, headerIndex, -1, "privacy_set_by", "私密设置用户");
-        row.privacySetById = resolveUserIdentifier(privacyByRaw, false, "私密设置用户", userLookupCache, userIdExistsCache);
+        row.privacySetById = resolveUserIdentifier(privacyByRaw, false, "私密设置用户", refs);
 
         return row;
     }
@@ -3058,32 +3727,10 @@ public class DataImportService {
         return null;
     }
 
-    private boolean contentExists(Long id, Map<Long, Boolean> cache) {
-        if (id == null) {
-            return false;
-        }
-        return cache.computeIfAbsent(id, key -> contentRepository.existsById(key));
-    }
-
-    private boolean commentExists(Long id, Map<Long, Boolean> cache) {
-        if (id == null) {
-            return false;
-        }
-        return cache.computeIfAbsent(id, key -> commentRepository.existsById(key));
-    }
-
-    private boolean userExists(Long id, Map<Long, Boolean> cache) {
-        if (id == null) {
-            return false;
-        }
-        return cache.computeIfAbsent(id, key -> userRepository.existsById(key));
-    }
-
     private Long resolveUserIdentifier(String raw,
                                        boolean required,
                                        String fieldName,
-                                       Map<String, Optional<Long>> userLookupCache,
-                                       Map<Long, Boolean> userIdExistsCache) {
+                                       ImportReferenceIndex refs) {
         if (raw == null || raw.isBlank() || "null".equalsIgnoreCase(raw.trim()) || "已注销".equals(raw.trim())) {
             if (required) {
                 throw new IllegalArgumentException(fieldName + "缺失");
@@ -3092,50 +3739,22 @@ public class DataImportService {
         }
 
         String value = raw.trim();
-        Long userId = resolveUserIdentifierInternal(value, userLookupCache, userIdExistsCache);
+        Long userId = resolveUserIdentifierInternal(value, refs);
         if (userId == null && required) {
             throw new IllegalArgumentException(fieldName + " '" + raw + "' 不存在");
         }
         return userId;
     }
 
-    private Long resolveUserIdentifierInternal(String raw,
-                                               Map<String, Optional<Long>> userLookupCache,
-                                               Map<Long, Boolean> userIdExistsCache) {
-        Optional<Long> cached = userLookupCache.get(raw);
-        if (cached != null) {
-            return cached.orElse(null);
-        }
-
+    /**
+     * 依次按数字ID、用户名、邮箱查找用户，只查预加载的索引
+     */
+    private Long resolveUserIdentifierInternal(String raw, ImportReferenceIndex refs) {
         Long numeric = parseIdFromValue(raw);
         if (numeric != null) {
-            if (userExists(numeric, userIdExistsCache)) {
-                userLookupCache.put(raw, Optional.of(numeric));
-                return numeric;
-            } else {
-                userLookupCache.put(raw, Optional.empty());
-                return null;
-            }
-        }
-
-        Optional<User> byUsername = userRepository.findByUsername(raw);
-        if (byUsername.isPresent()) {
-            Long id = byUsername.get().getId();
-            userIdExistsCache.put(id, true);
-            userLookupCache.put(raw, Optional.of(id));
-            return id;
+            return refs.hasUser(numeric) ? numeric : null;
         }
-
-        Optional<User> byEmail = userRepository.findByEmail(raw);
-        if (byEmail.isPresent()) {
-            Long id = byEmail.get().getId();
-            userIdExistsCache.put(id, true);
-            userLookupCache.put(raw, Optional.of(id));
-            return id;
-        }
-
-        userLookupCache.put(raw, Optional.empty());
-        return null;
+        return refs.findUserIdByName(raw);
     }
 
     private static class ParsedCommentRow {
@@ -3156,313 +3775,458 @@ public class DataImportService {
         Long privacySetById;
     }
 
-    // 用户登录信息导入方法
-    public void importUserLoginInfoInTransaction(ImportResult result, List<String[]> data) {
-        try {
-            transactionTemplate.execute(status -> {
-                importUserLoginInfo(result, data);
-                return null;
-            });
-        } catch (Exception e) {
-            logger.error("用户登录信息导入事务失败", e);
-            // 不要重新抛出异常，避免影响整体导入流程
-        }
-    }
+    // ===== 大表流式导入：点赞、用户关注、用户屏蔽、用户登录信息 =====
 
-    private void importUserLoginInfo(ImportResult result, List<String[]> data) {
-        if (data == null) return;
+    // 每批写入的行数，同时也是解析线程交给写入方的块大小
+    private static final int BULK_BATCH_SIZE = 1000;
+    // 解析与写入之间的队列容量（以块计），内存中最多只有这么多块待写入的行
+    private static final int BULK_QUEUE_CAPACITY = 4;
 
-        logger.info("开始导入用户登录信息数据，共 {} 条", data.size());
-        int success = 0, failed = 0;
-
-        for (String[] fields : data) {
-            try {
-                if (fields.length < 7) continue;
-
-                Long loginInfoId = Long.parseLong(fields[0]);
-                Long userId = Long.parseLong(fields[1]);
-                String browser = fields[3];
-                String operatingSystem = fields[4];
-                String deviceType = fields[5];
-                String loginTimeStr = fields[6];
+    /**
+     * 流式导入的数据段：行数最多，只引用用户表，且没有其他表引用它们，
+     * 因此可以在其他数据导入后再单独读取一遍文件、边解析边批量写入
+     */
+    private enum BulkSection {
+        LIKES("点赞数据", "点赞", "likes"),
+        USER_FOLLOWS("用户关注数据", "用户关注", "user_follows"),
+        USER_BLOCKS("用户屏蔽数据", "用户屏蔽", "user_blocks"),
+        USER_LOGIN_INFO("用户登录信息数据", "用户登录信息", "user_login_info");
+
+        private final String title;
+        private final String resultName;
+        private final String table;
+
+        BulkSection(String title, String resultName, String table) {
+            this.title = title;
+            this.resultName = resultName;
+            this.table = table;
+        }
 
-                // 验证用户是否存在
-                try {
-                    String checkUserSql = "SELECT id FROM users WHERE id = ? LIMIT 1";
-                    jakarta.persistence.Query checkUserQuery = entityManager.createNativeQuery(checkUserSql);
-                    checkUserQuery.setParameter(1, userId);
-                    Object userResult = checkUserQuery.getSingleResult();
-                    if (userResult == null) {
-                        logger.warn("用户ID '{}' 不存在，跳过登录信息", userId);
-                        failed++;
-                        continue;
-                    }
-                } catch (Exception e) {
-                    logger.warn("用户ID '{}' 不存在，跳过登录信息", userId);
-                    failed++;
-                    continue;
+        static BulkSection fromTitle(String title) {
+            for (BulkSection section : values()) {
+                if (section.title.equals(title)) {
+                    return section;
                 }
+            }
+            return null;
+        }
+    }
 
-                // 使用原生SQL插入，先删除现有记录再插入新记录
-                try {
-                    // 先删除现有记录
-                    String deleteSql = "DELETE FROM user_login_info WHERE id = ?";
-                    jakarta.persistence.Query deleteQuery = entityManager.createNativeQuery(deleteSql);
-                    deleteQuery.setParameter(1, loginInfoId);
-                    deleteQuery.executeUpdate();
-                    
-                    final String tableName = "user_login_info";
-                    final String context = "用户登录信息导入";
+    /**
+     * 解析线程交给写入方的一块行
+     */
+    private static final class RowChunk {
+        static final RowChunk END = new RowChunk(null, List.of());
 
-                    List<String> insertColumns = new ArrayList<>();
-                    List<Object> insertParams = new ArrayList<>();
+        final BulkSection section;
+        final List<String[]> rows;
 
-                    addInsertColumn(insertColumns, insertParams, tableName, "id", loginInfoId, context, true);
-                    addInsertColumn(insertColumns, insertParams, tableName, "user_id", userId, context, true);
-                    addInsertColumn(insertColumns, insertParams, tableName, "browser", browser, context, false);
-                    addInsertColumn(insertColumns, insertParams, tableName, "operating_system", operatingSystem, context, false);
-                    addInsertColumn(insertColumns, insertParams, tableName, "device_type", deviceType, context, false);
+        RowChunk(BulkSection section, List<String[]> rows) {
+            this.section = section;
+            this.rows = rows;
+        }
+    }
 
-                    LocalDateTime loginTime = null;
-                    if (!loginTimeStr.equals("未知时间") && !loginTimeStr.isEmpty() && !loginTimeStr.equals("null")) {
-                        loginTime = LocalDateTime.parse(loginTimeStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                    }
-                    addInsertColumn(insertColumns, insertParams, tableName, "login_time", loginTime, context, false);
+    /**
+     * 解析回调：把流式数据段的行按块放入有界队列，队列满时阻塞解析
+     */
+    private static final class BulkChunkPublisher implements CsvRowHandler {
+        private final BlockingQueue<RowChunk> queue;
+        private BulkSection current;
+        private List<String[]> chunk = new ArrayList<>(BULK_BATCH_SIZE);
 
-                    String sql = "INSERT INTO " + tableName + " (" + String.join(", ", insertColumns) + ") VALUES (" +
-                            String.join(", ", Collections.nCopies(insertColumns.size(), "?")) + ")";
-                    
-                    jakarta.persistence.Query query = entityManager.createNativeQuery(sql);
-                    for (int p = 0; p < insertParams.size(); p++) {
-                        query.setParameter(p + 1, insertParams.get(p));
-                    }
-                    
-                    int rowsAffected = query.executeUpdate();
-                    if (rowsAffected > 0) {
-                        success++;
-                        logger.debug("用户登录信息保存成功: ID={}", loginInfoId);
-                    } else {
-                        logger.warn("用户登录信息ID {} 插入失败", loginInfoId);
-                        failed++;
-                    }
+        BulkChunkPublisher(BlockingQueue<RowChunk> queue) {
+            this.queue = queue;
+        }
 
-                } catch (Exception saveException) {
-                    logger.error("保存用户登录信息时发生异常: ID={}, 错误: {}", loginInfoId, saveException.getMessage(), saveException);
-                    failed++;
-                }
+        @Override
+        public void onSection(String section) {
+            publish();
+            current = BulkSection.fromTitle(section);
+        }
 
-            } catch (Exception e) {
-                failed++;
-                logger.warn("导入用户登录信息失败: " + Arrays.toString(fields), e);
+        @Override
+        public void onRow(String section, String[] fields) {
+            if (current == null) {
+                return;
+            }
+            chunk.add(fields);
+            if (chunk.size() >= BULK_BATCH_SIZE) {
+                publish();
             }
         }
 
-        result.addResult("用户登录信息", success, failed);
-        logger.info("用户登录信息数据导入完成，成功: {}, 失败: {}", success, failed);
-    }
-
-    // 其他表的导入方法可以继续添加...
+        void publish() {
+            if (current != null && !chunk.isEmpty()) {
+                put(new RowChunk(current, chunk));
+                chunk = new ArrayList<>(BULK_BATCH_SIZE);
+            }
+        }
 
-    @Transactional
-    public void importLikesInTransaction(ImportResult result, List<String[]> data) {
-        importLikes(result, data);
+        void put(RowChunk rowChunk) {
+            try {
+                queue.put(rowChunk);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("写入方已停止，结束解析");
+            }
+        }
     }
 
-    private void importLikes(ImportResult result, List<String[]> data) {
-        if (data == null) return;
-
-        logger.info("开始导入点赞数据，共 {} 条", data.size());
-        int success = 0, failed = 0;
+    private static boolean isBulkSection(String title) {
+        return BulkSection.fromTitle(title) != null;
+    }
 
-        for (String[] fields : data) {
+    /**
+     * 再次读取上传文件，只解析流式导入的数据段
+     * 解析在单独的线程中进行，行按块经有界队列交给当前线程；当前线程按数据段开启事务，
+     * 用多行REPLACE语句每批写入 BULK_BATCH_SIZE 行。内存占用只与块大小和队列容量有关，与文件大小无关。
+     * 用户引用按预加载的ID索引校验，不再逐行查询数据库。
+     */
+    private void streamBulkSections(ImportResult result, MultipartFile file, ImportReferenceIndex refs) {
+        BlockingQueue<RowChunk> queue = new ArrayBlockingQueue<>(BULK_QUEUE_CAPACITY);
+        AtomicReference<Exception> parseError = new AtomicReference<>();
+        Thread parser = new Thread(() -> {
+            BulkChunkPublisher publisher = new BulkChunkPublisher(queue);
             try {
-                if (fields.length < 5) continue;
-
-                Like like = new Like();
-                like.setId(Long.parseLong(fields[0]));
+                streamCsvFile(file, publisher);
+                publisher.publish();
+            } catch (CancellationException e) {
+                return;
+            } catch (Exception e) {
+                parseError.set(e);
+            }
+            try {
+                publisher.put(RowChunk.END);
+            } catch (CancellationException ignored) {
+                // 写入方已停止
+            }
+        }, "csv-bulk-import-parser");
+        parser.setDaemon(true);
+        parser.start();
 
-                // 解析用户
-                if (!fields[1].isEmpty()) {
-                    Optional<User> user = userRepository.findById(Long.parseLong(fields[1]));
-                    if (user.isPresent()) {
-                        like.setUser(user.get());
-                    } else {
-                        logger.warn("用户ID '{}' 不存在，跳过点赞记录", fields[1]);
-                        continue;
+        LocalDateTime now = LocalDateTime.now();
+        // 每个数据段的 {成功, 失败, 已处理行数}
+        Map<BulkSection, long[]> counts = new EnumMap<>(BulkSection.class);
+        try {
+            RowChunk[] cursor = {takeChunk(queue)};
+            while (cursor[0] != RowChunk.END) {
+                BulkSection section = cursor[0].section;
+                long[] sectionCounts = counts.computeIfAbsent(section, key -> new long[3]);
+                long start = System.nanoTime();
+                logger.info("开始流式导入{}数据", section.resultName);
+                try {
+                    transactionTemplate.execute(status -> {
+                        List<String> columns = bulkColumns(section);
+                        BatchRowWriter writer = new BatchRowWriter(jdbcTemplate, "REPLACE INTO", section.table,
+                                columns, BULK_BATCH_SIZE, (row, e) -> {
+                                    logger.warn("导入{}失败: ID={}, 错误: {}", section.resultName, row[0], e.getMessage());
+                                    result.addFailureDetail(section.resultName, "ID=" + row[0] + ": " + e.getMessage());
+                                });
+                        while (cursor[0] != RowChunk.END && cursor[0].section == section) {
+                            for (String[] fields : cursor[0].rows) {
+                                int rowIndex = (int) sectionCounts[2]++;
+                                try {
+                                    Object[] row = toBulkRow(section, columns.size(), fields, refs, now);
+                                    if (row != null) {
+                                        writer.add(row);
+                                    }
+                                } catch (IllegalArgumentException e) {
+                                    sectionCounts[1]++;
+                                    recordFailureDetail(result, section.resultName, rowIndex, fields, e.getMessage(), null);
+                                }
+                            }
+                            cursor[0] = takeChunk(queue);
+                        }
+                        writer.flush();
+                        sectionCounts[0] += writer.getWritten();
+                        sectionCounts[1] += writer.getFailed();
+                        return null;
+                    });
+                } catch (RuntimeException e) {
+                    logger.error("{}数据导入事务失败", section.resultName, e);
+                    result.addFailureDetail(section.resultName, "导入事务失败: " + e.getMessage());
+                    // 跳过该数据段剩余的块，继续导入后面的数据段
+                    while (cursor[0] != RowChunk.END && cursor[0].section == section) {
+                        cursor[0] = takeChunk(queue);
                     }
                 }
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                result.addSectionTiming(section.resultName, millis);
+                logger.info("{}数据流式导入完成，累计成功: {}, 失败: {}, 耗时 {} ms", section.resultName,
+                        sectionCounts[0], sectionCounts[1], millis);
+            }
+        } finally {
+            // 写入方提前退出时，解析线程可能阻塞在队列上
+            parser.interrupt();
+            for (Map.Entry<BulkSection, long[]> entry : counts.entrySet()) {
+                result.addResult(entry.getKey().resultName, (int) entry.getValue()[0], (int) entry.getValue()[1]);
+            }
+        }
+
+        if (parseError.get() != null) {
+            throw new RuntimeException("流式解析CSV文件失败: " + parseError.get().getMessage(), parseError.get());
+        }
+    }
+
+    private RowChunk takeChunk(BlockingQueue<RowChunk> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("流式导入被中断");
+        }
+    }
+
+    private List<String> bulkColumns(BulkSection section) {
+        return switch (section) {
+            case LIKES -> tableColumnExists("likes", "updated_at")
+                    ? List.of("id", "user_id", "entity_type", "entity_id", "created_at", "updated_at")
+                    : List.of("id", "user_id", "entity_type", "entity_id", "created_at");
+            case USER_FOLLOWS -> List.of("id", "follower_id", "following_id", "created_at");
+            case USER_BLOCKS -> tableColumnExists("user_blocks", "updated_at")
+                    ? List.of("id", "blocker_id", "blocked_id", "created_at", "updated_at")
+                    : List.of("id", "blocker_id", "blocked_id", "created_at");
+            case USER_LOGIN_INFO -> List.of("id", "user_id", "browser", "operating_system", "device_type", "login_time");
+        };
+    }
 
-                // 解析实体类型
+    /**
+     * 把一行CSV转换为 bulkColumns 顺序的列值
+     * @param columnCount bulkColumns 的列数（表中有 updated_at 列时多一列）
+     * @return 列数不足的行返回null（跳过，与其他数据段一致）
+     * @throws IllegalArgumentException 行无效（ID格式错误、引用的用户不存在等），消息为原因
+     */
+    private Object[] toBulkRow(BulkSection section, int columnCount, String[] fields, ImportReferenceIndex refs,
+                               LocalDateTime now) {
+        switch (section) {
+            case LIKES: {
+                // ID,用户ID,实体类型,实体ID,创建时间
+                if (fields.length < 5) {
+                    return null;
+                }
+                Long id = requireBulkId(fields[0], "点赞ID");
+                Long userId = requireBulkUser(fields[1], "用户", refs);
+                Like.EntityType entityType;
                 try {
-                    like.setEntityType(Like.EntityType.valueOf(fields[2]));
+                    entityType = Like.EntityType.valueOf(fields[2].trim());
                 } catch (IllegalArgumentException e) {
-                    logger.warn("无效的实体类型 '{}'", fields[2]);
-                    continue;
+                    throw new IllegalArgumentException("无效的实体类型 '" + fields[2] + "'");
                 }
-
-                like.setEntityId(Long.parseLong(fields[3]));
-
-                // 解析创建时间
-                if (!fields[4].equals("未知时间") && !fields[4].isEmpty() && !fields[4].equals("null")) {
-                    like.setCreatedAt(LocalDateTime.parse(fields[4], DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                Long entityId = requireBulkId(fields[3], "实体ID");
+                LocalDateTime createdAt = orNow(parseDateTimeFlexible(fields[4]), now);
+                return withUpdatedAt(new Object[]{id, userId, entityType.name(), entityId, createdAt}, columnCount);
+            }
+            case USER_FOLLOWS: {
+                // ID,关注者ID,被关注者ID,创建时间
+                if (fields.length < 3) {
+                    return null;
+                }
+                Long id = requireBulkId(fields[0], "关注ID");
+                Long followerId = requireBulkUser(fields[1], "关注者", refs);
+                Long followingId = requireBulkUser(fields[2], "被关注者", refs);
+                LocalDateTime createdAt = orNow(fields.length > 3 ? parseDateTimeFlexible(fields[3]) : null, now);
+                return new Object[]{id, followerId, followingId, createdAt};
+            }
+            case USER_BLOCKS: {
+                // ID,屏蔽者ID,被屏蔽者ID,创建时间
+                if (fields.length < 4) {
+                    return null;
+                }
+                Long id = requireBulkId(fields[0], "屏蔽ID");
+                Long blockerId = requireBulkUser(fields[1], "屏蔽者", refs);
+                Long blockedId = requireBulkUser(fields[2], "被屏蔽者", refs);
+                LocalDateTime createdAt = orNow(parseDateTimeFlexible(fields[3]), now);
+                return withUpdatedAt(new Object[]{id, blockerId, blockedId, createdAt}, columnCount);
+            }
+            case USER_LOGIN_INFO: {
+                // 导出格式：ID,用户ID,浏览器,操作系统,设备类型,登录时间
+                // 旧格式在用户ID后多一列，浏览器等字段后移一位
+                if (fields.length < 6) {
+                    return null;
                 }
+                int offset = fields.length >= 7 ? 3 : 2;
+                Long id = requireBulkId(fields[0], "登录信息ID");
+                Long userId = requireBulkUser(fields[1], "用户", refs);
+                LocalDateTime loginTime = orNow(parseDateTimeFlexible(fields[offset + 3]), now);
+                return new Object[]{id, userId, fields[offset], fields[offset + 1], fields[offset + 2], loginTime};
+            }
+            default:
+                throw new IllegalStateException("未知的数据段: " + section);
+        }
+    }
 
-                likeRepository.save(like);
-                success++;
+    /**
+     * 表中有 updated_at 列时追加一列，取值同创建时间（最后一列）
+     */
+    private static Object[] withUpdatedAt(Object[] values, int columnCount) {
+        if (columnCount == values.length) {
+            return values;
+        }
+        Object[] padded = Arrays.copyOf(values, columnCount);
+        padded[values.length] = values[values.length - 1];
+        return padded;
+    }
 
-            } catch (Exception e) {
-                failed++;
-                logger.warn("导入点赞失败: " + Arrays.toString(fields), e);
-            }
+    private Long requireBulkId(String raw, String label) {
+        Long id = parseIdFromValue(raw);
+        if (id == null) {
+            throw new IllegalArgumentException(label + "无效: '" + raw + "'");
+        }
+        return id;
+    }
+
+    private Long requireBulkUser(String raw, String label, ImportReferenceIndex refs) {
+        Long userId = requireBulkId(raw, label + "ID");
+        if (!refs.hasUser(userId)) {
+            throw new IllegalArgumentException(label + "用户ID '" + userId + "' 不存在");
         }
+        return userId;
+    }
 
-        result.addResult("点赞", success, failed);
-        logger.info("点赞数据导入完成，成功: {}, 失败: {}", success, failed);
+    private static LocalDateTime orNow(LocalDateTime value, LocalDateTime now) {
+        return value != null ? value : now;
     }
 
-    @Transactional
-    public void importUserContentEditsInTransaction(ImportResult result, List<String[]> data) {
-        importUserContentEdits(result, data);
+    public void importUserContentEditsInTransaction(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
+        try {
+            transactionTemplate.execute(status -> {
+                importUserContentEdits(result, data, refs);
+                return null;
+            });
+        } catch (Exception e) {
+            logger.error("用户内容编辑导入事务失败", e);
+            // 不要重新抛出异常，避免影响整体导入流程
+        }
     }
 
-    private void importUserContentEdits(ImportResult result, List<String[]> data) {
+    private void importUserContentEdits(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
         if (data == null) return;
 
         logger.info("开始导入用户内容编辑数据，共 {} 条", data.size());
-        int success = 0, failed = 0;
+        int failed = 0;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<String> columns = writableColumns("user_content_edits", "用户内容编辑导入",
+                List.of("id", "user_id", "content", "title", "philosopher_id", "school_id", "status"),
+                List.of("created_at", "updated_at"));
+        BatchRowWriter writer = translationRowWriter("user_content_edits", "用户内容编辑", columns, result);
 
         for (String[] fields : data) {
             try {
                 if (fields.length < 8) continue;
 
-                UserContentEdit edit = new UserContentEdit();
-                edit.setId(Long.parseLong(fields[0]));
+                Map<String, Object> values = new HashMap<>();
+                values.put("id", Long.parseLong(fields[0]));
 
-                // 解析用户
-                if (!fields[1].isEmpty()) {
-                    Optional<User> user = userRepository.findById(Long.parseLong(fields[1]));
-                    if (user.isPresent()) {
-                        edit.setUser(user.get());
-                    } else {
-                        logger.warn("用户ID '{}' 不存在，跳过内容编辑记录", fields[1]);
-                        continue;
-                    }
+                // 解析用户、哲学家、学派（表中三列都不允许为空）
+                if (fields[1].isEmpty()) {
+                    throw new IllegalArgumentException("缺少用户ID");
+                }
+                Long userId = Long.parseLong(fields[1]);
+                if (!refs.hasUser(userId)) {
+                    logger.warn("用户ID '{}' 不存在，跳过内容编辑记录", fields[1]);
+                    continue;
                 }
+                values.put("user_id", userId);
 
-                edit.setContent(fields[2]);
-                edit.setTitle(fields[3]);
+                values.put("content", fields[2]);
+                values.put("title", fields[3]);
 
-                // 解析哲学家
-                if (!fields[4].isEmpty() && !fields[4].equals("null")) {
-                    Optional<Philosopher> philosopher = philosopherRepository.findById(Long.parseLong(fields[4]));
-                    if (philosopher.isPresent()) {
-                        edit.setPhilosopher(philosopher.get());
-                    } else {
-                        logger.warn("哲学家ID '{}' 不存在，跳过内容编辑记录", fields[4]);
-                        continue;
-                    }
+                if (fields[4].isEmpty() || fields[4].equals("null")) {
+                    throw new IllegalArgumentException("缺少哲学家ID");
                 }
+                Long philosopherId = Long.parseLong(fields[4]);
+                if (!refs.hasPhilosopher(philosopherId)) {
+                    logger.warn("哲学家ID '{}' 不存在，跳过内容编辑记录", fields[4]);
+                    continue;
+                }
+                values.put("philosopher_id", philosopherId);
 
-                // 解析学派
-                if (!fields[5].isEmpty() && !fields[5].equals("null")) {
-                    Optional<School> school = schoolRepository.findById(Long.parseLong(fields[5]));
-                    if (school.isPresent()) {
-                        edit.setSchool(school.get());
-                    } else {
-                        logger.warn("学派ID '{}' 不存在，跳过内容编辑记录", fields[5]);
-                        continue;
-                    }
+                if (fields[5].isEmpty() || fields[5].equals("null")) {
+                    throw new IllegalArgumentException("缺少学派ID");
+                }
+                Long schoolId = Long.parseLong(fields[5]);
+                if (!refs.hasSchool(schoolId)) {
+                    logger.warn("学派ID '{}' 不存在，跳过内容编辑记录", fields[5]);
+                    continue;
                 }
+                values.put("school_id", schoolId);
 
                 // 解析状态
+                UserContentEdit.EditStatus status;
                 try {
-                    edit.setStatus(UserContentEdit.EditStatus.valueOf(fields[6]));
+                    status = UserContentEdit.EditStatus.valueOf(fields[6]);
                 } catch (IllegalArgumentException e) {
                     logger.warn("无效的状态 '{}', 使用默认状态PENDING", fields[6]);
-                    edit.setStatus(UserContentEdit.EditStatus.PENDING);
+                    status = UserContentEdit.EditStatus.PENDING;
                 }
+                values.put("status", status.name());
 
                 // 解析创建时间
+                LocalDateTime createdAt = now;
                 if (!fields[7].equals("未知时间") && !fields[7].isEmpty() && !fields[7].equals("null")) {
-                    edit.setCreatedAt(LocalDateTime.parse(fields[7], DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                    createdAt = LocalDateTime.parse(fields[7], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
                 }
+                values.put("created_at", createdAt);
+                values.put("updated_at", createdAt);
 
-                userContentEditRepository.save(edit);
-                success++;
+                writer.add(toRow(columns, values));
 
             } catch (Exception e) {
                 failed++;
                 logger.warn("导入用户内容编辑失败: " + Arrays.toString(fields), e);
             }
         }
+        writer.flush();
 
+        int success = (int) writer.getWritten();
+        failed += (int) writer.getFailed();
         result.addResult("用户内容编辑", success, failed);
         logger.info("用户内容编辑数据导入完成，成功: {}, 失败: {}", success, failed);
     }
 
-    @Transactional
-    public void importUserBlocksInTransaction(ImportResult result, List<String[]> data) {
-        importUserBlocks(result, data);
-    }
-
-    private void importUserBlocks(ImportResult result, List<String[]> data) {
-        if (data == null) return;
-
-        logger.info("开始导入用户屏蔽数据，共 {} 条", data.size());
-        int success = 0, failed = 0;
-
-        for (String[] fields : data) {
-            try {
-                if (fields.length < 4) continue;
-
-                UserBlock block = new UserBlock();
-                block.setId(Long.parseLong(fields[0]));
-
-                // 解析屏蔽者
-                if (!fields[1].isEmpty() && !fields[1].equals("null")) {
-                    Optional<User> blocker = userRepository.findById(Long.parseLong(fields[1]));
-                    if (blocker.isPresent()) {
-                        block.setBlocker(blocker.get());
-                    } else {
-                        logger.warn("屏蔽者用户ID '{}' 不存在，跳过屏蔽记录", fields[1]);
-                        continue;
-                    }
-                }
-
-                // 解析被屏蔽者
-                if (!fields[2].isEmpty() && !fields[2].equals("null")) {
-                    Optional<User> blocked = userRepository.findById(Long.parseLong(fields[2]));
-                    if (blocked.isPresent()) {
-                        block.setBlocked(blocked.get());
-                    } else {
-                        logger.warn("被屏蔽者用户ID '{}' 不存在，跳过屏蔽记录", fields[2]);
-                        continue;
-                    }
-                }
-
-                // 解析创建时间
-                if (!fields[3].equals("未知时间") && !fields[3].isEmpty() && !fields[3].equals("null")) {
-                    block.setCreatedAt(LocalDateTime.parse(fields[3], DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                }
-
-                userBlockRepository.save(block);
-                success++;
+    // ===== 用户内容编辑与翻译：按ID索引校验引用，多行REPLACE批量写入，不逐行查询 =====
 
-            } catch (Exception e) {
-                failed++;
-                logger.warn("导入用户屏蔽失败: " + Arrays.toString(fields), e);
+    /**
+     * 确定写入的列：必需列缺失时抛出异常（整段导入失败），可选列缺失时跳过
+     * 每张表只在数据段开始时检查一次，之后每行按同样的列顺序写入
+     */
+    private List<String> writableColumns(String tableName, String context, List<String> required, List<String> optional) {
+        List<String> columns = new ArrayList<>(required.size() + optional.size());
+        for (String column : required) {
+            ensureColumnExists(tableName, column, true, context);
+            columns.add(column);
+        }
+        for (String column : optional) {
+            if (ensureColumnExists(tableName, column, false, context)) {
+                columns.add(column);
             }
         }
+        return columns;
+    }
 
-        result.addResult("用户屏蔽", success, failed);
-        logger.info("用户屏蔽数据导入完成，成功: {}, 失败: {}", success, failed);
+    private BatchRowWriter translationRowWriter(String tableName, String resultName, List<String> columns,
+                                                ImportResult result) {
+        return new BatchRowWriter(jdbcTemplate, "REPLACE INTO", tableName, columns, BULK_BATCH_SIZE, (row, e) -> {
+            logger.warn("导入{}失败: ID={}, 错误: {}", resultName, row[0], e.getMessage());
+            result.addFailureDetail(resultName, "ID=" + row[0] + ": " + e.getMessage());
+        });
+    }
+
+    private static Object[] toRow(List<String> columns, Map<String, Object> values) {
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = values.get(columns.get(i));
+        }
+        return row;
     }
 
     @Transactional
-    public void importSchoolTranslationsInTransaction(ImportResult result, List<String[]> data) {
+    public void importSchoolTranslationsInTransaction(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
         try {
             transactionTemplate.execute(status -> {
-                importSchoolTranslations(result, data);
+                importSchoolTranslations(result, data, refs);
                 return null;
             });
         } catch (Exception e) {
@@ -3471,11 +4235,17 @@ public class DataImportService {
         }
     }
 
-    private void importSchoolTranslations(ImportResult result, List<String[]> data) {
+    private void importSchoolTranslations(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
         if (data == null) return;
 
         logger.info("开始导入学派翻译数据，共 {} 条", data.size());
-        int success = 0, failed = 0;
+        int failed = 0;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<String> columns = writableColumns("schools_translation", "学派翻译导入",
+                List.of("id", "school_id", "language_code"),
+                List.of("name_en", "description_en", "created_at", "updated_at"));
+        BatchRowWriter writer = translationRowWriter("schools_translation", "学派翻译", columns, result);
 
         for (String[] fields : data) {
             try {
@@ -3485,81 +4255,51 @@ public class DataImportService {
                     continue;
                 }
 
-                SchoolTranslation translation = new SchoolTranslation();
-                translation.setId(Long.parseLong(fields[0]));
+                Map<String, Object> values = new HashMap<>();
+                values.put("id", Long.parseLong(fields[0]));
 
                 // 解析学派
-                if (!fields[1].isEmpty() && !fields[1].equals("null")) {
-                    Optional<School> school = schoolRepository.findById(Long.parseLong(fields[1]));
-                    if (school.isPresent()) {
-                        translation.setSchool(school.get());
-                    } else {
-                        logger.warn("学派ID '{}' 不存在，跳过学派翻译记录", fields[1]);
-                        continue;
-                    }
+                if (fields[1].isEmpty() || fields[1].equals("null")) {
+                    throw new IllegalArgumentException("缺少学派ID");
+                }
+                Long schoolId = Long.parseLong(fields[1]);
+                if (!refs.hasSchool(schoolId)) {
+                    logger.warn("学派ID '{}' 不存在，跳过学派翻译记录", fields[1]);
+                    continue;
                 }
+                values.put("school_id", schoolId);
 
-                translation.setLanguageCode(fields[2]);
-                translation.setNameEn(fields[3]);
-                translation.setDescriptionEn(fields[4]);
+                values.put("language_code", fields[2]);
+                values.put("name_en", fields[3]);
+                values.put("description_en", fields[4]);
 
                 // 解析创建时间
-                LocalDateTime createdAt = null;
+                LocalDateTime createdAt = now;
                 if (!fields[5].equals("未知时间") && !fields[5].isEmpty() && !fields[5].equals("null")) {
                     createdAt = LocalDateTime.parse(fields[5], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                    translation.setCreatedAt(createdAt);
                 }
+                values.put("created_at", createdAt);
+                values.put("updated_at", createdAt);
 
-                // 使用 REPLACE INTO 并动态适配列
-                try {
-                    final String tableName = "schools_translation";
-                    final String context = "学派翻译导入";
-
-                    List<String> replaceColumns = new ArrayList<>();
-                    List<Object> replaceParams = new ArrayList<>();
-
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "id", translation.getId(), context, true);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "school_id", translation.getSchool().getId(), context, true);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "language_code", translation.getLanguageCode(), context, true);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "name_en", translation.getNameEn(), context, false);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "description_en", translation.getDescriptionEn(), context, false);
-
-                    java.time.LocalDateTime createdValue = createdAt != null ? createdAt : java.time.LocalDateTime.now();
-                    if (ensureColumnExists(tableName, "created_at", false, context)) {
-                        replaceColumns.add("created_at");
-                        replaceParams.add(createdValue);
-                    }
-                    if (ensureColumnExists(tableName, "updated_at", false, context)) {
-                        replaceColumns.add("updated_at");
-                        replaceParams.add(createdValue);
-                    }
-
-                    String replaceSql = "REPLACE INTO " + tableName + " (" + String.join(", ", replaceColumns) + ") VALUES (" +
-                            String.join(", ", Collections.nCopies(replaceColumns.size(), "?")) + ")";
-                    jakarta.persistence.Query replaceQuery = entityManager.createNativeQuery(replaceSql);
-                    for (int p = 0; p < replaceParams.size(); p++) {
-                        replaceQuery.setParameter(p + 1, replaceParams.get(p));
-                    }
-                    replaceQuery.executeUpdate();
-                    success++;
-                } catch (Exception e) {
-                    throw e; // 重新抛出异常，让外层catch处理
-                }
+                writer.add(toRow(columns, values));
 
             } catch (Exception e) {
                 failed++;
                 logger.warn("导入学派翻译失败: " + Arrays.toString(fields), e);
             }
         }
+        writer.flush();
 
+        int success = (int) writer.getWritten();
+        failed += (int) writer.getFailed();
         result.addResult("学派翻译", success, failed);
         logger.info("学派翻译数据导入完成，成功: {}, 失败: {}", success, failed);
     }
 
-    public void importContentTranslationsInTransaction(ImportResult result, List<String[]> data) {
+    public void importContentTranslationsInTransaction(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
         try {
             transactionTemplate.execute(status -> {
-                importContentTranslations(result, data);
+                importContentTranslations(result, data, refs);
                 return null;
             });
         } catch (Exception e) {
@@ -3568,11 +4308,17 @@ public class DataImportService {
         }
     }
 
-    private void importContentTranslations(ImportResult result, List<String[]> data) {
+    private void importContentTranslations(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
         if (data == null) return;
 
         logger.info("开始导入内容翻译数据，共 {} 条", data.size());
-        int success = 0, failed = 0;
+        int failed = 0;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<String> columns = writableColumns("contents_translation", "内容翻译导入",
+                List.of("id", "content_id", "language_code"),
+                List.of("content_en", "created_at", "updated_at"));
+        BatchRowWriter writer = translationRowWriter("contents_translation", "内容翻译", columns, result);
 
         for (String[] fields : data) {
             try {
@@ -3582,79 +4328,50 @@ public class DataImportService {
                     continue;
                 }
 
-                ContentTranslation translation = new ContentTranslation();
-                translation.setId(Long.parseLong(fields[0]));
+                Map<String, Object> values = new HashMap<>();
+                values.put("id", Long.parseLong(fields[0]));
 
                 // 解析内容
-                if (!fields[1].isEmpty() && !fields[1].equals("null")) {
-                    Optional<Content> content = contentRepository.findById(Long.parseLong(fields[1]));
-                    if (content.isPresent()) {
-                        translation.setContent(content.get());
-                    } else {
-                        logger.warn("内容ID '{}' 不存在，跳过内容翻译记录", fields[1]);
-                        continue;
-                    }
+                if (fields[1].isEmpty() || fields[1].equals("null")) {
+                    throw new IllegalArgumentException("缺少内容ID");
                 }
+                Long contentId = Long.parseLong(fields[1]);
+                if (!refs.hasContent(contentId)) {
+                    logger.warn("内容ID '{}' 不存在，跳过内容翻译记录", fields[1]);
+                    continue;
+                }
+                values.put("content_id", contentId);
 
-                translation.setLanguageCode(fields[2]);
-                translation.setContentEn(fields[3]);
+                values.put("language_code", fields[2]);
+                values.put("content_en", fields[3]);
 
                 // 解析创建时间
-                LocalDateTime createdAt = null;
+                LocalDateTime createdAt = now;
                 if (!fields[4].equals("未知时间") && !fields[4].isEmpty() && !fields[4].equals("null")) {
                     createdAt = LocalDateTime.parse(fields[4], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                    translation.setCreatedAt(createdAt);
                 }
+                values.put("created_at", createdAt);
+                values.put("updated_at", createdAt);
 
-                // 使用 REPLACE INTO 并动态适配列
-                try {
-                    final String tableName = "contents_translation";
-                    final String context = "内容翻译导入";
-
-                    List<String> replaceColumns = new ArrayList<>();
-                    List<Object> replaceParams = new ArrayList<>();
-
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "id", translation.getId(), context, true);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "content_id", translation.getContent().getId(), context, true);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "language_code", translation.getLanguageCode(), context, true);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "content_en", translation.getContentEn(), context, false);
-
-                    java.time.LocalDateTime createdValue = createdAt != null ? createdAt : java.time.LocalDateTime.now();
-                    if (ensureColumnExists(tableName, "created_at", false, context)) {
-                        replaceColumns.add("created_at");
-                        replaceParams.add(createdValue);
-                    }
-                    if (ensureColumnExists(tableName, "updated_at", false, context)) {
-                        replaceColumns.add("updated_at");
-                        replaceParams.add(createdValue);
-                    }
-
-                    String replaceSql = "REPLACE INTO " + tableName + " (" + String.join(", ", replaceColumns) + ") VALUES (" +
-                            String.join(", ", Collections.nCopies(replaceColumns.size(), "?")) + ")";
-                    jakarta.persistence.Query replaceQuery = entityManager.createNativeQuery(replaceSql);
-                    for (int p = 0; p < replaceParams.size(); p++) {
-                        replaceQuery.setParameter(p + 1, replaceParams.get(p));
-                    }
-                    replaceQuery.executeUpdate();
-                    success++;
-                } catch (Exception e) {
-                    throw e; // 重新抛出异常，让外层catch处理
-                }
+                writer.add(toRow(columns, values));
 
             } catch (Exception e) {
                 failed++;
                 logger.warn("导入内容翻译失败: " + Arrays.toString(fields), e);
             }
         }
+        writer.flush();
 
+        int success = (int) writer.getWritten();
+        failed += (int) writer.getFailed();
         result.addResult("内容翻译", success, failed);
         logger.info("内容翻译数据导入完成，成功: {}, 失败: {}", success, failed);
     }
 
-    public void importPhilosopherTranslationsInTransaction(ImportResult result, List<String[]> data) {
+    public void importPhilosopherTranslationsInTransaction(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
         try {
             transactionTemplate.execute(status -> {
-                importPhilosopherTranslations(result, data);
+                importPhilosopherTranslations(result, data, refs);
                 return null;
             });
         } catch (Exception e) {
@@ -3663,11 +4380,17 @@ public class DataImportService {
         }
     }
 
-    private void importPhilosopherTranslations(ImportResult result, List<String[]> data) {
+    private void importPhilosopherTranslations(ImportResult result, List<String[]> data, ImportReferenceIndex refs) {
         if (data == null) return;
 
         logger.info("开始导入哲学家翻译数据，共 {} 条", data.size());
-        int success = 0, failed = 0;
+        int failed = 0;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<String> columns = writableColumns("philosophers_translation", "哲学家翻译导入",
+                List.of("id", "philosopher_id", "language_code"),
+                List.of("name_en", "biography_en", "created_at", "updated_at"));
+        BatchRowWriter writer = translationRowWriter("philosophers_translation", "哲学家翻译", columns, result);
 
         for (String[] fields : data) {
             try {
@@ -3677,136 +4400,47 @@ public class DataImportService {
                     continue;
                 }
 
-                PhilosopherTranslation translation = new PhilosopherTranslation();
-                translation.setId(Long.parseLong(fields[0]));
+                Map<String, Object> values = new HashMap<>();
+                values.put("id", Long.parseLong(fields[0]));
 
                 // 解析哲学家
-                if (!fields[1].isEmpty() && !fields[1].equals("null")) {
-                    Optional<Philosopher> philosopher = philosopherRepository.findById(Long.parseLong(fields[1]));
-                    if (philosopher.isPresent()) {
-                        translation.setPhilosopher(philosopher.get());
-                    } else {
-                        logger.warn("哲学家ID '{}' 不存在，跳过哲学家翻译记录", fields[1]);
-                        continue;
-                    }
+                if (fields[1].isEmpty() || fields[1].equals("null")) {
+                    throw new IllegalArgumentException("缺少哲学家ID");
                 }
+                Long philosopherId = Long.parseLong(fields[1]);
+                if (!refs.hasPhilosopher(philosopherId)) {
+                    logger.warn("哲学家ID '{}' 不存在，跳过哲学家翻译记录", fields[1]);
+                    continue;
+                }
+                values.put("philosopher_id", philosopherId);
 
-                translation.setLanguageCode(fields[2]);
-                translation.setNameEn(fields[3]);
-                translation.setBiographyEn(fields[4]);
+                values.put("language_code", fields[2]);
+                values.put("name_en", fields[3]);
+                values.put("biography_en", fields[4]);
 
                 // 解析创建时间
-                LocalDateTime createdAt = null;
+                LocalDateTime createdAt = now;
                 if (!fields[5].equals("未知时间") && !fields[5].isEmpty() && !fields[5].equals("null")) {
                     createdAt = LocalDateTime.parse(fields[5], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                    translation.setCreatedAt(createdAt);
                 }
+                values.put("created_at", createdAt);
+                values.put("updated_at", createdAt);
 
-                // 使用 REPLACE INTO 并动态适配列
-                try {
-                    final String tableName = "philosophers_translation";
-                    final String context = "哲学家翻译导入";
-
-                    List<String> replaceColumns = new ArrayList<>();
-                    List<Object> replaceParams = new ArrayList<>();
-
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "id", translation.getId(), context, true);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "philosopher_id", translation.getPhilosopher().getId(), context, true);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "language_code", translation.getLanguageCode(), context, true);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "name_en", translation.getNameEn(), context, false);
-                    addInsertColumn(replaceColumns, replaceParams, tableName, "biography_en", translation.getBiographyEn(), context, false);
-
-                    java.time.LocalDateTime createdValue = createdAt != null ? createdAt : java.time.LocalDateTime.now();
-                    if (ensureColumnExists(tableName, "created_at", false, context)) {
-                        replaceColumns.add("created_at");
-                        replaceParams.add(createdValue);
-                    }
-                    if (ensureColumnExists(tableName, "updated_at", false, context)) {
-                        replaceColumns.add("updated_at");
-                        replaceParams.add(createdValue);
-                    }
-
-                    String replaceSql = "REPLACE INTO " + tableName + " (" + String.join(", ", replaceColumns) + ") VALUES (" +
-                            String.join(", ", Collections.nCopies(replaceColumns.size(), "?")) + ")";
-                    jakarta.persistence.Query replaceQuery = entityManager.createNativeQuery(replaceSql);
-                    for (int p = 0; p < replaceParams.size(); p++) {
-                        replaceQuery.setParameter(p + 1, replaceParams.get(p));
-                    }
-                    replaceQuery.executeUpdate();
-                    success++;
-                } catch (Exception e) {
-                    throw e; // 重新抛出异常，让外层catch处理
-                }
+                writer.add(toRow(columns, values));
 
             } catch (Exception e) {
                 failed++;
                 logger.warn("导入哲学家翻译失败: " + Arrays.toString(fields), e);
             }
         }
+        writer.flush();
 
+        int success = (int) writer.getWritten();
+        failed += (int) writer.getFailed();
         result.addResult("哲学家翻译", success, failed);
         logger.info("哲学家翻译数据导入完成，成功: {}, 失败: {}", success, failed);
     }
 
-    // 用户关注数据导入方法
-    @Transactional
-    public void importUserFollowsInTransaction(ImportResult result, List<String[]> data) {
-        importUserFollows(result, data);
-    }
-
-    private void importUserFollows(ImportResult result, List<String[]> data) {
-        if (data == null) return;
-
-        logger.info("开始导入用户关注数据，共 {} 条", data.size());
-        int success = 0, failed = 0;
-
-        for (String[] fields : data) {
-            try {
-                if (fields.length < 3) continue;
-
-                UserFollow follow = new UserFollow();
-                follow.setId(Long.parseLong(fields[0]));
-
-                // 解析关注者
-                if (!fields[1].isEmpty()) {
-                    Optional<User> follower = userRepository.findById(Long.parseLong(fields[1]));
-                    if (follower.isPresent()) {
-                        follow.setFollower(follower.get());
-                    } else {
-                        logger.warn("关注者用户ID '{}' 不存在，跳过关注记录", fields[1]);
-                        continue;
-                    }
-                }
-
-                // 解析被关注者
-                if (!fields[2].isEmpty()) {
-                    Optional<User> following = userRepository.findById(Long.parseLong(fields[2]));
-                    if (following.isPresent()) {
-                        follow.setFollowing(following.get());
-                    } else {
-                        logger.warn("被关注者用户ID '{}' 不存在，跳过关注记录", fields[2]);
-                        continue;
-                    }
-                }
-
-                // 解析创建时间
-                if (fields.length > 3 && !fields[3].equals("未知时间") && !fields[3].isEmpty() && !fields[3].equals("null")) {
-                    follow.setCreatedAt(LocalDateTime.parse(fields[3], DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                }
-
-                userFollowRepository.save(follow);
-                success++;
-
-            } catch (Exception e) {
-                failed++;
-                logger.warn("导入用户关注失败: " + Arrays.toString(fields), e);
-            }
-        }
-
-        result.addResult("用户关注", success, failed);
-        logger.info("用户关注数据导入完成，成功: {}, 失败: {}", success, failed);
-    }
-
     // 哲学家-学派关联数据导入方法
     public void importPhilosopherSchoolAssociationsInTransaction(ImportResult result, List<String[]> data) {
         try {
@@ -4026,6 +4660,9 @@ public class DataImportService {
             result.setSuccess(false);
             result.setMessage("作者修复失败: " + e.getMessage());
         }
+        if (success > 0) {
+            publishImported();
+        }
         return result;
     }
 
@@ -4034,10 +4671,13 @@ public class DataImportService {
         private String message;
         private Map<String, ImportStats> results = new LinkedHashMap<>();
         private Map<String, List<String>> failureDetails = new LinkedHashMap<>();
+        // 导入阶段 → 耗时（毫秒），按完成顺序
+        private Map<String, Long> sectionTimings = new LinkedHashMap<>();
         private int totalImported = 0;
         private int totalFailed = 0;
 
-        public void addResult(String tableName, int success, int failed) {
+        // 数据段可能并发导入，add* 方法需要同步
+        public synchronized void addResult(String tableName, int success, int failed) {
             results.put(tableName, new ImportStats(success, failed));
             totalImported += success;
             totalFailed += failed;
@@ -4056,7 +4696,7 @@ public class DataImportService {
 
         private static final int MAX_FAILURE_DETAILS_PER_SECTION = 50;
 
-        public void addFailureDetail(String tableName, String detail) {
+        public synchronized void addFailureDetail(String tableName, String detail) {
             if (detail == null || detail.trim().isEmpty()) {
                 return;
             }
@@ -4067,6 +4707,12 @@ public class DataImportService {
             list.add(detail);
         }
 
+        public synchronized void addSectionTiming(String stage, long millis) {
+            sectionTimings.put(stage, millis);
+        }
+
+        public synchronized Map<String, Long> getSectionTimings() { return new LinkedHashMap<>(sectionTimings); }
+
         public int getTotalImported() { return totalImported; }
         public int getTotalFailed() { return totalFailed; }
 
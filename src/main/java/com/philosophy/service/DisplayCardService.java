@@ -0,0 +1,79 @@
+package com.philosophy.service;
+
+import com.philosophy.model.Content;
+import com.philosophy.model.Philosopher;
+import com.philosophy.model.School;
+import com.philosophy.util.DateUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将内容/哲学家/流派转换为按语言翻译好的卡片数据
+ * 供“我的点赞”和点赞排行榜等JSON接口使用，返回的列表和卡片均不可变。
+ * 调用方需在事务或打开的会话中调用，以便访问懒加载的关联对象。
+ */
+@Service
+public class DisplayCardService {
+
+    private final TranslationService translationService;
+
+    public DisplayCardService(TranslationService translationService) {
+        this.translationService = translationService;
+    }
+
+    /**
+     * 将内容转换为卡片数据
+     */
+    public List<Map<String, Object>> toContentCards(List<Content> contents, String language) {
+        List<Map<String, Object>> cards = new ArrayList<>();
+        for (Content content : contents) {
+            Map<String, Object> card = new LinkedHashMap<>();
+            card.put("id", content.getId());
+            card.put("title", content.getTitle());
+            card.put("content", translationService.getContentDisplayText(content, language));
+            card.put("likeCount", content.getLikeCount() != null ? content.getLikeCount() : 0);
+            card.put("commentCount", content.getCommentCount());
+            if (content.getPhilosopher() != null) {
+                card.put("philosopherId", content.getPhilosopher().getId());
+                card.put("philosopherName", translationService.getPhilosopherDisplayName(content.getPhilosopher(), language));
+            }
+            if (content.getSchool() != null) {
+                card.put("schoolId", content.getSchool().getId());
+                card.put("schoolName", translationService.getSchoolDisplayName(content.getSchool(), language));
+            }
+            cards.add(Collections.unmodifiableMap(card));
+        }
+        return Collections.unmodifiableList(cards);
+    }
+
+    public List<Map<String, Object>> toPhilosopherCards(List<Philosopher> philosophers, String language) {
+        List<Map<String, Object>> cards = new ArrayList<>();
+        for (Philosopher philosopher : philosophers) {
+            Map<String, Object> card = new LinkedHashMap<>();
+            card.put("id", philosopher.getId());
+            card.put("displayName", translationService.getPhilosopherDisplayName(philosopher, language));
+            card.put("imageUrl", philosopher.getImageUrl());
+            card.put("dateRange", DateUtils.formatBirthYearToDateRange(philosopher.getBirthYear(), philosopher.getDeathYear()));
+            card.put("likeCount", philosopher.getLikeCount() != null ? philosopher.getLikeCount() : 0);
+            cards.add(Collections.unmodifiableMap(card));
+        }
+        return Collections.unmodifiableList(cards);
+    }
+
+    public List<Map<String, Object>> toSchoolCards(List<School> schools, String language) {
+        List<Map<String, Object>> cards = new ArrayList<>();
+        for (School school : schools) {
+            Map<String, Object> card = new LinkedHashMap<>();
+            card.put("id", school.getId());
+            card.put("displayName", translationService.getSchoolDisplayName(school, language));
+            card.put("likeCount", school.getLikeCount() != null ? school.getLikeCount() : 0);
+            cards.add(Collections.unmodifiableMap(card));
+        }
+        return Collections.unmodifiableList(cards);
+    }
+}
@@ -0,0 +1,227 @@
+package com.philosophy.service;
+
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Transient;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 实体的CSV导出结构，每个实体类只在启动时构建一次
+ * - 普通字段：优先通过 LambdaMetafactory 为公开getter生成访问器（可被JIT内联），没有getter时使用字段的MethodHandle
+ * - 多对一/一对一关联：只输出关联实体的ID；延迟加载的代理直接从代理中取ID，不会触发查询
+ * - 集合关联（一对多、多对多）不导出，避免逐行加载集合
+ * - 时间按ISO格式输出，枚举输出名称
+ * 每行写入调用方提供的 StringBuilder（同一线程内复用），所有字段加引号，引号按CSV规则转义。
+ * 每行耗时用 src/jmh/java 下的 EntityCsvSchemaBenchmark 测量（mvn -Pjmh integration-test）。
+ */
+public final class EntityCsvSchema<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Class<T> type;
+    private final List<Column> columns;
+
+    private EntityCsvSchema(Class<T> type, List<Column> columns) {
+        this.type = type;
+        this.columns = columns;
+    }
+
+    public static <T> EntityCsvSchema<T> of(Class<T> type) {
+        List<Column> columns = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)
+                    || field.isAnnotationPresent(Transient.class)
+                    || field.isAnnotationPresent(OneToMany.class)
+                    || field.isAnnotationPresent(ManyToMany.class)
+                    || field.isAnnotationPresent(ElementCollection.class)
+                    || Collection.class.isAssignableFrom(field.getType())
+                    || Map.class.isAssignableFrom(field.getType())) {
+                continue;
+            }
+            Function<Object, Object> accessor = accessor(type, field);
+            Function<Object, String> formatter;
+            if (field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToOne.class)) {
+                formatter = associationIdFormatter(field.getType());
+            } else {
+                formatter = valueFormatter(field.getType());
+            }
+            columns.add(new Column(field.getName(), accessor, formatter));
+        }
+        return new EntityCsvSchema<>(type, List.copyOf(columns));
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public String[] header() {
+        String[] header = new String[columns.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = columns.get(i).name;
+        }
+        return header;
+    }
+
+    /**
+     * 把一行追加到sb，包含换行符
+     */
+    public void appendRow(T entity, StringBuilder sb) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            Column column = columns.get(i);
+            Object value = column.accessor.apply(entity);
+            appendQuoted(sb, value != null ? column.formatter.apply(value) : "");
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * 表头行，格式与数据行相同
+     */
+    public void appendHeader(StringBuilder sb) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendQuoted(sb, columns.get(i).name);
+        }
+        sb.append('\n');
+    }
+
+    private static void appendQuoted(StringBuilder sb, String text) {
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private static Function<Object, String> valueFormatter(Class<?> fieldType) {
+        if (fieldType == LocalDateTime.class) {
+            return value -> DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) value);
+        }
+        if (fieldType == LocalDate.class) {
+            return value -> DateTimeFormatter.ISO_LOCAL_DATE.format((LocalDate) value);
+        }
+        if (fieldType == OffsetDateTime.class) {
+            return value -> DateTimeFormatter.ISO_OFFSET_DATE_TIME.format((OffsetDateTime) value);
+        }
+        if (fieldType.isEnum()) {
+            return value -> ((Enum<?>) value).name();
+        }
+        return Object::toString;
+    }
+
+    private static Function<Object, String> associationIdFormatter(Class<?> associationType) {
+        Function<Object, Object> idAccessor;
+        try {
+            idAccessor = accessor(associationType, findField(associationType, "id"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("关联实体没有id字段: " + associationType.getName(), e);
+        }
+        return value -> {
+            Object id = value instanceof HibernateProxy proxy
+                    ? proxy.getHibernateLazyInitializer().getIdentifier()
+                    : idAccessor.apply(value);
+            return id != null ? id.toString() : "";
+        };
+    }
+
+    private static Field findField(Class<?> type, String name) throws NoSuchFieldException {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // 继续在父类中查找
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    /**
+     * 为字段生成访问器：有同类型的公开getter时生成函数对象，否则退回字段的MethodHandle
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> accessor(Class<?> type, Field field) {
+        Method getter = findGetter(type, field);
+        try {
+            if (getter != null) {
+                MethodHandle handle = LOOKUP.unreflect(getter);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle,
+                        handle.type().wrap().changeParameterType(0, type));
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            }
+            field.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectGetter(field)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            return entity -> {
+                try {
+                    return handle.invokeExact(entity);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("读取字段失败: " + field.getName(), e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("无法为字段生成访问器: " + type.getSimpleName() + "." + field.getName(), e);
+        }
+    }
+
+    private static Method findGetter(Class<?> type, Field field) {
+        String name = field.getName();
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String candidate : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                Method method = type.getMethod(candidate);
+                if (method.getReturnType() == field.getType() && Modifier.isPublic(type.getModifiers())) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // 尝试下一个命名
+            }
+        }
+        return null;
+    }
+
+    private static final class Column {
+        private final String name;
+        private final Function<Object, Object> accessor;
+        private final Function<Object, String> formatter;
+
+        private Column(String name, Function<Object, Object> accessor, Function<Object, String> formatter) {
+            this.name = name;
+            this.accessor = accessor;
+            this.formatter = formatter;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.philosophy.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 后台导出任务
+ * 全量导出（CSV或带图片的ZIP）在单独的线程中执行，结果先写入磁盘上的临时文件，完成后改名为正式文件。
+ * 管理员通过任务ID轮询进度（每张表已导出的行数），完成后再下载文件，下载支持HTTP Range断点续传；
+ * 导出期间不占用请求线程，下载中断也不需要重新导出。导出文件保留一段时间后自动删除。
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobService.class);
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+    private static final DateTimeFormatter FILENAME_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final DataExportService dataExportService;
+    private final Path directory;
+    private final Duration retention;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    // 单线程执行，导出任务排队进行，不会同时占用多个数据库连接
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "export-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ExportJobService(DataExportService dataExportService,
+                            @Value("${app.export-jobs.directory:exports}") String directory,
+                            @Value("${app.export-jobs.retention-hours:24}") long retentionHours) {
+        this.dataExportService = dataExportService;
+        this.directory = Paths.get(directory);
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    /**
+     * 提交一个后台导出任务
+     * 同一格式已有排队或运行中的任务时不重复提交，直接返回该任务。
+     */
+    public synchronized ExportJob submit(Format format) {
+        for (ExportJob job : jobs.values()) {
+            if (job.getFormat() == format && !job.getStatus().isFinished()) {
+                return job;
+            }
+        }
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), format,
+                "philosophy_data_export_" + LocalDateTime.now().format(FILENAME_TIMESTAMP) + format.getExtension());
+        jobs.put(job.getId(), job);
+        try {
+            executor.submit(() -> run(job));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        logger.info("已提交后台导出任务: id={}, 格式={}", job.getId(), format);
+        return job;
+    }
+
+    /**
+     * @return 任务，不存在或已过期清理时返回null
+     */
+    public ExportJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * 全部任务，最新的在前
+     */
+    public List<ExportJob> listJobs() {
+        List<ExportJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(ExportJob::getCreatedAt).reversed());
+        return result;
+    }
+
+    private void run(ExportJob job) {
+        job.start();
+        long start = System.nanoTime();
+        Path partFile = directory.resolve(job.getId() + job.getFormat().getExtension() + PART_SUFFIX);
+        Path file = directory.resolve(job.getId() + job.getFormat().getExtension());
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partFile), FILE_BUFFER_SIZE)) {
+                if (job.getFormat() == Format.ZIP) {
+                    writeZip(out, job.getFilename().replace(Format.ZIP.getExtension(), Format.CSV.getExtension()),
+                            job::updateProgress);
+                } else {
+                    writeCsv(out, job::updateProgress);
+                }
+            }
+            Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.complete(file, Files.size(file));
+            logger.info("后台导出任务完成: id={}, 大小 {} 字节, 耗时 {} ms, 各表行数 {}",
+                    job.getId(), job.getSizeBytes(), (System.nanoTime() - start) / 1_000_000, job.getProgress());
+        } catch (Exception e) {
+            logger.error("后台导出任务失败: id={}", job.getId(), e);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            try {
+                Files.deleteIfExists(partFile);
+            } catch (IOException deleteError) {
+                logger.warn("删除未完成的导出文件失败: {}", partFile, deleteError);
+            }
+        }
+    }
+
+    /**
+     * 写入UTF-8 BOM（以便Windows Excel正确识别编码）和全量CSV数据，不关闭outputStream
+     */
+    public void writeCsv(OutputStream outputStream, DataExportService.ProgressListener progress) throws IOException {
+        outputStream.write(UTF8_BOM);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), FILE_BUFFER_SIZE);
+        try {
+            dataExportService.exportAllDataToCsv(writer, progress);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * 写入ZIP：全量CSV加上哲学家图片（images/目录下），不关闭outputStream
+     */
+    public void writeZip(OutputStream outputStream, String csvFilename,
+                         DataExportService.ProgressListener progress) throws IOException {
+        ZipOutputStream zos = new ZipOutputStream(StreamUtils.nonClosing(outputStream));
+        // 添加CSV文件到ZIP
+        zos.putNextEntry(new ZipEntry(csvFilename));
+        writeCsv(StreamUtils.nonClosing(zos), progress);
+        zos.closeEntry();
+
+        // 添加图片文件到ZIP
+        long images = 0;
+        for (String imagePath : dataExportService.collectImageFiles()) {
+            Path path = Paths.get(imagePath);
+            if (Files.exists(path) && Files.isRegularFile(path)) {
+                // 使用文件名作为ZIP中的路径
+                String fileName = path.getFileName().toString();
+                zos.putNextEntry(new ZipEntry("images/" + fileName));
+                Files.copy(path, zos);
+                zos.closeEntry();
+                progress.onProgress("images", ++images);
+            }
+        }
+        zos.finish();
+    }
+
+    /**
+     * 定期删除过期的导出文件和任务记录（包括上次运行遗留、已不在任务列表中的文件）
+     */
+    @Scheduled(fixedDelayString = "${app.export-jobs.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.getStatus().isFinished() && job.getFinishedAt() != null
+                && job.getFinishedAt().isBefore(cutoff));
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)
+                        && !isInUse(file)) {
+                    Files.deleteIfExists(file);
+                    logger.info("已删除过期的导出文件: {}", file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("清理导出目录失败: {}", directory, e);
+        }
+    }
+
+    private boolean isInUse(Path file) {
+        for (ExportJob job : jobs.values()) {
+            if (file.equals(job.getFile())
+                    || (!job.getStatus().isFinished() && file.getFileName().toString().startsWith(job.getId()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        CSV(".csv", "text/csv; charset=UTF-8"),
+        ZIP(".zip", "application/zip");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED;
+        }
+    }
+
+    /**
+     * 一个导出任务的状态；由导出线程更新，请求线程读取
+     */
+    public static class ExportJob {
+        private final String id;
+        private final Format format;
+        private final String filename;
+        private final Instant createdAt = Instant.now();
+        // 表名 → 已导出的行数，按导出顺序
+        private final Map<String, Long> progress = new LinkedHashMap<>();
+
+        private volatile Status status = Status.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String currentTable;
+        private volatile Path file;
+        private volatile long sizeBytes;
+        private volatile String error;
+
+        ExportJob(String id, Format format, String filename) {
+            this.id = id;
+            this.format = format;
+            this.filename = filename;
+        }
+
+        void start() {
+            startedAt = Instant.now();
+            status = Status.RUNNING;
+        }
+
+        void updateProgress(String table, long rows) {
+            currentTable = table;
+            synchronized (progress) {
+                progress.put(table, rows);
+            }
+        }
+
+        void complete(Path file, long sizeBytes) {
+            this.file = file;
+            this.sizeBytes = sizeBytes;
+            this.currentTable = null;
+            this.finishedAt = Instant.now();
+            this.status = Status.COMPLETED;
+        }
+
+        void fail(String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.status = Status.FAILED;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Format getFormat() {
+            return format;
+        }
+
+        /**
+         * 下载时使用的文件名
+         */
+        public String getFilename() {
+            return filename;
+        }
+
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        public String getCurrentTable() {
+            return currentTable;
+        }
+
+        /**
+         * 每张表已导出的行数（副本）
+         */
+        public Map<String, Long> getProgress() {
+            synchronized (progress) {
+                return new LinkedHashMap<>(progress);
+            }
+        }
+
+        /**
+         * 导出文件，任务完成前为null
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
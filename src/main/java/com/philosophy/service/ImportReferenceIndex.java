@@ -0,0 +1,212 @@
+package com.philosophy.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * CSV导入时用于校验外键的ID索引
+ * 一次性读入现有的用户、学派、哲学家、内容、评论ID，以及用户名/邮箱到用户ID的映射，
+ * 之后每行的引用校验只查内存，不再逐行查询数据库。
+ * 每次导入构建一个。导入时加载完成后只读，可供并发导入的各数据段同时使用；
+ * 唯一的例外是评论ID：评论导入会用 addComment 登记新写入的评论，供同一数据段中的回复引用，
+ * 评论ID也只有评论导入读取。试运行校验时在单个线程中用 add* 登记文件中出现的ID。
+ */
+class ImportReferenceIndex {
+
+    private final LongIdSet userIds = new LongIdSet();
+    private final LongIdSet schoolIds = new LongIdSet();
+    private final LongIdSet philosopherIds = new LongIdSet();
+    private final LongIdSet contentIds = new LongIdSet();
+    private final LongIdSet commentIds = new LongIdSet();
+    private final Map<String, Long> userIdsByUsername = new HashMap<>();
+    private final Map<String, Long> userIdsByEmail = new HashMap<>();
+
+    private ImportReferenceIndex() {
+    }
+
+    /**
+     * 从数据库读取全部ID，每张表一条查询，逐行回调，不构建中间列表
+     */
+    static ImportReferenceIndex load(JdbcTemplate jdbcTemplate) {
+        ImportReferenceIndex index = new ImportReferenceIndex();
+        jdbcTemplate.query("SELECT id, username, email FROM users", rs -> {
+            index.addUser(rs.getLong(1), rs.getString(2), rs.getString(3));
+        });
+        jdbcTemplate.query("SELECT id FROM schools", rs -> {
+            index.schoolIds.add(rs.getLong(1));
+        });
+        jdbcTemplate.query("SELECT id FROM philosophers", rs -> {
+            index.philosopherIds.add(rs.getLong(1));
+        });
+        jdbcTemplate.query("SELECT id FROM contents", rs -> {
+            index.contentIds.add(rs.getLong(1));
+        });
+        jdbcTemplate.query("SELECT id FROM comments", rs -> {
+            index.commentIds.add(rs.getLong(1));
+        });
+        return index;
+    }
+
+    /**
+     * 不含任何ID的索引，用于假定数据库为空（先清空再导入）时的校验
+     */
+    static ImportReferenceIndex empty() {
+        return new ImportReferenceIndex();
+    }
+
+    boolean hasUser(Long id) {
+        return id != null && userIds.contains(id);
+    }
+
+    boolean hasSchool(Long id) {
+        return id != null && schoolIds.contains(id);
+    }
+
+    boolean hasPhilosopher(Long id) {
+        return id != null && philosopherIds.contains(id);
+    }
+
+    boolean hasContent(Long id) {
+        return id != null && contentIds.contains(id);
+    }
+
+    boolean hasComment(Long id) {
+        return id != null && commentIds.contains(id);
+    }
+
+    /**
+     * 按用户名查找用户ID，找不到时再按邮箱查找
+     * @return 用户ID，都不存在时返回null
+     */
+    Long findUserIdByName(String usernameOrEmail) {
+        Long id = userIdsByUsername.get(usernameOrEmail);
+        return id != null ? id : userIdsByEmail.get(usernameOrEmail);
+    }
+
+    void addUser(long id, String username, String email) {
+        userIds.add(id);
+        if (username != null) {
+            userIdsByUsername.put(username, id);
+        }
+        if (email != null) {
+            userIdsByEmail.put(email, id);
+        }
+    }
+
+    void addSchool(long id) {
+        schoolIds.add(id);
+    }
+
+    void addPhilosopher(long id) {
+        philosopherIds.add(id);
+    }
+
+    void addContent(long id) {
+        contentIds.add(id);
+    }
+
+    void addComment(long id) {
+        commentIds.add(id);
+    }
+
+    /**
+     * long类型ID的开放寻址哈希集合，不为每个ID创建Long对象
+     * 0 作为空槽标记，ID 0 单独记录。
+     */
+    static final class LongIdSet {
+        private static final float LOAD_FACTOR = 0.5f;
+
+        private long[] slots = new long[64];
+        private int size;
+        private boolean containsZero;
+
+        void add(long id) {
+            if (id == 0) {
+                if (!containsZero) {
+                    containsZero = true;
+                    size++;
+                }
+                return;
+            }
+            if (size + 1 > slots.length * LOAD_FACTOR) {
+                resize();
+            }
+            if (insert(slots, id)) {
+                size++;
+            }
+        }
+
+        boolean contains(long id) {
+            if (id == 0) {
+                return containsZero;
+            }
+            int mask = slots.length - 1;
+            int i = mix(id) & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == id) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void forEach(LongConsumer action) {
+            if (containsZero) {
+                action.accept(0);
+            }
+            for (long id : slots) {
+                if (id != 0) {
+                    action.accept(id);
+                }
+            }
+        }
+
+        private static boolean insert(long[] table, long id) {
+            int mask = table.length - 1;
+            int i = mix(id) & mask;
+            while (table[i] != 0) {
+                if (table[i] == id) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = id;
+            return true;
+        }
+
+        private void resize() {
+            long[] larger = new long[slots.length * 2];
+            for (long id : slots) {
+                if (id != 0) {
+                    insert(larger, id);
+                }
+            }
+            slots = larger;
+        }
+
+        private static int mix(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return "LongIdSet[size=" + size + ", capacity=" + slots.length + "]";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReferenceIndex[users=" + userIds.size() + ", schools=" + schoolIds.size()
+                + ", philosophers=" + philosopherIds.size() + ", contents=" + contentIds.size()
+                + ", comments=" + commentIds.size() + "]";
+    }
+}
@@ -0,0 +1,101 @@
+package com.philosophy.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * 按依赖关系执行的导入阶段
+ * 每个阶段在其依赖的阶段全部完成后提交到线程池，互不依赖的阶段并发执行。
+ * 依赖只能引用先前添加的阶段，因此不会出现环。
+ * 某个阶段抛出异常时，依赖它的阶段不再执行；其余阶段照常完成后，run 抛出第一个异常。
+ */
+class ImportStagePlan {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportStagePlan.class);
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    /**
+     * @param dependsOn 必须先完成的阶段名称
+     */
+    ImportStagePlan add(String name, Runnable task, String... dependsOn) {
+        if (stages.containsKey(name)) {
+            throw new IllegalArgumentException("重复的导入阶段: " + name);
+        }
+        for (String dependency : dependsOn) {
+            if (!stages.containsKey(dependency)) {
+                throw new IllegalArgumentException("导入阶段 " + name + " 依赖的阶段 " + dependency + " 尚未添加");
+            }
+        }
+        stages.put(name, new Stage(name, task, dependsOn));
+        return this;
+    }
+
+    /**
+     * 执行全部阶段并等待结束
+     * @param onStageFinished 每个阶段成功完成后调用，参数为阶段名称和耗时（毫秒），可能在任意工作线程上调用
+     */
+    void run(Executor executor, BiConsumer<String, Long> onStageFinished) {
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (Stage stage : stages.values()) {
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[stage.dependsOn.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                dependencies[i] = futures.get(stage.dependsOn[i]);
+            }
+            CompletableFuture<Void> future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                long start = System.nanoTime();
+                stage.task.run();
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                logger.info("导入阶段 {} 完成，耗时 {} ms", stage.name, millis);
+                onStageFinished.accept(stage.name, millis);
+            }, executor);
+            futures.put(stage.name, future);
+        }
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<Void>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (!failures.contains(cause)) {
+                    logger.error("导入阶段 {} 失败", entry.getKey(), cause);
+                    failures.add(cause);
+                } else {
+                    logger.warn("导入阶段 {} 因依赖的阶段失败而跳过", entry.getKey());
+                }
+            }
+        }
+        if (!failures.isEmpty()) {
+            Throwable first = failures.get(0);
+            if (first instanceof RuntimeException) {
+                throw (RuntimeException) first;
+            }
+            if (first instanceof Error) {
+                throw (Error) first;
+            }
+            throw new IllegalStateException(first);
+        }
+    }
+
+    private static final class Stage {
+        private final String name;
+        private final Runnable task;
+        private final String[] dependsOn;
+
+        private Stage(String name, Runnable task, String[] dependsOn) {
+            this.name = name;
+            this.task = task;
+            this.dependsOn = dependsOn;
+        }
+    }
+}
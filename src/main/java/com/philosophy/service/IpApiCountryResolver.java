@@ -0,0 +1,130 @@
+package com.philosophy.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 ip-api.com 的IP归属国家解析
+ * 注意：免费版本有请求限制（每分钟45次），只应在本地数据未命中时使用
+ *
+ * 由 IpLocationConfig 在没有其他 IpCountryResolver 时注册。调用在 IpLocationService 的解析线程中执行，
+ * 这里按每分钟配额把请求均匀错开；ip-api 返回429或响应头 X-Rl 显示配额用尽时，
+ * 按 X-Ttl（距配额重置的秒数）暂停全部请求，避免被封禁。
+ */
+public class IpApiCountryResolver implements IpCountryResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(IpApiCountryResolver.class);
+
+    // ip-api 的配额响应头：本窗口剩余请求数、距重置的秒数
+    private static final String REMAINING_HEADER = "X-Rl";
+    private static final String RESET_SECONDS_HEADER = "X-Ttl";
+
+    // 未返回 X-Ttl 时的暂停时长
+    private static final long DEFAULT_BACKOFF_MS = 60_000;
+
+    private final RestTemplate restTemplate;
+
+    // 相邻两次请求的最小间隔
+    private final long intervalMillis;
+
+    // 下一次请求最早可发出的时间，以及因配额用尽而暂停到的时间（System.currentTimeMillis）
+    private long nextRequestAt;
+    private long pausedUntil;
+
+    public IpApiCountryResolver(int requestsPerMinute) {
+        this(createRestTemplate(), requestsPerMinute);
+    }
+
+    IpApiCountryResolver(RestTemplate restTemplate, int requestsPerMinute) {
+        this.restTemplate = restTemplate;
+        this.intervalMillis = TimeUnit.MINUTES.toMillis(1) / Math.max(1, requestsPerMinute);
+    }
+
+    private static RestTemplate createRestTemplate() {
+        // 在后台线程中执行，但仍需超时，避免慢请求占满解析线程
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(2000);
+        requestFactory.setReadTimeout(3000);
+        return new RestTemplate(requestFactory);
+    }
+
+    @Override
+    public String resolveCountry(String ipAddress) throws Exception {
+        awaitPermit();
+        String url = "http://ip-api.com/json/" + ipAddress + "?fields=status,countryCode";
+
+        @SuppressWarnings("rawtypes")
+        ResponseEntity<Map> response;
+        try {
+            response = restTemplate.getForEntity(url, Map.class);
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            pause(e.getResponseHeaders());
+            throw e;
+        }
+        if ("0".equals(response.getHeaders().getFirst(REMAINING_HEADER))) {
+            pause(response.getHeaders());
+        }
+
+        Map<?, ?> body = response.getBody();
+        if (body != null && "success".equals(body.get("status"))) {
+            return (String) body.get("countryCode");
+        }
+        return null;
+    }
+
+    /**
+     * 等待到允许发出下一次请求
+     * 先预约时间片再在锁外等待，两个解析线程的请求按预约顺序依次发出
+     */
+    private void awaitPermit() throws InterruptedException {
+        long slot;
+        long waitMillis;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            slot = Math.max(now, Math.max(nextRequestAt, pausedUntil));
+            nextRequestAt = slot + intervalMillis;
+            waitMillis = slot - now;
+        }
+        if (waitMillis > 0) {
+            sleep(waitMillis);
+        }
+        // 等待期间其他线程遇到配额用尽时，继续等到暂停结束
+        long pausedMillis;
+        synchronized (this) {
+            pausedMillis = pausedUntil - slot;
+        }
+        if (pausedMillis > 0) {
+            sleep(pausedMillis);
+        }
+    }
+
+    private void pause(HttpHeaders headers) {
+        long backoffMillis = DEFAULT_BACKOFF_MS;
+        String resetSeconds = headers != null ? headers.getFirst(RESET_SECONDS_HEADER) : null;
+        if (resetSeconds != null) {
+            try {
+                // 多等一秒，避免与服务端的窗口边界撞上
+                backoffMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(resetSeconds.trim()) + 1);
+            } catch (NumberFormatException e) {
+                logger.debug("无法解析 {} 响应头: {}", RESET_SECONDS_HEADER, resetSeconds);
+            }
+        }
+        synchronized (this) {
+            pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + backoffMillis);
+        }
+        logger.warn("ip-api 请求配额已用尽，暂停远程解析 {} ms", backoffMillis);
+    }
+
+    // 单独成方法，便于测试替换实际等待
+    void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+}
@@ -0,0 +1,409 @@
+package com.philosophy.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地IP归属国家数据库
+ * 启动时从IP段文件加载，IPv4与IPv6分别保存为按起始地址排序的基本类型数组，
+ * 查询时二分查找，不访问网络。
+ *
+ * 支持两种行格式（#开头为注释）：
+ * - RIR分配统计格式：apnic|CN|ipv4|1.0.1.0|256|20110414|allocated
+ *   （IPv4第5列为地址数，IPv6第5列为前缀长度）
+ * - CIDR格式：1.0.1.0/24,CN 或 2001:250::/35,CN
+ *
+ * IPv6只使用地址的高64位：各RIR分配的IPv6段前缀都不超过/64，高64位足以区分归属。
+ * IPv4映射的IPv6地址（::ffff:a.b.c.d，双栈监听时常见）按其中的IPv4地址查询。
+ *
+ * 数据文件由 src/build/java 下的 IpCountryDataGenerator 从各RIR的统计文件生成：
+ * mvn -Pip-data generate-resources
+ */
+@Service
+public class IpCountryDatabase {
+
+    private static final Logger logger = LoggerFactory.getLogger(IpCountryDatabase.class);
+
+    // 翻转符号位后，有符号比较的顺序与无符号地址顺序一致
+    private static final int INT_SIGN = 0x80000000;
+    private static final long LONG_SIGN = 0x8000000000000000L;
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${app.ip-database.location:classpath:ip/ip-country.txt}")
+    private String location;
+
+    // 整体替换，重新加载期间查询读到的是完整的旧数据或新数据
+    private volatile Ranges ranges = Ranges.EMPTY;
+
+    public IpCountryDatabase(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    public void load() {
+        long start = System.currentTimeMillis();
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            logger.warn("IP归属地数据文件不存在: {}，将只能通过远程接口查询", location);
+            return;
+        }
+
+        RangeBuilder v4 = new RangeBuilder();
+        RangeBuilder v6 = new RangeBuilder();
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    if (!parseLine(line, v4, v6)) {
+                        skipped++;
+                    }
+                } catch (IllegalArgumentException e) {
+                    skipped++;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("加载IP归属地数据失败: {}", e.getMessage(), e);
+            return;
+        }
+
+        ranges = new Ranges(v4.buildV4(), v6.buildV6());
+        if (!isLoaded()) {
+            logger.warn("IP归属地数据文件 {} 中没有任何IP段，所有查询都将回退到远程接口；"
+                    + "请使用 mvn -Pip-data generate-resources 生成数据", location);
+        }
+        logger.info("IP归属地数据加载完成: IPv4 {} 段, IPv6 {} 段, 跳过 {} 行, 耗时 {} ms",
+                ranges.v4Starts.length, ranges.v6Starts.length, skipped, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 数据是否已加载
+     */
+    public boolean isLoaded() {
+        Ranges current = ranges;
+        return current.v4Starts.length > 0 || current.v6Starts.length > 0;
+    }
+
+    /**
+     * 查询IP所属国家代码
+     * @param ipAddress IPv4或IPv6字面量
+     * @return 两位国家代码，数据中没有该地址或地址无效时返回null
+     */
+    public String lookupCountry(String ipAddress) {
+        if (ipAddress == null || ipAddress.isEmpty()) {
+            return null;
+        }
+        Ranges current = ranges;
+        try {
+            if (ipAddress.indexOf(':') < 0) {
+                return current.findV4(parseIpv4(ipAddress) ^ INT_SIGN);
+            }
+            byte[] bytes = parseIpv6Literal(ipAddress);
+            if (bytes.length == 4) {
+                // IPv4映射地址，InetAddress已将其转换为IPv4
+                return current.findV4(toInt(bytes) ^ INT_SIGN);
+            }
+            return current.findV6(high64(bytes) ^ LONG_SIGN);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean parseLine(String line, RangeBuilder v4, RangeBuilder v6) {
+        if (line.indexOf('|') >= 0) {
+            // RIR分配统计格式
+            String[] parts = line.split("\\|");
+            if (parts.length < 5 || parts[1].length() != 2 || "*".equals(parts[1])) {
+                return false;
+            }
+            String country = parts[1].toUpperCase();
+            if ("ipv4".equals(parts[2])) {
+                long first = Integer.toUnsignedLong(parseIpv4(parts[3]));
+                long count = Long.parseLong(parts[4]);
+                v4.add(first, first + count - 1, country);
+                return true;
+            }
+            if ("ipv6".equals(parts[2])) {
+                addIpv6Prefix(v6, parts[3], Integer.parseInt(parts[4]), country);
+                return true;
+            }
+            return false;
+        }
+
+        // CIDR格式
+        int comma = line.indexOf(',');
+        int slash = line.indexOf('/');
+        if (comma < 0 || slash < 0 || slash > comma) {
+            return false;
+        }
+        String network = line.substring(0, slash).trim();
+        int prefix = Integer.parseInt(line.substring(slash + 1, comma).trim());
+        String country = line.substring(comma + 1).trim().toUpperCase();
+        if (country.length() != 2) {
+            return false;
+        }
+        if (network.indexOf(':') >= 0) {
+            addIpv6Prefix(v6, network, prefix, country);
+        } else {
+            if (prefix < 0 || prefix > 32) {
+                return false;
+            }
+            long first = Integer.toUnsignedLong(parseIpv4(network));
+            long size = 1L << (32 - prefix);
+            first &= ~(size - 1);
+            v4.add(first, first + size - 1, country);
+        }
+        return true;
+    }
+
+    private void addIpv6Prefix(RangeBuilder v6, String network, int prefix, String country) {
+        if (prefix < 0 || prefix > 128) {
+            throw new IllegalArgumentException("无效的IPv6前缀: " + prefix);
+        }
+        long high = parseIpv6High(network);
+        int bits = Math.min(prefix, 64);
+        long mask = bits == 0 ? 0L : -1L << (64 - bits);
+        long first = high & mask;
+        long last = first | ~mask;
+        v6.add(first, last, country);
+    }
+
+    private static int parseIpv4(String ip) {
+        int result = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    throw new IllegalArgumentException("无效的IPv4地址: " + ip);
+                }
+            } else if (c == '.' && digits > 0 && dots < 3) {
+                result = (result << 8) | octet;
+                octet = 0;
+                digits = 0;
+                dots++;
+            } else {
+                throw new IllegalArgumentException("无效的IPv4地址: " + ip);
+            }
+        }
+        if (dots != 3 || digits == 0) {
+            throw new IllegalArgumentException("无效的IPv4地址: " + ip);
+        }
+        return (result << 8) | octet;
+    }
+
+    /**
+     * 解析IPv6地址的高64位，用于数据文件中的IPv6段
+     */
+    private static long parseIpv6High(String ip) {
+        byte[] bytes = parseIpv6Literal(ip);
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("无效的IPv6地址: " + ip);
+        }
+        return high64(bytes);
+    }
+
+    /**
+     * 解析IPv6字面量
+     * 字符串中含有冒号时InetAddress只按字面量解析，不会触发DNS查询
+     * @return 16字节的IPv6地址；IPv4映射地址（::ffff:a.b.c.d）返回4字节的IPv4地址
+     */
+    private static byte[] parseIpv6Literal(String ip) {
+        String literal = ip;
+        int zone = literal.indexOf('%');
+        if (zone >= 0) {
+            literal = literal.substring(0, zone);
+        }
+        if (literal.startsWith("[") && literal.endsWith("]")) {
+            literal = literal.substring(1, literal.length() - 1);
+        }
+        if (literal.indexOf(':') < 0) {
+            throw new IllegalArgumentException("无效的IPv6地址: " + ip);
+        }
+        try {
+            return InetAddress.getByName(literal).getAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("无效的IPv6地址: " + ip);
+        }
+    }
+
+    private static int toInt(byte[] ipv4) {
+        return ((ipv4[0] & 0xFF) << 24) | ((ipv4[1] & 0xFF) << 16) | ((ipv4[2] & 0xFF) << 8) | (ipv4[3] & 0xFF);
+    }
+
+    private static long high64(byte[] ipv6) {
+        long high = 0L;
+        for (int i = 0; i < 8; i++) {
+            high = (high << 8) | (ipv6[i] & 0xFFL);
+        }
+        return high;
+    }
+
+    /**
+     * 加载期间收集IP段，完成后排序、合并相邻的同国家段并转换为数组
+     */
+    private static final class RangeBuilder {
+        private final List<long[]> rows = new ArrayList<>();
+        private final Map<String, Integer> countryIndex = new HashMap<>();
+        private final List<String> countries = new ArrayList<>();
+
+        void add(long first, long last, String country) {
+            Integer index = countryIndex.get(country);
+            if (index == null) {
+                index = countries.size();
+                countries.add(country);
+                countryIndex.put(country, index);
+            }
+            rows.add(new long[]{first, last, index});
+        }
+
+        private List<long[]> sortedAndMerged(boolean unsigned) {
+            rows.sort((a, b) -> unsigned ? Long.compareUnsigned(a[0], b[0]) : Long.compare(a[0], b[0]));
+            List<long[]> merged = new ArrayList<>(rows.size());
+            for (long[] row : rows) {
+                if (!merged.isEmpty()) {
+                    long[] previous = merged.get(merged.size() - 1);
+                    if (previous[2] == row[2] && previous[1] + 1 == row[0]) {
+                        previous[1] = row[1];
+                        continue;
+                    }
+                }
+                merged.add(row);
+            }
+            return merged;
+        }
+
+        V4Table buildV4() {
+            List<long[]> merged = sortedAndMerged(false);
+            int[] starts = new int[merged.size()];
+            int[] ends = new int[merged.size()];
+            short[] codes = new short[merged.size()];
+            for (int i = 0; i < merged.size(); i++) {
+                long[] row = merged.get(i);
+                starts[i] = ((int) row[0]) ^ INT_SIGN;
+                ends[i] = ((int) row[1]) ^ INT_SIGN;
+                codes[i] = (short) row[2];
+            }
+            return new V4Table(starts, ends, codes, countries.toArray(new String[0]));
+        }
+
+        V6Table buildV6() {
+            List<long[]> merged = sortedAndMerged(true);
+            long[] starts = new long[merged.size()];
+            long[] ends = new long[merged.size()];
+            short[] codes = new short[merged.size()];
+            for (int i = 0; i < merged.size(); i++) {
+                long[] row = merged.get(i);
+                starts[i] = row[0] ^ LONG_SIGN;
+                ends[i] = row[1] ^ LONG_SIGN;
+                codes[i] = (short) row[2];
+            }
+            return new V6Table(starts, ends, codes, countries.toArray(new String[0]));
+        }
+    }
+
+    private static final class V4Table {
+        private final int[] starts;
+        private final int[] ends;
+        private final short[] codes;
+        private final String[] countries;
+
+        private V4Table(int[] starts, int[] ends, short[] codes, String[] countries) {
+            this.starts = starts;
+            this.ends = ends;
+            this.codes = codes;
+            this.countries = countries;
+        }
+    }
+
+    private static final class V6Table {
+        private final long[] starts;
+        private final long[] ends;
+        private final short[] codes;
+        private final String[] countries;
+
+        private V6Table(long[] starts, long[] ends, short[] codes, String[] countries) {
+            this.starts = starts;
+            this.ends = ends;
+            this.codes = codes;
+            this.countries = countries;
+        }
+    }
+
+    /**
+     * 一次加载得到的全部IP段（地址已翻转符号位）
+     */
+    private static final class Ranges {
+        private static final Ranges EMPTY = new Ranges(
+                new V4Table(new int[0], new int[0], new short[0], new String[0]),
+                new V6Table(new long[0], new long[0], new short[0], new String[0]));
+
+        private final int[] v4Starts;
+        private final int[] v4Ends;
+        private final short[] v4Codes;
+        private final String[] v4Countries;
+        private final long[] v6Starts;
+        private final long[] v6Ends;
+        private final short[] v6Codes;
+        private final String[] v6Countries;
+
+        private Ranges(V4Table v4, V6Table v6) {
+            this.v4Starts = v4.starts;
+            this.v4Ends = v4.ends;
+            this.v4Codes = v4.codes;
+            this.v4Countries = v4.countries;
+            this.v6Starts = v6.starts;
+            this.v6Ends = v6.ends;
+            this.v6Codes = v6.codes;
+            this.v6Countries = v6.countries;
+        }
+
+        private String findV4(int key) {
+            int index = Arrays.binarySearch(v4Starts, key);
+            if (index < 0) {
+                // 取起始地址不大于key的最后一个段
+                index = -index - 2;
+            }
+            if (index < 0 || key > v4Ends[index]) {
+                return null;
+            }
+            return v4Countries[v4Codes[index]];
+        }
+
+        private String findV6(long key) {
+            int index = Arrays.binarySearch(v6Starts, key);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            if (index < 0 || key > v6Ends[index]) {
+                return null;
+            }
+            return v6Countries[v6Codes[index]];
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.philosophy.service;
+
+/**
+ * IP归属国家的远程解析后端
+ * IpLocationService 在本地IP段数据未命中时，在后台线程中调用该接口。
+ * 默认实现为 IpApiCountryResolver（见 IpLocationConfig），测试或离线环境可注册其他实现替换。
+ */
+public interface IpCountryResolver {
+
+    /**
+     * 解析IP所属国家
+     * @param ipAddress IP地址
+     * @return 两位国家代码；无法确定时返回null
+     * @throws Exception 查询失败（会被短期缓存为失败结果）
+     */
+    String resolveCountry(String ipAddress) throws Exception;
+}
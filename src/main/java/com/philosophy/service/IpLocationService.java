@@ -1,145 +1,276 @@
 package com.philosophy.service;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestClientException;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * IP地理位置服务
  * 用于判断IP地址是否在国外
+ *
+ * 查询顺序：内网地址 -> 本地IP段数据 -> 结果缓存 -> 后台远程解析。
+ * 请求线程从不等待远程解析：结果未知时立即返回默认值（视为国内），
+ * 同时在后台解析，之后的请求即可命中缓存。
+ * - 缓存有容量上限，按最近访问淘汰，并按TTL过期
+ * - 同一IP的并发查询只发起一次远程解析（single-flight）
+ * - 解析失败的结果也会缓存较短时间，避免对同一IP反复请求
  */
 @Service
 public class IpLocationService {
 
     private static final Logger logger = LoggerFactory.getLogger(IpLocationService.class);
-    
-    // 缓存IP地理位置信息，避免重复请求
-    private final Map<String, Boolean> ipLocationCache = new ConcurrentHashMap<>();
-    
+
     // 中国国家代码
     private static final String CHINA_COUNTRY_CODE = "CN";
-    
+
     // 本地IP地址（用于开发环境）
     private static final String LOCALHOST_IP = "127.0.0.1";
     private static final String LOCALHOST_IPV6 = "0:0:0:0:0:0:0:1";
-    
-    private final RestTemplate restTemplate;
-    
-    public IpLocationService() {
-        this.restTemplate = new RestTemplate();
+
+    private final IpCountryDatabase ipCountryDatabase;
+    private final IpCountryResolver ipCountryResolver;
+
+    // 缓存IP地理位置信息，按访问顺序淘汰
+    private final Map<String, CacheEntry> ipLocationCache;
+
+    // 正在解析中的IP，用于合并并发查询
+    private final Map<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    // 远程解析线程池：线程和队列都有上限，队列满时直接放弃本次解析
+    private final ThreadPoolExecutor resolverExecutor;
+
+    @Value("${app.ip-location.cache-ttl-ms:86400000}")
+    private long cacheTtlMillis;
+
+    @Value("${app.ip-location.negative-ttl-ms:600000}")
+    private long negativeTtlMillis;
+
+    public IpLocationService(IpCountryDatabase ipCountryDatabase, IpCountryResolver ipCountryResolver,
+                             @Value("${app.ip-location.cache-size:10000}") int cacheSize) {
+        this.ipCountryDatabase = ipCountryDatabase;
+        this.ipCountryResolver = ipCountryResolver;
+        this.ipLocationCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.resolverExecutor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(200), runnable -> {
+                    Thread thread = new Thread(runnable, "ip-location-resolver-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
     }
-    
+
     /**
-     * 判断IP地址是否在国外
+     * 判断IP地址是否在国外（不阻塞）
      * @param ipAddress IP地址
-     * @return true表示在国外，false表示在中国或无法判断
+     * @return true表示在国外，false表示在中国或暂时无法判断
      */
     public boolean isForeignIp(String ipAddress) {
-        if (ipAddress == null || ipAddress.trim().isEmpty()) {
+        return Boolean.TRUE.equals(peekForeignIp(ipAddress));
+    }
+
+    /**
+     * 立即返回已知的判断结果，不阻塞
+     * 结果未知时在后台开始解析并返回null，调用方应使用默认值且不要持久化该默认值
+     * @param ipAddress IP地址
+     * @return true国外，false国内，null暂时未知
+     */
+    public Boolean peekForeignIp(String ipAddress) {
+        String ip = normalize(ipAddress);
+        if (ip == null || isLocalAddress(ip)) {
             return false;
         }
-        
-        // 清理IP地址（去除端口号等）
-        ipAddress = ipAddress.trim();
-        if (ipAddress.contains(",")) {
-            // 处理多个IP的情况，取第一个
-            ipAddress = ipAddress.split(",")[0].trim();
+
+        // 优先查询本地IP段数据，命中时无需访问网络
+        String localCountryCode = ipCountryDatabase.lookupCountry(ip);
+        if (localCountryCode != null) {
+            return !CHINA_COUNTRY_CODE.equals(localCountryCode);
         }
-        
-        // 本地IP默认视为国内
-        if (LOCALHOST_IP.equals(ipAddress) || LOCALHOST_IPV6.equals(ipAddress) || 
-            ipAddress.startsWith("192.168.") || ipAddress.startsWith("10.") || 
-            ipAddress.startsWith("172.16.") || ipAddress.startsWith("172.17.") ||
-            ipAddress.startsWith("172.18.") || ipAddress.startsWith("172.19.") ||
-            ipAddress.startsWith("172.20.") || ipAddress.startsWith("172.21.") ||
-            ipAddress.startsWith("172.22.") || ipAddress.startsWith("172.23.") ||
-            ipAddress.startsWith("172.24.") || ipAddress.startsWith("172.25.") ||
-            ipAddress.startsWith("172.26.") || ipAddress.startsWith("172.27.") ||
-            ipAddress.startsWith("172.28.") || ipAddress.startsWith("172.29.") ||
-            ipAddress.startsWith("172.30.") || ipAddress.startsWith("172.31.")) {
-            return false;
+
+        CacheEntry cached = getCached(ip);
+        if (cached != null) {
+            // 失败结果按国内处理，过期后再重试
+            return cached.foreign != null ? cached.foreign : Boolean.FALSE;
         }
-        
-        // 检查缓存
-        Boolean cachedResult = ipLocationCache.get(ipAddress);
-        if (cachedResult != null) {
-            return cachedResult;
+
+        resolveAsync(ip);
+        return null;
+    }
+
+    /**
+     * 异步解析IP是否在国外
+     * 同一IP同时只会有一次远程解析，后来的调用共享同一个结果
+     */
+    public CompletableFuture<Boolean> resolveAsync(String ipAddress) {
+        String ip = normalize(ipAddress);
+        if (ip == null || isLocalAddress(ip)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        String localCountryCode = ipCountryDatabase.lookupCountry(ip);
+        if (localCountryCode != null) {
+            return CompletableFuture.completedFuture(!CHINA_COUNTRY_CODE.equals(localCountryCode));
         }
-        
+        CacheEntry cached = getCached(ip);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached.foreign != null ? cached.foreign : Boolean.FALSE);
+        }
+
+        CompletableFuture<Boolean> created = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlight.putIfAbsent(ip, created);
+        if (existing != null) {
+            return existing;
+        }
+
         try {
-            // 使用ip-api.com免费API查询IP地理位置
-            // 注意：免费版本有请求限制（每分钟45次）
-            String url = "http://ip-api.com/json/" + ipAddress + "?fields=status,countryCode";
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            
-            if (response != null && "success".equals(response.get("status"))) {
-                String countryCode = (String) response.get("countryCode");
-                boolean isForeign = !CHINA_COUNTRY_CODE.equals(countryCode);
-                
-                // 缓存结果（最多缓存1000个IP）
-                if (ipLocationCache.size() < 1000) {
-                    ipLocationCache.put(ipAddress, isForeign);
-                }
-                
-                logger.debug("IP {} 地理位置: {}, 是否国外: {}", ipAddress, countryCode, isForeign);
-                return isForeign;
+            resolverExecutor.execute(() -> resolveRemote(ip, created));
+        } catch (RejectedExecutionException e) {
+            // 队列已满：放弃本次解析，不缓存，下次请求再尝试
+            inFlight.remove(ip, created);
+            logger.debug("IP地理位置解析队列已满，跳过: {}", ip);
+            created.complete(false);
+        }
+        return created;
+    }
+
+    private void resolveRemote(String ip, CompletableFuture<Boolean> result) {
+        // null表示解析失败
+        Boolean foreign = null;
+        try {
+            String countryCode = ipCountryResolver.resolveCountry(ip);
+            if (countryCode != null) {
+                foreign = !CHINA_COUNTRY_CODE.equals(countryCode);
+                logger.debug("IP {} 地理位置: {}, 是否国外: {}", ip, countryCode, foreign);
             }
-        } catch (RestClientException e) {
-            logger.warn("查询IP地理位置失败: {}, 错误: {}", ipAddress, e.getMessage());
         } catch (Exception e) {
-            logger.error("查询IP地理位置时发生异常: {}", ipAddress, e);
+            logger.warn("查询IP地理位置失败: {}, 错误: {}", ip, e.getMessage());
+        } finally {
+            long ttl = foreign != null ? cacheTtlMillis : negativeTtlMillis;
+            putCached(ip, new CacheEntry(foreign, System.currentTimeMillis() + ttl));
+            inFlight.remove(ip, result);
+            // 如果查询失败，默认视为国内（保守策略）
+            result.complete(foreign != null ? foreign : Boolean.FALSE);
         }
-        
-        // 如果查询失败，默认视为国内（保守策略）
-        return false;
     }
-    
+
     /**
-     * 从HttpServletRequest中获取IP并判断是否在国外
+     * 从HttpServletRequest中获取IP并判断是否在国外（不阻塞）
      * @param request HTTP请求
-     * @return true表示在国外，false表示在中国或无法判断
+     * @return true表示在国外，false表示在中国或暂时无法判断
      */
     public boolean isForeignIp(HttpServletRequest request) {
         if (request == null) {
             return false;
         }
-        
+
         String ipAddress = getClientIpAddress(request);
         return isForeignIp(ipAddress);
     }
-    
+
+    /**
+     * 从HttpServletRequest中获取IP并返回已知的判断结果，未知时返回null
+     */
+    public Boolean peekForeignIp(HttpServletRequest request) {
+        if (request == null) {
+            return false;
+        }
+        return peekForeignIp(getClientIpAddress(request));
+    }
+
+    private String normalize(String ipAddress) {
+        if (ipAddress == null || ipAddress.trim().isEmpty()) {
+            return null;
+        }
+
+        // 清理IP地址（去除端口号等）
+        String ip = ipAddress.trim();
+        if (ip.contains(",")) {
+            // 处理多个IP的情况，取第一个
+            ip = ip.split(",")[0].trim();
+        }
+        return ip.isEmpty() ? null : ip;
+    }
+
+    private boolean isLocalAddress(String ipAddress) {
+        // 本地IP默认视为国内
+        if (LOCALHOST_IP.equals(ipAddress) || LOCALHOST_IPV6.equals(ipAddress) || "::1".equals(ipAddress)
+                || ipAddress.startsWith("192.168.") || ipAddress.startsWith("10.")) {
+            return true;
+        }
+        if (ipAddress.startsWith("172.")) {
+            int end = ipAddress.indexOf('.', 4);
+            if (end > 4) {
+                try {
+                    int second = Integer.parseInt(ipAddress.substring(4, end));
+                    return second >= 16 && second <= 31;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private CacheEntry getCached(String ip) {
+        synchronized (ipLocationCache) {
+            CacheEntry entry = ipLocationCache.get(ip);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                ipLocationCache.remove(ip);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void putCached(String ip, CacheEntry entry) {
+        synchronized (ipLocationCache) {
+            ipLocationCache.put(ip, entry);
+        }
+    }
+
     /**
      * 从HttpServletRequest中获取客户端IP地址
      * @param request HTTP请求
      * @return IP地址
      */
-    private String getClientIpAddress(HttpServletRequest request) {
+    public String getClientIpAddress(HttpServletRequest request) {
         String ipAddress = request.getHeader("X-Forwarded-For");
-        
+
         if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
             ipAddress = request.getHeader("Proxy-Client-IP");
         }
-        
+
         if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
             ipAddress = request.getHeader("WL-Proxy-Client-IP");
         }
-        
+
         if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
             ipAddress = request.getHeader("X-Real-IP");
         }
-        
+
         if (ipAddress == null || ipAddress.isEmpty() || "unknown".equalsIgnoreCase(ipAddress)) {
             ipAddress = request.getRemoteAddr();
         }
-        
+
         // 处理多个IP地址的情况，取第一个非unknown的IP
         if (ipAddress != null && ipAddress.contains(",")) {
             String[] ipAddresses = ipAddress.split(",");
@@ -150,15 +281,34 @@ public class IpLocationService {
                 }
             }
         }
-        
+
         return ipAddress;
     }
-    
+
     /**
      * 清除缓存（可选，用于测试或定期清理）
      */
     public void clearCache() {
-        ipLocationCache.clear();
+        synchronized (ipLocationCache) {
+            ipLocationCache.clear();
+        }
     }
-}
 
+    @PreDestroy
+    public void shutdown() {
+        resolverExecutor.shutdownNow();
+    }
+
+    /**
+     * 缓存条目，foreign为null表示解析失败
+     */
+    private static final class CacheEntry {
+        private final Boolean foreign;
+        private final long expiresAt;
+
+        private CacheEntry(Boolean foreign, long expiresAt) {
+            this.foreign = foreign;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.philosophy.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * 按主键分页（keyset分页）遍历整张表
+ * 每页按 id > 上一页最后一个id 查询，处理完一页后清空持久化上下文，
+ * 已处理的实体全部脱管，内存占用只与页大小有关。
+ * 需要在事务中调用（每个线程使用自己的事务和EntityManager）。
+ */
+@Component
+public class KeysetPageReader {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 遍历实体的所有行，实体名即类名，主键属性为id
+     * @return 处理的行数
+     */
+    public <T> long forEach(Class<T> type, Function<T, Long> idGetter, Consumer<T> rowHandler, Runnable afterPage) {
+        String jpql = "SELECT e FROM " + type.getSimpleName() + " e WHERE e.id > :lastId ORDER BY e.id";
+        return forEach(jpql, type, idGetter, rowHandler, afterPage);
+    }
+
+    /**
+     * 使用自定义查询遍历
+     * jpql 必须包含 ":lastId" 参数并按主键升序排列
+     * @param afterPage 每页处理完、清空持久化上下文之后调用（如刷新输出），可以为null
+     * @return 处理的行数
+     */
+    public <T> long forEach(String jpql, Class<T> type, Function<T, Long> idGetter,
+                            Consumer<T> rowHandler, Runnable afterPage) {
+        return forEach(jpql, Map.of(), type, idGetter, rowHandler, afterPage);
+    }
+
+    /**
+     * 使用带额外参数的自定义查询遍历（如增量导出的 :since）
+     */
+    public <T> long forEach(String jpql, Map<String, ?> parameters, Class<T> type, Function<T, Long> idGetter,
+                            Consumer<T> rowHandler, Runnable afterPage) {
+        LongConsumer pageCallback = afterPage != null ? rows -> afterPage.run() : null;
+        return forEach(jpql, parameters, type, idGetter, rowHandler, pageCallback);
+    }
+
+    /**
+     * 同上，afterPage 的参数为到目前为止处理的行数（用于汇报进度）
+     */
+    public <T> long forEach(String jpql, Map<String, ?> parameters, Class<T> type, Function<T, Long> idGetter,
+                            Consumer<T> rowHandler, LongConsumer afterPage) {
+        long count = 0;
+        Long lastId = Long.MIN_VALUE;
+        while (true) {
+            TypedQuery<T> query = entityManager.createQuery(jpql, type);
+            parameters.forEach(query::setParameter);
+            List<T> page = query
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(DEFAULT_PAGE_SIZE)
+                    .getResultList();
+            for (T entity : page) {
+                rowHandler.accept(entity);
+            }
+            count += page.size();
+            if (!page.isEmpty()) {
+                lastId = idGetter.apply(page.get(page.size() - 1));
+            }
+            entityManager.clear();
+            if (afterPage != null) {
+                afterPage.accept(count);
+            }
+            if (page.size() < DEFAULT_PAGE_SIZE) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * 遍历哲学家-学派关联，按 (哲学家ID, 学派ID) 分页，只查询两列ID
+     * @param rowHandler 参数为 {哲学家ID, 学派ID}
+     */
+    public long forEachPhilosopherSchoolLink(Consumer<Long[]> rowHandler, Runnable afterPage) {
+        return forEachPhilosopherSchoolLink("", Map.of(), rowHandler, afterPage);
+    }
+
+    /**
+     * 遍历满足条件的哲学家的学派关联
+     * @param philosopherCondition 追加在WHERE后的条件（以 " AND " 开头，哲学家别名为p），为空串时遍历全部
+     */
+    public long forEachPhilosopherSchoolLink(String philosopherCondition, Map<String, ?> parameters,
+                                             Consumer<Long[]> rowHandler, Runnable afterPage) {
+        LongConsumer pageCallback = afterPage != null ? rows -> afterPage.run() : null;
+        return forEachPhilosopherSchoolLink(philosopherCondition, parameters, rowHandler, pageCallback);
+    }
+
+    /**
+     * 同上，afterPage 的参数为到目前为止处理的行数
+     */
+    public long forEachPhilosopherSchoolLink(String philosopherCondition, Map<String, ?> parameters,
+                                             Consumer<Long[]> rowHandler, LongConsumer afterPage) {
+        String jpql = "SELECT p.id, s.id FROM Philosopher p JOIN p.schools s "
+                + "WHERE (p.id > :lastPhilosopherId OR (p.id = :lastPhilosopherId AND s.id > :lastSchoolId))"
+                + philosopherCondition
+                + " ORDER BY p.id, s.id";
+        long count = 0;
+        Long lastPhilosopherId = Long.MIN_VALUE;
+        Long lastSchoolId = Long.MIN_VALUE;
+        while (true) {
+            TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+            parameters.forEach(query::setParameter);
+            List<Object[]> page = query
+                    .setParameter("lastPhilosopherId", lastPhilosopherId)
+                    .setParameter("lastSchoolId", lastSchoolId)
+                    .setMaxResults(DEFAULT_PAGE_SIZE)
+                    .getResultList();
+            for (Object[] row : page) {
+                rowHandler.accept(new Long[]{(Long) row[0], (Long) row[1]});
+            }
+            count += page.size();
+            if (afterPage != null) {
+                afterPage.accept(count);
+            }
+            if (page.size() < DEFAULT_PAGE_SIZE) {
+                return count;
+            }
+            Object[] last = page.get(page.size() - 1);
+            lastPhilosopherId = (Long) last[0];
+            lastSchoolId = (Long) last[1];
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.philosophy.service;
+
+import com.philosophy.event.PublicContentChangedEvent;
+import com.philosophy.model.Like;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 点赞计数校准服务
+ * contents/philosophers/schools/comments/users 表上的 like_count 是冗余计数，
+ * 只在 LikeService 点赞时增减，CSV导入或事务失败后会与 likes 表不一致。
+ * 本服务按主键分页（keyset）逐块扫描各表，从 likes 表重新统计该块的点赞数，
+ * 只对不一致的行执行批量更新。每块使用独立的短语句，不会长时间锁表。
+ * contents 表上的 comment_count 同样是冗余计数，按相同方式从 comments 表校准。
+ * 导入和快照恢复直接写表、不经过计数维护逻辑，因此除每日定时任务外，应用启动后以及每次导入/恢复完成后也各校准一次。
+ */
+@Service
+public class LikeCountReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeCountReconciliationService.class);
+
+    // 实体类型对应的表名
+    private static final Map<Like.EntityType, String> ENTITY_TABLES = new EnumMap<>(Like.EntityType.class);
+
+    static {
+        ENTITY_TABLES.put(Like.EntityType.CONTENT, "contents");
+        ENTITY_TABLES.put(Like.EntityType.PHILOSOPHER, "philosophers");
+        ENTITY_TABLES.put(Like.EntityType.SCHOOL, "schools");
+        ENTITY_TABLES.put(Like.EntityType.COMMENT, "comments");
+        ENTITY_TABLES.put(Like.EntityType.USER, "users");
+    }
+
+    // 评论计数在报告与指标中使用的名称
+    private static final String COMMENT_COUNT_LABEL = "CONTENT_COMMENTS";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer runTimer;
+    private final Counter rowsScannedCounter;
+    private final Counter rowsFixedCounter;
+
+    // 单线程执行，保证同一时间只有一个校准任务
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "like-count-reconciliation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    // 校准运行期间又有数据导入时置位，当前一轮结束后再跑一轮
+    private final AtomicBoolean rerunRequested = new AtomicBoolean(false);
+
+    private volatile ReconciliationReport lastReport;
+
+    @Value("${app.like-reconcile.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.like-reconcile.enabled:true}")
+    private boolean scheduledEnabled;
+
+    @Value("${app.like-reconcile.on-startup:true}")
+    private boolean startupEnabled;
+
+    public LikeCountReconciliationService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.runTimer = Timer.builder("likes.reconcile.duration")
+                .description("点赞计数校准耗时")
+                .register(meterRegistry);
+        this.rowsScannedCounter = Counter.builder("likes.reconcile.rows.scanned")
+                .description("点赞计数校准扫描的行数")
+                .register(meterRegistry);
+        this.rowsFixedCounter = Counter.builder("likes.reconcile.rows.fixed")
+                .description("点赞计数校准修正的行数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在后台启动一次校准
+     * @return true表示已启动，false表示已有校准任务在运行
+     */
+    public boolean startAsync() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.submit(this::runGuarded);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * 每天凌晨自动校准一次
+     */
+    @Scheduled(cron = "${app.like-reconcile.cron:0 30 3 * * ?}")
+    public void scheduledReconcile() {
+        if (!scheduledEnabled) {
+            return;
+        }
+        if (!startAsync()) {
+            logger.info("点赞计数校准已在运行，跳过本次定时任务");
+        }
+    }
+
+    /**
+     * 启动后校准一次，修正停机期间通过SQL或旧版本导入造成的计数偏差
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (startupEnabled) {
+            requestReconcile();
+        }
+    }
+
+    /**
+     * CSV导入、增量应用、清空数据和快照恢复完成后（均发布 IMPORT 事件）重新校准
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPublicContentChanged(PublicContentChangedEvent event) {
+        if (event.getSource() == PublicContentChangedEvent.Source.IMPORT) {
+            requestReconcile();
+        }
+    }
+
+    /**
+     * 与startAsync不同，已有校准在运行时不会被丢弃，而是在其结束后再校准一轮
+     */
+    private void requestReconcile() {
+        rerunRequested.set(true);
+        startAsync();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * 最近一次校准结果（尚未运行过时为null）
+     */
+    public ReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    private void runGuarded() {
+        try {
+            do {
+                rerunRequested.set(false);
+                try {
+                    lastReport = reconcileAll();
+                } catch (Exception e) {
+                    logger.error("点赞计数校准失败: {}", e.getMessage(), e);
+                }
+            } while (rerunRequested.get());
+        } finally {
+            running.set(false);
+        }
+        // 在上面的检查与释放之间到达的请求没能启动新任务，这里补上
+        if (rerunRequested.get()) {
+            startAsync();
+        }
+    }
+
+    /**
+     * 依次校准所有实体类型
+     */
+    ReconciliationReport reconcileAll() {
+        ReconciliationReport report = new ReconciliationReport(LocalDateTime.now());
+        long start = System.nanoTime();
+        for (Like.EntityType type : Like.EntityType.values()) {
+            reconcileColumn(type.name(), ENTITY_TABLES.get(type), "like_count",
+                    "SELECT entity_id, COUNT(*) FROM likes WHERE entity_type = '" + type.name()
+                            + "' AND entity_id BETWEEN ? AND ? GROUP BY entity_id",
+                    report);
+        }
+        reconcileColumn(COMMENT_COUNT_LABEL, "contents", "comment_count",
+                "SELECT content_id, COUNT(*) FROM comments WHERE content_id BETWEEN ? AND ? GROUP BY content_id",
+                report);
+        long elapsedNanos = System.nanoTime() - start;
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        report.finish(Duration.ofNanos(elapsedNanos));
+        logger.info("点赞计数校准完成: 扫描 {} 行, 修正 {} 行, 总偏差 {}, 耗时 {} ms ({} 行/秒)",
+                report.getRowsScanned(), report.getRowsFixed(), report.getTotalDrift(),
+                report.getElapsedMillis(), report.getRowsPerSecond());
+        return report;
+    }
+
+    /**
+     * 按主键分块校准一张表上的冗余计数列
+     * @param countSql 统计实际数量的查询，参数为块的起止ID，返回 [id, 数量]
+     */
+    private void reconcileColumn(String label, String table, String column, String countSql,
+                                 ReconciliationReport report) {
+        String selectChunk = "SELECT id, COALESCE(" + column + ", 0) FROM " + table + " WHERE id > ? ORDER BY id LIMIT ?";
+        // 仅当计数仍为扫描时读到的值才更新，避免覆盖校准期间发生的点赞/评论
+        String updateCount = "UPDATE " + table + " SET " + column + " = ? WHERE id = ? AND COALESCE(" + column + ", 0) = ?";
+
+        long lastId = 0L;
+        while (true) {
+            List<long[]> rows = jdbcTemplate.query(selectChunk,
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, lastId, chunkSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            long firstId = rows.get(0)[0];
+            lastId = rows.get(rows.size() - 1)[0];
+
+            Map<Long, Long> actualCounts = new HashMap<>();
+            jdbcTemplate.query(countSql, rs -> {
+                actualCounts.put(rs.getLong(1), rs.getLong(2));
+            }, firstId, lastId);
+
+            List<Object[]> fixes = new ArrayList<>();
+            long chunkDrift = 0L;
+            for (long[] row : rows) {
+                long stored = row[1];
+                long actual = actualCounts.getOrDefault(row[0], 0L);
+                if (stored != actual) {
+                    fixes.add(new Object[]{actual, row[0], stored});
+                    chunkDrift += Math.abs(actual - stored);
+                }
+            }
+
+            int fixed = 0;
+            if (!fixes.isEmpty()) {
+                for (int updated : jdbcTemplate.batchUpdate(updateCount, fixes)) {
+                    // 部分驱动批量执行时返回 SUCCESS_NO_INFO(-2)
+                    if (updated > 0 || updated == Statement.SUCCESS_NO_INFO) {
+                        fixed++;
+                    }
+                }
+            }
+
+            rowsScannedCounter.increment(rows.size());
+            rowsFixedCounter.increment(fixed);
+            meterRegistry.counter("likes.reconcile.drift", "entityType", label).increment(chunkDrift);
+            report.record(label, rows.size(), fixed, chunkDrift);
+
+            if (rows.size() < chunkSize) {
+                break;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 一次校准的统计结果
+     */
+    public static class ReconciliationReport {
+        private final LocalDateTime startedAt;
+        private final Map<String, long[]> perType = new LinkedHashMap<>();
+        private long rowsScanned;
+        private long rowsFixed;
+        private long totalDrift;
+        private long elapsedMillis;
+
+        ReconciliationReport(LocalDateTime startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        void record(String label, long scanned, long fixed, long drift) {
+            long[] stats = perType.computeIfAbsent(label, k -> new long[3]);
+            stats[0] += scanned;
+            stats[1] += fixed;
+            stats[2] += drift;
+            rowsScanned += scanned;
+            rowsFixed += fixed;
+            totalDrift += drift;
+        }
+
+        void finish(Duration elapsed) {
+            this.elapsedMillis = elapsed.toMillis();
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public long getRowsScanned() {
+            return rowsScanned;
+        }
+
+        public long getRowsFixed() {
+            return rowsFixed;
+        }
+
+        public long getTotalDrift() {
+            return totalDrift;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public long getRowsPerSecond() {
+            return elapsedMillis > 0 ? rowsScanned * 1000L / elapsedMillis : rowsScanned;
+        }
+
+        /**
+         * 按实体类型的明细：实体类型（评论计数为CONTENT_COMMENTS） -> {scanned, fixed, drift}
+         */
+        public Map<String, Map<String, Long>> getPerType() {
+            Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+            for (Map.Entry<String, long[]> entry : perType.entrySet()) {
+                Map<String, Long> stats = new HashMap<>();
+                stats.put("scanned", entry.getValue()[0]);
+                stats.put("fixed", entry.getValue()[1]);
+                stats.put("drift", entry.getValue()[2]);
+                result.put(entry.getKey(), stats);
+            }
+            return Collections.unmodifiableMap(result);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.philosophy.service;
+
+import com.philosophy.event.LikeChangedEvent;
+import com.philosophy.model.Like;
+import com.philosophy.repository.LikeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 点赞排行榜服务
+ * 在内存中按实体类型维护两份排行：
+ * - 点赞总榜：与likes表中的点赞数量一致
+ * - 本周热门榜：最近7天的点赞按时间指数衰减加权（半衰期72小时）
+ * 启动后从likes表初始化，之后由点赞/取消点赞事件增量更新，并定期全量重建以修正漂移。
+ * 读取前K名只需遍历跳表的前K个元素，不再对整张likes表做GROUP BY。
+ */
+@Service
+public class LikeRankingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeRankingService.class);
+
+    // 热门榜统计窗口
+    private static final Duration TRENDING_WINDOW = Duration.ofDays(7);
+
+    // 热门榜衰减半衰期（毫秒）
+    private static final double TRENDING_HALF_LIFE_MILLIS = Duration.ofHours(72).toMillis();
+
+    // 分数低于该值视为零（用于消除浮点误差）
+    private static final double SCORE_EPSILON = 1e-9;
+
+    private final LikeRepository likeRepository;
+
+    // 整体替换，保证重建期间读取到的是完整的旧数据或新数据
+    private volatile Boards boards;
+
+    public LikeRankingService(LikeRepository likeRepository) {
+        this.likeRepository = likeRepository;
+    }
+
+    /**
+     * 排行榜是否已完成初始化
+     */
+    public boolean isReady() {
+        return boards != null;
+    }
+
+    /**
+     * 获取点赞数最多的实体ID（按点赞数降序）
+     */
+    public List<Long> getTopEntityIds(Like.EntityType entityType, int limit) {
+        Boards current = boards;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        return current.popular.get(entityType).top(limit);
+    }
+
+    /**
+     * 获取本周热门实体ID（按衰减后的分数降序）
+     */
+    public List<Long> getTrendingEntityIds(Like.EntityType entityType, int limit) {
+        Boards current = boards;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        return current.trending.get(entityType).top(limit);
+    }
+
+    /**
+     * 点赞/取消点赞事务提交后更新排行榜
+     * 事务回滚时不会收到事件，避免排行榜与数据库不一致
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        Boards current = boards;
+        if (current == null || event.getEntityType() == null || event.getEntityId() == null) {
+            return;
+        }
+
+        double sign = event.isLiked() ? 1.0 : -1.0;
+        current.popular.get(event.getEntityType()).add(event.getEntityId(), sign);
+
+        LocalDateTime likedAt = event.getLikedAt() != null ? event.getLikedAt() : LocalDateTime.now();
+        if (!likedAt.isBefore(LocalDateTime.now().minus(TRENDING_WINDOW))) {
+            current.trending.get(event.getEntityType()).add(event.getEntityId(), sign * current.trendingWeight(likedAt));
+        }
+    }
+
+    /**
+     * 从likes表全量重建排行榜
+     * 启动时立即执行一次，之后每小时执行一次（同时让超出统计窗口的点赞退出热门榜）
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.like-ranking.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            LocalDateTime since = LocalDateTime.now().minus(TRENDING_WINDOW);
+            Boards rebuilt = new Boards(toEpochMillis(since));
+
+            for (Like.EntityType type : Like.EntityType.values()) {
+                Leaderboard board = rebuilt.popular.get(type);
+                for (Object[] row : likeRepository.countLikesGroupedByEntityId(type)) {
+                    board.add(((Number) row[0]).longValue(), ((Number) row[1]).doubleValue());
+                }
+            }
+
+            for (Object[] row : likeRepository.findLikeTimelineSince(since)) {
+                Like.EntityType type = (Like.EntityType) row[0];
+                LocalDateTime createdAt = (LocalDateTime) row[2];
+                if (type == null || row[1] == null || createdAt == null) {
+                    continue;
+                }
+                rebuilt.trending.get(type).add(((Number) row[1]).longValue(), rebuilt.trendingWeight(createdAt));
+            }
+
+            boards = rebuilt;
+            logger.debug("点赞排行榜重建完成，耗时 {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 重建失败时保留旧数据，下次调度再试
+            logger.error("点赞排行榜重建失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 一次重建产生的全部排行榜
+     * 热门榜权重以窗口起点为基准：w(t) = 2^((t - base) / halfLife)，
+     * 所有分数共享同一基准，因此无需随时间整体衰减即可保持正确的相对顺序。
+     */
+    private static final class Boards {
+        private final Map<Like.EntityType, Leaderboard> popular = new EnumMap<>(Like.EntityType.class);
+        private final Map<Like.EntityType, Leaderboard> trending = new EnumMap<>(Like.EntityType.class);
+        private final long trendingBaseMillis;
+
+        private Boards(long trendingBaseMillis) {
+            this.trendingBaseMillis = trendingBaseMillis;
+            for (Like.EntityType type : Like.EntityType.values()) {
+                popular.put(type, new Leaderboard());
+                trending.put(type, new Leaderboard());
+            }
+        }
+
+        private double trendingWeight(LocalDateTime likedAt) {
+            return Math.pow(2.0, (toEpochMillis(likedAt) - trendingBaseMillis) / TRENDING_HALF_LIFE_MILLIS);
+        }
+    }
+
+    /**
+     * 单个实体类型的排行榜
+     * 写入串行化以保证分数表与有序集合一致；读取直接遍历跳表，无需加锁
+     */
+    static final class Leaderboard {
+        private static final Comparator<Entry> ORDER = Comparator
+                .comparingDouble((Entry e) -> e.score).reversed()
+                .thenComparingLong(e -> e.entityId);
+
+        private final Map<Long, Double> scores = new HashMap<>();
+        private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+        synchronized void add(long entityId, double delta) {
+            Double previous = scores.get(entityId);
+            double updated = (previous != null ? previous : 0.0) + delta;
+            if (previous != null) {
+                ranking.remove(new Entry(entityId, previous));
+            }
+            if (updated > SCORE_EPSILON) {
+                scores.put(entityId, updated);
+                ranking.add(new Entry(entityId, updated));
+            } else {
+                scores.remove(entityId);
+            }
+        }
+
+        List<Long> top(int limit) {
+            List<Long> result = new ArrayList<>(Math.max(0, limit));
+            Iterator<Entry> iterator = ranking.iterator();
+            while (result.size() < limit && iterator.hasNext()) {
+                result.add(iterator.next().entityId);
+            }
+            return result;
+        }
+    }
+
+    private static final class Entry {
+        private final long entityId;
+        private final double score;
+
+        private Entry(long entityId, double score) {
+            this.entityId = entityId;
+            this.score = score;
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.philosophy.service;
 
+import com.philosophy.event.LikeChangedEvent;
 import com.philosophy.model.*;
 import com.philosophy.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -31,6 +41,12 @@ public class LikeService {
     @Autowired
     private SchoolRepository schoolRepository;
 
+    @Autowired
+    private LikeRankingService likeRankingService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 点赞或取消点赞
      * @param userId 用户ID
@@ -55,12 +71,15 @@ public class LikeService {
                 // 取消点赞
                 likeRepository.delete(existingLike.get());
                 updateEntityLikeCount(entityType, entityId, -1);
+                eventPublisher.publishEvent(new LikeChangedEvent(entityType, entityId, false, existingLike.get().getCreatedAt()));
                 return false;
             } else {
                 // 添加点赞
                 Like like = new Like(user, entityType, entityId);
                 likeRepository.save(like);
                 updateEntityLikeCount(entityType, entityId, 1);
+                LocalDateTime likedAt = like.getCreatedAt() != null ? like.getCreatedAt() : LocalDateTime.now();
+                eventPublisher.publishEvent(new LikeChangedEvent(entityType, entityId, true, likedAt));
                 return true;
             }
         } catch (Exception e) {
@@ -83,6 +102,35 @@ public class LikeService {
         return likeRepository.existsByUserAndEntityTypeAndEntityId(user, entityType, entityId);
     }
 
+    /**
+     * 批量获取点赞状态
+     * 每种实体类型只执行一次IN查询，同时得到点赞数量和当前用户是否已点赞
+     * @param userId 用户ID（未登录时为null）
+     * @param entityIdsByType 按实体类型分组的实体ID
+     * @return 实体类型 -> (实体ID -> 点赞状态)，未被点赞过的实体状态为未点赞、数量0
+     */
+    @Transactional(readOnly = true)
+    public Map<Like.EntityType, Map<Long, LikeState>> getLikeStates(Long userId, Map<Like.EntityType, ? extends Collection<Long>> entityIdsByType) {
+        Map<Like.EntityType, Map<Long, LikeState>> result = new EnumMap<>(Like.EntityType.class);
+        for (Map.Entry<Like.EntityType, ? extends Collection<Long>> entry : entityIdsByType.entrySet()) {
+            Collection<Long> entityIds = entry.getValue();
+            if (entityIds == null || entityIds.isEmpty()) {
+                continue;
+            }
+            Map<Long, LikeState> states = new HashMap<>();
+            for (Long entityId : entityIds) {
+                states.put(entityId, new LikeState(false, 0L));
+            }
+            for (Object[] row : likeRepository.findLikeStatesByEntityIds(userId, entry.getKey(), entityIds)) {
+                Long entityId = ((Number) row[0]).longValue();
+                boolean liked = row[2] != null && ((Number) row[2]).longValue() > 0;
+                states.put(entityId, new LikeState(liked, ((Number) row[1]).longValue()));
+            }
+            result.put(entry.getKey(), states);
+        }
+        return result;
+    }
+
     /**
      * 获取实体的点赞数量
      */
@@ -159,36 +207,78 @@ public class LikeService {
     }
 
     /**
-     * 获取最受欢迎的内容
+     * 获取最受欢迎的内容（按点赞数降序）
      */
     public List<Content> getMostLikedContents(int limit) {
-        List<Long> contentIds = likeRepository.findMostLikedEntitiesByType(Like.EntityType.CONTENT.name(), limit)
-                .stream()
-                .map(result -> (Long) result[0])
-                .toList();
-        return contentRepository.findAllById(contentIds);
+        return loadInOrder(getMostLikedEntityIds(Like.EntityType.CONTENT, limit), contentRepository::findAllById, Content::getId);
     }
 
     /**
-     * 获取最受欢迎的哲学家
+     * 获取最受欢迎的哲学家（按点赞数降序）
      */
     public List<Philosopher> getMostLikedPhilosophers(int limit) {
-        List<Long> philosopherIds = likeRepository.findMostLikedEntitiesByType(Like.EntityType.PHILOSOPHER.name(), limit)
-                .stream()
-                .map(result -> (Long) result[0])
-                .toList();
-        return philosopherRepository.findAllById(philosopherIds);
+        return loadInOrder(getMostLikedEntityIds(Like.EntityType.PHILOSOPHER, limit), philosopherRepository::findAllById, Philosopher::getId);
     }
 
     /**
-     * 获取最受欢迎的流派
+     * 获取最受欢迎的流派（按点赞数降序）
      */
     public List<School> getMostLikedSchools(int limit) {
-        List<Long> schoolIds = likeRepository.findMostLikedEntitiesByType(Like.EntityType.SCHOOL.name(), limit)
+        return loadInOrder(getMostLikedEntityIds(Like.EntityType.SCHOOL, limit), schoolRepository::findAllById, School::getId);
+    }
+
+    /**
+     * 获取本周热门内容（按时间衰减后的点赞分数降序）
+     */
+    public List<Content> getTrendingContents(int limit) {
+        return loadInOrder(likeRankingService.getTrendingEntityIds(Like.EntityType.CONTENT, limit), contentRepository::findAllById, Content::getId);
+    }
+
+    /**
+     * 获取本周热门哲学家
+     */
+    public List<Philosopher> getTrendingPhilosophers(int limit) {
+        return loadInOrder(likeRankingService.getTrendingEntityIds(Like.EntityType.PHILOSOPHER, limit), philosopherRepository::findAllById, Philosopher::getId);
+    }
+
+    /**
+     * 获取本周热门流派
+     */
+    public List<School> getTrendingSchools(int limit) {
+        return loadInOrder(likeRankingService.getTrendingEntityIds(Like.EntityType.SCHOOL, limit), schoolRepository::findAllById, School::getId);
+    }
+
+    /**
+     * 获取点赞数最多的实体ID
+     * 优先读取内存排行榜；排行榜尚未初始化时回退到数据库聚合查询
+     */
+    private List<Long> getMostLikedEntityIds(Like.EntityType entityType, int limit) {
+        if (likeRankingService.isReady()) {
+            return likeRankingService.getTopEntityIds(entityType, limit);
+        }
+        return likeRepository.findMostLikedEntitiesByType(entityType.name(), limit)
                 .stream()
-                .map(result -> (Long) result[0])
+                .map(result -> ((Number) result[0]).longValue())
                 .toList();
-        return schoolRepository.findAllById(schoolIds);
+    }
+
+    /**
+     * 按ID批量加载实体，并保持传入ID的顺序（findAllById不保证顺序，已删除的实体会被跳过）
+     */
+    private <T> List<T> loadInOrder(List<Long> ids, Function<List<Long>, List<T>> loader, Function<T, Long> idGetter) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, T> byId = loader.apply(ids).stream()
+                .collect(Collectors.toMap(idGetter, Function.identity(), (a, b) -> a));
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
     }
 
     /**
@@ -216,4 +306,25 @@ public class LikeService {
             case USER -> userRepository.updateLikeCount(entityId, delta);
         }
     }
+
+    /**
+     * 点赞状态（是否已点赞及点赞数量）
+     */
+    public static class LikeState {
+        private final boolean liked;
+        private final long likeCount;
+
+        public LikeState(boolean liked, long likeCount) {
+            this.liked = liked;
+            this.likeCount = likeCount;
+        }
+
+        public boolean isLiked() {
+            return liked;
+        }
+
+        public long getLikeCount() {
+            return likeCount;
+        }
+    }
 }
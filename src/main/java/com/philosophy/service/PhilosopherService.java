@@ -1,5 +1,6 @@
 package com.philosophy.service;
 
+import com.philosophy.event.PublicContentChangedEvent;
 import com.philosophy.model.Philosopher;
 import com.philosophy.model.Content;
 import com.philosophy.model.School;
@@ -9,6 +10,7 @@ import com.philosophy.repository.PhilosopherRepository;
 import com.philosophy.repository.PhilosopherTranslationRepository;
 import com.philosophy.repository.UserContentEditRepository;
 import com.philosophy.util.SearchNormalizer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -35,13 +37,21 @@ public class PhilosopherService {
     private final ContentRepository contentRepository;
     private final UserContentEditRepository userContentEditRepository;
     private final PhilosopherTranslationRepository philosopherTranslationRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private static final String UPLOAD_DIR = "uploads/"; // 上传目录
 
-    public PhilosopherService(PhilosopherRepository philosopherRepository, ContentRepository contentRepository, UserContentEditRepository userContentEditRepository, PhilosopherTranslationRepository philosopherTranslationRepository) {
+    public PhilosopherService(PhilosopherRepository philosopherRepository, ContentRepository contentRepository, UserContentEditRepository userContentEditRepository, PhilosopherTranslationRepository philosopherTranslationRepository, ApplicationEventPublisher eventPublisher) {
         this.philosopherRepository = philosopherRepository;
         this.contentRepository = contentRepository;
         this.userContentEditRepository = userContentEditRepository;
         this.philosopherTranslationRepository = philosopherTranslationRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // 哲学家变化后通知游客页面缓存等在事务提交后失效
+    private Philosopher publishChanged(Philosopher philosopher) {
+        eventPublisher.publishEvent(new PublicContentChangedEvent(PublicContentChangedEvent.Source.PHILOSOPHER, philosopher.getId()));
+        return philosopher;
     }
 
     @Transactional(readOnly = true)
@@ -56,7 +66,7 @@ public class PhilosopherService {
 
     @Transactional
     public Philosopher save(Philosopher philosopher) {
-        return philosopherRepository.save(philosopher);
+        return publishChanged(philosopherRepository.save(philosopher));
     }
 
     @Transactional
@@ -84,6 +94,7 @@ public class PhilosopherService {
 
         // 现在安全地删除哲学家
         philosopherRepository.deleteById(id);
+        eventPublisher.publishEvent(new PublicContentChangedEvent(PublicContentChangedEvent.Source.PHILOSOPHER, id));
     }
 
     // 根据名称搜索哲学家
@@ -122,7 +133,7 @@ public class PhilosopherService {
     @Transactional
     public Philosopher savePhilosopher(Philosopher philosopher) {
         // 直接保存哲学家，不重新计算流派
-        return philosopherRepository.save(philosopher);
+        return publishChanged(philosopherRepository.save(philosopher));
     }
 
     @Transactional
@@ -164,7 +175,7 @@ public class PhilosopherService {
 
         Philosopher savedPhilosopher = philosopherRepository.save(philosopherToSave);
 
-        return savedPhilosopher;
+        return publishChanged(savedPhilosopher);
     }
     
     @Transactional
@@ -216,7 +227,7 @@ public class PhilosopherService {
             savedPhilosopher = philosopherRepository.save(savedPhilosopher);
         }
         
-        return savedPhilosopher;
+        return publishChanged(savedPhilosopher);
     }
 
     @Transactional(readOnly = true)
@@ -1,17 +1,23 @@
 package com.philosophy.service;
 
+import com.philosophy.store.StateStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 速率限制服务，用于防止DDoS攻击
  * 提供IP级别和全局级别的限流功能
+ *
+ * 每个限流规则按key（通常是IP）维护一个令牌桶，令牌桶使用GCRA算法实现：
+ * 只保存一个“理论到达时间”，每次检查是一次原子的条件更新，不加锁也不保存请求记录。
+ * 容量为N、周期为T的规则允许瞬间突发N次，之后每 T/N 恢复一个令牌。
+ * 注意这限制的是平均速率而不是固定窗口计数：从空闲状态开始，任意长度为T的窗口内最多可放行 2N-1 次
+ * （开头突发N次，窗口内再恢复N-1次），之后每个窗口最多N次。配置容量时应按此估算最坏情况。
+ * 令牌桶保存在 StateStore 中（内存或数据库），空闲（令牌已满）的桶由 StateStoreSweeper 定时清理。
  */
 @Service
 public class RateLimitingService {
@@ -21,137 +27,105 @@ public class RateLimitingService {
     // IP级别的限流配置
     private static final int IP_MAX_REQUESTS_PER_HOUR = 10; // 每个IP每小时最多10次
     private static final int IP_MAX_REQUESTS_PER_MINUTE = 3; // 每个IP每分钟最多3次
-    
+
     // 全局限流配置
     private static final int GLOBAL_MAX_REQUESTS_PER_MINUTE = 100; // 全局每分钟最多100次
     private static final int GLOBAL_MAX_REQUESTS_PER_HOUR = 1000; // 全局每小时最多1000次
 
-    // IP级别的请求记录
-    private static class IpRequestRecord {
-        private final ConcurrentHashMap<String, LocalDateTime> requests = new ConcurrentHashMap<>();
-        private final AtomicInteger requestCount = new AtomicInteger(0);
+    private static final String GLOBAL_KEY = "*";
+
+    private final StateStore stateStore;
+
+    // 发送验证码使用的规则
+    private final RateLimit ipMinuteLimit = newLimit("send-code-ip-minute", IP_MAX_REQUESTS_PER_MINUTE, Duration.ofMinutes(1));
+    private final RateLimit ipHourLimit = newLimit("send-code-ip-hour", IP_MAX_REQUESTS_PER_HOUR, Duration.ofHours(1));
+    private final RateLimit globalMinuteLimit = newLimit("send-code-global-minute", GLOBAL_MAX_REQUESTS_PER_MINUTE, Duration.ofMinutes(1));
+    private final RateLimit globalHourLimit = newLimit("send-code-global-hour", GLOBAL_MAX_REQUESTS_PER_HOUR, Duration.ofHours(1));
+
+    public RateLimitingService(StateStore stateStore) {
+        this.stateStore = stateStore;
     }
 
-    // 全局请求记录
-    private static class GlobalRequestRecord {
-        private LocalDateTime minuteWindowStart;
-        private LocalDateTime hourWindowStart;
-        private final AtomicInteger minuteCount = new AtomicInteger(0);
-        private final AtomicInteger hourCount = new AtomicInteger(0);
-        
-        public GlobalRequestRecord() {
-            this.minuteWindowStart = LocalDateTime.now();
-            this.hourWindowStart = LocalDateTime.now();
-        }
+    /**
+     * 创建一个限流规则
+     * @param name 规则名称（同时作为令牌桶key的前缀，不同规则不能重名）
+     * @param capacity 周期内允许的请求数
+     * @param period 周期
+     */
+    public RateLimit newLimit(String name, int capacity, Duration period) {
+        return new RateLimit(name, capacity, period);
     }
 
-    private final ConcurrentHashMap<String, IpRequestRecord> ipRecords = new ConcurrentHashMap<>();
-    private final GlobalRequestRecord globalRecord = new GlobalRequestRecord();
+    /**
+     * 按规则为指定key获取一个令牌
+     * @return RateLimitResult 包含是否允许和剩余等待时间
+     */
+    public RateLimitResult tryAcquire(RateLimit limit, String key) {
+        long waitMillis = acquire(limit, key, System.currentTimeMillis());
+        if (waitMillis <= 0) {
+            return RateLimitResult.ALLOWED;
+        }
+        return new RateLimitResult(false, toWaitSeconds(waitMillis), "请求过于频繁，请稍后再试");
+    }
 
     /**
      * 检查IP是否允许发送验证码
      * @param ipAddress IP地址
      * @return RateLimitResult 包含是否允许和剩余等待时间
      */
-    public synchronized RateLimitResult checkIpRateLimit(String ipAddress) {
-        LocalDateTime now = LocalDateTime.now();
-        IpRequestRecord record = ipRecords.computeIfAbsent(ipAddress, k -> new IpRequestRecord());
-
-        // 清理过期的请求记录（超过1小时）
-        record.requests.entrySet().removeIf(entry -> 
-            Duration.between(entry.getValue(), now).getSeconds() > 3600
-        );
+    public RateLimitResult checkIpRateLimit(String ipAddress) {
+        long now = System.currentTimeMillis();
 
         // 检查每分钟限制
-        long minuteRequests = record.requests.values().stream()
-            .filter(time -> Duration.between(time, now).getSeconds() <= 60)
-            .count();
-        
-        if (minuteRequests >= IP_MAX_REQUESTS_PER_MINUTE) {
-            long oldestRequestTime = record.requests.values().stream()
-                .filter(time -> Duration.between(time, now).getSeconds() <= 60)
-                .mapToLong(time -> Duration.between(time, now).getSeconds())
-                .min()
-                .orElse(60);
-            long waitSeconds = 60 - oldestRequestTime + 1;
-            logger.warn("IP {} 触发每分钟限流: {} 次/分钟，需要等待 {} 秒", 
-                ipAddress, minuteRequests, waitSeconds);
+        long waitMillis = acquire(ipMinuteLimit, ipAddress, now);
+        if (waitMillis > 0) {
+            long waitSeconds = toWaitSeconds(waitMillis);
+            logger.warn("IP {} 触发每分钟限流: {} 次/分钟，需要等待 {} 秒",
+                ipAddress, IP_MAX_REQUESTS_PER_MINUTE, waitSeconds);
             return new RateLimitResult(false, waitSeconds, "请求过于频繁，请稍后再试");
         }
 
         // 检查每小时限制
-        long hourRequests = record.requests.values().stream()
-            .filter(time -> Duration.between(time, now).getSeconds() <= 3600)
-            .count();
-        
-        if (hourRequests >= IP_MAX_REQUESTS_PER_HOUR) {
-            long oldestRequestTime = record.requests.values().stream()
-                .filter(time -> Duration.between(time, now).getSeconds() <= 3600)
-                .mapToLong(time -> Duration.between(time, now).getSeconds())
-                .min()
-                .orElse(3600);
-            long waitSeconds = 3600 - oldestRequestTime + 1;
-            logger.warn("IP {} 触发每小时限流: {} 次/小时，需要等待 {} 秒", 
-                ipAddress, hourRequests, waitSeconds);
+        waitMillis = acquire(ipHourLimit, ipAddress, now);
+        if (waitMillis > 0) {
+            // 本次请求未被放行，归还已取得的分钟令牌
+            refund(ipMinuteLimit, ipAddress);
+            long waitSeconds = toWaitSeconds(waitMillis);
+            logger.warn("IP {} 触发每小时限流: {} 次/小时，需要等待 {} 秒",
+                ipAddress, IP_MAX_REQUESTS_PER_HOUR, waitSeconds);
             return new RateLimitResult(false, waitSeconds, "今日请求次数已达上限，请稍后再试");
         }
 
-        // 记录此次请求
-        String requestId = String.valueOf(System.currentTimeMillis()) + "-" + record.requestCount.incrementAndGet();
-        record.requests.put(requestId, now);
-
-        // 定期清理旧的记录（每100次请求清理一次）
-        if (record.requestCount.get() % 100 == 0) {
-            record.requests.entrySet().removeIf(entry -> 
-                Duration.between(entry.getValue(), now).getSeconds() > 3600
-            );
-        }
-
-        return new RateLimitResult(true, 0, null);
+        return RateLimitResult.ALLOWED;
     }
 
     /**
      * 检查全局是否允许发送验证码
      * @return RateLimitResult 包含是否允许和剩余等待时间
      */
-    public synchronized RateLimitResult checkGlobalRateLimit() {
-        LocalDateTime now = LocalDateTime.now();
-        
+    public RateLimitResult checkGlobalRateLimit() {
+        long now = System.currentTimeMillis();
+
         // 检查每分钟限制
-        long minuteElapsed = Duration.between(globalRecord.minuteWindowStart, now).getSeconds();
-        if (minuteElapsed >= 60) {
-            // 重置分钟窗口
-            globalRecord.minuteWindowStart = now;
-            globalRecord.minuteCount.set(0);
-        }
-        
-        if (globalRecord.minuteCount.get() >= GLOBAL_MAX_REQUESTS_PER_MINUTE) {
-            long waitSeconds = 60 - minuteElapsed + 1;
-            logger.warn("触发全局每分钟限流: {} 次/分钟，需要等待 {} 秒", 
-                globalRecord.minuteCount.get(), waitSeconds);
+        long waitMillis = acquire(globalMinuteLimit, GLOBAL_KEY, now);
+        if (waitMillis > 0) {
+            long waitSeconds = toWaitSeconds(waitMillis);
+            logger.warn("触发全局每分钟限流: {} 次/分钟，需要等待 {} 秒",
+                GLOBAL_MAX_REQUESTS_PER_MINUTE, waitSeconds);
             return new RateLimitResult(false, waitSeconds, "系统繁忙，请稍后再试");
         }
 
         // 检查每小时限制
-        long hourElapsed = Duration.between(globalRecord.hourWindowStart, now).getSeconds();
-        if (hourElapsed >= 3600) {
-            // 重置小时窗口
-            globalRecord.hourWindowStart = now;
-            globalRecord.hourCount.set(0);
-        }
-        
-        if (globalRecord.hourCount.get() >= GLOBAL_MAX_REQUESTS_PER_HOUR) {
-            long waitSeconds = 3600 - hourElapsed + 1;
-            logger.warn("触发全局每小时限流: {} 次/小时，需要等待 {} 秒", 
-                globalRecord.hourCount.get(), waitSeconds);
+        waitMillis = acquire(globalHourLimit, GLOBAL_KEY, now);
+        if (waitMillis > 0) {
+            refund(globalMinuteLimit, GLOBAL_KEY);
+            long waitSeconds = toWaitSeconds(waitMillis);
+            logger.warn("触发全局每小时限流: {} 次/小时，需要等待 {} 秒",
+                GLOBAL_MAX_REQUESTS_PER_HOUR, waitSeconds);
             return new RateLimitResult(false, waitSeconds, "系统繁忙，请稍后再试");
         }
 
-        // 记录此次请求
-        globalRecord.minuteCount.incrementAndGet();
-        globalRecord.hourCount.incrementAndGet();
-
-        return new RateLimitResult(true, 0, null);
+        return RateLimitResult.ALLOWED;
     }
 
     /**
@@ -169,16 +143,61 @@ public class RateLimitingService {
         // 再检查IP限制
         RateLimitResult ipResult = checkIpRateLimit(ipAddress);
         if (!ipResult.isAllowed()) {
+            // IP被拒绝时归还全局令牌，避免单个IP的重试耗尽全局额度
+            refund(globalMinuteLimit, GLOBAL_KEY);
+            refund(globalHourLimit, GLOBAL_KEY);
             return ipResult;
         }
 
-        return new RateLimitResult(true, 0, null);
+        return RateLimitResult.ALLOWED;
+    }
+
+    private long acquire(RateLimit limit, String key, long now) {
+        return stateStore.acquireToken(limit.bucketKey(key), now, limit.intervalMillis, limit.toleranceMillis);
+    }
+
+    private void refund(RateLimit limit, String key) {
+        stateStore.refundToken(limit.bucketKey(key), limit.intervalMillis);
+    }
+
+    private static long toWaitSeconds(long waitMillis) {
+        return TimeUnit.MILLISECONDS.toSeconds(waitMillis) + 1;
+    }
+
+    /**
+     * 一条限流规则
+     */
+    public static final class RateLimit {
+        private final String name;
+        // 每个令牌的恢复间隔
+        private final long intervalMillis;
+        // 允许的突发容差：(容量 - 1) 个间隔，即空桶可以连续放行“容量”次；首个周期内最多放行 2×容量-1 次
+        private final long toleranceMillis;
+
+        private RateLimit(String name, int capacity, Duration period) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("限流容量必须大于0: " + name);
+            }
+            this.name = name;
+            this.intervalMillis = period.toMillis() / capacity;
+            this.toleranceMillis = intervalMillis * (capacity - 1);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        private String bucketKey(String key) {
+            return name + ":" + key;
+        }
     }
 
     /**
      * 速率限制结果
      */
     public static class RateLimitResult {
+        private static final RateLimitResult ALLOWED = new RateLimitResult(true, 0, null);
+
         private final boolean allowed;
         private final long waitSeconds;
         private final String message;
@@ -201,18 +220,4 @@ public class RateLimitingService {
             return message;
         }
     }
-
-    /**
-     * 清理过期的IP记录（用于内存管理）
-     */
-    public void cleanupExpiredRecords() {
-        LocalDateTime now = LocalDateTime.now();
-        ipRecords.entrySet().removeIf(entry -> {
-            IpRequestRecord record = entry.getValue();
-            // 如果最后一条记录超过2小时，则删除该IP的记录
-            return record.requests.values().stream()
-                .allMatch(time -> Duration.between(time, now).getSeconds() > 7200);
-        });
-    }
 }
-
@@ -1,5 +1,6 @@
 package com.philosophy.service;
 
+import com.philosophy.event.PublicContentChangedEvent;
 import com.philosophy.model.School;
 import com.philosophy.model.Philosopher;
 import com.philosophy.model.Content;
@@ -10,6 +11,7 @@ import com.philosophy.repository.PhilosopherRepository;
 import com.philosophy.repository.ContentRepository;
 import com.philosophy.repository.SchoolTranslationRepository;
 import com.philosophy.util.SearchNormalizer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,14 +36,21 @@ public class SchoolService {
     private final TranslationService translationService;
     private final SchoolTranslationRepository schoolTranslationRepository;
     private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public SchoolService(SchoolRepository schoolRepository, PhilosopherRepository philosopherRepository, ContentRepository contentRepository, TranslationService translationService, SchoolTranslationRepository schoolTranslationRepository, EntityManager entityManager) {
+    public SchoolService(SchoolRepository schoolRepository, PhilosopherRepository philosopherRepository, ContentRepository contentRepository, TranslationService translationService, SchoolTranslationRepository schoolTranslationRepository, EntityManager entityManager, ApplicationEventPublisher eventPublisher) {
         this.schoolRepository = schoolRepository;
         this.philosopherRepository = philosopherRepository;
         this.contentRepository = contentRepository;
         this.translationService = translationService;
         this.schoolTranslationRepository = schoolTranslationRepository;
         this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // 流派变化后通知游客页面缓存等在事务提交后失效
+    private void publishChanged(Long schoolId) {
+        eventPublisher.publishEvent(new PublicContentChangedEvent(PublicContentChangedEvent.Source.SCHOOL, schoolId));
     }
 
     @Transactional(readOnly = true)
@@ -56,12 +65,15 @@ public class SchoolService {
 
     @Transactional
     public School save(School school) {
-        return schoolRepository.save(school);
+        School saved = schoolRepository.save(school);
+        publishChanged(saved.getId());
+        return saved;
     }
 
     @Transactional
     public void deleteById(Long id) {
         schoolRepository.deleteById(id);
+        publishChanged(id);
     }
 
     // 查找顶级学派（没有父学派的学派）
@@ -163,6 +175,7 @@ public class SchoolService {
         }
 
         School savedSchool = schoolRepository.save(schoolToSave);
+        publishChanged(savedSchool.getId());
 
         return savedSchool;
     }
@@ -222,6 +235,7 @@ public class SchoolService {
             
             // 6. 最后删除流派
             schoolRepository.delete(school);
+            publishChanged(id);
         }
     }
 
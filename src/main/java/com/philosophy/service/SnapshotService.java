@@ -0,0 +1,292 @@
+package com.philosophy.service;
+
+import com.philosophy.event.PublicContentChangedEvent;
+import com.philosophy.snapshot.SnapshotColumnType;
+import com.philosophy.snapshot.SnapshotFormat;
+import com.philosophy.snapshot.SnapshotReader;
+import com.philosophy.snapshot.SnapshotWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 二进制快照备份与恢复（格式见 SnapshotFormat）
+ * 与CSV导出/导入相比：按JDBC类型原样保存每一列，没有转义、多行字段和日期格式解析的问题；
+ * 恢复时直接用JDBC批量INSERT写入，不经过JPA。CSV导出仍保留，用于人工查看。
+ * MySQL数据源的URL中加上 rewriteBatchedStatements=true 时，批量INSERT会合并为多值语句，恢复速度更快。
+ */
+@Service
+public class SnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    /**
+     * 快照包含的表，被引用的表在前
+     */
+    public static final List<String> TABLES = List.of(
+            "users", "schools", "philosophers", "philosopher_school", "contents", "comments",
+            "likes", "user_content_edits", "user_blocks", "user_follows", "user_login_info",
+            "schools_translation", "contents_translation", "philosophers_translation", "test_results");
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SnapshotService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 导出全部表到output
+     * 在一个只读事务中逐表流式读取，各表数据来自同一快照。调用方负责output的缓冲和关闭。
+     */
+    public List<TableResult> exportSnapshot(OutputStream output) throws IOException {
+        try {
+            return readOnlyTransactionTemplate.execute(status -> jdbcTemplate.execute(
+                    (ConnectionCallback<List<TableResult>>) connection -> {
+                        List<TableResult> results = new ArrayList<>();
+                        try (SnapshotWriter writer = new SnapshotWriter(output)) {
+                            for (String table : TABLES) {
+                                results.add(exportTable(connection, writer, table));
+                            }
+                            writer.finish();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return results;
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private TableResult exportTable(Connection connection, SnapshotWriter writer, String table)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
+        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM " + table,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL驱动只有在fetchSize为Integer.MIN_VALUE时才逐行流式读取，否则会把整张表读入内存
+            ps.setFetchSize(isMySql(connection) ? Integer.MIN_VALUE : FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                List<SnapshotFormat.Column> columns = new ArrayList<>(columnCount);
+                SnapshotColumnType[] types = new SnapshotColumnType[columnCount];
+                for (int i = 1; i <= columnCount; i++) {
+                    int sqlType = metaData.getColumnType(i);
+                    types[i - 1] = SnapshotColumnType.fromSqlType(sqlType);
+                    columns.add(new SnapshotFormat.Column(metaData.getColumnLabel(i), types[i - 1], sqlType));
+                }
+
+                writer.beginTable(table, columns);
+                Object[] row = new Object[columnCount];
+                while (rs.next()) {
+                    for (int i = 0; i < columnCount; i++) {
+                        row[i] = types[i].read(rs, i + 1);
+                    }
+                    writer.writeRow(row);
+                }
+                long rows = writer.endTable();
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                logger.info("快照导出 {} 完成: {} 行, {} ms", table, rows, millis);
+                return new TableResult(table, rows, millis);
+            }
+        }
+    }
+
+    /**
+     * 用快照替换现有数据
+     * 在一个事务中先清空 TABLES 中的全部表，再按快照逐表批量插入；任何一步失败都整体回滚，现有数据保持不变。
+     * 快照中的列按名称匹配目标表，目标表中已不存在的列会被忽略。
+     * 事务提交后发布 IMPORT 事件，让游客页面缓存等失效；回滚时不发布。
+     */
+    public List<TableResult> restoreSnapshot(InputStream input) throws IOException {
+        List<TableResult> results;
+        try {
+            results = transactionTemplate.execute(status -> jdbcTemplate.execute(
+                    (ConnectionCallback<List<TableResult>>) connection -> {
+                        try {
+                            return restore(connection, new SnapshotReader(input));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        eventPublisher.publishEvent(new PublicContentChangedEvent(PublicContentChangedEvent.Source.IMPORT, null));
+        return results;
+    }
+
+    private List<TableResult> restore(Connection connection, SnapshotReader reader) throws SQLException, IOException {
+        boolean mysql = isMySql(connection);
+        try (Statement statement = connection.createStatement()) {
+            if (mysql) {
+                statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            }
+            try {
+                for (int i = TABLES.size() - 1; i >= 0; i--) {
+                    statement.executeUpdate("DELETE FROM " + TABLES.get(i));
+                }
+                List<TableResult> results = new ArrayList<>();
+                String table;
+                while ((table = reader.nextTable()) != null) {
+                    if (!TABLES.contains(table)) {
+                        throw new IOException("快照中包含未知的表: " + table);
+                    }
+                    results.add(restoreTable(connection, reader, table));
+                }
+                return results;
+            } finally {
+                if (mysql) {
+                    statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+                }
+            }
+        }
+    }
+
+    private TableResult restoreTable(Connection connection, SnapshotReader reader, String table)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
+        Map<String, TargetColumn> targetColumns = loadTargetColumns(connection, table);
+
+        // 只写入目标表中存在的列
+        List<SnapshotFormat.Column> snapshotColumns = reader.getColumns();
+        List<Integer> sourceIndexes = new ArrayList<>();
+        List<TargetColumn> targets = new ArrayList<>();
+        for (int i = 0; i < snapshotColumns.size(); i++) {
+            TargetColumn target = targetColumns.get(snapshotColumns.get(i).getName().toLowerCase(Locale.ROOT));
+            if (target != null) {
+                sourceIndexes.add(i);
+                targets.add(target);
+            } else {
+                logger.warn("快照恢复: 表 {} 中已不存在列 {}，忽略", table, snapshotColumns.get(i).getName());
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        for (int i = 0; i < targets.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(targets.get(i).name);
+        }
+        sql.append(") VALUES (");
+        for (int i = 0; i < targets.size(); i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        sql.append(")");
+
+        long rows = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            int batched = 0;
+            SnapshotReader.Block block;
+            while ((block = reader.nextBlock()) != null) {
+                for (int r = 0; r < block.getRowCount(); r++) {
+                    for (int c = 0; c < targets.size(); c++) {
+                        int source = sourceIndexes.get(c);
+                        Object value = block.getValue(r, source);
+                        if (value == null) {
+                            ps.setNull(c + 1, targets.get(c).sqlType);
+                        } else {
+                            snapshotColumns.get(source).getType().bind(ps, c + 1, value);
+                        }
+                    }
+                    ps.addBatch();
+                    if (++batched == BATCH_SIZE) {
+                        ps.executeBatch();
+                        batched = 0;
+                    }
+                }
+                rows += block.getRowCount();
+            }
+            if (batched > 0) {
+                ps.executeBatch();
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("快照恢复 {} 完成: {} 行, {} ms", table, rows, millis);
+        return new TableResult(table, rows, millis);
+    }
+
+    private Map<String, TargetColumn> loadTargetColumns(Connection connection, String table) throws SQLException {
+        Map<String, TargetColumn> columns = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                String name = metaData.getColumnName(i);
+                columns.put(name.toLowerCase(Locale.ROOT), new TargetColumn(name, metaData.getColumnType(i)));
+            }
+        }
+        return columns;
+    }
+
+    private boolean isMySql(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+    }
+
+    private static final class TargetColumn {
+        private final String name;
+        private final int sqlType;
+
+        private TargetColumn(String name, int sqlType) {
+            this.name = name;
+            this.sqlType = sqlType;
+        }
+    }
+
+    /**
+     * 单张表的快照导出或恢复结果
+     */
+    public static class TableResult {
+        private final String table;
+        private final long rows;
+        private final long millis;
+
+        public TableResult(String table, long rows, long millis) {
+            this.table = table;
+            this.rows = rows;
+            this.millis = millis;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.philosophy.service;
 
+import com.philosophy.event.PublicContentChangedEvent;
 import com.philosophy.model.School;
 import com.philosophy.model.Content;
 import com.philosophy.model.Philosopher;
@@ -10,6 +11,7 @@ import com.philosophy.repository.SchoolTranslationRepository;
 import com.philosophy.repository.ContentTranslationRepository;
 import com.philosophy.repository.PhilosopherTranslationRepository;
 import com.philosophy.repository.ContentRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,15 +29,23 @@ public class TranslationService {
     private final ContentTranslationRepository contentTranslationRepository;
     private final PhilosopherTranslationRepository philosopherTranslationRepository;
     private final ContentRepository contentRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TranslationService(SchoolTranslationRepository schoolTranslationRepository, 
                              ContentTranslationRepository contentTranslationRepository,
                              PhilosopherTranslationRepository philosopherTranslationRepository,
-                             ContentRepository contentRepository) {
+                             ContentRepository contentRepository,
+                             ApplicationEventPublisher eventPublisher) {
         this.schoolTranslationRepository = schoolTranslationRepository;
         this.contentTranslationRepository = contentTranslationRepository;
         this.philosopherTranslationRepository = philosopherTranslationRepository;
         this.contentRepository = contentRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // 翻译变化后通知游客页面缓存等在事务提交后失效，entityId为翻译所属的流派/内容/哲学家ID
+    private void publishChanged(Long entityId) {
+        eventPublisher.publishEvent(new PublicContentChangedEvent(PublicContentChangedEvent.Source.TRANSLATION, entityId));
     }
 
     // ==================== 流派翻译相关方法 ====================
@@ -163,7 +173,9 @@ public class TranslationService {
             translation = new SchoolTranslation(school, languageCode, nameEn, descriptionEn);
         }
         
-        return schoolTranslationRepository.save(translation);
+        SchoolTranslation saved = schoolTranslationRepository.save(translation);
+        publishChanged(schoolId);
+        return saved;
     }
 
     /**
@@ -172,6 +184,7 @@ public class TranslationService {
     @Transactional
     public void deleteSchoolTranslation(Long schoolId, String languageCode) {
         schoolTranslationRepository.deleteBySchoolIdAndLanguageCode(schoolId, languageCode);
+        publishChanged(schoolId);
     }
 
     // ==================== 内容翻译相关方法 ====================
@@ -253,7 +266,9 @@ public class TranslationService {
             translation = new ContentTranslation(content, languageCode, contentEn);
         }
         
-        return contentTranslationRepository.save(translation);
+        ContentTranslation saved = contentTranslationRepository.save(translation);
+        publishChanged(contentId);
+        return saved;
     }
 
     /**
@@ -261,7 +276,10 @@ public class TranslationService {
      */
     @Transactional
     public void deleteContentTranslation(Long contentId, String languageCode) {
-        contentTranslationRepository.deleteByContentIdAndLanguageCode(contentId, languageCode);
+        // 按实体删除，删除监听器为增量导出记录删除
+        contentTranslationRepository.findByContentIdAndLanguageCode(contentId, languageCode)
+                .ifPresent(contentTranslationRepository::delete);
+        publishChanged(contentId);
     }
 
     // ==================== 批量操作方法 ====================
@@ -401,7 +419,9 @@ public class TranslationService {
             translation = new PhilosopherTranslation(philosopher, languageCode, nameEn, biographyEn);
         }
         
-        return philosopherTranslationRepository.save(translation);
+        PhilosopherTranslation saved = philosopherTranslationRepository.save(translation);
+        publishChanged(philosopherId);
+        return saved;
     }
 
     /**
@@ -410,6 +430,7 @@ public class TranslationService {
     @Transactional
     public void deletePhilosopherTranslation(Long philosopherId, String languageCode) {
         philosopherTranslationRepository.deleteByPhilosopherIdAndLanguageCode(philosopherId, languageCode);
+        publishChanged(philosopherId);
     }
 
     /**
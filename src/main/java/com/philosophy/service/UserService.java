@@ -1,5 +1,6 @@
 package com.philosophy.service;
 
+import com.philosophy.event.PublicContentChangedEvent;
 import com.philosophy.model.User;
 import com.philosophy.model.UserLoginInfo;
 import com.philosophy.model.Comment;
@@ -19,6 +20,7 @@ import com.philosophy.repository.UserContentEditRepository;
 import com.philosophy.repository.UserBlockRepository;
 import com.philosophy.repository.PhilosopherRepository;
 import com.philosophy.util.SearchNormalizer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -27,6 +29,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class UserService implements UserDetailsService {
@@ -41,13 +47,17 @@ public class UserService implements UserDetailsService {
     private final UserContentEditRepository userContentEditRepository;
     private final UserBlockRepository userBlockRepository;
     private final PhilosopherRepository philosopherRepository;
+    private final UserSnapshotService userSnapshotService;
+    private final ApplicationEventPublisher eventPublisher;
     
     public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, 
                       UserLoginInfoRepository userLoginInfoRepository, CommentRepository commentRepository,
                       ContentRepository contentRepository, UserFollowRepository userFollowRepository,
                       LikeRepository likeRepository, UserContentEditRepository userContentEditRepository,
                       UserBlockRepository userBlockRepository,
-                      PhilosopherRepository philosopherRepository) {
+                      PhilosopherRepository philosopherRepository,
+                      UserSnapshotService userSnapshotService,
+                      ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userLoginInfoRepository = userLoginInfoRepository;
@@ -58,6 +68,8 @@ public class UserService implements UserDetailsService {
         this.userContentEditRepository = userContentEditRepository;
         this.userBlockRepository = userBlockRepository;
         this.philosopherRepository = philosopherRepository;
+        this.userSnapshotService = userSnapshotService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -119,6 +131,13 @@ public class UserService implements UserDetailsService {
     public User getUserById(Long id) {
         return userRepository.findById(id).orElse(null);
     }
+
+    /**
+     * 获取用户的引用（不查询数据库），仅用于设置关联关系
+     */
+    public User getUserReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
     
     @Transactional(readOnly = true)
     public Long countUsers() {
@@ -132,12 +151,17 @@ public class UserService implements UserDetailsService {
     
     @Transactional
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userSnapshotService.invalidate(saved.getId());
+        return saved;
     }
     
     @Transactional
     public User updateUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // 主题、语言、角色等变化后，该用户所有会话中的快照需要重新加载
+        userSnapshotService.invalidate(saved.getId());
+        return saved;
     }
     
     @Transactional
@@ -157,7 +181,21 @@ public class UserService implements UserDetailsService {
         // 2.1 删除用户创建的所有评论
         List<Comment> userComments = commentRepository.findByUserIdWithContent(id);
         if (!userComments.isEmpty()) {
+            Set<Long> affectedContentIds = new HashSet<>();
+            for (Comment comment : userComments) {
+                if (comment.getContent() != null) {
+                    affectedContentIds.add(comment.getContent().getId());
+                }
+            }
             commentRepository.deleteAll(userComments);
+            // 级联删除的回复数量无法逐条扣减，按评论表重新计算受影响内容的评论数
+            Map<Long, Long> remainingCounts = new HashMap<>();
+            for (Object[] row : commentRepository.countByContentIds(affectedContentIds)) {
+                remainingCounts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+            }
+            for (Long contentId : affectedContentIds) {
+                contentRepository.setCommentCount(contentId, remainingCounts.getOrDefault(contentId, 0L).intValue());
+            }
         }
         
         // 2.2 处理用户设置隐私的评论 - 重置隐私设置者
@@ -244,6 +282,9 @@ public class UserService implements UserDetailsService {
         
         // 12. 最后删除用户记录
         userRepository.delete(user);
+        userSnapshotService.invalidate(id);
+        // 用户的内容和评论随之删除，游客页面缓存需要失效
+        eventPublisher.publishEvent(new PublicContentChangedEvent(PublicContentChangedEvent.Source.USER, id));
     }
     
     @Transactional(readOnly = true)
@@ -0,0 +1,131 @@
+package com.philosophy.service;
+
+import com.philosophy.model.User;
+import com.philosophy.repository.UserRepository;
+import com.philosophy.security.UserSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话级用户快照服务
+ * 登录时在会话中保存 UserSnapshot，之后的请求直接读取快照。
+ * 用户记录被修改时（包括管理员修改他人的角色）登记一个新的版本号，
+ * 持有旧版本快照的会话在下次读取时会从数据库重新加载。
+ */
+@Service
+public class UserSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSnapshotService.class);
+
+    public static final String SESSION_ATTRIBUTE = "USER_SNAPSHOT";
+
+    private final UserRepository userRepository;
+
+    // 全局递增的版本号
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    // 用户ID -> 该用户最近一次被修改时的版本号
+    private final Map<Long, Long> invalidatedVersions = new ConcurrentHashMap<>();
+
+    public UserSnapshotService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * 登录成功或当前用户修改资料后，用最新的用户数据建立快照
+     */
+    public UserSnapshot establish(HttpSession session, User user) {
+        UserSnapshot snapshot = UserSnapshot.from(user, versionSequence.get());
+        if (session != null) {
+            session.setAttribute(SESSION_ATTRIBUTE, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 获取当前登录用户的快照，未登录时返回null
+     * 会话中没有快照（如通过记住我登录）或快照已失效时从数据库加载一次
+     */
+    public UserSnapshot getCurrentSnapshot(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        String username = authentication.getName();
+        HttpSession session = currentSession();
+
+        if (session != null) {
+            Object attribute = session.getAttribute(SESSION_ATTRIBUTE);
+            if (attribute instanceof UserSnapshot snapshot
+                    && username.equals(snapshot.getUsername())
+                    && !isStale(snapshot)) {
+                return snapshot;
+            }
+        }
+
+        // 先读取版本号再查询，查询期间发生的修改会使本次快照立即失效
+        long version = versionSequence.get();
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        UserSnapshot snapshot = UserSnapshot.from(user, version);
+        if (session != null) {
+            session.setAttribute(SESSION_ATTRIBUTE, snapshot);
+        }
+        logger.debug("已加载用户快照: {}", snapshot);
+        return snapshot;
+    }
+
+    /**
+     * 标记用户快照失效，该用户所有会话在下次请求时重新加载
+     * 在事务中调用时推迟到提交之后，避免其他请求读到未提交前的旧数据并当作新快照
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markInvalidated(userId);
+                }
+            });
+        } else {
+            markInvalidated(userId);
+        }
+    }
+
+    private void markInvalidated(Long userId) {
+        invalidatedVersions.put(userId, versionSequence.incrementAndGet());
+    }
+
+    private boolean isStale(UserSnapshot snapshot) {
+        Long invalidatedVersion = invalidatedVersions.get(snapshot.getId());
+        return invalidatedVersion != null && snapshot.getVersion() < invalidatedVersion;
+    }
+
+    private HttpSession currentSession() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            return request.getSession(false);
+        }
+        return null;
+    }
+}
@@ -1,11 +1,11 @@
 package com.philosophy.service;
 
+import com.philosophy.store.StateStore;
+import com.philosophy.store.StateStore.CodeRecord;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,38 +13,30 @@ import org.slf4j.LoggerFactory;
 public class VerificationCodeService {
 
     private static final Logger logger = LoggerFactory.getLogger(VerificationCodeService.class);
-    private static class CodeRecord {
-        String code;
-        LocalDateTime expiresAt;
-        LocalDateTime lastSentAt;
-        int verifyAttempts;
-    }
 
-    private final ConcurrentHashMap<String, CodeRecord> emailToCode = new ConcurrentHashMap<>();
+    private static final long CODE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long RESEND_COOLDOWN_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final int MAX_VERIFY_ATTEMPTS = 5;
+
+    // 验证码保存在 StateStore 中，多节点部署时各节点共享
+    private final StateStore stateStore;
+
+    public VerificationCodeService(StateStore stateStore) {
+        this.stateStore = stateStore;
+    }
 
     /**
      * Generate a 6-digit code with 10 minutes validity and 60s resend cooldown.
      * Throws IllegalStateException with remaining seconds if cooldown not passed.
      */
-    public synchronized String generateAndStoreCode(String email) {
-        LocalDateTime now = LocalDateTime.now();
-        CodeRecord existing = emailToCode.get(email);
-        if (existing != null && existing.lastSentAt != null) {
-            long secondsSinceLast = Duration.between(existing.lastSentAt, now).getSeconds();
-            if (secondsSinceLast < 60) {
-                long remaining = 60 - secondsSinceLast;
-                throw new IllegalStateException(String.valueOf(remaining));
-            }
-        }
-
+    public String generateAndStoreCode(String email) {
+        long now = System.currentTimeMillis();
         String code = String.format("%06d", ThreadLocalRandom.current().nextInt(0, 1_000_000));
-        CodeRecord record = new CodeRecord();
-        record.code = code;
-        record.expiresAt = now.plusMinutes(10);
-        record.lastSentAt = now;
-        record.verifyAttempts = 0;
-        emailToCode.put(email, record);
-        logger.info("Generated and stored code for email: {}. Current store size: {}", email, emailToCode.size());
+        long remainingMillis = stateStore.saveCodeIfResendAllowed(email, code, now, now + CODE_TTL_MILLIS, RESEND_COOLDOWN_MILLIS);
+        if (remainingMillis > 0) {
+            throw new IllegalStateException(String.valueOf(toSeconds(remainingMillis)));
+        }
+        logger.info("Generated and stored code for email: {}", email);
         return code;
     }
 
@@ -52,49 +44,55 @@ public class VerificationCodeService {
      * Verify the code. On success or too many failures/expired, the record is removed.
      */
     public boolean verifyCode(String email, String inputCode) {
-        logger.info("Attempting to verify code for email: {}. Current store size: {}. Keys: {}", email, emailToCode.size(), emailToCode.keySet());
-        CodeRecord record = emailToCode.get(email);
+        logger.info("Attempting to verify code for email: {}", email);
+        CodeRecord record = stateStore.getCode(email);
         if (record == null) {
             logger.warn("Verification failed: No code record found for email: {}", email);
             return false;
         }
-        if (record.expiresAt != null && LocalDateTime.now().isAfter(record.expiresAt)) {
-            emailToCode.remove(email);
+        if (System.currentTimeMillis() > record.getExpiresAt()) {
+            stateStore.deleteCode(email);
             logger.warn("Verification failed: Code expired for email: {}", email);
             return false;
         }
-        record.verifyAttempts++;
-        boolean ok = record.code != null && record.code.equals(inputCode);
-        if (ok) {
+
+        // 验证成功时原子地删除记录，同一个验证码只能使用一次
+        if (inputCode != null && stateStore.consumeCode(email, inputCode)) {
             logger.info("Verification successful for email: {}", email);
-        } else {
-            logger.warn("Verification failed: Incorrect code for email: {}. Attempt {} of 5.", email, record.verifyAttempts);
+            logger.info("Code record removed for email: {}. Reason: successful verification", email);
+            return true;
         }
 
-        if (ok || record.verifyAttempts >= 5) {
-            emailToCode.remove(email);
-            logger.info("Code record removed for email: {}. Reason: {}", email, ok ? "successful verification" : "max attempts reached");
+        int attempts = stateStore.incrementCodeAttempts(email);
+        if (attempts < 0) {
+            logger.warn("Verification failed: Code record no longer exists for email: {}", email);
+            return false;
+        }
+        logger.warn("Verification failed: Incorrect code for email: {}. Attempt {} of {}.", email, attempts, MAX_VERIFY_ATTEMPTS);
+        if (attempts >= MAX_VERIFY_ATTEMPTS) {
+            stateStore.deleteCode(email);
+            logger.info("Code record removed for email: {}. Reason: max attempts reached", email);
         }
-        return ok;
+        return false;
     }
 
     /**
      * Seconds remaining until resend is allowed. 0 means allowed now.
      */
     public long getSecondsUntilResendAllowed(String email) {
-        CodeRecord record = emailToCode.get(email);
-        if (record == null || record.lastSentAt == null) {
+        CodeRecord record = stateStore.getCode(email);
+        if (record == null) {
             return 0;
         }
-        long elapsed = Duration.between(record.lastSentAt, LocalDateTime.now()).getSeconds();
-        long remaining = 60 - elapsed;
-        return Math.max(0, remaining);
+        long remaining = RESEND_COOLDOWN_MILLIS - (System.currentTimeMillis() - record.getLastSentAt());
+        return remaining > 0 ? toSeconds(remaining) : 0;
     }
 
     public void clear(String email) {
-        emailToCode.remove(email);
+        stateStore.deleteCode(email);
     }
-}
-
-
 
+    private static long toSeconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+}
@@ -0,0 +1,336 @@
+package com.philosophy.snapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+/**
+ * 快照中的列类型
+ * 每种类型负责：从ResultSet读取、编码到块、从块解码、绑定到INSERT语句。
+ * 类型代码写入文件，只能追加，不能修改已有代码。
+ */
+public enum SnapshotColumnType {
+
+    LONG(1, 8) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            long value = rs.getLong(index);
+            return rs.wasNull() ? null : value;
+        }
+
+        @Override
+        public void encode(DataOutputStream out, Object value) throws IOException {
+            out.writeLong((Long) value);
+        }
+
+        @Override
+        public Object decode(DataInputStream in) throws IOException {
+            return in.readLong();
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setLong(index, (Long) value);
+        }
+    },
+
+    BOOLEAN(2, 1) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            boolean value = rs.getBoolean(index);
+            return rs.wasNull() ? null : value;
+        }
+
+        @Override
+        public void encode(DataOutputStream out, Object value) throws IOException {
+            out.writeBoolean((Boolean) value);
+        }
+
+        @Override
+        public Object decode(DataInputStream in) throws IOException {
+            return in.readBoolean();
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setBoolean(index, (Boolean) value);
+        }
+    },
+
+    DOUBLE(3, 8) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            double value = rs.getDouble(index);
+            return rs.wasNull() ? null : value;
+        }
+
+        @Override
+        public void encode(DataOutputStream out, Object value) throws IOException {
+            out.writeDouble((Double) value);
+        }
+
+        @Override
+        public Object decode(DataInputStream in) throws IOException {
+            return in.readDouble();
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setDouble(index, (Double) value);
+        }
+    },
+
+    DECIMAL(4, -1) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getBigDecimal(index);
+        }
+
+        @Override
+        public void encode(DataOutputStream out, Object value) throws IOException {
+            writeBytes(out, ((BigDecimal) value).toString().getBytes(StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public Object decode(DataInputStream in) throws IOException {
+            return new BigDecimal(new String(readBytes(in), StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public long estimateSize(Object value) {
+            // toString 最多是全部数字加符号、小数点和指数部分
+            return 4 + ((BigDecimal) value).precision() + 16;
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setBigDecimal(index, (BigDecimal) value);
+        }
+    },
+
+    STRING(5, -1) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getString(index);
+        }
+
+        @Override
+        public void encode(DataOutputStream out, Object value) throws IOException {
+            writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Object decode(DataInputStream in) throws IOException {
+            return new String(readBytes(in), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public long estimateSize(Object value) {
+            // 每个UTF-16字符编码为UTF-8最多3字节（代理对两个字符共4字节）
+            return 4 + 3L * ((String) value).length();
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setString(index, (String) value);
+        }
+    },
+
+    // 不带时区的日期时间，按UTC换算为秒和纳秒保存，读写两端不受JVM时区影响
+    TIMESTAMP(6, 12) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getObject(index, LocalDateTime.class);
+        }
+
+        @Override
+        public void encode(DataOutputStream out, Object value) throws IOException {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(dateTime.getNano());
+        }
+
+        @Override
+        public Object decode(DataInputStream in) throws IOException {
+            long seconds = in.readLong();
+            int nanos = in.readInt();
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setObject(index, value);
+        }
+    },
+
+    DATE(7, 8) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getObject(index, LocalDate.class);
+        }
+
+        @Override
+        public void encode(DataOutputStream out, Object value) throws IOException {
+            out.writeLong(((LocalDate) value).toEpochDay());
+        }
+
+        @Override
+        public Object decode(DataInputStream in) throws IOException {
+            return LocalDate.ofEpochDay(in.readLong());
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setObject(index, value);
+        }
+    },
+
+    TIME(8, 8) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getObject(index, LocalTime.class);
+        }
+
+        @Override
+        public void encode(DataOutputStream out, Object value) throws IOException {
+            out.writeLong(((LocalTime) value).toNanoOfDay());
+        }
+
+        @Override
+        public Object decode(DataInputStream in) throws IOException {
+            return LocalTime.ofNanoOfDay(in.readLong());
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setObject(index, value);
+        }
+    },
+
+    BYTES(9, -1) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getBytes(index);
+        }
+
+        @Override
+        public void encode(DataOutputStream out, Object value) throws IOException {
+            writeBytes(out, (byte[]) value);
+        }
+
+        @Override
+        public Object decode(DataInputStream in) throws IOException {
+            return readBytes(in);
+        }
+
+        @Override
+        public long estimateSize(Object value) {
+            return 4 + ((byte[]) value).length;
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setBytes(index, (byte[]) value);
+        }
+    };
+
+    private final int code;
+    private final int fixedSize;
+
+    /**
+     * @param fixedSize 定长类型编码后的字节数，变长类型为-1并覆盖 estimateSize
+     */
+    SnapshotColumnType(int code, int fixedSize) {
+        this.code = code;
+        this.fixedSize = fixedSize;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * 非空值编码后字节数的上界，写入时用于控制块大小
+     */
+    public long estimateSize(Object value) {
+        return fixedSize;
+    }
+
+    public abstract Object read(ResultSet rs, int index) throws SQLException;
+
+    public abstract void encode(DataOutputStream out, Object value) throws IOException;
+
+    public abstract Object decode(DataInputStream in) throws IOException;
+
+    public abstract void bind(PreparedStatement ps, int index, Object value) throws SQLException;
+
+    public static SnapshotColumnType fromCode(int code) throws IOException {
+        for (SnapshotColumnType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IOException("未知的快照列类型: " + code);
+    }
+
+    /**
+     * 按JDBC类型选择快照列类型，无法识别的类型按字符串保存
+     */
+    public static SnapshotColumnType fromSqlType(int sqlType) {
+        switch (sqlType) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return LONG;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return DECIMAL;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.DATE:
+                return DATE;
+            case Types.TIME:
+                return TIME;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BYTES;
+            default:
+                return STRING;
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("快照数据损坏: 长度为负数");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
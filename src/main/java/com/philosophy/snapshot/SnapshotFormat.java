@@ -0,0 +1,61 @@
+package com.philosophy.snapshot;
+
+/**
+ * 二进制快照文件格式（版本1）
+ * <pre>
+ * 文件头   : 魔数 "PHSN"(4字节) | 版本(short) | 创建时间毫秒(long)
+ * 每张表   : 标记 1(byte) | 表名 | 列数(short) | 每列 [列名 | 类型代码(byte) | JDBC类型(int)]
+ *            | 若干数据块 | 结束块 行数0(int)
+ * 文件结束 : 标记 0(byte)
+ * 数据块   : 行数(int) | 原始长度(int) | 压缩后长度(int) | 原始数据的CRC32(long) | Deflate压缩数据
+ * 块内数据 : 按列存放，每列先是空值位图((行数+7)/8字节)，再依次是非空值
+ * </pre>
+ * 名称都以 长度(short) + UTF-8字节 保存，多字节整数为大端序。
+ */
+public final class SnapshotFormat {
+
+    public static final byte[] MAGIC = {'P', 'H', 'S', 'N'};
+    public static final int VERSION = 1;
+
+    // 每块的最大行数
+    public static final int ROWS_PER_BLOCK = 4096;
+
+    // 单块原始数据的上限，读取时用于识别损坏的长度字段
+    public static final int MAX_BLOCK_BYTES = 256 * 1024 * 1024;
+
+    // 写入时单块原始数据的目标大小：按估算字节数达到该值就提前结束当前块，长文本表不会因行数未满而超过上限
+    public static final int TARGET_BLOCK_BYTES = 16 * 1024 * 1024;
+
+    static final byte TABLE_MARKER = 1;
+    static final byte END_MARKER = 0;
+
+    private SnapshotFormat() {
+    }
+
+    /**
+     * 列定义
+     */
+    public static final class Column {
+        private final String name;
+        private final SnapshotColumnType type;
+        private final int sqlType;
+
+        public Column(String name, SnapshotColumnType type, int sqlType) {
+            this.name = name;
+            this.type = type;
+            this.sqlType = sqlType;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public SnapshotColumnType getType() {
+            return type;
+        }
+
+        public int getSqlType() {
+            return sqlType;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.philosophy.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 按 SnapshotFormat 读取快照
+ * 用法：循环 nextTable，对每张表循环 nextBlock 直到返回null。
+ * 每个块解压后先校验CRC32，校验失败抛出IOException，不会把损坏的数据交给调用方。
+ */
+public class SnapshotReader {
+
+    private final DataInputStream in;
+    private final long createdAtMillis;
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+
+    private List<SnapshotFormat.Column> columns;
+    private String tableName;
+
+    public SnapshotReader(InputStream input) throws IOException {
+        this.in = new DataInputStream(input);
+        byte[] magic = new byte[SnapshotFormat.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, SnapshotFormat.MAGIC)) {
+            throw new IOException("不是有效的快照文件");
+        }
+        int version = in.readUnsignedShort();
+        if (version != SnapshotFormat.VERSION) {
+            throw new IOException("不支持的快照版本: " + version);
+        }
+        this.createdAtMillis = in.readLong();
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * 读取下一张表的表头
+     * @return 表名，没有更多表时返回null
+     */
+    public String nextTable() throws IOException {
+        if (columns != null) {
+            throw new IllegalStateException("上一张表的数据块尚未读完");
+        }
+        byte marker = in.readByte();
+        if (marker == SnapshotFormat.END_MARKER) {
+            inflater.end();
+            return null;
+        }
+        if (marker != SnapshotFormat.TABLE_MARKER) {
+            throw new IOException("快照数据损坏: 无效的表标记 " + marker);
+        }
+        tableName = readName(in);
+        int columnCount = in.readUnsignedShort();
+        List<SnapshotFormat.Column> tableColumns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            String name = readName(in);
+            SnapshotColumnType type = SnapshotColumnType.fromCode(in.readUnsignedByte());
+            int sqlType = in.readInt();
+            tableColumns.add(new SnapshotFormat.Column(name, type, sqlType));
+        }
+        columns = Collections.unmodifiableList(tableColumns);
+        return tableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<SnapshotFormat.Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 读取当前表的下一个数据块
+     * @return 数据块，当前表结束时返回null
+     */
+    public Block nextBlock() throws IOException {
+        if (columns == null) {
+            throw new IllegalStateException("没有正在读取的表");
+        }
+        int rows = in.readInt();
+        if (rows == 0) {
+            columns = null;
+            return null;
+        }
+        int rawLength = in.readInt();
+        int compressedLength = in.readInt();
+        long expectedCrc = in.readLong();
+        if (rows < 0 || rows > SnapshotFormat.ROWS_PER_BLOCK
+                || rawLength < 0 || rawLength > SnapshotFormat.MAX_BLOCK_BYTES
+                || compressedLength < 0 || compressedLength > SnapshotFormat.MAX_BLOCK_BYTES) {
+            throw new IOException("快照数据损坏: 表 " + tableName + " 的块头无效");
+        }
+        byte[] compressed = new byte[compressedLength];
+        in.readFully(compressed);
+
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != rawLength) {
+                throw new IOException("快照数据损坏: 表 " + tableName + " 的块长度不符");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("快照数据损坏: 表 " + tableName + " 的块无法解压", e);
+        }
+        crc.reset();
+        crc.update(raw);
+        if (crc.getValue() != expectedCrc) {
+            throw new IOException("快照数据损坏: 表 " + tableName + " 的块校验失败");
+        }
+
+        DataInputStream blockIn = new DataInputStream(new ByteArrayInputStream(raw));
+        int bitmapLength = (rows + 7) / 8;
+        Object[][] values = new Object[columns.size()][];
+        for (int c = 0; c < columns.size(); c++) {
+            byte[] nullBitmap = new byte[bitmapLength];
+            blockIn.readFully(nullBitmap);
+            SnapshotColumnType type = columns.get(c).getType();
+            Object[] columnValues = new Object[rows];
+            for (int r = 0; r < rows; r++) {
+                if ((nullBitmap[r >> 3] & (1 << (r & 7))) == 0) {
+                    columnValues[r] = type.decode(blockIn);
+                }
+            }
+            values[c] = columnValues;
+        }
+        return new Block(rows, values);
+    }
+
+    static String readName(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解码后的数据块，按列存放
+     */
+    public static final class Block {
+        private final int rowCount;
+        private final Object[][] columnValues;
+
+        Block(int rowCount, Object[][] columnValues) {
+            this.rowCount = rowCount;
+            this.columnValues = columnValues;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public Object getValue(int row, int column) {
+            return columnValues[column][row];
+        }
+    }
+}
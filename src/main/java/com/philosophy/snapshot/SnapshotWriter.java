@@ -0,0 +1,181 @@
+package com.philosophy.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 按 SnapshotFormat 写出快照
+ * 用法：beginTable → 多次 writeRow → endTable，全部表写完后 finish，最后 close。
+ * 行先按列缓存在内存中，每满 ROWS_PER_BLOCK 行，或估算的原始字节数达到 TARGET_BLOCK_BYTES 时，
+ * 编码、压缩为一个块写出，内存占用只与块大小有关。
+ */
+public class SnapshotWriter implements Closeable {
+
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream blockBuffer = new ByteArrayOutputStream(64 * 1024);
+    private final DataOutputStream blockOut = new DataOutputStream(blockBuffer);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final CRC32 crc = new CRC32();
+    private byte[] compressBuffer = new byte[64 * 1024];
+    private final long blockByteBudget;
+
+    private String tableName;
+    private List<SnapshotFormat.Column> columns;
+    private Object[][] pending;
+    private int pendingRows;
+    private long pendingBytes;
+    private long tableRows;
+
+    public SnapshotWriter(OutputStream output) throws IOException {
+        this(output, SnapshotFormat.TARGET_BLOCK_BYTES);
+    }
+
+    SnapshotWriter(OutputStream output, long blockByteBudget) throws IOException {
+        this.blockByteBudget = blockByteBudget;
+        this.out = new DataOutputStream(output);
+        out.write(SnapshotFormat.MAGIC);
+        out.writeShort(SnapshotFormat.VERSION);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    public void beginTable(String tableName, List<SnapshotFormat.Column> tableColumns) throws IOException {
+        if (columns != null) {
+            throw new IllegalStateException("上一张表尚未结束");
+        }
+        this.tableName = tableName;
+        columns = tableColumns;
+        pending = new Object[tableColumns.size()][SnapshotFormat.ROWS_PER_BLOCK];
+        pendingRows = 0;
+        pendingBytes = 0;
+        tableRows = 0;
+
+        out.writeByte(SnapshotFormat.TABLE_MARKER);
+        writeName(out, tableName);
+        out.writeShort(tableColumns.size());
+        for (SnapshotFormat.Column column : tableColumns) {
+            writeName(out, column.getName());
+            out.writeByte(column.getType().getCode());
+            out.writeInt(column.getSqlType());
+        }
+    }
+
+    /**
+     * @param values 按列顺序的值，null表示空值；数组可以在调用后复用
+     */
+    public void writeRow(Object[] values) throws IOException {
+        long rowBytes = 0;
+        for (int c = 0; c < values.length; c++) {
+            if (values[c] != null) {
+                rowBytes += columns.get(c).getType().estimateSize(values[c]);
+            }
+        }
+        // 加入这一行会超出预算时，先把已缓存的行写成一个块
+        if (pendingRows > 0 && pendingBytes + rowBytes > blockByteBudget) {
+            flushBlock();
+        }
+        for (int c = 0; c < values.length; c++) {
+            pending[c][pendingRows] = values[c];
+        }
+        pendingRows++;
+        pendingBytes += rowBytes;
+        tableRows++;
+        if (pendingRows == SnapshotFormat.ROWS_PER_BLOCK || pendingBytes >= blockByteBudget) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * @return 该表写出的行数
+     */
+    public long endTable() throws IOException {
+        if (pendingRows > 0) {
+            flushBlock();
+        }
+        out.writeInt(0);
+        tableName = null;
+        columns = null;
+        pending = null;
+        return tableRows;
+    }
+
+    private void flushBlock() throws IOException {
+        blockBuffer.reset();
+        int bitmapLength = (pendingRows + 7) / 8;
+        for (int c = 0; c < columns.size(); c++) {
+            Object[] values = pending[c];
+            byte[] nullBitmap = new byte[bitmapLength];
+            for (int r = 0; r < pendingRows; r++) {
+                if (values[r] == null) {
+                    nullBitmap[r >> 3] |= (byte) (1 << (r & 7));
+                }
+            }
+            blockOut.write(nullBitmap);
+            SnapshotColumnType type = columns.get(c).getType();
+            for (int r = 0; r < pendingRows; r++) {
+                if (values[r] != null) {
+                    type.encode(blockOut, values[r]);
+                    values[r] = null;
+                }
+            }
+        }
+        blockOut.flush();
+
+        if (blockBuffer.size() > SnapshotFormat.MAX_BLOCK_BYTES) {
+            // 只可能是单行就超过上限，写出去也无法读取
+            throw new IOException("表 " + tableName + " 的单行数据超过快照块上限 " + SnapshotFormat.MAX_BLOCK_BYTES + " 字节");
+        }
+        byte[] raw = blockBuffer.toByteArray();
+        crc.reset();
+        crc.update(raw);
+
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressBuffer.length) {
+                compressBuffer = Arrays.copyOf(compressBuffer, compressBuffer.length * 2);
+            }
+            compressedLength += deflater.deflate(compressBuffer, compressedLength, compressBuffer.length - compressedLength);
+        }
+
+        out.writeInt(pendingRows);
+        out.writeInt(raw.length);
+        out.writeInt(compressedLength);
+        out.writeLong(crc.getValue());
+        out.write(compressBuffer, 0, compressedLength);
+        pendingRows = 0;
+        pendingBytes = 0;
+    }
+
+    static void writeName(DataOutputStream out, String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 所有表写完后调用，写出文件结束标记并刷新
+     * 中途失败时不调用，读取方会因缺少结束标记而拒绝该文件。
+     */
+    public void finish() throws IOException {
+        out.writeByte(SnapshotFormat.END_MARKER);
+        out.flush();
+    }
+
+    /**
+     * 释放压缩器，不关闭底层输出流
+     */
+    @Override
+    public void close() {
+        deflater.end();
+    }
+}
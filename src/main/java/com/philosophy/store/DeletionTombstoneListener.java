@@ -0,0 +1,63 @@
+package com.philosophy.store;
+
+import com.philosophy.model.Comment;
+import com.philosophy.model.Content;
+import com.philosophy.model.ContentTranslation;
+import com.philosophy.model.Like;
+import com.philosophy.model.Philosopher;
+import com.philosophy.model.PhilosopherTranslation;
+import com.philosophy.model.School;
+import com.philosophy.model.SchoolTranslation;
+import com.philosophy.model.User;
+import com.philosophy.model.UserBlock;
+import com.philosophy.model.UserContentEdit;
+import com.philosophy.model.UserFollow;
+import com.philosophy.model.UserLoginInfo;
+import jakarta.persistence.PostRemove;
+import org.springframework.stereotype.Component;
+
+/**
+ * 实体删除监听器：通过JPA删除增量导出的各表（见 DataExportService.DELTA_TABLES）中的行时记录删除，供增量导出使用
+ * 由Hibernate通过Spring容器创建，可以注入依赖。
+ * JPQL/原生SQL的批量删除不会触发实体回调，这类删除需要调用方自己调用 ExportWatermarkStore.recordTombstone。
+ */
+@Component
+public class DeletionTombstoneListener {
+
+    private final ExportWatermarkStore exportWatermarkStore;
+
+    public DeletionTombstoneListener(ExportWatermarkStore exportWatermarkStore) {
+        this.exportWatermarkStore = exportWatermarkStore;
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof User user) {
+            exportWatermarkStore.recordTombstone("users", user.getId());
+        } else if (entity instanceof School school) {
+            exportWatermarkStore.recordTombstone("schools", school.getId());
+        } else if (entity instanceof Philosopher philosopher) {
+            exportWatermarkStore.recordTombstone("philosophers", philosopher.getId());
+        } else if (entity instanceof Content content) {
+            exportWatermarkStore.recordTombstone("contents", content.getId());
+        } else if (entity instanceof Comment comment) {
+            exportWatermarkStore.recordTombstone("comments", comment.getId());
+        } else if (entity instanceof Like like) {
+            exportWatermarkStore.recordTombstone("likes", like.getId());
+        } else if (entity instanceof UserContentEdit edit) {
+            exportWatermarkStore.recordTombstone("user_content_edits", edit.getId());
+        } else if (entity instanceof UserBlock block) {
+            exportWatermarkStore.recordTombstone("user_blocks", block.getId());
+        } else if (entity instanceof UserLoginInfo info) {
+            exportWatermarkStore.recordTombstone("user_login_info", info.getId());
+        } else if (entity instanceof UserFollow follow) {
+            exportWatermarkStore.recordTombstone("user_follows", follow.getId());
+        } else if (entity instanceof SchoolTranslation translation) {
+            exportWatermarkStore.recordTombstone("schools_translation", translation.getId());
+        } else if (entity instanceof ContentTranslation translation) {
+            exportWatermarkStore.recordTombstone("contents_translation", translation.getId());
+        } else if (entity instanceof PhilosopherTranslation translation) {
+            exportWatermarkStore.recordTombstone("philosophers_translation", translation.getId());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.philosophy.store;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 增量导出的水位线和删除记录（墓碑）
+ * - export_watermarks：每张表上次增量导出覆盖到的时间点，下次只导出变更时间晚于它的行
+ * - export_tombstones：被删除的行（表名 + 主键），增量导出时一并输出，应用增量时按主键删除
+ * 水位线只在增量文件成功送达后推进（见 advance），导出失败时下次会重新导出同一区间。
+ */
+@Component
+public class ExportWatermarkStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportWatermarkStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.delta-export.initialize-schema:true}")
+    private boolean initializeSchema;
+
+    public ExportWatermarkStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initSchema() {
+        if (!initializeSchema) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS export_watermarks ("
+                + "table_name VARCHAR(64) NOT NULL PRIMARY KEY, "
+                + "watermark DATETIME(6) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS export_tombstones ("
+                + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                + "table_name VARCHAR(64) NOT NULL, "
+                + "entity_id BIGINT NOT NULL, "
+                + "deleted_at DATETIME(6) NOT NULL)");
+    }
+
+    /**
+     * @return 该表的水位线，从未导出过时返回null（即导出全部行）
+     */
+    public LocalDateTime getWatermark(String tableName) {
+        List<Timestamp> rows = jdbcTemplate.queryForList(
+                "SELECT watermark FROM export_watermarks WHERE table_name = ?", Timestamp.class, tableName);
+        return rows.isEmpty() ? null : rows.get(0).toLocalDateTime();
+    }
+
+    /**
+     * 推进水位线，只能向后移动
+     */
+    public void advance(Map<String, LocalDateTime> watermarks) {
+        for (Map.Entry<String, LocalDateTime> entry : watermarks.entrySet()) {
+            Timestamp watermark = Timestamp.valueOf(entry.getValue());
+            int updated = jdbcTemplate.update("UPDATE export_watermarks SET watermark = ? "
+                    + "WHERE table_name = ? AND watermark < ?", watermark, entry.getKey(), watermark);
+            if (updated == 0) {
+                try {
+                    jdbcTemplate.update("INSERT INTO export_watermarks (table_name, watermark) VALUES (?, ?)",
+                            entry.getKey(), watermark);
+                } catch (DuplicateKeyException e) {
+                    // 已存在且不早于新水位线
+                }
+            }
+        }
+        logger.info("增量导出水位线已推进: {}", watermarks);
+        purgeTombstones();
+    }
+
+    /**
+     * 记录一条删除；在删除所在的事务中调用，删除回滚时记录一并回滚
+     */
+    public void recordTombstone(String tableName, Long entityId) {
+        if (entityId == null) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO export_tombstones (table_name, entity_id, deleted_at) VALUES (?, ?, ?)",
+                tableName, entityId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * 遍历删除时间晚于since的删除记录，since为null时遍历全部
+     * @param handler 参数为 (表名, 主键)
+     */
+    public void forEachTombstone(String tableName, LocalDateTime since, BiConsumer<String, Long> handler) {
+        if (since == null) {
+            jdbcTemplate.query("SELECT DISTINCT entity_id FROM export_tombstones WHERE table_name = ? ORDER BY entity_id",
+                    rs -> handler.accept(tableName, rs.getLong(1)), tableName);
+        } else {
+            jdbcTemplate.query("SELECT DISTINCT entity_id FROM export_tombstones WHERE table_name = ? AND deleted_at > ? "
+                            + "ORDER BY entity_id",
+                    rs -> handler.accept(tableName, rs.getLong(1)), tableName, Timestamp.valueOf(since));
+        }
+    }
+
+    /**
+     * 删除早于所在表水位线的删除记录（已经包含在之前的增量文件中）
+     * 还没有水位线的表保留全部记录。
+     */
+    private void purgeTombstones() {
+        int purged = jdbcTemplate.update("DELETE FROM export_tombstones WHERE deleted_at < "
+                + "(SELECT w.watermark FROM export_watermarks w WHERE w.table_name = export_tombstones.table_name)");
+        if (purged > 0) {
+            logger.info("已清理 {} 条已导出的删除记录", purged);
+        }
+    }
+}
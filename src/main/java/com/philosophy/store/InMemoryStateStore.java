@@ -0,0 +1,97 @@
+package com.philosophy.store;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于内存的状态存储（默认），仅适用于单节点部署
+ * 验证码的读改写通过 ConcurrentHashMap.compute 保证原子性，令牌桶使用CAS更新。
+ */
+@Component
+@ConditionalOnProperty(name = "app.state-store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryStateStore implements StateStore {
+
+    private final Map<String, CodeRecord> codes = new ConcurrentHashMap<>();
+
+    // 令牌桶key -> 理论到达时间，同时也是令牌桶恢复为满（可以删除）的时间
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long saveCodeIfResendAllowed(String email, String code, long now, long expiresAt, long cooldownMillis) {
+        long[] remaining = new long[1];
+        codes.compute(email, (key, existing) -> {
+            if (existing != null && now - existing.getLastSentAt() < cooldownMillis) {
+                remaining[0] = cooldownMillis - (now - existing.getLastSentAt());
+                return existing;
+            }
+            return new CodeRecord(code, expiresAt, now, 0);
+        });
+        return remaining[0];
+    }
+
+    @Override
+    public CodeRecord getCode(String email) {
+        return codes.get(email);
+    }
+
+    @Override
+    public boolean consumeCode(String email, String code) {
+        boolean[] consumed = new boolean[1];
+        codes.computeIfPresent(email, (key, existing) -> {
+            if (existing.getCode().equals(code)) {
+                consumed[0] = true;
+                return null;
+            }
+            return existing;
+        });
+        return consumed[0];
+    }
+
+    @Override
+    public int incrementCodeAttempts(String email) {
+        CodeRecord updated = codes.computeIfPresent(email, (key, existing) -> new CodeRecord(
+                existing.getCode(), existing.getExpiresAt(), existing.getLastSentAt(), existing.getVerifyAttempts() + 1));
+        return updated != null ? updated.getVerifyAttempts() : -1;
+    }
+
+    @Override
+    public void deleteCode(String email) {
+        codes.remove(email);
+    }
+
+    @Override
+    public long acquireToken(String key, long now, long intervalMillis, long toleranceMillis) {
+        AtomicLong tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, now);
+            long waitMillis = base - toleranceMillis - now;
+            if (waitMillis > 0) {
+                return waitMillis;
+            }
+            if (tat.compareAndSet(current, base + intervalMillis)) {
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public void refundToken(String key, long intervalMillis) {
+        AtomicLong tat = buckets.get(key);
+        if (tat != null) {
+            tat.addAndGet(-intervalMillis);
+        }
+    }
+
+    @Override
+    public int sweepExpired(long now) {
+        int before = codes.size() + buckets.size();
+        codes.values().removeIf(record -> record.getExpiresAt() <= now);
+        buckets.values().removeIf(tat -> tat.get() <= now);
+        return Math.max(0, before - codes.size() - buckets.size());
+    }
+}
@@ -0,0 +1,236 @@
+package com.philosophy.store;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * 基于数据库的共享状态存储，用于多节点部署（app.state-store.type=jdbc）
+ * 保存验证码和获取令牌都是一条原子upsert，“判断并修改”由数据库在一条语句内完成，没有应用层锁和重试：
+ * - MySQL：INSERT ... ON DUPLICATE KEY UPDATE，各列按条件决定取新值还是保留原值
+ * - 其他数据库（H2等）：标准 MERGE ... WHEN MATCHED AND 条件 THEN UPDATE
+ * MySQL驱动默认返回“匹配行数”，upsert的返回值无法区分插入和未修改，因此upsert与随后读取本行
+ * 放在同一个短事务中（upsert持有行锁），按读回的值判断本次是否生效：
+ * 验证码比较code与last_sent_at，令牌桶比较本次请求写入的 granted_to。
+ * 时间列都是毫秒时间戳（BIGINT），避免数据库与应用时区不一致。
+ */
+@Component
+@ConditionalOnProperty(name = "app.state-store.type", havingValue = "jdbc")
+public class JdbcStateStore implements StateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcStateStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // 首次使用时按数据库产品名确定upsert语法
+    private volatile Boolean mysql;
+
+    @Value("${app.state-store.initialize-schema:true}")
+    private boolean initializeSchema;
+
+    @Value("${app.state-store.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    public JdbcStateStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void initSchema() {
+        if (!initializeSchema) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS verification_codes ("
+                + "email VARCHAR(191) NOT NULL PRIMARY KEY, "
+                + "code VARCHAR(16) NOT NULL, "
+                + "expires_at BIGINT NOT NULL, "
+                + "last_sent_at BIGINT NOT NULL, "
+                + "verify_attempts INT NOT NULL DEFAULT 0)");
+        // expires_at 是令牌桶的理论到达时间，到达后令牌桶恢复为满，可以删除
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rate_limit_buckets ("
+                + "bucket_key VARCHAR(191) NOT NULL PRIMARY KEY, "
+                + "expires_at BIGINT NOT NULL, "
+                + "granted_to VARCHAR(36))");
+        logger.info("共享状态存储已启用（数据库）");
+    }
+
+    @Override
+    public long saveCodeIfResendAllowed(String email, String code, long now, long expiresAt, long cooldownMillis) {
+        long resendAfter = now - cooldownMillis;
+        Long lastSent = transactionTemplate.execute(status -> {
+            if (isMySql()) {
+                // last_sent_at 放在最后赋值，前面各列的条件判断使用的都是原值
+                jdbcTemplate.update("INSERT INTO verification_codes (email, code, expires_at, last_sent_at, verify_attempts) "
+                        + "VALUES (?, ?, ?, ?, 0) ON DUPLICATE KEY UPDATE "
+                        + "code = IF(last_sent_at <= ?, VALUES(code), code), "
+                        + "expires_at = IF(last_sent_at <= ?, VALUES(expires_at), expires_at), "
+                        + "verify_attempts = IF(last_sent_at <= ?, 0, verify_attempts), "
+                        + "last_sent_at = IF(last_sent_at <= ?, VALUES(last_sent_at), last_sent_at)",
+                        email, code, expiresAt, now, resendAfter, resendAfter, resendAfter, resendAfter);
+            } else {
+                mergeIgnoringInsertRace("MERGE INTO verification_codes t "
+                        + "USING (VALUES (CAST(? AS VARCHAR(191)), CAST(? AS VARCHAR(16)), CAST(? AS BIGINT), CAST(? AS BIGINT))) "
+                        + "AS s (email, code, expires_at, last_sent_at) ON t.email = s.email "
+                        + "WHEN MATCHED AND t.last_sent_at <= ? THEN UPDATE SET code = s.code, expires_at = s.expires_at, "
+                        + "last_sent_at = s.last_sent_at, verify_attempts = 0 "
+                        + "WHEN NOT MATCHED THEN INSERT (email, code, expires_at, last_sent_at, verify_attempts) "
+                        + "VALUES (s.email, s.code, s.expires_at, s.last_sent_at, 0)",
+                        email, code, expiresAt, now, resendAfter);
+            }
+            List<Long> saved = jdbcTemplate.queryForList(
+                    "SELECT last_sent_at FROM verification_codes WHERE email = ? AND code = ?", Long.class, email, code);
+            if (!saved.isEmpty() && saved.get(0) == now) {
+                return null;
+            }
+            List<Long> current = jdbcTemplate.queryForList(
+                    "SELECT last_sent_at FROM verification_codes WHERE email = ?", Long.class, email);
+            return current.isEmpty() ? null : current.get(0);
+        });
+        return lastSent == null ? 0 : Math.max(1, cooldownMillis - (now - lastSent));
+    }
+
+    @Override
+    public CodeRecord getCode(String email) {
+        List<CodeRecord> records = jdbcTemplate.query(
+                "SELECT code, expires_at, last_sent_at, verify_attempts FROM verification_codes WHERE email = ?",
+                (rs, rowNum) -> new CodeRecord(rs.getString("code"), rs.getLong("expires_at"),
+                        rs.getLong("last_sent_at"), rs.getInt("verify_attempts")),
+                email);
+        return records.isEmpty() ? null : records.get(0);
+    }
+
+    @Override
+    public boolean consumeCode(String email, String code) {
+        return jdbcTemplate.update("DELETE FROM verification_codes WHERE email = ? AND code = ?", email, code) == 1;
+    }
+
+    @Override
+    public int incrementCodeAttempts(String email) {
+        // UPDATE持有行锁到事务结束，读到的就是本次加1后的值
+        return transactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update(
+                    "UPDATE verification_codes SET verify_attempts = verify_attempts + 1 WHERE email = ?", email);
+            if (updated == 0) {
+                return -1;
+            }
+            List<Integer> attempts = jdbcTemplate.queryForList(
+                    "SELECT verify_attempts FROM verification_codes WHERE email = ?", Integer.class, email);
+            return attempts.isEmpty() ? -1 : attempts.get(0);
+        });
+    }
+
+    @Override
+    public void deleteCode(String email) {
+        jdbcTemplate.update("DELETE FROM verification_codes WHERE email = ?", email);
+    }
+
+    @Override
+    public long acquireToken(String key, long now, long intervalMillis, long toleranceMillis) {
+        String grant = UUID.randomUUID().toString();
+        return transactionTemplate.execute(status -> {
+            if (isMySql()) {
+                // granted_to 先赋值，条件中的 expires_at 仍是原值
+                jdbcTemplate.update("INSERT INTO rate_limit_buckets (bucket_key, expires_at, granted_to) VALUES (?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE "
+                        + "granted_to = IF(GREATEST(expires_at, ?) - ? <= ?, VALUES(granted_to), granted_to), "
+                        + "expires_at = IF(GREATEST(expires_at, ?) - ? <= ?, GREATEST(expires_at, ?) + ?, expires_at)",
+                        key, now + intervalMillis, grant,
+                        now, toleranceMillis, now,
+                        now, toleranceMillis, now, now, intervalMillis);
+            } else {
+                mergeIgnoringInsertRace("MERGE INTO rate_limit_buckets t "
+                        + "USING (VALUES (CAST(? AS VARCHAR(191)), CAST(? AS VARCHAR(36)))) AS s (bucket_key, granted_to) "
+                        + "ON t.bucket_key = s.bucket_key "
+                        + "WHEN MATCHED AND GREATEST(t.expires_at, ?) - ? <= ? "
+                        + "THEN UPDATE SET expires_at = GREATEST(t.expires_at, ?) + ?, granted_to = s.granted_to "
+                        + "WHEN NOT MATCHED THEN INSERT (bucket_key, expires_at, granted_to) VALUES (s.bucket_key, ?, s.granted_to)",
+                        key, grant, now, toleranceMillis, now, now, intervalMillis, now + intervalMillis);
+            }
+            List<Long> waits = jdbcTemplate.query(
+                    "SELECT expires_at, granted_to FROM rate_limit_buckets WHERE bucket_key = ?",
+                    (rs, rowNum) -> grant.equals(rs.getString("granted_to"))
+                            ? 0L : Math.max(1, Math.max(rs.getLong("expires_at"), now) - toleranceMillis - now),
+                    key);
+            return waits.isEmpty() ? intervalMillis : waits.get(0);
+        });
+    }
+
+    @Override
+    public void refundToken(String key, long intervalMillis) {
+        jdbcTemplate.update("UPDATE rate_limit_buckets SET expires_at = expires_at - ? WHERE bucket_key = ?",
+                intervalMillis, key);
+    }
+
+    @Override
+    public int sweepExpired(long now) {
+        return sweepTable("verification_codes", "email", now)
+                + sweepTable("rate_limit_buckets", "bucket_key", now);
+    }
+
+    /**
+     * 执行MERGE；两个节点同时为同一个新key执行时，后提交的一方可能因主键冲突失败，
+     * 此时记录已存在，再执行一次即走 WHEN MATCHED 分支
+     */
+    private void mergeIgnoringInsertRace(String sql, Object... args) {
+        try {
+            jdbcTemplate.update(sql, args);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(sql, args);
+        }
+    }
+
+    private boolean isMySql() {
+        Boolean detected = mysql;
+        if (detected == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            String name = product == null ? "" : product.toLowerCase(Locale.ROOT);
+            detected = name.contains("mysql") || name.contains("mariadb");
+            mysql = detected;
+        }
+        return detected;
+    }
+
+    /**
+     * 分批删除过期行，每批先查出主键再按主键删除，避免长时间持有大范围锁
+     * 删除时再次检查过期时间，期间被刷新的行不会被误删
+     */
+    private int sweepTable(String table, String keyColumn, long now) {
+        int total = 0;
+        while (true) {
+            List<String> keys = jdbcTemplate.queryForList("SELECT " + keyColumn + " FROM " + table
+                    + " WHERE expires_at <= ? LIMIT ?", String.class, now, sweepBatchSize);
+            if (keys.isEmpty()) {
+                break;
+            }
+            List<Object[]> args = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                args.add(new Object[]{key, now});
+            }
+            int[] results = jdbcTemplate.batchUpdate("DELETE FROM " + table + " WHERE " + keyColumn
+                    + " = ? AND expires_at <= ?", args);
+            for (int result : results) {
+                total += Math.max(result, 0);
+            }
+            if (keys.size() < sweepBatchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
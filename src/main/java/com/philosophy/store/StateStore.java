@@ -0,0 +1,88 @@
+package com.philosophy.store;
+
+/**
+ * 短期状态存储：注册验证码和限流令牌桶
+ * 单节点部署使用内存实现（默认）；多节点部署时配置 app.state-store.type=jdbc，
+ * 所有节点共享数据库中的状态，A节点发送的验证码可以在B节点校验，限流额度也按全局计算。
+ * 时间统一使用毫秒时间戳（System.currentTimeMillis），各节点时钟需大致同步。
+ */
+public interface StateStore {
+
+    /**
+     * 保存验证码，距上次发送不足冷却时间时不覆盖
+     * @return 0表示已保存，否则为剩余冷却毫秒数
+     */
+    long saveCodeIfResendAllowed(String email, String code, long now, long expiresAt, long cooldownMillis);
+
+    /**
+     * 获取验证码记录，不存在时返回null
+     */
+    CodeRecord getCode(String email);
+
+    /**
+     * 验证码匹配时删除记录（一次性使用）
+     * @return true表示验证码正确且已被本次调用消费
+     */
+    boolean consumeCode(String email, String code);
+
+    /**
+     * 失败次数加1
+     * @return 加1后的次数，记录不存在时返回-1
+     */
+    int incrementCodeAttempts(String email);
+
+    void deleteCode(String email);
+
+    /**
+     * 按GCRA算法从令牌桶中获取一个令牌
+     * @param key 令牌桶key（规则名:客户端标识）
+     * @param intervalMillis 每个令牌的恢复间隔
+     * @param toleranceMillis 允许的突发容差
+     * @return 0表示放行，否则为需要等待的毫秒数
+     */
+    long acquireToken(String key, long now, long intervalMillis, long toleranceMillis);
+
+    /**
+     * 归还一个令牌（请求已取得令牌但最终被其他规则拒绝时使用）
+     */
+    void refundToken(String key, long intervalMillis);
+
+    /**
+     * 删除已过期的验证码和已恢复为满的令牌桶
+     * @return 删除的条数
+     */
+    int sweepExpired(long now);
+
+    /**
+     * 验证码记录
+     */
+    final class CodeRecord {
+        private final String code;
+        private final long expiresAt;
+        private final long lastSentAt;
+        private final int verifyAttempts;
+
+        public CodeRecord(String code, long expiresAt, long lastSentAt, int verifyAttempts) {
+            this.code = code;
+            this.expiresAt = expiresAt;
+            this.lastSentAt = lastSentAt;
+            this.verifyAttempts = verifyAttempts;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public long getLastSentAt() {
+            return lastSentAt;
+        }
+
+        public int getVerifyAttempts() {
+            return verifyAttempts;
+        }
+    }
+}
@@ -1,33 +1,49 @@
 package com.philosophy.util;
 
 import com.philosophy.service.IpLocationService;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * 语言工具类
  * 用于统一处理语言获取逻辑，根据IP地址设置默认语言
+ *
+ * 语言保存在 philosophy_language Cookie 中，游客访问不会创建Session；
+ * 已登录用户的Session中也会保存一份（登录时从数据库读取）。
  */
 @Component
 public class LanguageUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(LanguageUtil.class);
-    
+
+    public static final String LANGUAGE_COOKIE = "philosophy_language";
+    private static final String LANGUAGE_SESSION_ATTRIBUTE = "language";
+    private static final int LANGUAGE_COOKIE_MAX_AGE = 30 * 24 * 60 * 60; // 30天
+
+    // 同一请求内多次调用时复用结果
+    private static final String LANGUAGE_REQUEST_ATTRIBUTE = LanguageUtil.class.getName() + ".language";
+
     private final IpLocationService ipLocationService;
-    
+
     public LanguageUtil(IpLocationService ipLocationService) {
         this.ipLocationService = ipLocationService;
     }
-    
+
     /**
      * 获取当前语言设置
-     * 如果Session中没有语言设置，则根据IP地址判断：
+     * 依次读取Session（仅在已存在时）和Cookie，都没有时根据IP地址判断：
      * - 国外IP默认英语
      * - 国内IP默认中文
-     * 
+     * - 归属地尚未解析完成时暂用中文，不阻塞请求
+     *
      * @param request HTTP请求
      * @return 语言代码（zh或en）
      */
@@ -35,61 +51,119 @@ public class LanguageUtil {
         if (request == null) {
             return "zh"; // 默认中文
         }
-        
-        HttpSession session = request.getSession();
-        String language = (String) session.getAttribute("language");
-        
-        // 如果Session中已有语言设置，直接返回
-        if (language != null && !language.trim().isEmpty()) {
+
+        Object resolved = request.getAttribute(LANGUAGE_REQUEST_ATTRIBUTE);
+        if (resolved instanceof String resolvedLanguage) {
+            return resolvedLanguage;
+        }
+
+        String language = getStoredLanguage(request);
+
+        // 如果Session或Cookie中已有语言设置，直接返回
+        if (language != null) {
+            request.setAttribute(LANGUAGE_REQUEST_ATTRIBUTE, language);
             return language;
         }
-        
-        // Session中没有语言设置，根据IP地址判断
+
+        // 没有语言设置，根据IP地址判断（不等待远程解析）
         try {
-            boolean isForeign = ipLocationService.isForeignIp(request);
+            Boolean isForeign = ipLocationService.peekForeignIp(request);
+            if (isForeign == null) {
+                // 归属地正在后台解析：本次使用默认中文，但不写入Cookie，下次请求再判断
+                logger.debug("IP归属地尚未解析完成，暂用默认中文");
+                return "zh";
+            }
             language = isForeign ? "en" : "zh";
-            
-            // 将默认语言设置保存到Session，避免重复查询
-            session.setAttribute("language", language);
-            
+
+            // 将默认语言设置保存到Cookie，避免重复查询
+            writeLanguageCookie(currentResponse(), language);
+
             logger.debug("根据IP地址设置默认语言: {} (IP是否国外: {})", language, isForeign);
         } catch (Exception e) {
             logger.warn("根据IP地址判断语言失败，使用默认中文", e);
             language = "zh";
-            session.setAttribute("language", language);
         }
-        
+
+        request.setAttribute(LANGUAGE_REQUEST_ATTRIBUTE, language);
         return language;
     }
-    
+
     /**
-     * 获取当前语言设置（不进行IP判断，仅从Session获取）
-     * 
+     * 获取当前语言设置（不进行IP判断，仅从Session或Cookie获取）
+     *
      * @param request HTTP请求
-     * @return 语言代码（zh或en），如果Session中没有则返回null
+     * @return 语言代码（zh或en），如果没有则返回null
      */
     public String getLanguageFromSession(HttpServletRequest request) {
         if (request == null) {
             return null;
         }
-        
-        HttpSession session = request.getSession();
-        return (String) session.getAttribute("language");
+        return getStoredLanguage(request);
     }
-    
+
     /**
-     * 设置语言到Session
-     * 
+     * 设置语言
+     * 写入Cookie；Session只在已存在时（已登录用户）同步更新，不会为游客创建Session
+     *
      * @param request HTTP请求
+     * @param response HTTP响应
      * @param language 语言代码
      */
-    public void setLanguage(HttpServletRequest request, String language) {
+    public void setLanguage(HttpServletRequest request, HttpServletResponse response, String language) {
         if (request == null || language == null) {
             return;
         }
-        
-        HttpSession session = request.getSession();
-        session.setAttribute("language", language);
+
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.setAttribute(LANGUAGE_SESSION_ATTRIBUTE, language);
+        }
+        writeLanguageCookie(response, language);
+        request.setAttribute(LANGUAGE_REQUEST_ATTRIBUTE, language);
+    }
+
+    /**
+     * 写入语言Cookie（客户端JavaScript也会读取，因此不设置HttpOnly）
+     */
+    public void writeLanguageCookie(HttpServletResponse response, String language) {
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        Cookie languageCookie = new Cookie(LANGUAGE_COOKIE, language);
+        languageCookie.setPath("/");
+        languageCookie.setMaxAge(LANGUAGE_COOKIE_MAX_AGE);
+        response.addCookie(languageCookie);
     }
-}
 
+    private String getStoredLanguage(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            Object language = session.getAttribute(LANGUAGE_SESSION_ATTRIBUTE);
+            if (language instanceof String sessionLanguage && isValidLanguage(sessionLanguage)) {
+                return sessionLanguage;
+            }
+        }
+
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (LANGUAGE_COOKIE.equals(cookie.getName()) && isValidLanguage(cookie.getValue())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isValidLanguage(String language) {
+        return "zh".equals(language) || "en".equals(language);
+    }
+
+    private HttpServletResponse currentResponse() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getResponse();
+        }
+        return null;
+    }
+}
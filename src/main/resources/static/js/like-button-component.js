@@ -1,3 +1,85 @@
+/**
+ * 点赞状态批量加载器
+ * 将同一时刻发起的点赞状态查询合并为一次 POST /likes/state 请求，
+ * 避免列表页每个点赞按钮单独请求 /likes/check
+ * 未登录（401或被重定向到登录页）时以 error.unauthenticated 拒绝，由按钮决定如何展示
+ */
+if (!window.likeStateLoader) {
+    window.likeStateLoader = (function () {
+        const MAX_BATCH_SIZE = 200;
+        let pending = [];
+        let scheduled = false;
+
+        function flush() {
+            scheduled = false;
+            const batch = pending;
+            pending = [];
+            for (let i = 0; i < batch.length; i += MAX_BATCH_SIZE) {
+                send(batch.slice(i, i + MAX_BATCH_SIZE));
+            }
+        }
+
+        async function send(batch) {
+            try {
+                const csrfToken = document.querySelector('meta[name="_csrf"]')?.getAttribute('content') || '';
+                const csrfHeader = document.querySelector('meta[name="_csrf_header"]')?.getAttribute('content') || 'X-CSRF-TOKEN';
+                const response = await fetch(`${window.location.origin}/likes/state`, {
+                    method: 'POST',
+                    headers: {
+                        'Content-Type': 'application/json',
+                        'Accept': 'application/json',
+                        [csrfHeader]: csrfToken
+                    },
+                    credentials: 'same-origin', // 确保发送session cookie
+                    body: JSON.stringify(batch.map(item => ({ entityType: item.entityType, entityId: item.entityId })))
+                });
+                if (response.status === 401 || response.redirected) {
+                    const error = new Error('请先登录');
+                    error.unauthenticated = true;
+                    throw error;
+                }
+                if (!response.ok) {
+                    throw new Error(`HTTP ${response.status}: ${response.statusText}`);
+                }
+                const data = await response.json();
+                if (!data.success) {
+                    throw new Error(data.message || '获取点赞状态失败');
+                }
+                const states = new Map();
+                (data.states || []).forEach(state => {
+                    states.set(`${state.entityType}:${state.entityId}`, state);
+                });
+                batch.forEach(item => {
+                    const state = states.get(`${item.entityType}:${item.entityId}`);
+                    item.resolve(state || { isLiked: false, likeCount: 0 });
+                });
+            } catch (error) {
+                batch.forEach(item => item.reject(error));
+            }
+        }
+
+        return {
+            /**
+             * 查询单个实体的点赞状态，返回 Promise<{isLiked, likeCount}>
+             */
+            load(entityType, entityId) {
+                return new Promise((resolve, reject) => {
+                    pending.push({
+                        entityType: String(entityType).toUpperCase(),
+                        entityId: String(entityId),
+                        resolve,
+                        reject
+                    });
+                    if (!scheduled) {
+                        scheduled = true;
+                        setTimeout(flush, 0);
+                    }
+                });
+            }
+        };
+    })();
+}
+
 /**
  * 独立点赞按钮组件
  * 可以在任何地方使用，不依赖特定的容器结构
@@ -133,57 +215,19 @@ class LikeButtonComponent {
         }
         
         try {
-            // 使用绝对路径确保在任何页面都能正确访问
-            const baseUrl = window.location.origin;
-            const checkUrl = `${baseUrl}/likes/check?entityType=${this.entityType}&entityId=${this.entityId}`;
-
-            console.log('检查点赞状态请求:', checkUrl);
-
-            const fetchOptions = {
-                method: 'GET',
-                headers: {
-                    'Accept': 'application/json',
-                },
-                credentials: 'same-origin' // 确保发送session cookie
-            };
-
-            let controller = null;
-            let timeoutId = null;
-            if (typeof AbortController !== 'undefined') {
-                controller = new AbortController();
-                fetchOptions.signal = controller.signal;
-                timeoutId = setTimeout(() => controller.abort(), 5000);
-            }
-
-            const response = await fetch(checkUrl, fetchOptions);
-            if (timeoutId) {
-                clearTimeout(timeoutId);
-            }
-            
-            
-            if (!response.ok) {
-                let errorMessage = `HTTP ${response.status}: ${response.statusText}`;
-                try {
-                    const errorData = await response.json();
-                    if (errorData && typeof errorData === 'object' && 'message' in errorData) {
-                        errorMessage = errorData.message;
-                    }
-                } catch (parseError) {
-                    try {
-                        errorMessage = await response.text();
-                    } catch (_) {
-                        // ignore
-                    }
-                }
-                throw new Error(errorMessage);
-            }
-
-            const data = await response.json();
+            const data = await window.likeStateLoader.load(this.entityType, this.entityId);
             
             this.isLiked = data.isLiked || false;
             this.likeCount = data.likeCount || 0;
             this.updateButton();
         } catch (error) {
+            if (error && error.unauthenticated) {
+                // 会话已失效：按未登录处理，点击时提示登录
+                this.isAuthenticated = false;
+                this.isLiked = false;
+                this.updateButton();
+                return;
+            }
             
             // 设置默认状态，确保按钮仍然可用
             this.isLiked = false;
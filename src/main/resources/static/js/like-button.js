@@ -53,31 +53,83 @@ class LikeButton {
 
     async checkLikeStatus() {
         try {
-            const response = await fetch(`/likes/check?entityType=${this.entityType}&entityId=${this.entityId}`, {
-                credentials: 'same-origin' // 确保发送session cookie
-            });
-
-            if (response.status === 401) {
-                // 用户未登录，设置默认状态
-                this.isLiked = false;
-                this.likeCount = 0;
-                this.updateButton();
-                return;
-            }
-
-            const data = await response.json();
+            // 与页面上其他点赞按钮合并为一次批量请求
+            const data = await LikeButton.loadState(this.entityType, this.entityId);
 
             this.isLiked = data.isLiked || false;
             this.likeCount = data.likeCount || 0;
             this.updateButton();
         } catch (error) {
-            // 设置默认状态以防出错
+            // 用户未登录或出错时设置默认状态
             this.isLiked = false;
             this.likeCount = 0;
             this.updateButton();
         }
     }
 
+    /**
+     * 查询点赞状态，返回 Promise<{isLiked, likeCount}>
+     * 页面加载了 like-button-component.js 时共用其批量加载器，否则在本组件内合并同一时刻的查询
+     */
+    static loadState(entityType, entityId) {
+        if (window.likeStateLoader) {
+            return window.likeStateLoader.load(entityType, entityId);
+        }
+        return new Promise((resolve, reject) => {
+            LikeButton.pendingStates.push({
+                entityType: String(entityType).toUpperCase(),
+                entityId: String(entityId),
+                resolve,
+                reject
+            });
+            if (LikeButton.pendingStates.length === 1) {
+                setTimeout(LikeButton.flushStates, 0);
+            }
+        });
+    }
+
+    static flushStates() {
+        const batch = LikeButton.pendingStates;
+        LikeButton.pendingStates = [];
+        // 服务端每次最多接受200项
+        for (let i = 0; i < batch.length; i += 200) {
+            LikeButton.sendStates(batch.slice(i, i + 200));
+        }
+    }
+
+    static async sendStates(batch) {
+        try {
+            const csrfToken = document.querySelector('meta[name="_csrf"]')?.getAttribute('content') || '';
+            const csrfHeader = document.querySelector('meta[name="_csrf_header"]')?.getAttribute('content') || 'X-CSRF-TOKEN';
+            const response = await fetch('/likes/state', {
+                method: 'POST',
+                headers: {
+                    'Content-Type': 'application/json',
+                    [csrfHeader]: csrfToken
+                },
+                credentials: 'same-origin', // 确保发送session cookie
+                body: JSON.stringify(batch.map(item => ({ entityType: item.entityType, entityId: item.entityId })))
+            });
+
+            if (response.status === 401 || response.redirected) {
+                // 用户未登录
+                const error = new Error('请先登录');
+                error.unauthenticated = true;
+                throw error;
+            }
+
+            const data = await response.json();
+            if (!response.ok || !data.success) {
+                throw new Error(data.message || '获取点赞状态失败');
+            }
+            const states = new Map();
+            (data.states || []).forEach(state => states.set(`${state.entityType}:${state.entityId}`, state));
+            batch.forEach(item => item.resolve(states.get(`${item.entityType}:${item.entityId}`) || { isLiked: false, likeCount: 0 }));
+        } catch (error) {
+            batch.forEach(item => item.reject(error));
+        }
+    }
+
     async toggleLike() {
         const button = document.getElementById(`like-btn-${this.entityId}`);
         const icon = button.querySelector('i');
@@ -170,6 +222,9 @@ class LikeButton {
     }
 }
 
+// 等待合并发送的点赞状态查询
+LikeButton.pendingStates = [];
+
 /**
  * 初始化页面中的所有点赞按钮
  */
@@ -0,0 +1,43 @@
+package com.philosophy.scheduler;
+
+import com.philosophy.store.InMemoryStateStore;
+import com.philosophy.store.StateStore;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateStoreSweeperTest {
+
+    @Test
+    void sweepRemovesExpiredStateAndKeepsLiveState() {
+        InMemoryStateStore store = new InMemoryStateStore();
+        long now = System.currentTimeMillis();
+        store.saveCodeIfResendAllowed("expired@example.com", "111111", now - 600_000, now - 300_000, 60_000);
+        store.saveCodeIfResendAllowed("live@example.com", "222222", now, now + 300_000, 60_000);
+        store.acquireToken("idle", now - 10_000, 1_000, 0);
+        store.acquireToken("busy", now, 60_000, 0);
+
+        new StateStoreSweeper(store).sweep();
+
+        assertNull(store.getCode("expired@example.com"));
+        assertNotNull(store.getCode("live@example.com"));
+        // busy 令牌桶未被删除，仍然处于等待中；idle 已被清理，重新从满桶开始
+        assertTrue(store.acquireToken("busy", now, 60_000, 0) > 0);
+        assertEquals(0, store.acquireToken("idle", now, 1_000, 0));
+    }
+
+    @Test
+    void sweepFailureIsLoggedNotThrown() {
+        StateStore failing = new InMemoryStateStore() {
+            @Override
+            public int sweepExpired(long now) {
+                throw new IllegalStateException("数据库不可用");
+            }
+        };
+        assertDoesNotThrow(() -> new StateStoreSweeper(failing).sweep());
+    }
+}
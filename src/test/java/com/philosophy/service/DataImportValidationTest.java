@@ -0,0 +1,169 @@
+package com.philosophy.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 试运行校验与导入的一致性：validateCsvData 判为可导入的行正是导入后写入数据库的行，
+ * 其余的行（导入时失败或因引用不存在被跳过）都被校验标记为失败
+ * 导入在H2（MySQL兼容模式）上执行；列存在性检查通过 EntityManager 查询，这里用桩返回“存在”。
+ */
+class DataImportValidationTest {
+
+    // 文件中的父数据：用户1，学派10，哲学家20，内容30
+    private static final String PARENTS = String.join("\n",
+            "用户数据",
+            "ID,用户名,邮箱",
+            "1,reader,reader@example.com",
+            "",
+            "学派数据",
+            "ID,名称",
+            "10,斯多葛学派",
+            "",
+            "哲学家数据",
+            "ID,姓名",
+            "20,塞涅卡",
+            "",
+            "内容数据",
+            "ID,内容,内容英文,哲学家ID,学派ID",
+            "30,论幸福生活,,20,10",
+            "");
+
+    private static final List<String> EDIT_ROWS = List.of(
+            "100,1,正文,标题,20,10,APPROVED,2024-01-02T03:04:05",
+            "101,1,正文,标题,20,10,UNKNOWN_STATUS,未知时间",
+            "102,,正文,标题,20,10,PENDING,2024-01-02T03:04:05",
+            "103,1,正文,标题,null,10,PENDING,2024-01-02T03:04:05",
+            "104,1,正文,标题,20,99,PENDING,2024-01-02T03:04:05",
+            "105,2,正文,标题,20,10,PENDING,2024-01-02T03:04:05",
+            "106,1,正文,标题,20,10,PENDING,2024/01/02",
+            "abc,1,正文,标题,20,10,PENDING,2024-01-02T03:04:05");
+
+    private static final List<String> SCHOOL_TRANSLATION_ROWS = List.of(
+            "200,10,en,Stoicism,desc,2024-01-02T03:04:05",
+            "201,null,en,Stoicism,desc,2024-01-02T03:04:05",
+            "202,11,en,Stoicism,desc,2024-01-02T03:04:05",
+            "203,10,en,Stoicism",
+            "204,10,fr,Stoïcisme,desc,bad-time");
+
+    private static final List<String> CONTENT_TRANSLATION_ROWS = List.of(
+            "300,30,en,On the happy life,2024-01-02T03:04:05",
+            "301,,en,missing content,2024-01-02T03:04:05",
+            "302,31,en,unknown content,未知时间",
+            "x302,30,en,bad id,未知时间");
+
+    private static final List<String> PHILOSOPHER_TRANSLATION_ROWS = List.of(
+            "400,20,en,Seneca,bio,2024-01-02T03:04:05",
+            "401,21,en,Nobody,bio,2024-01-02T03:04:05",
+            "402,20,en,Seneca,bio,2024-13-40T00:00:00");
+
+    private JdbcTemplate jdbcTemplate;
+    private DataImportService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:import-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE user_content_edits (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                + "content TEXT NOT NULL, title VARCHAR(200) NOT NULL, philosopher_id BIGINT NOT NULL, "
+                + "school_id BIGINT NOT NULL, status VARCHAR(20) NOT NULL, created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE schools_translation (id BIGINT PRIMARY KEY, school_id BIGINT NOT NULL, "
+                + "language_code VARCHAR(10) NOT NULL, name_en VARCHAR(255), description_en TEXT, "
+                + "created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE contents_translation (id BIGINT PRIMARY KEY, content_id BIGINT NOT NULL, "
+                + "language_code VARCHAR(10) NOT NULL, content_en TEXT, created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE philosophers_translation (id BIGINT PRIMARY KEY, philosopher_id BIGINT NOT NULL, "
+                + "language_code VARCHAR(10) NOT NULL, name_en VARCHAR(255), biography_en TEXT, "
+                + "created_at TIMESTAMP, updated_at TIMESTAMP)");
+
+        EntityManager entityManager = mock(EntityManager.class);
+        Query columnExists = mock(Query.class);
+        when(columnExists.getSingleResult()).thenReturn(1L);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(columnExists);
+
+        service = new DataImportService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void validationFlagsExactlyTheRowsTheImporterDoesNotWrite() {
+        String csv = PARENTS
+                + section("用户内容编辑数据", "ID,用户ID,内容,标题,哲学家ID,学派ID,状态,创建时间", EDIT_ROWS)
+                + section("学派翻译数据", "ID,学派ID,语言代码,英文名称,英文描述,创建时间", SCHOOL_TRANSLATION_ROWS)
+                + section("内容翻译数据", "ID,内容ID,语言代码,英文内容,创建时间", CONTENT_TRANSLATION_ROWS)
+                + section("哲学家翻译数据", "ID,哲学家ID,语言代码,英文名称,英文传记,创建时间", PHILOSOPHER_TRANSLATION_ROWS);
+        MockMultipartFile file = new MockMultipartFile("file", "import.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+
+        DataImportService.ImportResult validation = service.validateCsvData(file, true);
+
+        ImportReferenceIndex refs = ImportReferenceIndex.empty();
+        refs.addUser(1, "reader", "reader@example.com");
+        refs.addSchool(10);
+        refs.addPhilosopher(20);
+        refs.addContent(30);
+        DataImportService.ImportResult imported = new DataImportService.ImportResult();
+        service.importUserContentEditsInTransaction(imported, parse(EDIT_ROWS), refs);
+        service.importSchoolTranslationsInTransaction(imported, parse(SCHOOL_TRANSLATION_ROWS), refs);
+        service.importContentTranslationsInTransaction(imported, parse(CONTENT_TRANSLATION_ROWS), refs);
+        service.importPhilosopherTranslationsInTransaction(imported, parse(PHILOSOPHER_TRANSLATION_ROWS), refs);
+
+        assertSectionMatches(validation, imported, "用户内容编辑", "user_content_edits", EDIT_ROWS.size(), List.of(100L, 101L));
+        assertSectionMatches(validation, imported, "学派翻译", "schools_translation", SCHOOL_TRANSLATION_ROWS.size(), List.of(200L));
+        assertSectionMatches(validation, imported, "内容翻译", "contents_translation", CONTENT_TRANSLATION_ROWS.size(), List.of(300L));
+        assertSectionMatches(validation, imported, "哲学家翻译", "philosophers_translation", PHILOSOPHER_TRANSLATION_ROWS.size(), List.of(400L));
+    }
+
+    private void assertSectionMatches(DataImportService.ImportResult validation, DataImportService.ImportResult imported,
+                                      String resultName, String table, int rows, List<Long> expectedIds) {
+        List<Long> written = jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Long.class);
+        assertEquals(expectedIds, written, table);
+        assertEquals(written.size(), imported.getResults().get(resultName).getSuccess(), resultName);
+
+        DataImportService.ImportResult.ImportStats validated = validation.getResults().get(resultName);
+        assertNotNull(validated, resultName);
+        assertEquals(written.size(), validated.getSuccess(), resultName + " 可导入行数");
+        assertEquals(rows - written.size(), validated.getFailed(), resultName + " 失败行数");
+    }
+
+    private static String section(String title, String header, List<String> rows) {
+        return title + "\n" + header + "\n" + String.join("\n", rows) + "\n\n";
+    }
+
+    private List<String[]> parse(List<String> rows) {
+        List<String[]> parsed = new ArrayList<>();
+        for (String row : rows) {
+            parsed.add(ReflectionTestUtils.invokeMethod(service, "parseCsvLine", row));
+        }
+        return parsed;
+    }
+}
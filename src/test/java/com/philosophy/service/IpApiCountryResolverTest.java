@@ -0,0 +1,100 @@
+package com.philosophy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * ip-api 解析的限流：按每分钟配额错开请求，429或配额用尽时按 X-Ttl 暂停
+ * 等待时间只记录不实际等待。
+ */
+class IpApiCountryResolverTest {
+
+    private static final String SUCCESS_US = "{\"status\":\"success\",\"countryCode\":\"US\"}";
+
+    private MockRestServiceServer server;
+    private List<Long> sleeps;
+    private IpApiCountryResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        sleeps = new CopyOnWriteArrayList<>();
+        resolver = new IpApiCountryResolver(restTemplate, 60) {
+            @Override
+            void sleep(long millis) {
+                sleeps.add(millis);
+            }
+        };
+    }
+
+    @Test
+    void spacesRequestsByPerMinuteQuota() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.expect(requestTo("http://ip-api.com/json/8.8.8.8?fields=status,countryCode"))
+                    .andRespond(withSuccess(SUCCESS_US, MediaType.APPLICATION_JSON));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("US", resolver.resolveCountry("8.8.8.8"));
+        }
+        server.verify();
+
+        // 第一次立即发出，之后每次约晚1秒（60次/分钟）
+        assertEquals(2, sleeps.size());
+        assertTrue(sleeps.get(0) > 900 && sleeps.get(0) <= 1000, sleeps.toString());
+        assertTrue(sleeps.get(1) > 1900 && sleeps.get(1) <= 2000, sleeps.toString());
+    }
+
+    @Test
+    void tooManyRequestsPausesUntilQuotaResets() throws Exception {
+        HttpHeaders limited = new HttpHeaders();
+        limited.add("X-Rl", "0");
+        limited.add("X-Ttl", "30");
+        server.expect(requestTo("http://ip-api.com/json/1.2.3.4?fields=status,countryCode"))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).headers(limited));
+        server.expect(requestTo("http://ip-api.com/json/1.2.3.4?fields=status,countryCode"))
+                .andRespond(withSuccess(SUCCESS_US, MediaType.APPLICATION_JSON));
+
+        assertThrows(HttpClientErrorException.TooManyRequests.class, () -> resolver.resolveCountry("1.2.3.4"));
+        assertEquals("US", resolver.resolveCountry("1.2.3.4"));
+        server.verify();
+
+        assertEquals(1, sleeps.size());
+        assertTrue(sleeps.get(0) > 30_000 && sleeps.get(0) <= 31_000, sleeps.toString());
+    }
+
+    @Test
+    void exhaustedQuotaHeaderPausesBeforeNextRequest() throws Exception {
+        HttpHeaders lastOfWindow = new HttpHeaders();
+        lastOfWindow.add("X-Rl", "0");
+        lastOfWindow.add("X-Ttl", "5");
+        server.expect(requestTo("http://ip-api.com/json/8.8.8.8?fields=status,countryCode"))
+                .andRespond(withSuccess(SUCCESS_US, MediaType.APPLICATION_JSON).headers(lastOfWindow));
+        server.expect(requestTo("http://ip-api.com/json/8.8.4.4?fields=status,countryCode"))
+                .andRespond(withSuccess(SUCCESS_US, MediaType.APPLICATION_JSON));
+
+        assertEquals("US", resolver.resolveCountry("8.8.8.8"));
+        assertEquals("US", resolver.resolveCountry("8.8.4.4"));
+        server.verify();
+
+        assertEquals(1, sleeps.size());
+        assertTrue(sleeps.get(0) > 5_000 && sleeps.get(0) <= 6_000, sleeps.toString());
+    }
+}
@@ -0,0 +1,220 @@
+package com.philosophy.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IpLocationService 的缓存行为：single-flight合并、失败结果的短期缓存、TTL过期和容量淘汰
+ * 远程解析使用桩实现，按IP返回固定的国家代码并记录调用次数。
+ */
+class IpLocationServiceTest {
+
+    private static final long POSITIVE_TTL_MS = 200;
+    private static final long NEGATIVE_TTL_MS = 100;
+
+    private StubResolver resolver;
+    private IpCountryDatabase database;
+    private IpLocationService service;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new StubResolver();
+        // 未加载数据的本地库，所有地址都走远程解析
+        database = new IpCountryDatabase(new DefaultResourceLoader());
+        service = newService(100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        resolver.release();
+    }
+
+    private IpLocationService newService(int cacheSize) {
+        IpLocationService created = new IpLocationService(database, resolver, cacheSize);
+        ReflectionTestUtils.setField(created, "cacheTtlMillis", POSITIVE_TTL_MS);
+        ReflectionTestUtils.setField(created, "negativeTtlMillis", NEGATIVE_TTL_MS);
+        return created;
+    }
+
+    @Test
+    void concurrentLookupsOfSameIpShareOneRemoteResolution() throws Exception {
+        resolver.countries.put("8.8.8.8", "US");
+        resolver.blockUntilReleased();
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(service.resolveAsync("8.8.8.8"));
+        }
+        // 解析进行中时，peek 返回未知且不会再发起解析
+        assertNull(service.peekForeignIp("8.8.8.8"));
+        for (CompletableFuture<Boolean> future : futures) {
+            assertSame(futures.get(0), future);
+        }
+
+        resolver.release();
+        assertTrue(futures.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals(1, resolver.calls("8.8.8.8"));
+
+        // 之后命中缓存
+        assertEquals(Boolean.TRUE, service.peekForeignIp("8.8.8.8"));
+        assertTrue(service.isForeignIp("8.8.8.8"));
+        assertEquals(1, resolver.calls("8.8.8.8"));
+    }
+
+    @Test
+    void failedLookupIsCachedUntilNegativeTtlExpires() throws Exception {
+        // 未配置国家代码的IP由桩实现抛出异常
+        assertFalse(service.resolveAsync("203.0.113.9").get(5, TimeUnit.SECONDS));
+        assertEquals(1, resolver.calls("203.0.113.9"));
+
+        // 失败结果按国内处理，短期内不再请求
+        assertEquals(Boolean.FALSE, service.peekForeignIp("203.0.113.9"));
+        assertFalse(service.resolveAsync("203.0.113.9").get(5, TimeUnit.SECONDS));
+        assertEquals(1, resolver.calls("203.0.113.9"));
+
+        Thread.sleep(NEGATIVE_TTL_MS + 50);
+        resolver.countries.put("203.0.113.9", "JP");
+        assertTrue(service.resolveAsync("203.0.113.9").get(5, TimeUnit.SECONDS));
+        assertEquals(2, resolver.calls("203.0.113.9"));
+    }
+
+    @Test
+    void nullCountryIsCachedAsNegativeResult() throws Exception {
+        resolver.unknown.add("198.51.100.7");
+        assertFalse(service.resolveAsync("198.51.100.7").get(5, TimeUnit.SECONDS));
+        assertEquals(Boolean.FALSE, service.peekForeignIp("198.51.100.7"));
+        assertEquals(1, resolver.calls("198.51.100.7"));
+    }
+
+    @Test
+    void positiveResultExpiresAfterTtl() throws Exception {
+        resolver.countries.put("1.1.1.1", "AU");
+        assertTrue(service.resolveAsync("1.1.1.1").get(5, TimeUnit.SECONDS));
+        assertEquals(Boolean.TRUE, service.peekForeignIp("1.1.1.1"));
+
+        Thread.sleep(POSITIVE_TTL_MS + 50);
+        // 过期后 peek 返回未知并在后台重新解析
+        assertNull(service.peekForeignIp("1.1.1.1"));
+        assertTrue(service.resolveAsync("1.1.1.1").get(5, TimeUnit.SECONDS));
+        assertEquals(2, resolver.calls("1.1.1.1"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenCacheIsFull() throws Exception {
+        service.shutdown();
+        service = newService(2);
+        resolver.countries.put("9.9.9.1", "US");
+        resolver.countries.put("9.9.9.2", "US");
+        resolver.countries.put("9.9.9.3", "CN");
+
+        service.resolveAsync("9.9.9.1").get(5, TimeUnit.SECONDS);
+        service.resolveAsync("9.9.9.2").get(5, TimeUnit.SECONDS);
+        // 访问9.9.9.1，使9.9.9.2成为最久未使用的条目
+        assertEquals(Boolean.TRUE, service.peekForeignIp("9.9.9.1"));
+        assertFalse(service.resolveAsync("9.9.9.3").get(5, TimeUnit.SECONDS));
+
+        assertEquals(Boolean.TRUE, service.peekForeignIp("9.9.9.1"));
+        assertEquals(Boolean.FALSE, service.peekForeignIp("9.9.9.3"));
+        assertNull(service.peekForeignIp("9.9.9.2"));
+    }
+
+    @Test
+    void localAndDatabaseAddressesNeverReachResolver(@TempDir Path dir) throws Exception {
+        Path data = dir.resolve("ip-country.txt");
+        Files.write(data, List.of("1.0.1.0/24,CN", "apnic|JP|ipv4|1.0.16.0|4096|20110412|allocated"), StandardCharsets.UTF_8);
+        ReflectionTestUtils.setField(database, "location", data.toUri().toString());
+        database.load();
+
+        assertEquals(Boolean.FALSE, service.peekForeignIp("127.0.0.1"));
+        assertEquals(Boolean.FALSE, service.peekForeignIp("192.168.1.10"));
+        assertEquals(Boolean.FALSE, service.peekForeignIp("1.0.1.20"));
+        assertEquals(Boolean.TRUE, service.peekForeignIp("1.0.16.1"));
+        // IPv4映射的IPv6地址按IPv4查询
+        assertEquals(Boolean.TRUE, service.peekForeignIp("::ffff:1.0.16.1"));
+        assertEquals(0, resolver.totalCalls.get());
+    }
+
+    @Test
+    void bundledDataFileResolvesKnownAddressesWithoutRemoteLookup() {
+        IpCountryDatabase bundled = new IpCountryDatabase(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(bundled, "location", "classpath:ip/ip-country.txt");
+        bundled.load();
+        assertTrue(bundled.isLoaded());
+        assertEquals("CN", bundled.lookupCountry("1.0.1.1"));
+        assertEquals("CN", bundled.lookupCountry("114.80.1.1"));
+        assertEquals("US", bundled.lookupCountry("8.8.8.8"));
+        assertEquals("JP", bundled.lookupCountry("133.1.1.1"));
+        assertEquals("CN", bundled.lookupCountry("240e::1"));
+
+        database = bundled;
+        service.shutdown();
+        service = newService(100);
+        assertEquals(Boolean.FALSE, service.peekForeignIp("1.0.1.1"));
+        assertEquals(Boolean.TRUE, service.peekForeignIp("8.8.8.8"));
+        assertEquals(0, resolver.totalCalls.get());
+    }
+
+    /**
+     * 远程解析桩：countries中有的IP返回对应国家，unknown中的IP返回null，其余抛出异常
+     */
+    private static final class StubResolver implements IpCountryResolver {
+        private final ConcurrentHashMap<String, String> countries = new ConcurrentHashMap<>();
+        private final Set<String> unknown = ConcurrentHashMap.newKeySet();
+        private final ConcurrentHashMap<String, AtomicInteger> callCounts = new ConcurrentHashMap<>();
+        private final AtomicInteger totalCalls = new AtomicInteger();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        void blockUntilReleased() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        int calls(String ip) {
+            AtomicInteger count = callCounts.get(ip);
+            return count != null ? count.get() : 0;
+        }
+
+        @Override
+        public String resolveCountry(String ipAddress) throws Exception {
+            totalCalls.incrementAndGet();
+            callCounts.computeIfAbsent(ipAddress, k -> new AtomicInteger()).incrementAndGet();
+            if (!gate.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("测试超时");
+            }
+            if (unknown.contains(ipAddress)) {
+                return null;
+            }
+            String country = countries.get(ipAddress);
+            if (country == null) {
+                throw new IllegalStateException("解析失败: " + ipAddress);
+            }
+            return country;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.philosophy.service;
+
+import com.philosophy.event.PublicContentChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 导入完成事件触发的计数校准：导入/恢复直接写表后 comment_count、like_count 被重新统计
+ */
+class LikeCountReconciliationServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LikeCountReconciliationService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:reconcile-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        service = new LikeCountReconciliationService(jdbcTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+
+        for (String table : List.of("philosophers", "schools", "users")) {
+            jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY, like_count INT)");
+        }
+        jdbcTemplate.execute("CREATE TABLE contents (id BIGINT PRIMARY KEY, like_count INT, "
+                + "comment_count INT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("CREATE TABLE comments (id BIGINT PRIMARY KEY, content_id BIGINT, like_count INT)");
+        jdbcTemplate.execute("CREATE TABLE likes (id BIGINT PRIMARY KEY, entity_type VARCHAR(20), entity_id BIGINT)");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        awaitIdle();
+        service.shutdown();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void importEventRecomputesCountsWrittenWithoutMaintenance() throws InterruptedException {
+        // 模拟原生INSERT导入：计数列保持默认值
+        jdbcTemplate.update("INSERT INTO contents (id, like_count) VALUES (1, 0), (2, 0), (3, 5)");
+        jdbcTemplate.update("INSERT INTO comments (id, content_id, like_count) VALUES "
+                + "(10, 1, 0), (11, 1, 0), (12, 1, 0), (13, 3, 0)");
+        jdbcTemplate.update("INSERT INTO likes (id, entity_type, entity_id) VALUES "
+                + "(100, 'CONTENT', 2), (101, 'COMMENT', 13)");
+
+        service.onPublicContentChanged(new PublicContentChangedEvent(PublicContentChangedEvent.Source.IMPORT, null));
+        awaitIdle();
+
+        assertEquals(List.of(3, 0, 1), jdbcTemplate.queryForList(
+                "SELECT comment_count FROM contents ORDER BY id", Integer.class));
+        assertEquals(List.of(0, 1, 0), jdbcTemplate.queryForList(
+                "SELECT like_count FROM contents ORDER BY id", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT like_count FROM comments WHERE id = 13", Integer.class));
+    }
+
+    @Test
+    void nonImportEventsDoNotStartReconciliation() {
+        jdbcTemplate.update("INSERT INTO contents (id, like_count) VALUES (1, 0)");
+        jdbcTemplate.update("INSERT INTO comments (id, content_id, like_count) VALUES (10, 1, 0)");
+
+        service.onPublicContentChanged(new PublicContentChangedEvent(PublicContentChangedEvent.Source.COMMENT, 10L));
+
+        assertFalse(service.isRunning());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT comment_count FROM contents WHERE id = 1", Integer.class));
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (service.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(service.isRunning());
+    }
+}
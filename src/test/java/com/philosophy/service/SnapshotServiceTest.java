@@ -0,0 +1,169 @@
+package com.philosophy.service;
+
+import com.philosophy.event.PublicContentChangedEvent;
+import com.philosophy.snapshot.SnapshotColumnType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 快照导出 → 读取 → 恢复的往返，在H2（MySQL兼容模式）上覆盖每一种 SnapshotColumnType
+ * 除 test_results 外的表只建一个id列；test_results 的每一列对应一种快照列类型。
+ */
+class SnapshotServiceTest {
+
+    private static final String ALL_TYPES_TABLE = "test_results";
+
+    private JdbcTemplate jdbcTemplate;
+    private SnapshotService service;
+    private List<Object> publishedEvents;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:snapshot-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        publishedEvents = new ArrayList<>();
+        service = new SnapshotService(jdbcTemplate, new DataSourceTransactionManager(dataSource), publishedEvents::add);
+
+        for (String table : SnapshotService.TABLES) {
+            if (!ALL_TYPES_TABLE.equals(table)) {
+                jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY)");
+            }
+        }
+        jdbcTemplate.execute("CREATE TABLE " + ALL_TYPES_TABLE + " ("
+                + "id BIGINT PRIMARY KEY, "
+                + "score_count INT, "
+                + "passed BOOLEAN, "
+                + "ratio DOUBLE, "
+                + "amount DECIMAL(20, 6), "
+                + "title VARCHAR(255), "
+                + "body TEXT, "
+                + "created_at TIMESTAMP(9), "
+                + "birthday DATE, "
+                + "start_time TIME(6), "
+                + "payload VARBINARY(1024))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void allTypesTableCoversEveryColumnType() {
+        Set<SnapshotColumnType> covered = EnumSet.noneOf(SnapshotColumnType.class);
+        jdbcTemplate.query("SELECT * FROM " + ALL_TYPES_TABLE + " WHERE 1 = 0", rs -> {
+            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                covered.add(SnapshotColumnType.fromSqlType(rs.getMetaData().getColumnType(i)));
+            }
+            return null;
+        });
+        assertEquals(EnumSet.allOf(SnapshotColumnType.class), covered);
+    }
+
+    @Test
+    void restoreReproducesEveryColumnTypeAndNulls() throws Exception {
+        byte[] payload = {0, 1, 2, (byte) 0xFF, (byte) 0x80};
+        jdbcTemplate.update("INSERT INTO " + ALL_TYPES_TABLE + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                1L, 42, true, 0.1, new BigDecimal("-12345678901234.000001"), "标题 \"quoted\", comma",
+                "第一行\n第二行\r\n\t😀", LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_789),
+                LocalDate.of(1724, 4, 22), LocalTime.of(8, 30, 15, 250_000_000), payload);
+        jdbcTemplate.update("INSERT INTO " + ALL_TYPES_TABLE + " (id) VALUES (2)");
+        jdbcTemplate.update("INSERT INTO " + ALL_TYPES_TABLE + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                3L, 0, false, -0.0, BigDecimal.ZERO.setScale(6), "", "",
+                LocalDateTime.of(1970, 1, 1, 0, 0), LocalDate.of(2000, 1, 1), LocalTime.MIDNIGHT, new byte[0]);
+        jdbcTemplate.update("INSERT INTO users (id) VALUES (10), (11)");
+        List<Map<String, Object>> before = selectAll();
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        List<SnapshotService.TableResult> exported = service.exportSnapshot(snapshot);
+        assertEquals(SnapshotService.TABLES.size(), exported.size());
+
+        // 恢复前修改数据，恢复后应与导出时完全一致
+        jdbcTemplate.update("DELETE FROM " + ALL_TYPES_TABLE + " WHERE id = 1");
+        jdbcTemplate.update("UPDATE " + ALL_TYPES_TABLE + " SET title = 'changed' WHERE id = 3");
+        jdbcTemplate.update("INSERT INTO " + ALL_TYPES_TABLE + " (id) VALUES (99)");
+        jdbcTemplate.update("INSERT INTO users (id) VALUES (12)");
+
+        List<SnapshotService.TableResult> restored = service.restoreSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+        assertEquals(SnapshotService.TABLES.size(), restored.size());
+        for (SnapshotService.TableResult result : restored) {
+            long expected = result.getTable().equals(ALL_TYPES_TABLE) ? 3 : result.getTable().equals("users") ? 2 : 0;
+            assertEquals(expected, result.getRows(), result.getTable());
+        }
+
+        List<Map<String, Object>> after = selectAll();
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            Map<String, Object> expectedRow = before.get(i);
+            Map<String, Object> actualRow = after.get(i);
+            assertEquals(expectedRow.keySet(), actualRow.keySet());
+            for (String column : expectedRow.keySet()) {
+                Object expected = expectedRow.get(column);
+                Object actual = actualRow.get(column);
+                if (expected instanceof byte[]) {
+                    assertArrayEquals((byte[]) expected, (byte[]) actual, column);
+                } else {
+                    assertEquals(expected, actual, column);
+                }
+            }
+        }
+        Map<String, Object> nullRow = after.get(1);
+        for (Map.Entry<String, Object> entry : nullRow.entrySet()) {
+            if (!entry.getKey().equalsIgnoreCase("id")) {
+                assertNull(entry.getValue(), entry.getKey());
+            }
+        }
+        assertEquals(List.of(10L, 11L), jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class));
+
+        assertEquals(1, publishedEvents.size());
+        PublicContentChangedEvent event = (PublicContentChangedEvent) publishedEvents.get(0);
+        assertEquals(PublicContentChangedEvent.Source.IMPORT, event.getSource());
+    }
+
+    @Test
+    void corruptedSnapshotLeavesExistingDataUntouched() throws Exception {
+        jdbcTemplate.update("INSERT INTO " + ALL_TYPES_TABLE + " (id, title) VALUES (1, 'kept')");
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        service.exportSnapshot(snapshot);
+        byte[] truncated = Arrays.copyOf(snapshot.toByteArray(), snapshot.size() - 1);
+
+        jdbcTemplate.update("UPDATE " + ALL_TYPES_TABLE + " SET title = 'current' WHERE id = 1");
+        assertThrows(IOException.class, () -> service.restoreSnapshot(new ByteArrayInputStream(truncated)));
+        assertEquals("current", jdbcTemplate.queryForObject(
+                "SELECT title FROM " + ALL_TYPES_TABLE + " WHERE id = 1", String.class));
+        assertTrue(publishedEvents.isEmpty());
+    }
+
+    private List<Map<String, Object>> selectAll() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT * FROM " + ALL_TYPES_TABLE + " ORDER BY id");
+        assertTrue(rows.size() > 0);
+        return rows;
+    }
+}
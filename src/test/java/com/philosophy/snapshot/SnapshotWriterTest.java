@@ -0,0 +1,88 @@
+package com.philosophy.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * SnapshotWriter 的分块：按行数和按估算字节数结束一个块，读回的数据与写入一致
+ */
+class SnapshotWriterTest {
+
+    private static final List<SnapshotFormat.Column> ID_AND_TEXT = List.of(
+            new SnapshotFormat.Column("id", SnapshotColumnType.LONG, Types.BIGINT),
+            new SnapshotFormat.Column("text", SnapshotColumnType.STRING, Types.VARCHAR));
+
+    @Test
+    void blockEndsAfterRowsPerBlock() throws IOException {
+        int total = SnapshotFormat.ROWS_PER_BLOCK * 2 + 3;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(bytes)) {
+            writer.beginTable("t", ID_AND_TEXT);
+            for (int i = 0; i < total; i++) {
+                writer.writeRow(new Object[]{(long) i, i % 5 == 0 ? null : "row " + i});
+            }
+            assertEquals(total, writer.endTable());
+            writer.finish();
+        }
+
+        List<Integer> blockSizes = new ArrayList<>();
+        List<Object[]> rows = readTable(bytes.toByteArray(), blockSizes);
+        assertEquals(List.of(SnapshotFormat.ROWS_PER_BLOCK, SnapshotFormat.ROWS_PER_BLOCK, 3), blockSizes);
+        assertEquals(total, rows.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals((long) i, rows.get(i)[0]);
+            assertEquals(i % 5 == 0 ? null : "row " + i, rows.get(i)[1]);
+        }
+    }
+
+    @Test
+    void blockEndsWhenEstimatedBytesReachBudget() throws IOException {
+        // 每行估算 8 + 4 + 3*100 = 312 字节，预算1000字节时每块3行
+        String text = "x".repeat(100);
+        String large = "长".repeat(2000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(bytes, 1000)) {
+            writer.beginTable("t", ID_AND_TEXT);
+            for (int i = 0; i < 7; i++) {
+                writer.writeRow(new Object[]{(long) i, text});
+            }
+            // 单行超过预算时单独成块
+            writer.writeRow(new Object[]{7L, large});
+            writer.writeRow(new Object[]{8L, null});
+            writer.endTable();
+            writer.finish();
+        }
+
+        List<Integer> blockSizes = new ArrayList<>();
+        List<Object[]> rows = readTable(bytes.toByteArray(), blockSizes);
+        assertEquals(List.of(3, 3, 1, 1, 1), blockSizes);
+        assertEquals(9, rows.size());
+        assertEquals(text, rows.get(6)[1]);
+        assertEquals(large, rows.get(7)[1]);
+        assertNull(rows.get(8)[1]);
+    }
+
+    private static List<Object[]> readTable(byte[] snapshot, List<Integer> blockSizes) throws IOException {
+        SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(snapshot));
+        assertEquals("t", reader.nextTable());
+        List<Object[]> rows = new ArrayList<>();
+        SnapshotReader.Block block;
+        while ((block = reader.nextBlock()) != null) {
+            blockSizes.add(block.getRowCount());
+            for (int r = 0; r < block.getRowCount(); r++) {
+                rows.add(new Object[]{block.getValue(r, 0), block.getValue(r, 1)});
+            }
+        }
+        assertNull(reader.nextTable());
+        return rows;
+    }
+}
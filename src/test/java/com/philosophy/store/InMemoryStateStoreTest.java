@@ -0,0 +1,18 @@
+package com.philosophy.store;
+
+import org.junit.jupiter.api.BeforeEach;
+
+class InMemoryStateStoreTest extends StateStoreContractTest {
+
+    private InMemoryStateStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryStateStore();
+    }
+
+    @Override
+    StateStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,89 @@
+package com.philosophy.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JdbcStateStore 在H2（MySQL兼容模式）上的行为，每个用例使用独立的内存数据库
+ */
+class JdbcStateStoreTest extends StateStoreContractTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcStateStore store;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:state-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        store = newStore(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    private JdbcStateStore newStore(int sweepBatchSize) {
+        JdbcStateStore created = new JdbcStateStore(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(created, "initializeSchema", true);
+        ReflectionTestUtils.setField(created, "sweepBatchSize", sweepBatchSize);
+        created.initSchema();
+        return created;
+    }
+
+    @Override
+    StateStore store() {
+        return store;
+    }
+
+    @Test
+    void schemaInitializationIsIdempotentAndKeepsRows() {
+        store.saveCodeIfResendAllowed(EMAIL, "123456", NOW, NOW + CODE_TTL, COOLDOWN);
+        JdbcStateStore second = newStore(2);
+        assertEquals("123456", second.getCode(EMAIL).getCode());
+    }
+
+    @Test
+    void sweepDeletesAllExpiredRowsAcrossBatches() {
+        for (int i = 0; i < 5; i++) {
+            store.saveCodeIfResendAllowed("user" + i + "@example.com", "111111", NOW, NOW + 100, COOLDOWN);
+            store.acquireToken("search:" + i, NOW, INTERVAL, TOLERANCE);
+        }
+        store.saveCodeIfResendAllowed(EMAIL, "222222", NOW, NOW + CODE_TTL, COOLDOWN);
+
+        // 批大小为2，需要多轮查询和删除
+        assertEquals(10, store.sweepExpired(NOW + INTERVAL));
+        assertEquals(1, count("verification_codes"));
+        assertEquals(0, count("rate_limit_buckets"));
+    }
+
+    @Test
+    void sharedDatabaseStateIsVisibleAcrossStoreInstances() {
+        // 模拟两个节点：A节点发送的验证码在B节点消费，令牌桶额度也共享
+        JdbcStateStore other = newStore(2);
+        store.saveCodeIfResendAllowed(EMAIL, "123456", NOW, NOW + CODE_TTL, COOLDOWN);
+        assertEquals(COOLDOWN, other.saveCodeIfResendAllowed(EMAIL, "654321", NOW, NOW + CODE_TTL, COOLDOWN));
+        assertTrue(other.consumeCode(EMAIL, "123456"));
+
+        for (int i = 0; i < 3; i++) {
+            (i % 2 == 0 ? store : other).acquireToken("login:x", NOW, INTERVAL, TOLERANCE);
+        }
+        assertEquals(INTERVAL, other.acquireToken("login:x", NOW, INTERVAL, TOLERANCE));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,190 @@
+package com.philosophy.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StateStore 各实现共同遵守的行为：验证码冷却与一次性消费、GCRA令牌桶、过期清理
+ * 子类提供具体的存储实例，并发用例确认“判断并修改”在实现内部是原子的。
+ */
+abstract class StateStoreContractTest {
+
+    static final String EMAIL = "reader@example.com";
+    static final long NOW = 1_000_000L;
+    static final long CODE_TTL = 300_000L;
+    static final long COOLDOWN = 60_000L;
+
+    // 容量3、周期3秒：每秒恢复一个令牌，可突发3次
+    static final long INTERVAL = 1_000L;
+    static final long TOLERANCE = 2_000L;
+
+    abstract StateStore store();
+
+    @Test
+    void resendWithinCooldownKeepsExistingCode() {
+        assertEquals(0, store().saveCodeIfResendAllowed(EMAIL, "111111", NOW, NOW + CODE_TTL, COOLDOWN));
+
+        long remaining = store().saveCodeIfResendAllowed(EMAIL, "222222", NOW + 20_000, NOW + 20_000 + CODE_TTL, COOLDOWN);
+        assertEquals(40_000, remaining);
+        assertEquals("111111", store().getCode(EMAIL).getCode());
+    }
+
+    @Test
+    void resendAfterCooldownReplacesCodeAndResetsAttempts() {
+        store().saveCodeIfResendAllowed(EMAIL, "111111", NOW, NOW + CODE_TTL, COOLDOWN);
+        assertEquals(1, store().incrementCodeAttempts(EMAIL));
+        assertEquals(2, store().incrementCodeAttempts(EMAIL));
+
+        long later = NOW + COOLDOWN;
+        assertEquals(0, store().saveCodeIfResendAllowed(EMAIL, "222222", later, later + CODE_TTL, COOLDOWN));
+        StateStore.CodeRecord record = store().getCode(EMAIL);
+        assertEquals("222222", record.getCode());
+        assertEquals(later + CODE_TTL, record.getExpiresAt());
+        assertEquals(later, record.getLastSentAt());
+        assertEquals(0, record.getVerifyAttempts());
+    }
+
+    @Test
+    void incrementAttemptsOnMissingCodeReturnsMinusOne() {
+        assertEquals(-1, store().incrementCodeAttempts("nobody@example.com"));
+    }
+
+    @Test
+    void concurrentAttemptIncrementsEachSeeTheirOwnCount() throws Exception {
+        store().saveCodeIfResendAllowed(EMAIL, "123456", NOW, NOW + CODE_TTL, COOLDOWN);
+
+        List<Integer> counts = runConcurrently(8, () -> store().incrementCodeAttempts(EMAIL));
+        assertEquals(Set.of(1, 2, 3, 4, 5, 6, 7, 8), new HashSet<>(counts));
+        assertEquals(8, store().getCode(EMAIL).getVerifyAttempts());
+    }
+
+    @Test
+    void codeIsConsumedOnlyOnceAndOnlyWhenMatching() {
+        store().saveCodeIfResendAllowed(EMAIL, "123456", NOW, NOW + CODE_TTL, COOLDOWN);
+
+        assertFalse(store().consumeCode(EMAIL, "654321"));
+        assertNotNull(store().getCode(EMAIL));
+
+        assertTrue(store().consumeCode(EMAIL, "123456"));
+        assertFalse(store().consumeCode(EMAIL, "123456"));
+        assertNull(store().getCode(EMAIL));
+    }
+
+    @Test
+    void concurrentConsumesLetExactlyOneCallerUseTheCode() throws Exception {
+        store().saveCodeIfResendAllowed(EMAIL, "123456", NOW, NOW + CODE_TTL, COOLDOWN);
+
+        List<Boolean> results = runConcurrently(16, () -> store().consumeCode(EMAIL, "123456"));
+        assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+    }
+
+    @Test
+    void concurrentSavesWithinCooldownStoreOnlyOneCode() throws Exception {
+        List<Long> results = runConcurrently(16, () ->
+                store().saveCodeIfResendAllowed(EMAIL, String.valueOf(Thread.currentThread().getId()),
+                        NOW, NOW + CODE_TTL, COOLDOWN));
+        assertEquals(1, results.stream().filter(remaining -> remaining == 0).count());
+    }
+
+    @Test
+    void bucketAllowsBurstThenRefillsOneTokenPerInterval() {
+        String key = "login:203.0.113.1";
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, store().acquireToken(key, NOW, INTERVAL, TOLERANCE));
+        }
+        assertEquals(INTERVAL, store().acquireToken(key, NOW, INTERVAL, TOLERANCE));
+        // 被拒绝的请求不消耗令牌
+        assertEquals(INTERVAL / 2, store().acquireToken(key, NOW + INTERVAL / 2, INTERVAL, TOLERANCE));
+
+        assertEquals(0, store().acquireToken(key, NOW + INTERVAL, INTERVAL, TOLERANCE));
+        assertTrue(store().acquireToken(key, NOW + INTERVAL, INTERVAL, TOLERANCE) > 0);
+    }
+
+    @Test
+    void bucketsAreIndependentPerKey() {
+        for (int i = 0; i < 3; i++) {
+            store().acquireToken("login:a", NOW, INTERVAL, TOLERANCE);
+        }
+        assertTrue(store().acquireToken("login:a", NOW, INTERVAL, TOLERANCE) > 0);
+        assertEquals(0, store().acquireToken("login:b", NOW, INTERVAL, TOLERANCE));
+    }
+
+    @Test
+    void refundReturnsOneToken() {
+        String key = "send-code:203.0.113.2";
+        for (int i = 0; i < 3; i++) {
+            store().acquireToken(key, NOW, INTERVAL, TOLERANCE);
+        }
+        assertTrue(store().acquireToken(key, NOW, INTERVAL, TOLERANCE) > 0);
+
+        store().refundToken(key, INTERVAL);
+        assertEquals(0, store().acquireToken(key, NOW, INTERVAL, TOLERANCE));
+        assertTrue(store().acquireToken(key, NOW, INTERVAL, TOLERANCE) > 0);
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedCapacity() throws Exception {
+        String key = "like-toggle:203.0.113.3";
+        List<Long> results = runConcurrently(24, () -> store().acquireToken(key, NOW, INTERVAL, TOLERANCE));
+        assertEquals(3, results.stream().filter(wait -> wait == 0).count());
+    }
+
+    @Test
+    void sweepRemovesExpiredCodesAndFullBucketsOnly() {
+        store().saveCodeIfResendAllowed("old@example.com", "111111", NOW, NOW + 100, COOLDOWN);
+        store().saveCodeIfResendAllowed(EMAIL, "222222", NOW, NOW + CODE_TTL, COOLDOWN);
+        store().acquireToken("idle", NOW, INTERVAL, TOLERANCE);
+        for (int i = 0; i < 3; i++) {
+            store().acquireToken("busy", NOW + 500, INTERVAL, TOLERANCE);
+        }
+
+        // idle 令牌桶在 NOW+1000 恢复为满，busy 要到 NOW+3500
+        assertEquals(2, store().sweepExpired(NOW + 1_000));
+
+        assertNull(store().getCode("old@example.com"));
+        assertNotNull(store().getCode(EMAIL));
+        assertTrue(store().acquireToken("busy", NOW + 1_000, INTERVAL, TOLERANCE) > 0);
+        assertEquals(0, store().sweepExpired(NOW + 1_000));
+    }
+
+    /**
+     * 多个线程在同一时刻开始执行同一操作，返回每个线程的结果
+     */
+    static <T> List<T> runConcurrently(int threads, Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}